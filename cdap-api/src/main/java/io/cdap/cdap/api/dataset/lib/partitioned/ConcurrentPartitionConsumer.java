@@ -96,8 +96,7 @@ public class ConcurrentPartitionConsumer extends AbstractPartitionConsumer {
   @Override
   public void untake(ConsumerWorkingSet workingSet, List<? extends PartitionKey> partitionKeys) {
     doExpiry(workingSet);
-    for (PartitionKey key : partitionKeys) {
-      ConsumablePartition consumablePartition = workingSet.lookup(key);
+    for (ConsumablePartition consumablePartition : workingSet.lookupAll(partitionKeys)) {
       // don't need to assertInProgress because untake() already does that
       consumablePartition.untake();
     }
@@ -107,11 +106,10 @@ public class ConcurrentPartitionConsumer extends AbstractPartitionConsumer {
    * Removes the given partition keys from the working set, as they have been successfully processed.
    */
   protected void commit(ConsumerWorkingSet workingSet, List<? extends PartitionKey> partitionKeys) {
-    for (PartitionKey key : partitionKeys) {
-      ConsumablePartition consumablePartition = workingSet.lookup(key);
+    for (ConsumablePartition consumablePartition : workingSet.lookupAll(partitionKeys)) {
       assertInProgress(consumablePartition);
-      workingSet.remove(key);
     }
+    workingSet.removeAll(partitionKeys);
   }
 
   /**
@@ -120,15 +118,14 @@ public class ConcurrentPartitionConsumer extends AbstractPartitionConsumer {
    */
   protected void abort(ConsumerWorkingSet workingSet, List<? extends PartitionKey> partitionKeys) {
     List<PartitionKey> discardedPartitions = new ArrayList<>();
-    for (PartitionKey key : partitionKeys) {
-      ConsumablePartition consumablePartition = workingSet.lookup(key);
+    for (ConsumablePartition consumablePartition : workingSet.lookupAll(partitionKeys)) {
       assertInProgress(consumablePartition);
       // either reset its processState, or remove it from the workingSet, depending on how many tries it already has
       if (consumablePartition.getNumFailures() < getConfiguration().getMaxRetries()) {
         consumablePartition.retry();
       } else {
-        discardedPartitions.add(key);
-        workingSet.lookup(key).discard();
+        discardedPartitions.add(consumablePartition.getPartitionKey());
+        consumablePartition.discard();
       }
     }
     if (!discardedPartitions.isEmpty()) {
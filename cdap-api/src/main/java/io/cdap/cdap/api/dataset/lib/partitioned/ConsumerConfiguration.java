@@ -18,6 +18,7 @@ package io.cdap.cdap.api.dataset.lib.partitioned;
 
 import io.cdap.cdap.api.Predicate;
 import io.cdap.cdap.api.dataset.lib.PartitionDetail;
+import io.cdap.cdap.api.dataset.lib.PartitionKey;
 
 import java.util.concurrent.TimeUnit;
 
@@ -34,23 +35,57 @@ public class ConsumerConfiguration {
   private final int maxWorkingSetSize;
   private final long timeout;
   private final int maxRetries;
+  private final int shard;
+  private final int numShards;
 
   private ConsumerConfiguration(Predicate<PartitionDetail> partitionPredicate,
-                                int maxWorkingSetSize, long timeout, int maxRetries) {
-    this.partitionPredicate = partitionPredicate;
+                                int maxWorkingSetSize, long timeout, int maxRetries, int shard, int numShards) {
+    this.partitionPredicate = numShards == 1
+      ? partitionPredicate
+      : input -> getShard(input.getPartitionKey(), numShards) == shard && partitionPredicate.apply(input);
     this.maxWorkingSetSize = maxWorkingSetSize;
     this.timeout = timeout;
     this.maxRetries = maxRetries;
+    this.shard = shard;
+    this.numShards = numShards;
   }
 
   /**
    * @return A predicate to be applied on {@link PartitionDetail}s to determine which partitions to include in the
-   *         partition consumption.
+   *         partition consumption. If the consumer is configured with more than one shard, the predicate only accepts
+   *         partitions of the configured shard.
    */
   public Predicate<PartitionDetail> getPartitionPredicate() {
     return partitionPredicate;
   }
 
+  /**
+   * @return The shard of partitions consumed by the consumer, between {@code 0} and {@link #getNumShards()}
+   *         (exclusive).
+   */
+  public int getShard() {
+    return shard;
+  }
+
+  /**
+   * @return The number of shards that partitions are split into. Each partition belongs to exactly one shard.
+   */
+  public int getNumShards() {
+    return numShards;
+  }
+
+  /**
+   * Returns the shard that the given partition belongs to.
+   *
+   * @param partitionKey the key of the partition
+   * @param numShards the number of shards
+   * @return the shard, between {@code 0} and {@code numShards} (exclusive)
+   */
+  public static int getShard(PartitionKey partitionKey, int numShards) {
+    // PartitionKey hash code is derived from the hash codes of String, Integer and Long, hence is stable across JVMs
+    return Math.floorMod(partitionKey.hashCode(), numShards);
+  }
+
   /**
    * @return An upper bound on the size of the working set of partitions that get serialized as part of the consumer's
    *         state.
@@ -96,6 +131,8 @@ public class ConsumerConfiguration {
     // 12 hour timeout
     private long timeout = TimeUnit.HOURS.toSeconds(12);
     private int maxRetries = 1;
+    private int shard = 0;
+    private int numShards = 1;
 
     private Builder() {
     }
@@ -132,12 +169,31 @@ public class ConsumerConfiguration {
       return this;
     }
 
+    /**
+     * Sets the shard of partitions to consume. Partitions are split into the given number of disjoint shards by their
+     * partition keys, and the consumer only consumes partitions of the given shard. Parallel workers can consume
+     * disjoint sets of partitions by each using a different shard with a separate {@link StatePersistor}, such that
+     * they never conflict on the same consumer state. See {@link #getShard()} and {@link #getNumShards()}.
+     */
+    public Builder setShard(int shard, int numShards) {
+      if (numShards <= 0) {
+        throw new IllegalArgumentException("Number of shards must be positive: " + numShards);
+      }
+      if (shard < 0 || shard >= numShards) {
+        throw new IllegalArgumentException(String.format("Shard must be between 0 and %d (exclusive): %d",
+                                                         numShards, shard));
+      }
+      this.shard = shard;
+      this.numShards = numShards;
+      return this;
+    }
+
     /**
      * Create a ConsumerConfiguration from this builder, using the private ConsumerConfiguration
      * constructor.
      */
     public ConsumerConfiguration build() {
-      return new ConsumerConfiguration(partitionPredicate, maxWorkingSetSize, timeout, maxRetries);
+      return new ConsumerConfiguration(partitionPredicate, maxWorkingSetSize, timeout, maxRetries, shard, numShards);
     }
   }
 }
@@ -25,7 +25,12 @@ import io.cdap.cdap.api.dataset.lib.PartitionedFileSet;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Keeps track of a list of partitions that are either available for consuming or are currently being consumed.
@@ -93,6 +98,37 @@ public class ConsumerWorkingSet {
     throw new IllegalArgumentException("PartitionKey not found: " + partitionKey);
   }
 
+  /**
+   * Looks up multiple partitions with a single pass over the working set.
+   *
+   * @return the ConsumablePartitions with the given PartitionKeys, from the working set, in the order of the keys
+   * @throws IllegalArgumentException if any of the PartitionKeys is not in the working set
+   */
+  public List<ConsumablePartition> lookupAll(List<? extends PartitionKey> partitionKeys) {
+    Map<PartitionKey, ConsumablePartition> partitionsByKey = new HashMap<>();
+    for (ConsumablePartition partition : partitions) {
+      partitionsByKey.put(partition.getPartitionKey(), partition);
+    }
+    List<ConsumablePartition> result = new ArrayList<>(partitionKeys.size());
+    for (PartitionKey partitionKey : partitionKeys) {
+      ConsumablePartition partition = partitionsByKey.get(partitionKey);
+      if (partition == null) {
+        throw new IllegalArgumentException("PartitionKey not found: " + partitionKey);
+      }
+      result.add(partition);
+    }
+    return result;
+  }
+
+  /**
+   * Removes the partitions with the given PartitionKeys from the working set, with a single pass over the working set.
+   * PartitionKeys that are not in the working set are ignored.
+   */
+  public void removeAll(Collection<? extends PartitionKey> partitionKeys) {
+    Set<PartitionKey> keys = new HashSet<>(partitionKeys);
+    partitions.removeIf(partition -> keys.contains(partition.getPartitionKey()));
+  }
+
   /**
    * Populates the ConsumerWorkingSet by fetching partitions from the given PartitionedFileSet.
    *
@@ -47,6 +47,15 @@ public class TableProperties {
   @Beta
   public static final String PROPERTY_TABLE_PERMISSIONS = "dataset.table.permissions.grants";
 
+  /**
+   * Set the size in bytes at which the writes buffered by a transaction are persisted before the transaction
+   * commits, to bound the memory used by transactions that write a lot of data. Conflict detection and rollback
+   * still cover all the writes of the transaction. A zero or negative value means writes are only persisted on commit.
+   * This has no effect on tables with read-less increments enabled.
+   */
+  @Beta
+  public static final String PROPERTY_BUFFER_SPILL_SIZE = "dataset.table.buffer.spill.size";
+
   /**
    * Set a conflict detection level in dataset properties.
    */
@@ -105,6 +114,30 @@ public class TableProperties {
     return "true".equalsIgnoreCase(props.get(Table.PROPERTY_READLESS_INCREMENT));
   }
 
+  /**
+   * Set the size in bytes at which buffered writes are persisted before the transaction commits.
+   * A zero or negative value means writes are only persisted on commit.
+   */
+  @Beta
+  public static void setBufferSpillSize(DatasetProperties.Builder builder, long size) {
+    builder.add(PROPERTY_BUFFER_SPILL_SIZE, size);
+  }
+
+  /**
+   * @return the size in bytes at which buffered writes are persisted before the transaction commits,
+   *         or 0 if they are only persisted on commit.
+   *
+   * @throws NumberFormatException if the value is not a valid long.
+   */
+  @Beta
+  public static long getBufferSpillSize(Map<String, String> props) {
+    String stringValue = props.get(PROPERTY_BUFFER_SPILL_SIZE);
+    if (stringValue == null) {
+      return 0L;
+    }
+    return Math.max(0L, Long.parseLong(stringValue));
+  }
+
   /**
    * Set the table TTL, in seconds, in dataset properties. A zero or negative value means no TTL.
    */
@@ -320,6 +353,16 @@ public class TableProperties {
       return (B) this;
     }
 
+    /**
+     * Set the size in bytes at which buffered writes are persisted before the transaction commits.
+     */
+    @Beta
+    @SuppressWarnings("unchecked")
+    public B setBufferSpillSize(long size) {
+      TableProperties.setBufferSpillSize(this, size);
+      return (B) this;
+    }
+
     /**
      * Set the schema of a table.
      */
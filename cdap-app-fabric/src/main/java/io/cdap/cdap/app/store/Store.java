@@ -258,6 +258,15 @@ public interface Store {
    */
   Map<ProgramId, Collection<RunRecordDetail>> getActiveRuns(Collection<ProgramId> programIds);
 
+  /**
+   * Fetches the number of active runs by run status for a set of programs, without reading the run records.
+   *
+   * @param programIds collection of program ids for fetching the active run counts
+   * @return a {@link Map} from the {@link ProgramId} to the number of active runs for each {@link ProgramRunStatus};
+   * there will be no entry for programs that do not exist.
+   */
+  Map<ProgramId, Map<ProgramRunStatus, Long>> getActiveRunCounts(Collection<ProgramId> programIds);
+
   /**
    * Fetches the run record for particular run of a program.
    *
@@ -17,6 +17,7 @@
 package io.cdap.cdap.internal.app.preview;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.Closeables;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.Service;
 import com.google.gson.JsonElement;
@@ -109,6 +110,7 @@ import org.apache.twill.discovery.DiscoveryServiceClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.List;
@@ -202,6 +204,10 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
     stopQuietly(logSubscriberService);
     logAppender.stop();
     stopQuietly(metricsCollectionService);
+    LogReader logReader = previewInjector.getInstance(LogReader.class);
+    if (logReader instanceof Closeable) {
+      Closeables.closeQuietly((Closeable) logReader);
+    }
     previewLevelDBTableService.close();
   }
 
@@ -52,6 +52,7 @@ public final class DirectRuntimeRequestValidator implements RuntimeRequestValida
 
   private static final Logger LOG = LoggerFactory.getLogger(DirectRuntimeRequestValidator.class);
 
+  private final CConfiguration cConf;
   private final TransactionRunner txRunner;
   private final ProgramRunRecordFetcher runRecordFetcher;
   private final LoadingCache<ProgramRunId, Boolean> programRunsCache;
@@ -62,6 +63,7 @@ public final class DirectRuntimeRequestValidator implements RuntimeRequestValida
   DirectRuntimeRequestValidator(CConfiguration cConf, TransactionRunner txRunner,
                                 ProgramRunRecordFetcher runRecordFetcher,
                                 AccessEnforcer accessEnforcer, AuthenticationContext authenticationContext) {
+    this.cConf = cConf;
     this.txRunner = txRunner;
     this.runRecordFetcher = runRecordFetcher;
     this.accessEnforcer = accessEnforcer;
@@ -129,7 +131,7 @@ public final class DirectRuntimeRequestValidator implements RuntimeRequestValida
 
     try {
       TransactionRunners.run(txRunner, context -> {
-        AppMetadataStore store = AppMetadataStore.create(context);
+        AppMetadataStore store = AppMetadataStore.create(context, cConf);
         // Strip off user args and trim down system args as runtime only needs the run status for validation purpose.
         // User and system args could be large and store them in local store can lead to unnecessary storage
         // and processing overhead.
@@ -58,6 +58,8 @@ public class RuntimeProgramStatusSubscriberService extends AbstractNotificationS
   private static final Logger LOG = LoggerFactory.getLogger(RuntimeProgramStatusSubscriberService.class);
   private static final Gson GSON = new Gson();
 
+  private final CConfiguration cConf;
+
   @Inject
   RuntimeProgramStatusSubscriberService(CConfiguration cConf, MessagingService messagingService,
                                         MetricsCollectionService metricsCollectionService,
@@ -67,6 +69,7 @@ public class RuntimeProgramStatusSubscriberService extends AbstractNotificationS
           cConf.getInt(Constants.AppFabric.STATUS_EVENT_FETCH_SIZE),
           cConf.getLong(Constants.AppFabric.STATUS_EVENT_POLL_DELAY_MILLIS),
           messagingService, metricsCollectionService, transactionRunner);
+    this.cConf = cConf;
   }
 
   @Nullable
@@ -184,6 +187,6 @@ public class RuntimeProgramStatusSubscriberService extends AbstractNotificationS
    * Returns an instance of {@link AppMetadataStore}.
    */
   private AppMetadataStore getAppMetadataStore(StructuredTableContext context) {
-    return AppMetadataStore.create(context);
+    return AppMetadataStore.create(context, cConf);
   }
 }
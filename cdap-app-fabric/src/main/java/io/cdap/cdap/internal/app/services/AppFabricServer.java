@@ -135,6 +135,13 @@ public class AppFabricServer extends AbstractIdleService {
     LoggingContextAccessor.setLoggingContext(new ServiceLoggingContext(NamespaceId.SYSTEM.getNamespace(),
                                                                        Constants.Logging.COMPONENT_NAME,
                                                                        Constants.Service.APP_FABRIC_HTTP));
+    // Compute the active run counts of existing run records before any service starts writing run records
+    TransactionRunners.run(transactionRunner, context -> {
+      if (AppMetadataStore.create(context).upgradeActiveRunCounts()) {
+        LOG.info("Computed active run counts from existing run records");
+      }
+    });
+
     Futures.allAsList(
       ImmutableList.of(
         provisioningService.start(),
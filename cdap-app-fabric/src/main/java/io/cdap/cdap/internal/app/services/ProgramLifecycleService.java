@@ -193,7 +193,7 @@ public class ProgramLifecycleService {
     List<ProgramId> filteredIds = programIds.stream().filter(visibleEntities::contains).collect(Collectors.toList());
 
     Map<ProgramId, ProgramStatus> result = new HashMap<>();
-    for (Map.Entry<ProgramId, Collection<RunRecordDetail>> entry : store.getActiveRuns(filteredIds).entrySet()) {
+    for (Map.Entry<ProgramId, Map<ProgramRunStatus, Long>> entry : store.getActiveRunCounts(filteredIds).entrySet()) {
       result.put(entry.getKey(), getProgramStatus(entry.getValue()));
     }
     return result;
@@ -361,7 +361,8 @@ public class ProgramLifecycleService {
       throw new NotFoundException(programId);
     }
 
-    return getProgramStatus(store.getActiveRuns(programId).values());
+    return getProgramStatus(store.getActiveRunCounts(Collections.singleton(programId))
+                              .getOrDefault(programId, Collections.emptyMap()));
   }
 
   /**
@@ -386,6 +387,25 @@ public class ProgramLifecycleService {
     return hasStarting ? ProgramStatus.STARTING : ProgramStatus.STOPPED;
   }
 
+  /**
+   * Returns the program status based on the number of active runs of a program by run status.
+   * It follows the same rules as {@link #getProgramStatus(Collection)}.
+   *
+   * @param activeRunCounts number of active runs of the program by run status
+   * @return the program status
+   */
+  static ProgramStatus getProgramStatus(Map<ProgramRunStatus, Long> activeRunCounts) {
+    if (activeRunCounts.getOrDefault(ProgramRunStatus.RUNNING, 0L) > 0
+      || activeRunCounts.getOrDefault(ProgramRunStatus.SUSPENDED, 0L) > 0) {
+      return ProgramStatus.RUNNING;
+    }
+    if (activeRunCounts.getOrDefault(ProgramRunStatus.STARTING, 0L) > 0
+      || activeRunCounts.getOrDefault(ProgramRunStatus.PENDING, 0L) > 0) {
+      return ProgramStatus.STARTING;
+    }
+    return ProgramStatus.STOPPED;
+  }
+
   /**
    * Returns the {@link ProgramSpecification} for the specified {@link ProgramId program}.
    *
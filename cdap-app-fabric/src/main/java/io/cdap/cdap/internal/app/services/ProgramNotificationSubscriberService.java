@@ -106,6 +106,7 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
     SchedulableProgramType.SPARK, ProgramType.SPARK
   );
 
+  private final CConfiguration cConf;
   private final String recordedProgramStatusPublishTopic;
   private final ProvisionerNotifier provisionerNotifier;
   private final ProgramLifecycleService programLifecycleService;
@@ -126,6 +127,7 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
           cConf.getInt(Constants.AppFabric.STATUS_EVENT_FETCH_SIZE),
           cConf.getLong(Constants.AppFabric.STATUS_EVENT_POLL_DELAY_MILLIS),
           messagingService, metricsCollectionService, transactionRunner);
+    this.cConf = cConf;
     this.recordedProgramStatusPublishTopic = cConf.get(Constants.AppFabric.PROGRAM_STATUS_RECORD_EVENT_TOPIC);
     this.provisionerNotifier = provisionerNotifier;
     this.programLifecycleService = programLifecycleService;
@@ -194,7 +196,7 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
   private List<Runnable> processNotification(ProgramHeartbeatTable programHeartbeatTable,
                                              byte[] messageIdBytes, Notification notification,
                                              StructuredTableContext context) throws Exception {
-    AppMetadataStore appMetadataStore = AppMetadataStore.create(context);
+    AppMetadataStore appMetadataStore = AppMetadataStore.create(context, cConf);
     Map<String, String> properties = notification.getProperties();
     // Required parameters
     String programRun = properties.get(ProgramOptionConstants.PROGRAM_RUN_ID);
@@ -695,6 +697,6 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
    * Returns an instance of {@link AppMetadataStore}.
    */
   private AppMetadataStore getAppMetadataStore(StructuredTableContext context) {
-    return AppMetadataStore.create(context);
+    return AppMetadataStore.create(context, cConf);
   }
 }
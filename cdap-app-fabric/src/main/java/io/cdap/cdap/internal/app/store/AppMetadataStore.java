@@ -34,6 +34,7 @@ import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.workflow.WorkflowToken;
 import io.cdap.cdap.common.BadRequestException;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
@@ -70,6 +71,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -80,7 +82,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
@@ -99,6 +100,14 @@ import javax.annotation.Nullable;
  * The run count will have the row key of format:
  * runRecordCount|namespace|app|version|programtype|program
  *
+ * The number of active runs are maintained together with the active run records, such that they can be looked up
+ * without scanning the run records. They have the row keys of format:
+ *
+ * runRecordActiveCount.status|namespace|app|version|programtype|program
+ *
+ * There is no namespace level count, as it would be updated by every run state transition in the namespace.
+ * The number of active runs of a namespace is the sum of the program counts.
+ *
  * These rows get deleted whenever state changes, with a new record written on top. In addition, workflow node state
  * is stored as:
  *
@@ -113,6 +122,9 @@ public class AppMetadataStore {
 
   private static final Logger LOG = LoggerFactory.getLogger(AppMetadataStore.class);
   private static final Gson GSON = ApplicationSpecificationAdapter.addTypeAdapters(new GsonBuilder()).create();
+  // For decoding the shared instances cached by ApplicationMetaCache
+  private static final Gson CACHE_GSON = ApplicationMetaCache.addTypeAdapters(
+    ApplicationSpecificationAdapter.addTypeAdapters(new GsonBuilder())).create();
   private static final Type MAP_STRING_STRING_TYPE = new TypeToken<Map<String, String>>() { }.getType();
 
   private static final String TYPE_RUN_RECORD_ACTIVE = "runRecordActive";
@@ -121,6 +133,9 @@ public class AppMetadataStore {
 
   private static final String TYPE_COUNT = "runRecordCount";
   private static final String TYPE_RUN_RECORD_UPGRADE_COUNT = "runRecordUpgradeCount";
+  private static final String TYPE_RUN_RECORD_ACTIVE_COUNT = "runRecordActiveCount";
+  // Marker row to indicate the active run counts were computed from the existing active run records
+  private static final String TYPE_RUN_RECORD_ACTIVE_COUNT_INIT = "runRecordActiveCountInit";
   private static final String SMALLEST_POSSIBLE_STRING = "";
 
   private static final Map<ProgramRunStatus, String> STATUS_TYPE_MAP = ImmutableMap.<ProgramRunStatus, String>builder()
@@ -134,7 +149,16 @@ public class AppMetadataStore {
     .put(ProgramRunStatus.REJECTED, TYPE_RUN_RECORD_COMPLETED)
     .build();
 
+  private static final Set<ProgramRunStatus> ACTIVE_STATUSES = STATUS_TYPE_MAP.entrySet().stream()
+    .filter(e -> TYPE_RUN_RECORD_ACTIVE.equals(e.getValue()))
+    .map(Map.Entry::getKey)
+    .collect(Collectors.collectingAndThen(Collectors.toSet(), Collections::unmodifiableSet));
+
   private final StructuredTableContext context;
+  @Nullable
+  private final ApplicationMetaCache appMetaCache;
+  // Whether to write run records with RunRecordDetailCodec instead of JSON
+  private final boolean binaryRunRecords;
   private StructuredTable applicationSpecificationTable;
   private StructuredTable workflowNodeStateTable;
   private StructuredTable runRecordsTable;
@@ -143,14 +167,36 @@ public class AppMetadataStore {
   private StructuredTable subscriberStateTable;
 
   /**
-   * Static method for creating an instance of {@link AppMetadataStore}.
+   * Static method for creating an instance of {@link AppMetadataStore}. Run records written through the returned
+   * instance are always stored as JSON, so callers that write run records should use
+   * {@link #create(StructuredTableContext, CConfiguration)} instead. Run records are readable in either format.
    */
   public static AppMetadataStore create(StructuredTableContext context) {
-    return new AppMetadataStore(context);
+    return new AppMetadataStore(context, null, false);
+  }
+
+  /**
+   * Static method for creating an instance of {@link AppMetadataStore} that writes run records in the format
+   * configured by {@link Constants.AppFabric#RUN_RECORD_BINARY_FORMAT_ENABLED}.
+   */
+  public static AppMetadataStore create(StructuredTableContext context, CConfiguration cConf) {
+    return new AppMetadataStore(context, null, cConf.getBoolean(Constants.AppFabric.RUN_RECORD_BINARY_FORMAT_ENABLED));
+  }
+
+  /**
+   * Static method for creating an instance of {@link AppMetadataStore} that uses the given cache for decoding
+   * application specifications.
+   */
+  static AppMetadataStore create(StructuredTableContext context, @Nullable ApplicationMetaCache appMetaCache,
+                                 boolean binaryRunRecords) {
+    return new AppMetadataStore(context, appMetaCache, binaryRunRecords);
   }
 
-  private AppMetadataStore(StructuredTableContext context) {
+  private AppMetadataStore(StructuredTableContext context, @Nullable ApplicationMetaCache appMetaCache,
+                           boolean binaryRunRecords) {
     this.context = context;
+    this.appMetaCache = appMetaCache;
+    this.binaryRunRecords = binaryRunRecords;
   }
 
   private StructuredTable getApplicationSpecificationTable() {
@@ -228,8 +274,8 @@ public class AppMetadataStore {
   public ApplicationMeta getApplication(String namespaceId, String appId, String versionId) throws IOException {
     List<Field<?>> fields = getApplicationPrimaryKeys(namespaceId, appId, versionId);
     return getApplicationSpecificationTable().read(fields)
-      .map(r -> GSON.fromJson(r.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD),
-                              ApplicationMeta.class))
+      .map(r -> decodeApplicationMeta(new ApplicationId(namespaceId, appId, versionId),
+                                      r.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD)))
       .orElse(null);
   }
 
@@ -261,12 +307,7 @@ public class AppMetadataStore {
   }
 
   public List<ApplicationMeta> getAllApplications(String namespaceId) throws IOException {
-    return
-      scanWithRange(
-        getNamespaceRange(namespaceId),
-        ApplicationMeta.class,
-        getApplicationSpecificationTable(),
-        StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD);
+    return scanApplicationMetas(getNamespaceRange(namespaceId));
   }
 
   public long getApplicationCount() throws IOException {
@@ -282,11 +323,7 @@ public class AppMetadataStore {
   }
 
   public List<ApplicationMeta> getAllAppVersions(String namespaceId, String appId) throws IOException {
-    return scanWithRange(
-      getNamespaceAndApplicationRange(namespaceId, appId),
-      ApplicationMeta.class,
-      getApplicationSpecificationTable(),
-      StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD);
+    return scanApplicationMetas(getNamespaceAndApplicationRange(namespaceId, appId));
   }
 
   public List<ApplicationId> getAllAppVersionsAppIds(String namespaceId, String appId) throws IOException {
@@ -319,8 +356,8 @@ public class AppMetadataStore {
 
     for (StructuredRow row : getApplicationSpecificationTable().multiRead(multiKeys)) {
       ApplicationId appId = getApplicationIdFromRow(row);
-      result.put(appId, GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD),
-                                      ApplicationMeta.class));
+      result.put(appId, decodeApplicationMeta(appId,
+                                              row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD)));
     }
 
     return result;
@@ -448,9 +485,8 @@ public class AppMetadataStore {
       // Update the parent Workflow run record by adding node id and program run id in the properties
       Map<String, String> properties = new HashMap<>(record.getProperties());
       properties.put(workflowNodeId, programRunId.getRun());
-      writeToStructuredTableWithPrimaryKeys(
-        runRecordFields, RunRecordDetail.builder(record).setProperties(properties).setSourceId(sourceId).build(),
-        getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+      writeRunRecordData(runRecordFields,
+                         RunRecordDetail.builder(record).setProperties(properties).setSourceId(sourceId).build());
     }
   }
 
@@ -565,8 +601,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.PROVISIONED, programRunId);
     return meta;
   }
@@ -605,8 +640,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONING, programRunId);
     return meta;
   }
@@ -646,8 +680,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONED, programRunId);
     return meta;
   }
@@ -686,8 +719,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.ORPHANED, programRunId);
     return meta;
   }
@@ -738,12 +770,75 @@ public class AppMetadataStore {
   private void writeNewRunRecord(RunRecordDetail meta, String typeRunRecordCompleted) throws IOException {
     List<Field<?>> fields = getProgramRunInvertedTimeKey(typeRunRecordCompleted,
                                                          meta.getProgramRunId(), meta.getStartTs());
-    writeToStructuredTableWithPrimaryKeys(fields, meta, getRunRecordsTable(),
-                                          StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(fields, meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, meta.getProgramRunId().getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
   }
 
+  /**
+   * Writes a {@link RunRecordDetail} with the given key and updates the active run counts.
+   */
+  private void writeRunRecord(List<Field<?>> key, RunRecordDetail meta) throws IOException {
+    writeRunRecordData(key, meta);
+    updateActiveRunCounts(meta, 1L);
+  }
+
+  /**
+   * Adds the given delta to the active run count of the program of the given run record.
+   * This method does nothing if the run record is not active.
+   */
+  private void updateActiveRunCounts(RunRecordDetail record, long delta) throws IOException {
+    if (!ACTIVE_STATUSES.contains(record.getStatus())) {
+      return;
+    }
+    getProgramCountsTable().increment(
+      getProgramCountPrimaryKeys(getActiveCountType(record.getStatus()), record.getProgramRunId().getParent()),
+      StoreDefinition.AppMetadataStore.COUNTS, delta);
+  }
+
+  /**
+   * Computes the active run counts from the active run records if they were not computed before. Run records
+   * written by older versions don't have the counts maintained. This method scans all active run records, hence
+   * it should only be called once during startup, before any run record is written.
+   *
+   * @return {@code true} if the counts were computed, {@code false} if they were computed before
+   * @throws IOException if failed to compute the counts
+   */
+  public boolean upgradeActiveRunCounts() throws IOException {
+    StructuredTable table = getProgramCountsTable();
+    List<Field<?>> initKey = getNamespaceCountPrimaryKeys(TYPE_RUN_RECORD_ACTIVE_COUNT_INIT, SMALLEST_POSSIBLE_STRING);
+    if (table.read(initKey).isPresent()) {
+      return false;
+    }
+
+    // Counts updated before the computation are partial, hence are replaced
+    for (ProgramRunStatus status : ACTIVE_STATUSES) {
+      table.deleteAll(Range.singleton(getCountTypePrefix(getActiveCountType(status))));
+    }
+
+    Map<ProgramId, Map<ProgramRunStatus, Long>> programCounts = new HashMap<>();
+    try (CloseableIterator<RunRecordDetail> iterator = queryProgramRuns(
+      Range.singleton(getRunRecordStatusPrefix(TYPE_RUN_RECORD_ACTIVE)), null, null, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        RunRecordDetail record = iterator.next();
+        ProgramId programId = record.getProgramRunId().getParent();
+        programCounts.computeIfAbsent(programId, k -> new HashMap<>()).merge(record.getStatus(), 1L, Long::sum);
+      }
+    }
+
+    List<List<Field<?>>> rows = new ArrayList<>();
+    programCounts.forEach((programId, counts) -> counts.forEach((status, count) -> {
+      List<Field<?>> fields = getProgramCountPrimaryKeys(getActiveCountType(status), programId);
+      fields.add(Fields.longField(StoreDefinition.AppMetadataStore.COUNTS, count));
+      rows.add(fields);
+    }));
+    initKey.add(Fields.longField(StoreDefinition.AppMetadataStore.COUNTS, 1L));
+    rows.add(initKey);
+    table.multiUpsert(rows);
+    LOG.debug("Computed active run counts of {} programs from active run records", programCounts.size());
+    return true;
+  }
+
   /**
    * Logs initialization of program run and persists program status to {@link ProgramRunStatus#STARTING}.
    * @param programRunId run id of the program
@@ -787,8 +882,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.STARTING, programRunId);
     return meta;
   }
@@ -835,8 +929,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.RUNNING, programRunId);
     return meta;
   }
@@ -911,8 +1004,7 @@ public class AppMetadataStore {
       }
     }
     RunRecordDetail meta = builder.build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", toStatus, programRunId);
     return meta;
   }
@@ -958,8 +1050,7 @@ public class AppMetadataStore {
       .setStatus(runStatus)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", runStatus, programRunId);
     return meta;
   }
@@ -1054,14 +1145,57 @@ public class AppMetadataStore {
    * @param limit count at most that many runs, stop if there are more.
    */
   public int countActiveRuns(@Nullable Integer limit) throws IOException {
-    AtomicInteger count = new AtomicInteger(0);
-    try (CloseableIterator<RunRecordDetail> iterator = queryProgramRuns(
-      Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, null)),
-      key -> !NamespaceId.SYSTEM.getNamespace().equals(key.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD)),
-      null, limit != null ? limit : Integer.MAX_VALUE)) {
-      iterator.forEachRemaining(m -> count.getAndIncrement());
+    int maxCount = limit != null ? limit : Integer.MAX_VALUE;
+    long count = 0L;
+    for (ProgramRunStatus status : ACTIVE_STATUSES) {
+      try (CloseableIterator<StructuredRow> iterator = getProgramCountsTable().scan(
+        Range.singleton(getCountTypePrefix(getActiveCountType(status))), Integer.MAX_VALUE)) {
+        while (iterator.hasNext() && count < maxCount) {
+          StructuredRow row = iterator.next();
+          if (NamespaceId.SYSTEM.getNamespace().equals(
+            row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD))) {
+            continue;
+          }
+          Long counts = row.getLong(StoreDefinition.AppMetadataStore.COUNTS);
+          count += counts == null ? 0L : counts;
+        }
+      }
+    }
+    return (int) Math.min(count, maxCount);
+  }
+
+  /**
+   * Gets the number of active runs of the given programs by run status. This is done without reading the run records.
+   *
+   * @param ids collection of program ids for fetching the active run counts
+   * @return a {@link Map} from the {@link ProgramId} to the number of active runs for each {@link ProgramRunStatus}.
+   *         Statuses without active runs are not included.
+   * @throws IOException if failed to fetch the counts
+   */
+  public Map<ProgramId, Map<ProgramRunStatus, Long>> getActiveRunCounts(Collection<ProgramId> ids)
+    throws IOException {
+    Map<ProgramId, Map<ProgramRunStatus, Long>> result = new LinkedHashMap<>();
+    Map<String, ProgramRunStatus> countTypes = new HashMap<>();
+    List<List<Field<?>>> keys = new ArrayList<>();
+    for (ProgramId programId : ids) {
+      result.put(programId, new EnumMap<>(ProgramRunStatus.class));
+      for (ProgramRunStatus status : ACTIVE_STATUSES) {
+        countTypes.put(getActiveCountType(status), status);
+        keys.add(getProgramCountPrimaryKeys(getActiveCountType(status), programId));
+      }
+    }
+
+    for (StructuredRow row : getProgramCountsTable().multiRead(keys)) {
+      Long count = row.getLong(StoreDefinition.AppMetadataStore.COUNTS);
+      if (count == null || count <= 0L) {
+        continue;
+      }
+      ProgramId programId = getApplicationIdFromRow(row)
+        .program(ProgramType.valueOf(row.getString(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD)),
+                 row.getString(StoreDefinition.AppMetadataStore.PROGRAM_FIELD));
+      result.get(programId).put(countTypes.get(row.getString(StoreDefinition.AppMetadataStore.COUNT_TYPE)), count);
     }
-    return count.get();
+    return result;
   }
 
   /**
@@ -1280,6 +1414,7 @@ public class AppMetadataStore {
     List<Field<?>> key = getProgramRunInvertedTimeKey(STATUS_TYPE_MAP.get(record.getStatus()), programRunId,
                                                       record.getStartTs());
     getRunRecordsTable().delete(key);
+    updateActiveRunCounts(record, -1L);
   }
 
   /**
@@ -1467,6 +1602,10 @@ public class AppMetadataStore {
     getProgramCountsTable().deleteAll(Range.singleton(getCountApplicationPrefix(TYPE_COUNT, applicationId)));
     getProgramCountsTable().deleteAll(
       Range.singleton(getCountApplicationPrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, applicationId)));
+    for (ProgramRunStatus status : ACTIVE_STATUSES) {
+      getProgramCountsTable().deleteAll(
+        Range.singleton(getCountApplicationPrefix(getActiveCountType(status), applicationId)));
+    }
   }
 
   public void deleteProgramHistory(NamespaceId namespaceId) throws IOException {
@@ -1477,6 +1616,10 @@ public class AppMetadataStore {
     getProgramCountsTable().deleteAll(Range.singleton(getCountNamespacePrefix(TYPE_COUNT, namespaceId)));
     getProgramCountsTable().deleteAll(Range.singleton(
       getCountNamespacePrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, namespaceId)));
+    for (ProgramRunStatus status : ACTIVE_STATUSES) {
+      getProgramCountsTable().deleteAll(
+        Range.singleton(getCountNamespacePrefix(getActiveCountType(status), namespaceId)));
+    }
   }
 
   /**
@@ -1666,6 +1809,26 @@ public class AppMetadataStore {
         Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_FIELD, applicationId)));
   }
 
+  private List<ApplicationMeta> scanApplicationMetas(Range range) throws IOException {
+    List<ApplicationMeta> result = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = getApplicationSpecificationTable().scan(range,
+                                                                                            Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        result.add(decodeApplicationMeta(getApplicationIdFromRow(row),
+                                         row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD)));
+      }
+    }
+    return result;
+  }
+
+  private ApplicationMeta decodeApplicationMeta(ApplicationId appId, String json) {
+    if (appMetaCache == null) {
+      return GSON.fromJson(json, ApplicationMeta.class);
+    }
+    return appMetaCache.get(appId, json, s -> CACHE_GSON.fromJson(s, ApplicationMeta.class));
+  }
+
   private void writeApplicationSerialized(String namespaceId, String appId, String versionId, String serialized)
     throws IOException {
     List<Field<?>> fields = getApplicationPrimaryKeys(namespaceId, appId, versionId);
@@ -1750,12 +1913,27 @@ public class AppMetadataStore {
   }
 
   private static RunRecordDetail deserializeRunRecordMeta(StructuredRow row) {
-    RunRecordDetail existing =
-      GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA), RunRecordDetail.class);
-    return RunRecordDetail.builder(existing)
-      .setProgramRunId(
-        getProgramIdFromRunRecordsPrimaryKeys(new ArrayList<>(row.getPrimaryKeys())).run(existing.getPid()))
-      .build();
+    String data = row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    ProgramId programId = getProgramIdFromRunRecordsPrimaryKeys(new ArrayList<>(row.getPrimaryKeys()));
+    // Run records written by older versions are in JSON
+    if (RunRecordDetailCodec.isEncoded(data)) {
+      return RunRecordDetailCodec.decode(data, programId);
+    }
+    RunRecordDetail existing = GSON.fromJson(data, RunRecordDetail.class);
+    return RunRecordDetail.builder(existing).setProgramRunId(programId.run(existing.getPid())).build();
+  }
+
+  /**
+   * Writes the given {@link RunRecordDetail} to the run records table with the given key.
+   */
+  private void writeRunRecordData(List<Field<?>> key, RunRecordDetail meta) throws IOException {
+    if (!binaryRunRecords) {
+      writeToStructuredTableWithPrimaryKeys(key, meta, getRunRecordsTable(),
+                                            StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+      return;
+    }
+    key.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA, RunRecordDetailCodec.encode(meta)));
+    getRunRecordsTable().upsert(key);
   }
 
   private static ProgramId getProgramIdFromRunRecordsPrimaryKeys(List<Field<?>> primaryKeys) {
@@ -1805,6 +1983,21 @@ public class AppMetadataStore {
     return addProgramPrimaryKeys(programId, fields);
   }
 
+  private List<Field<?>> getNamespaceCountPrimaryKeys(String type, String namespace) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.COUNT_TYPE, type));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD, namespace));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.VERSION_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, SMALLEST_POSSIBLE_STRING));
+    return fields;
+  }
+
+  private static String getActiveCountType(ProgramRunStatus status) {
+    return TYPE_RUN_RECORD_ACTIVE_COUNT + "." + status.name();
+  }
+
   @Nullable
   private Predicate<StructuredRow> getKeyFilterByTimeRange(long startTime, long endTime) {
     if (startTime <= 0 && endTime == Long.MAX_VALUE) {
@@ -1840,7 +2033,7 @@ public class AppMetadataStore {
     }
   }
 
-  private static final class AppScanEntry implements Map.Entry<ApplicationId, ApplicationMeta> {
+  private final class AppScanEntry implements Map.Entry<ApplicationId, ApplicationMeta> {
 
     private final ApplicationId appId;
     private final String rawAppMeta;
@@ -1863,7 +2056,7 @@ public class AppMetadataStore {
       if (meta != null) {
         return meta;
       }
-      appMeta = meta = GSON.fromJson(rawAppMeta, ApplicationMeta.class);
+      appMeta = meta = decodeApplicationMeta(appId, rawAppMeta);
       return meta;
     }
 
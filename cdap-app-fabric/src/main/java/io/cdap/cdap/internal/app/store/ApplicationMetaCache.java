@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded cache of decoded {@link ApplicationMeta}, keyed by {@link ApplicationId} and weighted by the size of the
+ * stored JSON. Each entry carries a fingerprint of the JSON it was decoded from, and is only used if the fingerprint
+ * matches the JSON being read. This saves decoding large application specifications repeatedly, while the store is
+ * still the source of truth, hence changes made by other processes are never hidden by the cache.
+ * <p>
+ * A cached instance is shared by all callers, hence it must only be read. The JSON should be decoded with a
+ * {@link Gson} built with {@link #addTypeAdapters(GsonBuilder)}, which decodes collections as unmodifiable ones,
+ * so that an accidental modification fails instead of changing the instance seen by other callers.
+ */
+final class ApplicationMetaCache {
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final Cache<ApplicationId, Entry> cache;
+  private volatile MetricsContext metricsContext;
+
+  /**
+   * Constructor.
+   *
+   * @param maxSize maximum total size in characters of the JSON of the cached entries
+   */
+  ApplicationMetaCache(long maxSize) {
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxSize)
+      .weigher((ApplicationId key, Entry value) -> value.size)
+      .build();
+  }
+
+  /**
+   * Adds the type adapters to the given {@link GsonBuilder} for decoding {@link Map}, {@link List}, {@link Set} and
+   * {@link Collection} as unmodifiable collections. It should be called after all other type adapters are added.
+   *
+   * @param builder the {@link GsonBuilder} to add to
+   * @return the same {@link GsonBuilder} instance
+   */
+  static GsonBuilder addTypeAdapters(GsonBuilder builder) {
+    return builder.registerTypeAdapterFactory(new UnmodifiableCollectionTypeAdapterFactory());
+  }
+
+  /**
+   * Sets the {@link MetricsContext} for emitting cache hit and miss metrics.
+   */
+  void setMetricsContext(@Nullable MetricsContext metricsContext) {
+    this.metricsContext = metricsContext;
+  }
+
+  /**
+   * Returns the {@link ApplicationMeta} of the given application decoded from the given JSON. The cached
+   * instance is returned if it was decoded from the same JSON, otherwise the JSON is decoded and cached.
+   * The returned instance is shared and must not be modified.
+   *
+   * @param appId the application id
+   * @param json the JSON of the {@link ApplicationMeta} read from the store
+   * @param decoder the function to decode the JSON
+   * @return the {@link ApplicationMeta}
+   */
+  ApplicationMeta get(ApplicationId appId, String json, Function<String, ApplicationMeta> decoder) {
+    HashCode fingerprint = HASH_FUNCTION.hashString(json);
+    Entry entry = cache.getIfPresent(appId);
+    if (entry != null && entry.fingerprint.equals(fingerprint)) {
+      emitMetric(Constants.Metrics.AppMetadataStore.APP_SPEC_CACHE_HIT);
+      return entry.meta;
+    }
+
+    emitMetric(Constants.Metrics.AppMetadataStore.APP_SPEC_CACHE_MISS);
+    ApplicationMeta meta = decoder.apply(json);
+    cache.put(appId, new Entry(fingerprint, meta, json.length()));
+    return meta;
+  }
+
+  /**
+   * Removes the entry of the given application.
+   */
+  void invalidate(ApplicationId appId) {
+    cache.invalidate(appId);
+  }
+
+  /**
+   * Removes the entries of all applications in the given namespace.
+   */
+  void invalidateAll(NamespaceId namespaceId) {
+    cache.asMap().keySet().removeIf(appId -> namespaceId.equals(appId.getNamespaceId()));
+  }
+
+  /**
+   * Removes all entries.
+   */
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private void emitMetric(String name) {
+    MetricsContext context = metricsContext;
+    if (context != null) {
+      context.increment(name, 1L);
+    }
+  }
+
+  /**
+   * A cache entry.
+   */
+  private static final class Entry {
+    private final HashCode fingerprint;
+    private final ApplicationMeta meta;
+    private final int size;
+
+    Entry(HashCode fingerprint, ApplicationMeta meta, int size) {
+      this.fingerprint = fingerprint;
+      this.meta = meta;
+      this.size = size;
+    }
+  }
+
+  /**
+   * A {@link TypeAdapterFactory} that wraps the collections decoded by the next matching {@link TypeAdapter} as
+   * unmodifiable collections. Only fields declared with the collection interface types are wrapped.
+   */
+  private static final class UnmodifiableCollectionTypeAdapterFactory implements TypeAdapterFactory {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      Class<?> rawType = type.getRawType();
+      Function<Object, Object> wrapper;
+      if (rawType == Map.class) {
+        wrapper = obj -> Collections.unmodifiableMap((Map<?, ?>) obj);
+      } else if (rawType == List.class) {
+        wrapper = obj -> Collections.unmodifiableList((List<?>) obj);
+      } else if (rawType == Set.class) {
+        wrapper = obj -> Collections.unmodifiableSet((Set<?>) obj);
+      } else if (rawType == Collection.class) {
+        wrapper = obj -> Collections.unmodifiableCollection((Collection<?>) obj);
+      } else {
+        return null;
+      }
+
+      TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+      return new TypeAdapter<T>() {
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+          delegate.write(out, value);
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+          T value = delegate.read(in);
+          return value == null ? null : (T) wrapper.apply(value);
+        }
+      };
+    }
+  }
+}
@@ -29,6 +29,7 @@ import io.cdap.cdap.api.artifact.ArtifactId;
 import io.cdap.cdap.api.dataset.DatasetManagementException;
 import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.api.dataset.table.Table;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.api.service.ServiceSpecification;
 import io.cdap.cdap.api.worker.WorkerSpecification;
 import io.cdap.cdap.api.workflow.WorkflowActionNode;
@@ -40,6 +41,8 @@ import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.ApplicationNotFoundException;
 import io.cdap.cdap.common.NotFoundException;
 import io.cdap.cdap.common.ProgramNotFoundException;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.dataset2.DatasetFramework;
 import io.cdap.cdap.internal.app.ForwardingApplicationSpecification;
 import io.cdap.cdap.proto.BasicThrowable;
@@ -94,10 +97,32 @@ public class DefaultStore implements Store {
   private static final Map<String, String> EMPTY_STRING_MAP = Collections.emptyMap();
 
   private TransactionRunner transactionRunner;
+  // Cache of decoded application specifications, or null if the cache is disabled
+  @Nullable
+  private final ApplicationMetaCache appMetaCache;
+  private final boolean binaryRunRecords;
 
-  @Inject
   public DefaultStore(TransactionRunner transactionRunner) {
     this.transactionRunner = transactionRunner;
+    this.appMetaCache = null;
+    this.binaryRunRecords = false;
+  }
+
+  @Inject
+  public DefaultStore(CConfiguration cConf, TransactionRunner transactionRunner) {
+    long cacheSize = cConf.getLong(Constants.AppFabric.APP_SPEC_CACHE_SIZE_MB) * 1024 * 1024;
+    this.transactionRunner = transactionRunner;
+    this.appMetaCache = cacheSize > 0 ? new ApplicationMetaCache(cacheSize) : null;
+    this.binaryRunRecords = cConf.getBoolean(Constants.AppFabric.RUN_RECORD_BINARY_FORMAT_ENABLED);
+  }
+
+  @Inject(optional = true)
+  void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    if (appMetaCache != null) {
+      appMetaCache.setMetricsContext(metricsCollectionService.getContext(ImmutableMap.of(
+        Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+        Constants.Metrics.Tag.COMPONENT, Constants.Service.APP_FABRIC_HTTP)));
+    }
   }
 
   /**
@@ -112,7 +137,17 @@ public class DefaultStore implements Store {
   }
 
   private AppMetadataStore getAppMetadataStore(StructuredTableContext context) {
-    return AppMetadataStore.create(context);
+    return AppMetadataStore.create(context, appMetaCache, binaryRunRecords);
+  }
+
+  /**
+   * Removes the cached specification of the given application after it is changed. This is only for freeing
+   * memory early, since cached entries are validated against the store on read.
+   */
+  private void invalidateAppMeta(ApplicationId appId) {
+    if (appMetaCache != null) {
+      appMetaCache.invalidate(appId);
+    }
   }
 
   private WorkflowTable getWorkflowTable(StructuredTableContext context) throws TableNotFoundException {
@@ -367,6 +402,15 @@ public class DefaultStore implements Store {
     });
   }
 
+  @Override
+  public Map<ProgramId, Map<ProgramRunStatus, Long>> getActiveRunCounts(Collection<ProgramId> programIds) {
+    return TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore appMetadataStore = getAppMetadataStore(context);
+      // Get the active run counts for programs that exist
+      return appMetadataStore.getActiveRunCounts(appMetadataStore.filterProgramsExistence(programIds));
+    });
+  }
+
   /**
    * Returns run record for a given run.
    *
@@ -385,6 +429,7 @@ public class DefaultStore implements Store {
     TransactionRunners.run(transactionRunner, context -> {
       getAppMetadataStore(context).writeApplication(id.getNamespace(), id.getApplication(), id.getVersion(), spec);
     });
+    invalidateAppMeta(id);
   }
 
   // todo: this method should be moved into DeletedProgramHandlerState, bad design otherwise
@@ -442,6 +487,7 @@ public class DefaultStore implements Store {
       metaStore.updateAppSpec(id.getParent(), newAppSpec);
 
     });
+    invalidateAppMeta(id.getParent());
 
     LOG.trace("Setting program instances: namespace: {}, application: {}, worker: {}, new instances count: {}",
               id.getNamespaceId(), id.getApplication(), id.getProgram(), instances);
@@ -463,6 +509,7 @@ public class DefaultStore implements Store {
       ApplicationSpecification newAppSpec = replaceServiceSpec(appSpec, id.getProgram(), serviceSpec);
       metaStore.updateAppSpec(id.getParent(), newAppSpec);
     });
+    invalidateAppMeta(id.getParent());
 
     LOG.trace("Setting program instances: namespace: {}, application: {}, service: {}, new instances count: {}",
               id.getNamespaceId(), id.getApplication(), id.getProgram(), instances);
@@ -495,6 +542,7 @@ public class DefaultStore implements Store {
       metaStore.deleteApplication(id.getNamespace(), id.getApplication(), id.getVersion());
       metaStore.deleteProgramHistory(id.getNamespace(), id.getApplication(), id.getVersion());
     });
+    invalidateAppMeta(id);
   }
 
   @Override
@@ -506,6 +554,9 @@ public class DefaultStore implements Store {
       metaStore.deleteApplications(id.getNamespace());
       metaStore.deleteProgramHistory(id);
     });
+    if (appMetaCache != null) {
+      appMetaCache.invalidateAll(id);
+    }
   }
 
   @Override
@@ -602,6 +653,9 @@ public class DefaultStore implements Store {
       getAppMetadataStore(context).deleteAllAppMetadataTables();
       getWorkflowTable(context).deleteAll();
     });
+    if (appMetaCache != null) {
+      appMetaCache.invalidateAll();
+    }
   }
 
   private ApplicationSpecification getApplicationSpec(AppMetadataStore mds, ApplicationId id)
@@ -121,6 +121,22 @@ public class ProgramLifecycleServiceTest extends AppFabricTestBase {
     Assert.assertEquals(ProgramStatus.STOPPED, status);
   }
 
+  @Test
+  public void testProgramStatusFromActiveRunCounts() {
+    Assert.assertEquals(ProgramStatus.STOPPED, ProgramLifecycleService.getProgramStatus(Collections.emptyMap()));
+
+    Map<ProgramRunStatus, Long> counts = new HashMap<>();
+    counts.put(ProgramRunStatus.PENDING, 2L);
+    Assert.assertEquals(ProgramStatus.STARTING, ProgramLifecycleService.getProgramStatus(counts));
+
+    counts.put(ProgramRunStatus.SUSPENDED, 1L);
+    Assert.assertEquals(ProgramStatus.RUNNING, ProgramLifecycleService.getProgramStatus(counts));
+
+    // a zero count is the same as not having the status
+    counts.put(ProgramRunStatus.SUSPENDED, 0L);
+    Assert.assertEquals(ProgramStatus.STARTING, ProgramLifecycleService.getProgramStatus(counts));
+  }
+
   @Test
   public void testProgramStatusFromMultipleRuns() {
     ProgramId programId = NamespaceId.DEFAULT.app("app").mr("mr");
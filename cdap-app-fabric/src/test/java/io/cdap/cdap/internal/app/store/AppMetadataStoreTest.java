@@ -24,6 +24,8 @@ import io.cdap.cdap.AllProgramsApp;
 import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.api.artifact.ArtifactId;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.internal.AppFabricTestHelper;
 import io.cdap.cdap.internal.app.deploy.Specifications;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
@@ -106,6 +108,44 @@ public abstract class AppMetadataStoreTest {
     assertPersistedStatus(1L, 10L, 100L, ProgramRunStatus.KILLED);
   }
 
+  @Test
+  public void testRunRecordFormats() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setBoolean(Constants.AppFabric.RUN_RECORD_BINARY_FORMAT_ENABLED, true);
+    ProgramId program = NamespaceId.DEFAULT.app("app").program(ProgramType.WORKFLOW, "program");
+    ProgramRunId jsonRunId = program.run(RunIds.generate());
+    ProgramRunId binaryRunId = program.run(RunIds.generate());
+
+    // write one run record in each format, and make sure both can be read back by either store
+    TransactionRunners.run(transactionRunner, context -> {
+      recordProvisionAndStart(jsonRunId, AppMetadataStore.create(context));
+      recordProvisionAndStart(binaryRunId, AppMetadataStore.create(context, cConf));
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      for (AppMetadataStore store : Arrays.asList(AppMetadataStore.create(context),
+                                                  AppMetadataStore.create(context, cConf))) {
+        for (ProgramRunId programRunId : Arrays.asList(jsonRunId, binaryRunId)) {
+          RunRecordDetail runRecord = store.getRun(programRunId);
+          Assert.assertNotNull(runRecord);
+          Assert.assertEquals(programRunId, runRecord.getProgramRunId());
+          Assert.assertEquals(ProgramRunStatus.STARTING, runRecord.getStatus());
+          Assert.assertEquals(SINGLETON_PROFILE_MAP, runRecord.getSystemArgs());
+          Assert.assertEquals(ARTIFACT_ID, runRecord.getArtifactId());
+        }
+      }
+    });
+
+    // a run record written in JSON can be updated in the binary format
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore.create(context, cConf).recordProgramStop(
+        jsonRunId, 10, ProgramRunStatus.COMPLETED, null,
+        AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      RunRecordDetail runRecord = AppMetadataStore.create(context).getRun(jsonRunId);
+      Assert.assertEquals(ProgramRunStatus.COMPLETED, runRecord.getStatus());
+      Assert.assertEquals(Long.valueOf(10), runRecord.getStopTs());
+    });
+  }
+
   @Test
   public void testPendingToCompletedIsIgnored() throws Exception {
     ApplicationId application = NamespaceId.DEFAULT.app("app");
@@ -876,6 +916,185 @@ public abstract class AppMetadataStoreTest {
     });
   }
 
+  @Test
+  public void testActiveRunCounts() throws Exception {
+    ApplicationId appId = NamespaceId.DEFAULT.app("test");
+    ProgramId programId1 = appId.workflow("test1");
+    ProgramId programId2 = appId.workflow("test2");
+    List<ProgramRunId> runIds = addProgramCount(programId1, 3);
+    addProgramCount(programId2, 2);
+
+    // all runs are starting
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Map<ProgramId, Map<ProgramRunStatus, Long>> counts =
+        store.getActiveRunCounts(Arrays.asList(programId1, programId2));
+      Assert.assertEquals(Collections.singletonMap(ProgramRunStatus.STARTING, 3L), counts.get(programId1));
+      Assert.assertEquals(Collections.singletonMap(ProgramRunStatus.STARTING, 2L), counts.get(programId2));
+      Assert.assertEquals(5, store.countActiveRuns(null));
+      Assert.assertEquals(2, store.countActiveRuns(2));
+    });
+
+    // move two runs to running and then stop one of them
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      for (ProgramRunId runId : runIds.subList(0, 2)) {
+        store.recordProgramRunning(runId, RunIds.getTime(runId.getRun(), TimeUnit.SECONDS) + 10, null,
+                                   AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      }
+      ProgramRunId runId = runIds.get(1);
+      store.recordProgramStop(runId, RunIds.getTime(runId.getRun(), TimeUnit.SECONDS) + 20,
+                              ProgramRunStatus.COMPLETED, null,
+                              AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Map<ProgramRunStatus, Long> expected = new HashMap<>();
+      expected.put(ProgramRunStatus.STARTING, 1L);
+      expected.put(ProgramRunStatus.RUNNING, 1L);
+      Assert.assertEquals(expected, store.getActiveRunCounts(Collections.singleton(programId1)).get(programId1));
+      Assert.assertEquals(4, store.countActiveRuns(null));
+      Assert.assertEquals(store.getActiveRuns(x -> true).size(), store.countActiveRuns(null));
+    });
+
+    // after cleanup there should be no active run
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      store.deleteProgramHistory(appId.getNamespace(), appId.getApplication(), appId.getVersion());
+      Map<ProgramId, Map<ProgramRunStatus, Long>> counts =
+        store.getActiveRunCounts(Arrays.asList(programId1, programId2));
+      Assert.assertTrue(counts.get(programId1).isEmpty());
+      Assert.assertTrue(counts.get(programId2).isEmpty());
+      Assert.assertEquals(0, store.countActiveRuns(null));
+    });
+  }
+
+  @Test
+  public void testActiveRunCountsTransitions() throws Exception {
+    ProgramId programId = NamespaceId.DEFAULT.app("test").workflow("test");
+    ProgramRunId runId = programId.run(RunIds.generate());
+    long startTime = RunIds.getTime(runId.getRun(), TimeUnit.SECONDS);
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      store.recordProgramProvisioning(runId, Collections.emptyMap(), SINGLETON_PROFILE_MAP,
+                                      AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()), ARTIFACT_ID);
+      assertActiveRunCounts(store, programId, ProgramRunStatus.PENDING);
+
+      store.recordProgramProvisioned(runId, 0, AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      assertActiveRunCounts(store, programId, ProgramRunStatus.PENDING);
+
+      store.recordProgramStart(runId, null, ImmutableMap.of(),
+                               AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      assertActiveRunCounts(store, programId, ProgramRunStatus.STARTING);
+
+      store.recordProgramRunning(runId, startTime + 10, null,
+                                 AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      assertActiveRunCounts(store, programId, ProgramRunStatus.RUNNING);
+
+      store.recordProgramSuspend(runId, AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()),
+                                 startTime + 20);
+      assertActiveRunCounts(store, programId, ProgramRunStatus.SUSPENDED);
+
+      store.recordProgramResumed(runId, AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()),
+                                 startTime + 30);
+      assertActiveRunCounts(store, programId, ProgramRunStatus.RUNNING);
+
+      // a transition that is ignored should not change the counts
+      Assert.assertNull(store.recordProgramResumed(runId, AppFabricTestHelper.createSourceId(0), startTime + 40));
+      assertActiveRunCounts(store, programId, ProgramRunStatus.RUNNING);
+    });
+
+    byte[] stopSourceId = AppFabricTestHelper.createSourceId(sourceId.incrementAndGet());
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      store.recordProgramStop(runId, startTime + 50, ProgramRunStatus.FAILED, null, stopSourceId);
+      assertActiveRunCounts(store, programId);
+
+      // deleting the terminated run should leave the counts untouched
+      Assert.assertNotNull(store.deleteRunIfTerminated(runId, stopSourceId));
+      assertActiveRunCounts(store, programId);
+    });
+  }
+
+  @Test
+  public void testActiveRunCountsDeleteHistory() throws Exception {
+    NamespaceId namespaceId = new NamespaceId("ns");
+    ApplicationId appId1 = namespaceId.app("app1");
+    ApplicationId appId2 = namespaceId.app("app2");
+    ProgramId programId1 = appId1.workflow("test");
+    ProgramId programId2 = appId2.workflow("test");
+    ProgramId programId3 = NamespaceId.DEFAULT.app("app").workflow("test");
+    addProgramCount(programId1, 2);
+    addProgramCount(programId2, 3);
+    addProgramCount(programId3, 1);
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertEquals(6, store.countActiveRuns(null));
+      store.deleteProgramHistory(appId1.getNamespace(), appId1.getApplication(), appId1.getVersion());
+      assertActiveRunCounts(store, programId1);
+      Assert.assertEquals(Collections.singletonMap(ProgramRunStatus.STARTING, 3L),
+                          store.getActiveRunCounts(Collections.singleton(programId2)).get(programId2));
+      Assert.assertEquals(4, store.countActiveRuns(null));
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      store.deleteProgramHistory(namespaceId);
+      assertActiveRunCounts(store, programId2);
+      Assert.assertEquals(Collections.singletonMap(ProgramRunStatus.STARTING, 1L),
+                          store.getActiveRunCounts(Collections.singleton(programId3)).get(programId3));
+      Assert.assertEquals(1, store.countActiveRuns(null));
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertEquals(store.getActiveRuns(x -> true).size(), store.countActiveRuns(null));
+    });
+  }
+
+  @Test
+  public void testUpgradeActiveRunCounts() throws Exception {
+    ProgramId programId1 = NamespaceId.DEFAULT.app("test").workflow("test1");
+    ProgramId programId2 = NamespaceId.DEFAULT.app("test").workflow("test2");
+    List<ProgramRunId> runIds = addProgramCount(programId1, 2);
+    addProgramCount(programId2, 1);
+    TransactionRunners.run(transactionRunner, context -> {
+      ProgramRunId runId = runIds.get(0);
+      AppMetadataStore.create(context).recordProgramRunning(
+        runId, RunIds.getTime(runId.getRun(), TimeUnit.SECONDS) + 10, null,
+        AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+    });
+
+    // the counts are computed from the run records only once
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertTrue(store.upgradeActiveRunCounts());
+      Assert.assertFalse(store.upgradeActiveRunCounts());
+
+      Map<ProgramRunStatus, Long> expected = new HashMap<>();
+      expected.put(ProgramRunStatus.STARTING, 1L);
+      expected.put(ProgramRunStatus.RUNNING, 1L);
+      Assert.assertEquals(expected, store.getActiveRunCounts(Collections.singleton(programId1)).get(programId1));
+      assertActiveRunCounts(store, programId2, ProgramRunStatus.STARTING);
+      Assert.assertEquals(3, store.countActiveRuns(null));
+    });
+  }
+
+  /**
+   * Asserts that the given program has exactly one active run for each of the given statuses.
+   */
+  private void assertActiveRunCounts(AppMetadataStore store, ProgramId programId,
+                                     ProgramRunStatus... statuses) throws IOException {
+    Map<ProgramRunStatus, Long> expected = new HashMap<>();
+    for (ProgramRunStatus status : statuses) {
+      expected.put(status, 1L);
+    }
+    Assert.assertEquals(expected, store.getActiveRunCounts(Collections.singleton(programId)).get(programId));
+  }
+
   private List<ProgramRunId> addProgramCount(ProgramId programId, int count) throws Exception {
     List<ProgramRunId> runIds = new ArrayList<>();
     for (int i = 0; i < count; i++) {
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Unit test for {@link ApplicationMetaCache}.
+ */
+public class ApplicationMetaCacheTest {
+
+  @Test
+  public void testFingerprint() {
+    ApplicationMetaCache cache = new ApplicationMetaCache(1024 * 1024);
+    AtomicInteger decodeCount = new AtomicInteger();
+    Function<String, ApplicationMeta> decoder = json -> {
+      decodeCount.incrementAndGet();
+      return new ApplicationMeta(json, null);
+    };
+
+    ApplicationId appId = NamespaceId.DEFAULT.app("app");
+    ApplicationMeta meta = cache.get(appId, "v1", decoder);
+    Assert.assertSame(meta, cache.get(appId, "v1", decoder));
+    Assert.assertEquals(1, decodeCount.get());
+
+    // Changed content must be decoded again
+    Assert.assertEquals("v2", cache.get(appId, "v2", decoder).getId());
+    Assert.assertEquals(2, decodeCount.get());
+
+    // Invalidation
+    ApplicationId otherAppId = new NamespaceId("ns").app("app");
+    cache.get(otherAppId, "v1", decoder);
+    cache.invalidateAll(NamespaceId.DEFAULT);
+    cache.get(appId, "v2", decoder);
+    cache.get(otherAppId, "v1", decoder);
+    Assert.assertEquals(4, decodeCount.get());
+
+    cache.invalidate(appId);
+    cache.get(appId, "v2", decoder);
+    Assert.assertEquals(5, decodeCount.get());
+  }
+
+  @Test
+  public void testEviction() {
+    ApplicationMetaCache cache = new ApplicationMetaCache(10);
+    AtomicInteger decodeCount = new AtomicInteger();
+    Function<String, ApplicationMeta> decoder = json -> {
+      decodeCount.incrementAndGet();
+      return new ApplicationMeta(json, null);
+    };
+
+    // Entries larger than the cache size are not retained
+    ApplicationId appId = NamespaceId.DEFAULT.app("app");
+    cache.get(appId, "0123456789abcdef", decoder);
+    cache.get(appId, "0123456789abcdef", decoder);
+    Assert.assertEquals(2, decodeCount.get());
+  }
+
+  @Test
+  public void testUnmodifiableCollections() {
+    Gson gson = ApplicationMetaCache.addTypeAdapters(new GsonBuilder()).create();
+    CollectionHolder holder = gson.fromJson("{\"map\":{\"k\":\"v\"},\"list\":[\"a\"],\"set\":[\"b\"]}",
+                                            CollectionHolder.class);
+
+    Assert.assertEquals("v", holder.map.get("k"));
+    Assert.assertEquals("a", holder.list.get(0));
+    Assert.assertTrue(holder.set.contains("b"));
+
+    assertUnmodifiable(() -> holder.map.put("k2", "v2"));
+    assertUnmodifiable(() -> holder.list.add("c"));
+    assertUnmodifiable(() -> holder.set.add("c"));
+  }
+
+  private void assertUnmodifiable(Runnable modification) {
+    try {
+      modification.run();
+      Assert.fail("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Class for testing decoding of holder.
+   */
+  private static final class CollectionHolder {
+    private Map<String, String> map;
+    private List<String> list;
+    private Set<String> set;
+  }
+}
@@ -240,6 +240,8 @@ public final class Constants {
     public static final String PROGRAM_TRANSACTION_CONTROL = "app.program.transaction.control";
     public static final String MAX_CONCURRENT_RUNS = "app.max.concurrent.runs";
     public static final String PROGRAM_LAUNCH_THREADS = "app.program.launch.threads";
+    public static final String APP_SPEC_CACHE_SIZE_MB = "app.spec.cache.size.mb";
+    public static final String RUN_RECORD_BINARY_FORMAT_ENABLED = "app.run.record.binary.format.enabled";
 
     // A boolean value cConf entry to tell whether a ProgramRunner is running remotely (i.e. not inside app-fabric)
     // This config is not present in the cdap-default.xml as it is only set internally by CDAP.
@@ -592,6 +594,7 @@ public final class Constants {
     public static final String DATA_STORAGE_SQL_PASSWORD = "data.storage.sql.jdbc.password";
     public static final String DATA_STORAGE_SQL_PROPERTY_PREFIX = "data.storage.sql.jdbc.property.";
     public static final String DATA_STORAGE_SQL_CONNECTION_SIZE = "data.storage.sql.jdbc.connection.pool.size";
+    public static final String DATA_STORAGE_SQL_STATEMENT_CACHE_SIZE = "data.storage.sql.jdbc.statement.cache.size";
 
     // used for Guice named bindings
     public static final String TABLE_TYPE = "table.type";
@@ -737,6 +740,8 @@ public final class Constants {
     public static final String SERVICE_DESCRIPTION = "Service to handle metrics requests.";
     public static final String PROCESSOR_MAX_DELAY_MS = "metrics.processor.max.delay.ms";
     public static final String QUEUE_SIZE = "metrics.processor.queue.size";
+    public static final String PROCESSOR_WRITER_THREADS = "metrics.processor.writer.threads";
+    public static final String PROCESSOR_FETCH_THREADS = "metrics.processor.fetch.threads";
 
     public static final String ENTITY_TABLE_NAME = "metrics.data.entity.tableName";
     public static final String METRICS_TABLE_PREFIX = "metrics.data.table.prefix";
@@ -751,6 +756,7 @@ public final class Constants {
     public static final int HOUR_RESOLUTION = 3600;
     public static final long PROCESS_INTERVAL_MILLIS = 60000;
     public static final String RETENTION_SECONDS_SUFFIX = ".seconds";
+    public static final String QUERY_CACHE_EXPIRE_SECONDS = "metrics.query.cache.expire.seconds";
 
     public static final String TOPIC_PREFIX = "metrics.topic.prefix";
 
@@ -888,6 +894,8 @@ public final class Constants {
         public static final String OP_COUNT = "dataset.store.ops";
         public static final String WRITE_COUNT = "dataset.store.writes";
         public static final String WRITE_BYTES = "dataset.store.bytes";
+        public static final String BUFFER_BYTES = "dataset.store.buffer.bytes";
+        public static final String BUFFER_SPILL_COUNT = "dataset.store.buffer.spills";
       }
 
       /**
@@ -897,6 +905,12 @@ public final class Constants {
         public static final String PROCESS_MIN_DELAY = "log.process.min.delay";
         public static final String PROCESS_MAX_DELAY = "log.process.max.delay";
         public static final String PROCESS_MESSAGES_COUNT = "log.process.message.count";
+        public static final String BUFFER_RECOVERY_EVENTS_COUNT = "log.buffer.recovery.event.count";
+        public static final String BUFFER_RECOVERY_BYTES = "log.buffer.recovery.bytes";
+        public static final String BUFFER_RECOVERY_EVENTS_RATE = "log.buffer.recovery.events.per.sec";
+        public static final String BUFFER_RECOVERY_TIME_MS = "log.buffer.recovery.time.ms";
+        public static final String PUBLISH_DELAY_MS = "log.publish.delay.ms";
+        public static final String PUBLISH_DROPPED = "log.publish.dropped";
       }
     }
 
@@ -953,6 +967,15 @@ public final class Constants {
       public static final String ERROR_CONNECTIONS = "structured.table.connection.error";
     }
 
+    /**
+     * App metadata store metrics
+     */
+    public static final class AppMetadataStore {
+
+      public static final String APP_SPEC_CACHE_HIT = "app.spec.cache.hit";
+      public static final String APP_SPEC_CACHE_MISS = "app.spec.cache.miss";
+    }
+
     /**
      * Metadata storage metrics
      */
@@ -1028,6 +1051,7 @@ public final class Constants {
     public static final String LOG_BUFFER_MAX_FILE_SIZE_BYTES = "log.buffer.max.file.size.bytes";
     // log buffer recovery configs
     public static final String LOG_BUFFER_RECOVERY_BATCH_SIZE = "log.buffer.recovery.batch.size";
+    public static final String LOG_BUFFER_RECOVERY_PARALLELISM = "log.buffer.recovery.parallelism";
     // number of events to be sent to time event queue processor from incoming queue
     public static final String LOG_BUFFER_PIPELINE_BATCH_SIZE = "log.buffer.pipeline.batch.size";
     // log buffer server configs
@@ -1103,6 +1127,14 @@ public final class Constants {
     public static final String APPENDER_QUEUE_SIZE = "log.queue.size";
     public static final String NUM_PARTITIONS = "log.publish.num.partitions";
     public static final String LOG_PUBLISH_PARTITION_KEY = "log.publish.partition.key";
+    public static final String READER_SEARCH_PARALLELISM = "log.reader.search.parallelism";
+
+    // Configuration keys for publishing logs to TMS asynchronously through bounded off-heap buffers
+    public static final String TMS_ASYNC_ENABLED = "log.tms.async.enabled";
+    public static final String TMS_ASYNC_BUFFER_SIZE = "log.tms.async.buffer.size.bytes";
+    public static final String TMS_ASYNC_SHED_RATIO = "log.tms.async.shed.ratio";
+    public static final String TMS_ASYNC_BATCH_SIZE = "log.tms.async.batch.size.bytes";
+    public static final String TMS_ASYNC_BATCH_DELAY_MS = "log.tms.async.batch.delay.ms";
 
     public static final String PIPELINE_CONFIG_DIR = "log.process.pipeline.config.dir";
     public static final String PIPELINE_LIBRARY_DIR = "log.process.pipeline.lib.dir";
@@ -1461,6 +1493,12 @@ public final class Constants {
   public static final String CFG_DATA_LEVELDB_COMPRESSION_ENABLED = "data.local.storage.compression.enabled";
   public static final String CFG_DATA_LEVELDB_BLOCKSIZE = "data.local.storage.blocksize";
   public static final String CFG_DATA_LEVELDB_CACHESIZE = "data.local.storage.cachesize";
+  public static final String CFG_DATA_LEVELDB_MAX_OPEN_FILES = "data.local.storage.max.open.files";
+  // Prefix for overriding the compression, block size and max open files of a table, followed by "<table-name>."
+  public static final String CFG_DATA_LEVELDB_TABLE_PREFIX = "data.local.storage.table.";
+  public static final String CFG_DATA_LEVELDB_COMPRESSION_ENABLED_SUFFIX = "compression.enabled";
+  public static final String CFG_DATA_LEVELDB_BLOCKSIZE_SUFFIX = "blocksize";
+  public static final String CFG_DATA_LEVELDB_MAX_OPEN_FILES_SUFFIX = "max.open.files";
   public static final String CFG_DATA_LEVELDB_FSYNC = "data.local.storage.fsync";
   public static final String CFG_DATA_LEVELDB_COMPACTION_INTERVAL_SECONDS =
     "data.local.storage.compaction.interval.seconds";
@@ -1475,6 +1513,7 @@ public final class Constants {
   public static final String DEFAULT_DATA_LEVELDB_DIR = "data";
   public static final int DEFAULT_DATA_LEVELDB_BLOCKSIZE = 1024;
   public static final long DEFAULT_DATA_LEVELDB_CACHESIZE = 1024 * 1024 * 100;
+  public static final int DEFAULT_DATA_LEVELDB_MAX_OPEN_FILES = 1000;
   public static final boolean DEFAULT_DATA_LEVELDB_FSYNC = true;
   public static final long DEFAULT_DATA_LEVELDB_COMPACTION_INTERVAL_SECONDS = 0;
   public static final int DEFAULT_DATA_LEVELDB_COMPACTION_LEVEL_MIN = 0;
@@ -1580,15 +1619,20 @@ public final class Constants {
     public static final String LOCAL_DATA_PARTITION_SECONDS = "messaging.local.data.partition.secs";
 
     public static final String CACHE_SIZE_MB = "messaging.cache.size.mb";
+    public static final String CACHE_OFF_HEAP_ENABLED = "messaging.cache.offheap.enabled";
+    public static final String CACHE_OFF_HEAP_SLAB_SIZE_KB = "messaging.cache.offheap.slab.size.kb";
 
     public static final String HBASE_MAX_SCAN_THREADS = "messaging.hbase.max.scan.threads";
     public static final String HBASE_SCAN_CACHE_ROWS = "messaging.hbase.scan.cache.rows";
     public static final String METADATA_TABLE_NAME = "messaging.metadata.table.name";
     public static final String MESSAGE_TABLE_NAME = "messaging.message.table.name";
     public static final String MESSAGE_TABLE_HBASE_SPLITS = "messaging.message.table.hbase.splits";
+    public static final String MESSAGE_TABLE_WRITE_SHARDS = "messaging.message.table.write.shards";
     public static final String PAYLOAD_TABLE_NAME = "messaging.payload.table.name";
     public static final String PAYLOAD_TABLE_HBASE_SPLITS = "messaging.payload.table.hbase.splits";
     public static final String SYSTEM_TOPICS = "messaging.system.topics";
+    public static final String STORE_BATCH_MAX_REQUESTS = "messaging.store.batch.max.requests";
+    public static final String STORE_BATCH_LINGER_MS = "messaging.store.batch.linger.ms";
     public static final String TABLE_CACHE_EXPIRATION_SECONDS = "messaging.table.expiration.seconds";
     public static final String TABLE_HBASE_SPLIT_POLICY = "messaging.table.hbase.split.policy";
     public static final String TOPIC_DEFAULT_TTL_SECONDS = "messaging.topic.default.ttl.seconds";
@@ -1599,6 +1643,8 @@ public final class Constants {
     public static final String HTTP_SERVER_EXECUTOR_THREADS = "messaging.http.server.executor.threads";
     public static final String HTTP_SERVER_MAX_REQUEST_SIZE_MB = "messaging.http.server.max.request.size.mb";
     public static final String HTTP_SERVER_CONSUME_CHUNK_SIZE = "messaging.http.server.consume.chunk.size";
+    public static final String HTTP_SERVER_POLL_MAX_WAIT_MS = "messaging.http.server.poll.max.wait.ms";
+    public static final String HTTP_SERVER_POLL_THREADS = "messaging.http.server.poll.threads";
     public static final String HTTP_COMPRESS_PAYLOAD = "messaging.http.compress.payload";
 
     // Distributed mode related configurations
@@ -218,7 +218,9 @@ public final class RunRecordDetail extends RunRecord {
       super(record);
       programRunId = record.getProgramRunId();
       twillRunId = record.getTwillRunId();
-      systemArgs = new HashMap<>(record.getSystemArgs());
+      // The map is not copied, since it is replaced instead of modified by setSystemArgs. This avoids decoding
+      // the system arguments of a lazily decoded record for a state transition that doesn't change them.
+      systemArgs = record.getSystemArgs();
       sourceId = record.getSourceId();
       principal = record.getPrincipal();
       artifactId = record.getArtifactId();
@@ -235,10 +237,16 @@ public final class RunRecordDetail extends RunRecord {
     }
 
     public Builder setSystemArgs(@Nullable Map<String, String> systemArgs) {
-      this.systemArgs.clear();
-      if (systemArgs != null) {
-        this.systemArgs.putAll(systemArgs);
-      }
+      this.systemArgs = systemArgs == null ? new HashMap<>() : new HashMap<>(systemArgs);
+      return this;
+    }
+
+    /**
+     * Sets the system arguments map without copying it, such that {@link RunRecordDetailCodec} can decode the
+     * map lazily.
+     */
+    Builder setSystemArgsMap(Map<String, String> systemArgs) {
+      this.systemArgs = systemArgs;
       return this;
     }
 
@@ -0,0 +1,265 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ForwardingMap;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.proto.ProgramRunCluster;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes {@link RunRecordDetail} in a compact binary format for storing in the metadata store. Since the run record
+ * data is stored in a string column, the encoded form is a Base64 string with a prefix that never starts a JSON object,
+ * such that it can be told apart from run records stored as JSON.
+ *
+ * The binary format starts with a version number, followed by the fields in a fixed order. New fields can only be
+ * added to the end, and decoding of older data should treat them as absent. Fields are encoded with
+ * {@link BinaryEncoder}, with nullable values prefixed by a boolean. The properties and system arguments are encoded
+ * as nested byte arrays, such that the system arguments, which are large and only used by a few callers, are decoded
+ * on first access.
+ *
+ * The program of the run is not encoded since it is part of the row key.
+ */
+public final class RunRecordDetailCodec {
+
+  private static final String PREFIX = "~";
+  private static final int VERSION = 1;
+
+  private RunRecordDetailCodec() {
+    // no-op
+  }
+
+  /**
+   * Returns {@code true} if the given run record data was encoded by this codec.
+   */
+  public static boolean isEncoded(String data) {
+    return data.startsWith(PREFIX);
+  }
+
+  /**
+   * Encodes the given {@link RunRecordDetail}.
+   *
+   * @param record the run record to encode
+   * @return the encoded string
+   */
+  public static String encode(RunRecordDetail record) {
+    try {
+      ByteArrayOutputStream os = new ByteArrayOutputStream(256);
+      BinaryEncoder encoder = new BinaryEncoder(os);
+      encoder.writeInt(VERSION);
+      encoder.writeString(record.getPid());
+      encoder.writeLong(record.getStartTs());
+      writeNullableLong(encoder, record.getRunTs());
+      writeNullableLong(encoder, record.getStopTs());
+      writeNullableLong(encoder, record.getSuspendTs());
+      writeNullableLong(encoder, record.getResumeTs());
+      writeNullableString(encoder, record.getStatus() == null ? null : record.getStatus().name());
+
+      ProgramRunCluster cluster = record.getCluster();
+      encoder.writeBool(cluster != null);
+      if (cluster != null) {
+        writeNullableString(encoder, cluster.getStatus() == null ? null : cluster.getStatus().name());
+        writeNullableLong(encoder, cluster.getEnd());
+        writeNullableLong(encoder, cluster.getNumNodes() == null ? null : cluster.getNumNodes().longValue());
+      }
+
+      ProfileId profileId = record.getProfileId();
+      encoder.writeBool(profileId != null);
+      if (profileId != null) {
+        encoder.writeString(profileId.getNamespace());
+        encoder.writeString(profileId.getProfile());
+      }
+
+      writeNullableString(encoder, record.getTwillRunId());
+      byte[] sourceId = record.getSourceId();
+      encoder.writeBool(sourceId != null);
+      if (sourceId != null) {
+        encoder.writeBytes(sourceId);
+      }
+
+      ArtifactId artifactId = record.getArtifactId();
+      encoder.writeBool(artifactId != null);
+      if (artifactId != null) {
+        encoder.writeString(artifactId.getName());
+        encoder.writeString(artifactId.getVersion().getVersion());
+        encoder.writeString(artifactId.getScope().name());
+      }
+
+      writeNullableString(encoder, record.getPrincipal());
+      encoder.writeBytes(encodeMap(record.getProperties()));
+      Map<String, String> systemArgs = record.getSystemArgs();
+      // System arguments that were decoded lazily and unchanged are written back without decoding
+      encoder.writeBytes(systemArgs instanceof LazyMap ? ((LazyMap) systemArgs).bytes : encodeMap(systemArgs));
+
+      return PREFIX + Base64.getEncoder().encodeToString(os.toByteArray());
+    } catch (IOException e) {
+      // Shouldn't happen since it is writing to memory
+      throw new IllegalStateException("Failed to encode run record " + record.getProgramRunId(), e);
+    }
+  }
+
+  /**
+   * Decodes a {@link RunRecordDetail} encoded by {@link #encode(RunRecordDetail)}.
+   *
+   * @param data the encoded string
+   * @param programId the program of the run
+   * @return the decoded {@link RunRecordDetail}
+   * @throws IllegalArgumentException if the data is not a valid encoded run record
+   */
+  public static RunRecordDetail decode(String data, ProgramId programId) {
+    if (!isEncoded(data)) {
+      throw new IllegalArgumentException("Run record data of program " + programId + " is not in binary format");
+    }
+    byte[] bytes = Base64.getDecoder().decode(data.substring(PREFIX.length()));
+    try {
+      BinaryDecoder decoder = new BinaryDecoder(new ByteArrayInputStream(bytes));
+      int version = decoder.readInt();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported run record encoding version " + version
+                                             + " for program " + programId);
+      }
+      RunRecordDetail.Builder builder = RunRecordDetail.builder()
+        .setProgramRunId(programId.run(decoder.readString()))
+        .setStartTime(decoder.readLong())
+        .setRunTime(readNullableLong(decoder))
+        .setStopTime(readNullableLong(decoder))
+        .setSuspendTime(readNullableLong(decoder))
+        .setResumeTime(readNullableLong(decoder));
+      String status = readNullableString(decoder);
+      builder.setStatus(status == null ? null : ProgramRunStatus.valueOf(status));
+
+      if (decoder.readBool()) {
+        String clusterStatus = readNullableString(decoder);
+        Long end = readNullableLong(decoder);
+        Long numNodes = readNullableLong(decoder);
+        builder.setCluster(new ProgramRunCluster(clusterStatus == null
+                                                   ? null : ProgramRunClusterStatus.valueOf(clusterStatus),
+                                                 end, numNodes == null ? null : numNodes.intValue()));
+      }
+      if (decoder.readBool()) {
+        builder.setProfileId(new ProfileId(decoder.readString(), decoder.readString()));
+      }
+
+      builder.setTwillRunId(readNullableString(decoder));
+      if (decoder.readBool()) {
+        builder.setSourceId(Bytes.getBytes(decoder.readBytes()));
+      }
+      if (decoder.readBool()) {
+        builder.setArtifactId(new ArtifactId(decoder.readString(), new ArtifactVersion(decoder.readString()),
+                                             ArtifactScope.valueOf(decoder.readString())));
+      }
+      builder.setPrincipal(readNullableString(decoder));
+      builder.setProperties(decodeMap(Bytes.getBytes(decoder.readBytes())));
+      byte[] systemArgs = Bytes.getBytes(decoder.readBytes());
+      return builder.setSystemArgsMap(new LazyMap(systemArgs)).build();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to decode run record of program " + programId, e);
+    }
+  }
+
+  private static void writeNullableLong(BinaryEncoder encoder, @Nullable Long value) throws IOException {
+    encoder.writeBool(value != null);
+    if (value != null) {
+      encoder.writeLong(value);
+    }
+  }
+
+  @Nullable
+  private static Long readNullableLong(BinaryDecoder decoder) throws IOException {
+    return decoder.readBool() ? decoder.readLong() : null;
+  }
+
+  private static void writeNullableString(BinaryEncoder encoder, @Nullable String value) throws IOException {
+    encoder.writeBool(value != null);
+    if (value != null) {
+      encoder.writeString(value);
+    }
+  }
+
+  @Nullable
+  private static String readNullableString(BinaryDecoder decoder) throws IOException {
+    return decoder.readBool() ? decoder.readString() : null;
+  }
+
+  private static byte[] encodeMap(@Nullable Map<String, String> map) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BinaryEncoder encoder = new BinaryEncoder(os);
+    if (map == null) {
+      encoder.writeInt(0);
+      return os.toByteArray();
+    }
+    encoder.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      encoder.writeString(entry.getKey());
+      writeNullableString(encoder, entry.getValue());
+    }
+    return os.toByteArray();
+  }
+
+  private static Map<String, String> decodeMap(byte[] bytes) {
+    try {
+      BinaryDecoder decoder = new BinaryDecoder(new ByteArrayInputStream(bytes));
+      int size = decoder.readInt();
+      Map<String, String> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+      for (int i = 0; i < size; i++) {
+        map.put(decoder.readString(), readNullableString(decoder));
+      }
+      return map;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to decode run record map", e);
+    }
+  }
+
+  /**
+   * An immutable {@link Map} that is decoded from the given bytes on first access. Since it is immutable,
+   * it can be shared by the run records built from the decoded one, and can be encoded by writing the bytes as is.
+   */
+  private static final class LazyMap extends ForwardingMap<String, String> {
+
+    private final byte[] bytes;
+    private final Supplier<Map<String, String>> supplier;
+
+    LazyMap(byte[] bytes) {
+      this.bytes = bytes;
+      this.supplier = Suppliers.memoize(() -> Collections.unmodifiableMap(decodeMap(bytes)));
+    }
+
+    @Override
+    protected Map<String, String> delegate() {
+      return supplier.get();
+    }
+  }
+}
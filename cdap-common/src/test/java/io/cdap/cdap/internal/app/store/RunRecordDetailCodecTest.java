@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.proto.ProgramRunCluster;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit test for {@link RunRecordDetailCodec}.
+ */
+public class RunRecordDetailCodecTest {
+
+  private static final ProgramId PROGRAM_ID = NamespaceId.DEFAULT.app("app").workflow("workflow");
+
+  @Test
+  public void testEncodeDecode() {
+    Map<String, String> systemArgs = new HashMap<>();
+    for (int i = 0; i < 20; i++) {
+      systemArgs.put("system.key" + i, "value" + i);
+    }
+    RunRecordDetail record = RunRecordDetail.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate()))
+      .setStartTime(1000L)
+      .setRunTime(1010L)
+      .setStopTime(1020L)
+      .setStatus(ProgramRunStatus.COMPLETED)
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.DEPROVISIONED, 1030L, 3))
+      .setProfileId(ProfileId.NATIVE)
+      .setProperties(ImmutableMap.of("runtimeArgs", "{\"key\":\"value\"}", "workflowrunid", "id"))
+      .setSystemArgs(systemArgs)
+      .setTwillRunId("twill")
+      .setSourceId(new byte[] { 1, 2, 3 })
+      .setArtifactId(new ArtifactId("artifact", new ArtifactVersion("1.0.0"), ArtifactScope.USER))
+      .setPrincipal("user")
+      .build();
+
+    String encoded = RunRecordDetailCodec.encode(record);
+    Assert.assertTrue(RunRecordDetailCodec.isEncoded(encoded));
+    RunRecordDetail decoded = RunRecordDetailCodec.decode(encoded, PROGRAM_ID);
+    Assert.assertEquals(record, decoded);
+    Assert.assertEquals(record.getCluster().getStatus(), decoded.getCluster().getStatus());
+    Assert.assertEquals(record.getCluster().getEnd(), decoded.getCluster().getEnd());
+    Assert.assertEquals(record.getCluster().getNumNodes(), decoded.getCluster().getNumNodes());
+    Assert.assertEquals(record.getProfileId(), decoded.getProfileId());
+    Assert.assertEquals(systemArgs, decoded.getSystemArgs());
+    Assert.assertEquals(record.getUserArgs(), decoded.getUserArgs());
+
+    // Should be smaller than the JSON
+    String json = new Gson().toJson(record);
+    Assert.assertFalse(RunRecordDetailCodec.isEncoded(json));
+    Assert.assertTrue(encoded.length() < json.length());
+
+    // Builder from a decoded record can modify the system arguments
+    RunRecordDetail updated = RunRecordDetail.builder(RunRecordDetailCodec.decode(encoded, PROGRAM_ID))
+      .setSystemArgs(ImmutableMap.of("k", "v"))
+      .build();
+    Assert.assertEquals(ImmutableMap.of("k", "v"), updated.getSystemArgs());
+
+    // A state transition shares the system arguments of the decoded record, and encodes them unchanged
+    RunRecordDetail stopped = RunRecordDetailCodec.decode(encoded, PROGRAM_ID);
+    RunRecordDetail transitioned = RunRecordDetail.builder(stopped).setStatus(ProgramRunStatus.FAILED).build();
+    Assert.assertSame(stopped.getSystemArgs(), transitioned.getSystemArgs());
+    Assert.assertEquals(systemArgs, RunRecordDetailCodec.decode(RunRecordDetailCodec.encode(transitioned),
+                                                                PROGRAM_ID).getSystemArgs());
+  }
+
+  @Test
+  public void testNullFields() {
+    RunRecordDetail record = RunRecordDetail.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate()))
+      .setStartTime(1000L)
+      .setStatus(ProgramRunStatus.PENDING)
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.PROVISIONING, null, null))
+      .setSourceId(new byte[0])
+      .build();
+
+    RunRecordDetail decoded = RunRecordDetailCodec.decode(RunRecordDetailCodec.encode(record), PROGRAM_ID);
+    Assert.assertEquals(record, decoded);
+    Assert.assertNull(decoded.getRunTs());
+    Assert.assertEquals(record.getProfileId(), decoded.getProfileId());
+    Assert.assertNull(decoded.getArtifactId());
+    Assert.assertNull(decoded.getCluster().getNumNodes());
+    Assert.assertTrue(decoded.getSystemArgs().isEmpty());
+  }
+}
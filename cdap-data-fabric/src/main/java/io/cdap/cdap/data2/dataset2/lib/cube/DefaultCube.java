@@ -16,6 +16,8 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -58,6 +60,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.SortedSet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -74,15 +77,20 @@ public class DefaultCube implements Cube, MeteredDataset {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCube.class);
 
   private static final DimensionValueComparator DIMENSION_VALUE_COMPARATOR = new DimensionValueComparator();
-  // hard-limit on max records to scan
+  // hard-limit on max records to scan. When rolling up, it is multiplied by the number of table intervals in each
+  // query interval, such that a rollup query can cover the same number of result intervals as a direct query.
   private static final int MAX_RECORDS_TO_SCAN = 100 * 1000;
   private static final EnumSet<AggregationOption> PARTITION_AGG_OPTIONS = EnumSet.of(AggregationOption.LATEST,
                                                                                      AggregationOption.SUM);
+  // max number of query results to keep in the query cache
+  private static final int MAX_CACHED_QUERIES = 1000;
 
   private final Map<Integer, FactTable> resolutionToFactTable;
   private final Map<String, ? extends Aggregation> aggregations;
   private final Map<String, AggregationAlias> aggregationAliasMap;
   private final ExecutorService executorService;
+  @Nullable
+  private final Cache<QueryCacheKey, Collection<TimeSeries>> queryCache;
 
   @Nullable
   private MetricsCollector metrics;
@@ -90,6 +98,20 @@ public class DefaultCube implements Cube, MeteredDataset {
   public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
                      Map<String, ? extends Aggregation> aggregations,
                      Map<String, AggregationAlias> aggregationAliasMap) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, 0L);
+  }
+
+  /**
+   * Creates a {@link DefaultCube} that caches query results.
+   *
+   * @param queryCacheExpireMillis number of milliseconds that a query result is cached for, or {@code 0} to disable
+   *                               caching. Adding facts to this cube invalidates the cache, but facts added to the
+   *                               same tables through other cube instances are not reflected in the cached result
+   *                               until it expires.
+   */
+  public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+                     Map<String, ? extends Aggregation> aggregations,
+                     Map<String, AggregationAlias> aggregationAliasMap, long queryCacheExpireMillis) {
     this.aggregations = aggregations;
     this.resolutionToFactTable = Maps.newHashMap();
     for (int resolution : resolutions) {
@@ -101,6 +123,10 @@ public class DefaultCube implements Cube, MeteredDataset {
                                                          Threads.createDaemonThreadFactory("metrics-table-%d"));
     executor.allowCoreThreadTimeOut(true);
     this.executorService = executor;
+    this.queryCache = queryCacheExpireMillis <= 0 ? null : CacheBuilder.newBuilder()
+      .expireAfterWrite(queryCacheExpireMillis, TimeUnit.MILLISECONDS)
+      .maximumSize(MAX_CACHED_QUERIES)
+      .build();
   }
 
   @Override
@@ -160,6 +186,12 @@ public class DefaultCube implements Cube, MeteredDataset {
       }
     }
 
+    // Facts added through this cube are visible to its queries right away. Facts added by other processes are only
+    // visible once the cached results expire.
+    if (queryCache != null) {
+      queryCache.invalidateAll();
+    }
+
     if (failed) {
       throw new RuntimeException(failedMessage.append(".").toString(), failedException);
     }
@@ -207,15 +239,31 @@ public class DefaultCube implements Cube, MeteredDataset {
 
       3) While scanning build a table: dimension values -> time -> value. Use measureType as values aggregate
          function if needed.
+
+      If there is no table for the query resolution, the query is served from the coarsest table with a resolution
+      that evenly divides the query resolution, by rolling up the values into the query resolution while scanning.
     */
 
     incrementMetric("cube.query.request.count", 1);
 
-    if (!resolutionToFactTable.containsKey(query.getResolution())) {
+    // The interpolator doesn't implement equals, hence queries with interpolator are not cached
+    QueryCacheKey cacheKey = queryCache == null || query.getInterpolator() != null ? null : new QueryCacheKey(query);
+    if (cacheKey != null) {
+      Collection<TimeSeries> cached = queryCache.getIfPresent(cacheKey);
+      if (cached != null) {
+        incrementMetric("cube.query.cache.hit.count", 1);
+        return new ArrayList<>(cached);
+      }
+      incrementMetric("cube.query.cache.miss.count", 1);
+    }
+
+    int tableResolution = findTableResolution(query.getResolution());
+    if (tableResolution < 0) {
       incrementMetric("cube.query.request.failure.count", 1);
       throw new IllegalArgumentException("There's no data aggregated for specified resolution to satisfy the query: " +
                                            query.toString());
     }
+    boolean rollup = tableResolution != query.getResolution();
 
     // 1) find aggregation to query
     Aggregation agg;
@@ -242,7 +290,10 @@ public class DefaultCube implements Cube, MeteredDataset {
 
     // tell how many queries end up querying specific pre-aggregated views and resolutions
     incrementMetric("cube.query.agg." + aggName + ".count", 1);
-    incrementMetric("cube.query.res." + query.getResolution() + ".count", 1);
+    incrementMetric("cube.query.res." + tableResolution + ".count", 1);
+    if (rollup) {
+      incrementMetric("cube.query.rollup.count", 1);
+    }
 
     // 2) build a scan for a query
     List<DimensionValue> dimensionValues = Lists.newArrayList();
@@ -251,13 +302,18 @@ public class DefaultCube implements Cube, MeteredDataset {
       dimensionValues.add(new DimensionValue(dimensionName, query.getDimensionValues().get(dimensionName)));
     }
 
-    FactScan scan = new FactScan(query.getStartTs(), query.getEndTs(),
-                                 query.getMeasurements().keySet(), dimensionValues);
+    // when rolling up, the scan starts from the beginning of the query resolution interval containing the start time
+    long startTs = rollup ? query.getStartTs() / query.getResolution() * query.getResolution() : query.getStartTs();
+    FactScan scan = new FactScan(startTs, query.getEndTs(), query.getMeasurements().keySet(), dimensionValues);
 
     // 3) execute scan query
-    FactTable table = resolutionToFactTable.get(query.getResolution());
+    FactTable table = resolutionToFactTable.get(tableResolution);
     FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    long maxRecordsToScan = rollup
+      ? (long) MAX_RECORDS_TO_SCAN * (query.getResolution() / tableResolution)
+      : MAX_RECORDS_TO_SCAN;
+    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner, rollup,
+                                                                                  maxRecordsToScan);
 
     incrementMetric("cube.query.request.success.count", 1);
     incrementMetric("cube.query.result.size", resultMap.size());
@@ -265,6 +321,9 @@ public class DefaultCube implements Cube, MeteredDataset {
     Collection<TimeSeries> timeSeries = convertToQueryResult(query, resultMap);
     incrementMetric("cube.query.result.timeseries.count", timeSeries.size());
 
+    if (cacheKey != null) {
+      queryCache.put(cacheKey, Collections.unmodifiableCollection(new ArrayList<>(timeSeries)));
+    }
     return timeSeries;
   }
 
@@ -285,6 +344,9 @@ public class DefaultCube implements Cube, MeteredDataset {
         factTable.delete(scan);
       }
     }
+    if (queryCache != null) {
+      queryCache.invalidateAll();
+    }
   }
 
   @Override
@@ -356,6 +418,27 @@ public class DefaultCube implements Cube, MeteredDataset {
     }
   }
 
+  /**
+   * Finds the resolution of the table to serve a query of the given resolution. It is the query resolution if there
+   * is a table for it, otherwise the largest table resolution that evenly divides the query resolution.
+   *
+   * @return the table resolution or {@code -1} if no table can serve the query resolution
+   */
+  private int findTableResolution(int resolution) {
+    if (resolutionToFactTable.containsKey(resolution)) {
+      return resolution;
+    }
+    int result = -1;
+    for (int tableResolution : resolutionToFactTable.keySet()) {
+      // the totals table cannot be rolled up into other resolution
+      if (tableResolution != Integer.MAX_VALUE && tableResolution > 0 && resolution > 0 &&
+        resolution % tableResolution == 0 && tableResolution > result) {
+        result = tableResolution;
+      }
+    }
+    return result;
+  }
+
   @Nullable
   private ImmutablePair<String, Aggregation> findAggregation(CubeQuery query) {
     ImmutablePair<String, Aggregation> currentBest = null;
@@ -376,11 +459,12 @@ public class DefaultCube implements Cube, MeteredDataset {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
+  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner,
+                                                                            boolean rollup, long maxRecordsToScan) {
     // {dimension values, measure} -> {time -> value}s
     Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
 
-    int count = 0;
+    long count = 0;
     while (scanner.hasNext()) {
       FactScanResult next = scanner.next();
       incrementMetric("cube.query.scan.records.count", 1);
@@ -413,7 +497,12 @@ public class DefaultCube implements Cube, MeteredDataset {
         continue;
       }
 
-      for (TimeValue timeValue : next) {
+      for (TimeValue scannedValue : next) {
+        // when rolling up, values are aggregated into the interval of the query resolution
+        TimeValue timeValue = rollup
+          ? new TimeValue(scannedValue.getTimestamp() / query.getResolution() * query.getResolution(),
+                          scannedValue.getValue())
+          : scannedValue;
         Map<Long, Long> timeValues = result.get(seriesDimensions, next.getMeasureName());
         if (timeValues == null) {
           result.put(seriesDimensions, next.getMeasureName(), Maps.<Long, Long>newHashMap());
@@ -440,7 +529,11 @@ public class DefaultCube implements Cube, MeteredDataset {
           throw new RuntimeException("Unknown MeasureType: " + function);
         }
       }
-      if (++count >= MAX_RECORDS_TO_SCAN) {
+      if (++count >= maxRecordsToScan) {
+        if (scanner.hasNext()) {
+          incrementMetric("cube.query.scan.truncated.count", 1);
+          LOG.warn("Stopped scanning after {} records, the result of the query is incomplete: {}", count, query);
+        }
         break;
       }
     }
@@ -542,4 +635,55 @@ public class DefaultCube implements Cube, MeteredDataset {
     }
 
   }
+
+  /**
+   * Key of the query cache, which consists of all the {@link CubeQuery} fields that affect the query result,
+   * except the interpolator.
+   */
+  private static final class QueryCacheKey {
+    private final String aggregation;
+    private final long startTs;
+    private final long endTs;
+    private final int resolution;
+    private final int limit;
+    private final Map<String, AggregationFunction> measurements;
+    private final Map<String, String> dimensionValues;
+    private final List<String> groupByDimensions;
+    private final AggregationOption aggregationOption;
+    private final int hashCode;
+
+    private QueryCacheKey(CubeQuery query) {
+      this.aggregation = query.getAggregation();
+      this.startTs = query.getStartTs();
+      this.endTs = query.getEndTs();
+      this.resolution = query.getResolution();
+      this.limit = query.getLimit();
+      this.measurements = new HashMap<>(query.getMeasurements());
+      this.dimensionValues = new HashMap<>(query.getDimensionValues());
+      this.groupByDimensions = new ArrayList<>(query.getGroupByDimensions());
+      this.aggregationOption = query.getAggregationOption();
+      this.hashCode = Objects.hash(aggregation, startTs, endTs, resolution, limit, measurements,
+                                   dimensionValues, groupByDimensions, aggregationOption);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      QueryCacheKey other = (QueryCacheKey) o;
+      return startTs == other.startTs && endTs == other.endTs && resolution == other.resolution &&
+        limit == other.limit && Objects.equals(aggregation, other.aggregation) &&
+        measurements.equals(other.measurements) && dimensionValues.equals(other.dimensionValues) &&
+        groupByDimensions.equals(other.groupByDimensions) && aggregationOption == other.aggregationOption;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
 }
@@ -81,6 +81,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -107,6 +108,8 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private static final Gson GSON =
     new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
   private static final String QUARANTINE_DIR = ".quarantine";
+  // Number of consecutive rows not matching the partition filter before the scan seeks ahead
+  private static final int SKIP_SCAN_MISSES = 3;
 
   // A function to convert PartitionOperation into PartitionKey by getting the key from the operation.
   private static final Function<PartitionOperation, PartitionKey> OP_TO_KEY =
@@ -765,7 +768,9 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata,
                              @Nullable byte[] startKey, @Nullable byte[] endKey, long limit) {
     long count = 0L;
-    try (Scanner scanner = partitionsTable.scan(startKey, endKey)) {
+    int misses = 0;
+    Scanner scanner = partitionsTable.scan(startKey, endKey);
+    try {
       while (count < limit) {
         Row row = scanner.next();
         if (row == null) {
@@ -780,8 +785,24 @@ public class PartitionedFileSetDataset extends AbstractDataset
           continue;
         }
         if (filter != null && !filter.match(key)) {
+          // The start and stop key only narrow the scan by the leading fields of the filter. If rows keep missing,
+          // seek past the rows that cannot match, instead of reading them one by one.
+          if (++misses >= SKIP_SCAN_MISSES) {
+            byte[] skipKey = generateSkipKey(row.getRow(), key, filter, partitioning);
+            // only seek forward, otherwise the scan may never make progress
+            if (skipKey != null && Bytes.compareTo(skipKey, row.getRow()) > 0) {
+              if (endKey != null && Bytes.compareTo(skipKey, endKey) >= 0) {
+                break;
+              }
+              Scanner oldScanner = scanner;
+              scanner = partitionsTable.scan(skipKey, endKey);
+              oldScanner.close();
+              misses = 0;
+            }
+          }
           continue;
         }
+        misses = 0;
         byte[] pathBytes = row.get(RELATIVE_PATH);
         if (pathBytes != null) {
           consumer.consume(key, Bytes.toString(pathBytes), decodeMetadata ? metadataFromRow(row) : null);
@@ -791,6 +812,8 @@ public class PartitionedFileSetDataset extends AbstractDataset
       if (count == 0) {
         warnIfInvalidPartitionFilter(filter, partitioning);
       }
+    } finally {
+      scanner.close();
     }
   }
 
@@ -1306,6 +1329,74 @@ public class PartitionedFileSetDataset extends AbstractDataset
     return stopKey;
   }
 
+  /**
+   * Generates the row key to continue a scan from, after a row with a partition key that does not match the filter.
+   * The fields of the partition key are checked in the order of the partitioning. For the first field that does not
+   * match its condition, if the value is below the lower bound, the scan can continue from the lower bound of that
+   * field. Otherwise the value is beyond the upper bound, and the scan can continue from the next value of the
+   * preceding fields. No rows are skipped for a string condition whose bounds are not ordered the same way by
+   * {@link String#compareTo(String)} and by their encoded bytes.
+   *
+   * @return the row key to continue the scan from, or {@code null} if no rows can be skipped
+   */
+  @Nullable
+  @VisibleForTesting
+  @SuppressWarnings("unchecked")
+  static byte[] generateSkipKey(byte[] rowKey, PartitionKey key, PartitionFilter filter, Partitioning partitioning) {
+    int offset = 0;
+    for (Map.Entry<String, FieldType> entry : partitioning.getFields().entrySet()) {
+      String fieldName = entry.getKey();
+      FieldType fieldType = entry.getValue();
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(fieldName);
+      Comparable fieldValue = key.getField(fieldName);
+      if (condition == null || condition.match(fieldValue)) {
+        // skip over the value and the \0 after it
+        offset += FieldTypes.determineLengthInBytes(rowKey, offset, fieldType) + 1;
+        continue;
+      }
+      if (fieldType == FieldType.STRING
+        && !(isByteOrderConsistent(condition.getLower()) && isByteOrderConsistent(condition.getUpper()))) {
+        return null;
+      }
+      Comparable lowerValue = condition.getLower();
+      if (lowerValue != null && lowerValue.compareTo(fieldValue) > 0) {
+        // keep the preceding fields and continue from the lower bound of this field
+        byte[] lowerBytes = FieldTypes.toBytes(lowerValue, fieldType);
+        byte[] skipKey = Arrays.copyOf(rowKey, offset + lowerBytes.length);
+        System.arraycopy(lowerBytes, 0, skipKey, offset, lowerBytes.length);
+        return skipKey;
+      }
+      if (offset == 0) {
+        // beyond the upper bound of the first field, which is already covered by the stop key
+        return null;
+      }
+      // continue after all rows with the same preceding fields, by replacing the \0 before this field with \1
+      byte[] skipKey = Arrays.copyOf(rowKey, offset);
+      skipKey[offset - 1] = 1;
+      return skipKey;
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether comparing the given string bound with {@link String#compareTo(String)} gives the same result as
+   * comparing the UTF-8 bytes, for any other string. The two orders only differ when a surrogate character is compared
+   * with a character at or above {@code \uE000}, which cannot happen if the bound only has characters below the
+   * surrogate range.
+   */
+  private static boolean isByteOrderConsistent(@Nullable Comparable<?> bound) {
+    if (bound == null) {
+      return true;
+    }
+    String str = bound.toString();
+    for (int i = 0; i < str.length(); i++) {
+      if (str.charAt(i) >= Character.MIN_SURROGATE) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @VisibleForTesting
   static PartitionKey parseRowKey(byte[] rowKey, Partitioning partitioning) {
     PartitionKey.Builder builder = PartitionKey.builder();
@@ -73,8 +73,10 @@ import javax.annotation.Nullable;
  *       not in in-memory buffer twice, two times it will try to fetch it from persistent store.
  *       Given the snapshot isolation tx model, this can be improved in future implementations.
  * <p>
- * NOTE: current implementation persists changes only at the end of transaction. Beware of OOME. There should be better
- *       implementation for MapReduce case (YMMV though, for counters/aggregations this implementation looks sweet)
+ * NOTE: by default changes are persisted only at the end of transaction. Beware of OOME. If the
+ *       {@link TableProperties#PROPERTY_BUFFER_SPILL_SIZE} property is set, the in-memory buffer is persisted whenever
+ *       its estimated size reaches the given size. Persisted changes are visible to the transaction itself, and are
+ *       still included in the transaction changes and rolled back on failure.
  * <p>
  * NOTE: Using {@link #get(byte[], byte[], byte[], int)} is generally always not efficient since it always hits the
  *       persisted store even if all needed data is in-memory buffer. See more info at method javadoc
@@ -86,6 +88,12 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   protected static final byte[] DELETE_MARKER = new byte[0];
 
+  // Estimated memory used by a buffered column, in addition to the row, column and value bytes
+  private static final int BUFFER_ENTRY_OVERHEAD = 64;
+  // Placeholder value for keeping track of changes that were persisted before commit. Only the keys of persisted
+  // changes are needed for conflict detection and rollback, hence the values are not kept.
+  private static final Update PERSISTED = new PutValue(DELETE_MARKER);
+
   // name of the table
   private final String name;
   // conflict detection level
@@ -94,6 +102,8 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private final byte[] nameAsTxChangePrefix;
   // Whether read-less increments should be used when increment() is called
   private final boolean enableReadlessIncrements;
+  // Estimated size in bytes of the in-memory buffer at which it is persisted before commit, or 0 to never do that
+  private final long spillSize;
 
   // In-memory buffer that keeps not yet persisted data. It is row->(column->value) map. Value can be null which means
   // that the corresponded column was removed.
@@ -102,6 +112,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   // Keeps track of what was persisted so far
   private NavigableMap<byte[], NavigableMap<byte[], Update>> toUndo;
 
+  // Estimated size in bytes of the in-memory buffer
+  private long bufferedBytes;
+
   // Report data ops metrics to
   private MetricsCollector metricsCollector;
 
@@ -145,6 +158,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     this.name = name;
     this.conflictLevel = TableProperties.getConflictDetection(properties, ConflictDetection.ROW);
     this.enableReadlessIncrements = enableReadlessIncrements;
+    // Spilling is not supported with readless increments, since the increments persisted at the same version as the
+    // ones persisted by an earlier spill would replace them
+    this.spillSize = enableReadlessIncrements ? 0L : TableProperties.getBufferSpillSize(properties);
     // TODO: having central dataset management service will allow us to use table ids instead of names, which will
     //       reduce changeset size transferred to/from server
     // we want it to be of format length+value to avoid conflicts like table="ab", row="cd" vs table="abc", row="d"
@@ -274,6 +290,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // starting with fresh buffer when tx starts
     buff.clear();
     toUndo = null;
+    bufferedBytes = 0L;
     this.tx = tx;
   }
 
@@ -309,8 +326,16 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private Collection<byte[]> getRowChanges() {
     // we resolve conflicts on row level of individual table
     List<byte[]> changes = new ArrayList<>(buff.size());
+    // changes persisted before commit are not in the buffer anymore
+    if (toUndo != null) {
+      for (byte[] changedRow : toUndo.keySet()) {
+        changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
+      }
+    }
     for (byte[] changedRow : buff.keySet()) {
-      changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
+      if (toUndo == null || !toUndo.containsKey(changedRow)) {
+        changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
+      }
     }
     return changes;
   }
@@ -318,7 +343,18 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private Collection<byte[]> getColumnChanges() {
     // we resolve conflicts on row level of individual table
     List<byte[]> changes = new ArrayList<>(buff.size());
-    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : buff.entrySet()) {
+    // changes persisted before commit are not in the buffer anymore
+    if (toUndo != null) {
+      addColumnChanges(toUndo, null, changes);
+    }
+    addColumnChanges(buff, toUndo, changes);
+    return changes;
+  }
+
+  private void addColumnChanges(NavigableMap<byte[], NavigableMap<byte[], Update>> updates,
+                                @Nullable NavigableMap<byte[], NavigableMap<byte[], Update>> exclude,
+                                List<byte[]> changes) {
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : updates.entrySet()) {
       if (rowChange.getValue() == null) {
         // NOTE: as of now we cannot detect conflict between delete whole row and row's column value change.
         //       this is not a big problem as of now, as row deletion is now act as deletion of every column, but this
@@ -328,27 +364,35 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
       // using length + value format to prevent conflicts like row="ab", column="cd" vs row="abc", column="d"
       byte[] rowTxChange = Bytes.add(Bytes.toBytes(rowChange.getKey().length), rowChange.getKey());
+      NavigableMap<byte[], Update> excludeCols = exclude == null ? null : exclude.get(rowChange.getKey());
 
       for (byte[] column : rowChange.getValue().keySet()) {
-        changes.add(Bytes.add(getNameAsTxChangePrefix(), rowTxChange, column));
+        if (excludeCols == null || !excludeCols.containsKey(column)) {
+          changes.add(Bytes.add(getNameAsTxChangePrefix(), rowTxChange, column));
+        }
       }
     }
-    return changes;
   }
 
   @Override
   public boolean commitTx() throws Exception {
     if (!buff.isEmpty()) {
+      NavigableMap<byte[], NavigableMap<byte[], Update>> toPersist = buff;
       // We first assume that all data will be persisted. So that if exception happen during persist we try to
       // rollback everything we had in in-memory buffer.
-      toUndo = buff;
+      if (toUndo == null) {
+        toUndo = toPersist;
+      } else {
+        addToUndo(toPersist);
+      }
       // clearing up in-memory buffer by initializing new map.
       // NOTE: we want to init map here so that if no changes are made we re-use same instance of the map in next tx
       // NOTE: we could cache two maps and swap them to avoid creation of map instances, but code would be ugly
       buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+      reportBufferPersisted(false);
       // TODO: tracking of persisted items can be optimized by returning a pair {succeededOrNot, persisted} which
       //       tells if persisting succeeded and what was persisted (i.e. what we will have to undo in case of rollback)
-      persist(toUndo);
+      persist(toPersist);
     }
     return true;
   }
@@ -358,12 +402,14 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // don't need buffer anymore: tx has been committed
     buff.clear();
     toUndo = null;
+    bufferedBytes = 0L;
     tx = null;
   }
 
   @Override
   public boolean rollbackTx() throws Exception {
     buff.clear();
+    bufferedBytes = 0L;
     if (toUndo != null) {
       undo(toUndo);
       toUndo = null;
@@ -502,6 +548,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private void putInternal(byte[] row, byte[][] columns, byte[][] values) {
     NavigableMap<byte[], Update> colVals = buff.get(row);
     boolean newRow = false;
+    long addedBytes = 0L;
     if (colVals == null) {
       colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
       newRow = true;
@@ -513,10 +560,61 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
         warnAboutEmptyValue(columns[i]);
       }
       colVals.put(copy(columns[i]), new PutValue(copy(values[i])));
+      addedBytes += getBufferedSize(columns[i], values[i]);
     }
     if (newRow) {
       // NOTE: we copy passed row's byte arrays to protect buffer against possible changes of this array on client
       buff.put(copy(row), colVals);
+      addedBytes += getBufferedSize(row, null);
+    }
+    bufferUpdated(addedBytes);
+  }
+
+  /**
+   * Accounts for the bytes added to the in-memory buffer by an update, and spills the buffer if it reached the
+   * spill size. It must be called after the update is completely applied to the buffer, since the buffer is
+   * replaced by the spill.
+   */
+  private void bufferUpdated(long addedBytes) {
+    bufferedBytes += addedBytes;
+    if (spillSize > 0L && bufferedBytes >= spillSize) {
+      spill();
+    }
+  }
+
+  /**
+   * Persists the in-memory buffer before the transaction commits. The keys of the persisted changes are kept in
+   * {@link #toUndo} for conflict detection and rollback. Since changes are persisted at the write pointer of the
+   * transaction, they are visible to reads of the transaction, and later changes to the same cells replace them.
+   */
+  private void spill() {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> toPersist = buff;
+    // Record what is being persisted first, such that it is rolled back even if persisting fails half way
+    addToUndo(toPersist);
+    // Scanners opened before keep reading the old buffer, which is not modified anymore
+    buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    reportBufferPersisted(true);
+    try {
+      persist(toPersist);
+    } catch (Exception e) {
+      LOG.debug("Failed to persist buffer for table: " + getTransactionAwareName(), e);
+      throw new DataSetException("Failed to persist buffer", e);
+    }
+  }
+
+  private void addToUndo(NavigableMap<byte[], NavigableMap<byte[], Update>> persisted) {
+    if (toUndo == null) {
+      toUndo = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    }
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowEntry : persisted.entrySet()) {
+      NavigableMap<byte[], Update> undoCols = toUndo.get(rowEntry.getKey());
+      if (undoCols == null) {
+        undoCols = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        toUndo.put(rowEntry.getKey(), undoCols);
+      }
+      for (byte[] column : rowEntry.getValue().keySet()) {
+        undoCols.put(column, PERSISTED);
+      }
     }
   }
 
@@ -621,13 +719,20 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     ensureTransactionIsStarted();
     if (enableReadlessIncrements) {
       NavigableMap<byte[], Update> colVals = buff.get(row);
+      long addedBytes = 0L;
       if (colVals == null) {
         colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
         buff.put(row, colVals);
+        addedBytes += getBufferedSize(row, null);
       }
       for (int i = 0; i < columns.length; i++) {
-        colVals.put(columns[i], Updates.mergeUpdates(colVals.get(columns[i]), new IncrementValue(amounts[i])));
+        Update existing = colVals.put(columns[i],
+                                      Updates.mergeUpdates(colVals.get(columns[i]), new IncrementValue(amounts[i])));
+        if (existing == null) {
+          addedBytes += getBufferedSize(columns[i], null) + Bytes.SIZEOF_LONG;
+        }
       }
+      bufferUpdated(addedBytes);
       reportWrite(1, getSize(row) + getSize(columns) + getSize(amounts));
     } else {
       internalIncrementAndGet(row, columns, amounts);
@@ -929,6 +1034,28 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
   }
 
+  /**
+   * Reports the estimated size of the in-memory buffer when it is persisted, and resets it.
+   *
+   * @param spill whether the buffer is persisted before commit
+   */
+  private void reportBufferPersisted(boolean spill) {
+    if (metricsCollector != null) {
+      metricsCollector.gauge(Constants.Metrics.Name.Dataset.BUFFER_BYTES, bufferedBytes);
+      if (spill) {
+        metricsCollector.increment(Constants.Metrics.Name.Dataset.BUFFER_SPILL_COUNT, 1);
+      }
+    }
+    bufferedBytes = 0L;
+  }
+
+  /**
+   * Returns the estimated memory used by a buffered entry with the given key and value.
+   */
+  private static long getBufferedSize(byte[] key, @Nullable byte[] value) {
+    return BUFFER_ENTRY_OVERHEAD + key.length + (value == null ? 0 : value.length);
+  }
+
   private void reportRead(int numOps) {
     if (metricsCollector != null) {
       // todo: report amount of data being read
@@ -18,6 +18,7 @@ package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
 
 import com.google.common.base.Throwables;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
@@ -26,21 +27,22 @@ import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import org.apache.tephra.Transaction;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
-import org.iq80.leveldb.ReadOptions;
-import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
 import org.iq80.leveldb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.Nullable;
 
 /**
@@ -70,10 +72,12 @@ public class LevelDBTableCore {
 
   private final String tableName;
   private final LevelDBTableService service;
+  private final LevelDBTableService.ReadStats readStats;
 
   public LevelDBTableCore(String tableName, LevelDBTableService service) {
     this.tableName = tableName;
     this.service = service;
+    this.readStats = service.getReadStats(tableName);
   }
 
   private DB getDB() throws IOException {
@@ -85,66 +89,95 @@ public class LevelDBTableCore {
   }
 
 
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
-    byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
-    // verify
-    if (oldValue == null && existing != null) {
-      return false;
-    }
-    if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
-      return false;
-    }
-    // write
-    if (newValue == null) {
-      // to-do
-      deleteColumn(row, column);
-    } else {
-      persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+    List<Lock> locks = lockRows(Collections.singleton(row));
+    try {
+      byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
+      // verify
+      if (oldValue == null && existing != null) {
+        return false;
+      }
+      if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
+        return false;
+      }
+      // write
+      if (newValue == null) {
+        // to-do
+        deleteColumn(row, column);
+      } else {
+        persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+      }
+      return true;
+    } finally {
+      unlockRows(locks);
     }
-    return true;
   }
 
-  public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
+  public Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
     Map<byte[], Long> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
 
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
-    try (Snapshot snapshot = db.getSnapshot()) {
-      ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
-
+    List<Lock> locks = lockRows(Collections.singleton(row));
+    try {
       for (Map.Entry<byte[], Long> entry : increments.entrySet()) {
         byte[] rowKey = createPutKey(row, entry.getKey(), Long.MAX_VALUE);
-        byte[] existingValue = db.get(rowKey, readOptions);
+        byte[] existingValue = db.get(rowKey);
         long newValue = incrementValue(entry.getValue(), existingValue, row, entry.getKey());
         result.put(entry.getKey(), newValue);
         writeBatch.put(rowKey, Bytes.toBytes(newValue));
       }
       db.write(writeBatch, service.getWriteOptions());
+    } finally {
+      unlockRows(locks);
     }
 
     return result;
   }
 
 
-  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
+  public void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
     if (updates.isEmpty()) {
       return;
     }
 
+    // all rows are updated with a single write batch, while holding the locks of all the rows
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
-    try (Snapshot snapshot = db.getSnapshot()) {
-      ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
-
+    List<Lock> locks = lockRows(updates.keySet());
+    try {
       for (Map.Entry<byte[], NavigableMap<byte[], Long>> updateEntry : updates.entrySet()) {
         for (Map.Entry<byte[], Long> entry : updateEntry.getValue().entrySet()) {
           byte[] rowKey = createPutKey(updateEntry.getKey(), entry.getKey(), Long.MAX_VALUE);
-          byte[] existingValue = db.get(rowKey, readOptions);
+          byte[] existingValue = db.get(rowKey);
           long newValue = incrementValue(entry.getValue(), existingValue, updateEntry.getKey(), entry.getKey());
           writeBatch.put(rowKey, Bytes.toBytes(newValue));
         }
       }
       db.write(writeBatch, service.getWriteOptions());
+    } finally {
+      unlockRows(locks);
+    }
+  }
+
+  /**
+   * Acquires the locks of the given rows, for performing read-modify-write operations on them. Operations on rows
+   * that map to different lock stripes can proceed in parallel.
+   *
+   * @return the acquired locks, which must be released with {@link #unlockRows(List)}
+   */
+  private List<Lock> lockRows(Collection<byte[]> rows) {
+    List<Lock> locks = new ArrayList<>();
+    for (Lock lock : service.getRowLocks(tableName, rows)) {
+      lock.lock();
+      locks.add(lock);
+    }
+    return locks;
+  }
+
+  private void unlockRows(List<Lock> locks) {
+    for (int i = locks.size() - 1; i >= 0; i--) {
+      locks.get(i).unlock();
     }
   }
 
@@ -215,6 +248,45 @@ public class LevelDBTableCore {
   public NavigableMap<byte[], byte[]> getRow(byte[] row, @Nullable byte[][] columns,
                                              @Nullable byte[] startCol, @Nullable byte[] stopCol,
                                              int limit, @Nullable Transaction tx) throws IOException {
+    long startTime = System.nanoTime();
+    try (DBIterator iterator = getDB().iterator()) {
+      return getRow(iterator, row, columns, startCol, stopCol, limit, tx);
+    } finally {
+      readStats.record(1, System.nanoTime() - startTime);
+    }
+  }
+
+  /**
+   * Reads multiple rows with a single iterator. Rows are looked up in sorted order, such that the iterator
+   * only moves forward through the table.
+   *
+   * @return the column maps of the rows, in the same order as the given gets
+   */
+  public List<NavigableMap<byte[], byte[]>> getRows(List<Get> gets, @Nullable Transaction tx) throws IOException {
+    Integer[] order = new Integer[gets.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (i1, i2) -> Bytes.compareTo(gets.get(i1).getRow(), gets.get(i2).getRow()));
+
+    List<NavigableMap<byte[], byte[]>> results = new ArrayList<>(Collections.nCopies(gets.size(), null));
+    long startTime = System.nanoTime();
+    try (DBIterator iterator = getDB().iterator()) {
+      for (int idx : order) {
+        Get get = gets.get(idx);
+        List<byte[]> getColumns = get.getColumns();
+        byte[][] columns = getColumns == null ? null : getColumns.toArray(new byte[getColumns.size()][]);
+        results.set(idx, getRow(iterator, get.getRow(), columns, null, null, -1, tx));
+      }
+    } finally {
+      readStats.record(gets.size(), System.nanoTime() - startTime);
+    }
+    return results;
+  }
+
+  private NavigableMap<byte[], byte[]> getRow(DBIterator iterator, byte[] row, @Nullable byte[][] columns,
+                                              @Nullable byte[] startCol, @Nullable byte[] stopCol,
+                                              int limit, @Nullable Transaction tx) {
     if (columns != null) {
       if (columns.length == 0) {
         return Collections.emptyNavigableMap();
@@ -226,10 +298,8 @@ public class LevelDBTableCore {
 
     byte[] startKey = createStartKey(row, columns == null ? startCol : columns[0]);
     byte[] endKey = createEndKey(row, columns == null ? stopCol : upperBound(columns[columns.length - 1]));
-    try (DBIterator iterator = getDB().iterator()) {
-      iterator.seek(startKey);
-      return getRow(iterator, endKey, tx, false, columns, limit).getSecond();
-    }
+    iterator.seek(startKey);
+    return getRow(iterator, endKey, tx, false, columns, limit).getSecond();
   }
 
   private static Scanner createEmptyScanner() {
@@ -23,8 +23,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.util.TableId;
@@ -47,13 +49,17 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
 
 import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 
@@ -64,10 +70,14 @@ import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 public class LevelDBTableService implements AutoCloseable {
 
   private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableService.class);
+  // Number of lock stripes shared by all tables for row level read-modify-write operations
+  private static final int ROW_LOCK_STRIPES = 1024;
 
+  private CConfiguration cConf;
   private boolean compressionEnabled;
   private int blockSize;
   private long cacheSize;
+  private int maxOpenFiles;
   private Duration compactionInterval;
   private int compactionLevelMin;
   private int compactionLevelMax;
@@ -76,6 +86,8 @@ public class LevelDBTableService implements AutoCloseable {
   private boolean isClosed;
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, ReadStats> readStats = Maps.newConcurrentMap();
+  private final Striped<Lock> rowLocks = Striped.lock(ROW_LOCK_STRIPES);
 
   private final ScheduledExecutorService executor;
   private ScheduledFuture<?> scheduledFuture;
@@ -103,11 +115,14 @@ public class LevelDBTableService implements AutoCloseable {
    */
   @Inject
   public void setConfiguration(CConfiguration config) {
+    cConf = config;
     basePath = config.get(Constants.CFG_DATA_LEVELDB_DIR);
     Preconditions.checkNotNull(basePath, "No base directory configured for LevelDB.");
     compressionEnabled = config.getBoolean(Constants.CFG_DATA_LEVELDB_COMPRESSION_ENABLED);
     blockSize = config.getInt(Constants.CFG_DATA_LEVELDB_BLOCKSIZE, Constants.DEFAULT_DATA_LEVELDB_BLOCKSIZE);
     cacheSize = config.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE);
+    maxOpenFiles = config.getInt(Constants.CFG_DATA_LEVELDB_MAX_OPEN_FILES,
+                                 Constants.DEFAULT_DATA_LEVELDB_MAX_OPEN_FILES);
     writeOptions = new WriteOptions().sync(config.getBoolean(Constants.CFG_DATA_LEVELDB_FSYNC,
                                                              Constants.DEFAULT_DATA_LEVELDB_FSYNC));
     compactionInterval = Duration.ofSeconds(config.getLong(Constants.CFG_DATA_LEVELDB_COMPACTION_INTERVAL_SECONDS,
@@ -243,7 +258,10 @@ public class LevelDBTableService implements AutoCloseable {
       String tableName = getTableName(dir.getName());
       // NOTE: we are using recursion to traverse file tree as we know that leveldb table fs tree is couple levels deep.
       long size = getSize(dir);
-      builder.put(LevelDBNameConverter.from(tableName), new TableStats(size));
+      ReadStats stats = readStats.get(tableName);
+      builder.put(LevelDBNameConverter.from(tableName), stats == null
+        ? new TableStats(size)
+        : new TableStats(size, stats.count.sum(), stats.timeNanos.sum()));
     }
     return builder.build();
   }
@@ -270,6 +288,29 @@ public class LevelDBTableService implements AutoCloseable {
     return writeOptions;
   }
 
+  /**
+   * Returns the locks for performing read-modify-write operations on the given rows of a table. The locks are shared
+   * by all {@link LevelDBTableCore} instances of the same table. They are sorted by stripe, hence acquiring them in
+   * order never deadlocks with another operation. The same lock is returned more than once if multiple rows map to
+   * the same stripe.
+   */
+  Iterable<Lock> getRowLocks(String tableName, Collection<byte[]> rows) {
+    int tableHash = tableName.hashCode();
+    List<Integer> keys = new ArrayList<>(rows.size());
+    for (byte[] row : rows) {
+      keys.add(31 * tableHash + Bytes.hashCode(row));
+    }
+    return rowLocks.bulkGet(keys);
+  }
+
+  /**
+   * Returns the {@link ReadStats} for recording reads of the given table. It is shared by all
+   * {@link LevelDBTableCore} instances of the same table.
+   */
+  ReadStats getReadStats(String tableName) {
+    return readStats.computeIfAbsent(tableName, name -> new ReadStats());
+  }
+
   public DB getTable(String tableName) throws IOException {
     ensureOpen();
     DB db = tables.get(tableName);
@@ -300,14 +341,7 @@ public class LevelDBTableService implements AutoCloseable {
 
   private DB openTable(String tableName) throws IOException {
     String dbPath = getDBPath(basePath, tableName);
-
-    Options options = new Options();
-    options.createIfMissing(false);
-    options.errorIfExists(false);
-    options.comparator(new KeyValueDBComparator());
-    options.compressionType(compressionEnabled ? CompressionType.SNAPPY : CompressionType.NONE);
-    options.blockSize(blockSize);
-    options.cacheSize(cacheSize);
+    Options options = createOptions(tableName).createIfMissing(false);
 
     // unfortunately, with the java version of leveldb, with createIfMissing set to false, factory.open will
     // see that there is no table and throw an exception, but it wont clean up after itself and will leave a
@@ -324,21 +358,34 @@ public class LevelDBTableService implements AutoCloseable {
 
   private void createTable(String name) throws IOException {
     String dbPath = getDBPath(basePath, name);
-
-    Options options = new Options();
-    options.createIfMissing(true);
-    options.errorIfExists(false);
-    options.comparator(new KeyValueDBComparator());
-    options.compressionType(compressionEnabled ? CompressionType.SNAPPY : CompressionType.NONE);
-    options.blockSize(blockSize);
-    options.cacheSize(cacheSize);
+    Options options = createOptions(name).createIfMissing(true);
 
     DB db = factory.open(new File(dbPath), options);
     tables.put(name, db);
   }
 
+  /**
+   * Creates the {@link Options} for opening the given table. The compression, block size and max open files settings
+   * can be overridden for individual tables with configurations prefixed by
+   * {@link Constants#CFG_DATA_LEVELDB_TABLE_PREFIX} followed by the table name and a dot.
+   */
+  @VisibleForTesting
+  Options createOptions(String tableName) {
+    String prefix = Constants.CFG_DATA_LEVELDB_TABLE_PREFIX + tableName + ".";
+    boolean compression = cConf.getBoolean(prefix + Constants.CFG_DATA_LEVELDB_COMPRESSION_ENABLED_SUFFIX,
+                                           compressionEnabled);
+    return new Options()
+      .errorIfExists(false)
+      .comparator(new KeyValueDBComparator())
+      .compressionType(compression ? CompressionType.SNAPPY : CompressionType.NONE)
+      .blockSize(cConf.getInt(prefix + Constants.CFG_DATA_LEVELDB_BLOCKSIZE_SUFFIX, blockSize))
+      .maxOpenFiles(cConf.getInt(prefix + Constants.CFG_DATA_LEVELDB_MAX_OPEN_FILES_SUFFIX, maxOpenFiles))
+      .cacheSize(cacheSize);
+  }
+
   public void dropTable(String name) throws IOException {
     ensureOpen();
+    readStats.remove(name);
     DB db = tables.remove(name);
     if (db != null) {
       db.close();
@@ -393,13 +440,48 @@ public class LevelDBTableService implements AutoCloseable {
    */
   public static final class TableStats {
     private final long diskSizeBytes;
+    private final long readCount;
+    private final long readTimeNanos;
 
     public TableStats(long sizeInBytes) {
+      this(sizeInBytes, 0L, 0L);
+    }
+
+    public TableStats(long sizeInBytes, long readCount, long readTimeNanos) {
       this.diskSizeBytes = sizeInBytes;
+      this.readCount = readCount;
+      this.readTimeNanos = readTimeNanos;
     }
 
     public long getDiskSizeBytes() {
       return diskSizeBytes;
     }
+
+    /**
+     * Returns the number of point reads performed on the table since it was opened by this service.
+     */
+    public long getReadCount() {
+      return readCount;
+    }
+
+    /**
+     * Returns the total time in nanoseconds spent on the point reads counted by {@link #getReadCount()}.
+     */
+    public long getReadTimeNanos() {
+      return readTimeNanos;
+    }
+  }
+
+  /**
+   * Accumulates the number and latency of point reads of a table.
+   */
+  static final class ReadStats {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder timeNanos = new LongAdder();
+
+    void record(int reads, long nanos) {
+      count.add(reads);
+      timeNanos.add(nanos);
+    }
   }
 }
@@ -35,10 +35,12 @@ import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
 import org.apache.twill.common.Threads;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * Collects LevelDB-based dataset's metrics from levelDB.
@@ -51,6 +53,8 @@ public class LevelDBDatasetMetricsReporter extends AbstractScheduledService impl
   private final MetricsCollectionService metricsService;
   private final LevelDBTableService ldbService;
   private final DatasetFramework dsFramework;
+  // Table stats of the last report, for computing the read latency over the report interval
+  private final Map<TableId, LevelDBTableService.TableStats> lastStats = new HashMap<>();
   private ScheduledExecutorService executor;
 
   @Inject
@@ -97,12 +101,17 @@ public class LevelDBDatasetMetricsReporter extends AbstractScheduledService impl
   private void report(Map<TableId, LevelDBTableService.TableStats> datasetStat)
     throws DatasetManagementException, UnauthorizedException {
     for (Map.Entry<TableId, LevelDBTableService.TableStats> statEntry : datasetStat.entrySet()) {
+      LevelDBTableService.TableStats lastStat = lastStats.put(statEntry.getKey(), statEntry.getValue());
       String namespace = statEntry.getKey().getNamespace();
-      // emit metrics for only user datasets, tables in system namespace are ignored
+      String tableName = statEntry.getKey().getTableName();
+      // emit only the read latency for tables in system namespace, tagged by the table name
       if (NamespaceId.SYSTEM.getNamespace().equals(namespace)) {
+        MetricsContext collector =
+          metricsService.getContext(ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, namespace,
+                                                    Constants.Metrics.Tag.TABLE, tableName));
+        reportReadLatency(collector, lastStat, statEntry.getValue());
         continue;
       }
-      String tableName = statEntry.getKey().getTableName();
 
       Collection<DatasetSpecificationSummary> instances = dsFramework.getInstances(new NamespaceId(namespace));
       for (DatasetSpecificationSummary spec : instances) {
@@ -113,10 +122,28 @@ public class LevelDBDatasetMetricsReporter extends AbstractScheduledService impl
                                                       Constants.Metrics.Tag.DATASET, spec.getName()));
           int sizeInMb = (int) (statEntry.getValue().getDiskSizeBytes() / BYTES_IN_MB);
           collector.gauge("dataset.size.mb", sizeInMb);
+          reportReadLatency(collector, lastStat, statEntry.getValue());
           break;
         }
       }
     }
+    lastStats.keySet().retainAll(datasetStat.keySet());
   }
 
+  /**
+   * Reports the average latency of the point reads performed since the last report.
+   */
+  private void reportReadLatency(MetricsContext collector, @Nullable LevelDBTableService.TableStats lastStat,
+                                 LevelDBTableService.TableStats stat) {
+    long reads = stat.getReadCount();
+    long readTimeNanos = stat.getReadTimeNanos();
+    // The counts are reset if the table was dropped and created again
+    if (lastStat != null && lastStat.getReadCount() <= reads) {
+      reads -= lastStat.getReadCount();
+      readTimeNanos -= lastStat.getReadTimeNanos();
+    }
+    if (reads > 0) {
+      collector.gauge("dataset.store.read.latency.us", TimeUnit.NANOSECONDS.toMicros(readTimeNanos / reads));
+    }
+  }
 }
@@ -74,6 +74,17 @@ public final class NoSqlStructuredTable implements StructuredTable {
     table.put(convertFieldsToBytes(fields));
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields) throws InvalidFieldException {
+    LOG.trace("Table {}: Write multiple rows {}", schema.getTableId(), multiFields);
+    // Convert all rows first such that nothing is written if any of them is invalid.
+    // Puts are buffered by the underlying table until the transaction commits.
+    List<Put> puts = multiFields.stream().map(this::convertFieldsToBytes).collect(Collectors.toList());
+    for (Put put : puts) {
+      table.put(put);
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException {
     LOG.trace("Table {}: Read with keys {}", schema.getTableId(), keys);
@@ -93,9 +104,14 @@ public final class NoSqlStructuredTable implements StructuredTable {
     return row.isEmpty() ? Optional.empty() : Optional.of(new NoSqlStructuredRow(row, schema));
   }
 
+  /**
+   * Reads multiple rows with a single multi-get on the underlying table. The underlying table looks up the rows in
+   * sorted key order where that helps, e.g. LevelDB, and returns them in the order of the given keys.
+   */
   @Override
   public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
     throws InvalidFieldException {
+    LOG.trace("Table {}: Read with multiple keys {}", schema.getTableId(), multiKeys);
     List<Get> gets = multiKeys.stream()
       .map(k -> convertKeyToBytes(k, false))
       .map(Get::new)
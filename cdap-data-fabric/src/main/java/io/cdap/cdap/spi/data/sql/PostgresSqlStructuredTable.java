@@ -75,15 +75,55 @@ public class PostgresSqlStructuredTable implements StructuredTable {
   @Override
   public void upsert(Collection<Field<?>> fields) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: Write fields {}", tableSchema.getTableId(), fields);
-    Set<String> fieldNames = fields.stream().map(Field::getName).collect(Collectors.toSet());
-    if (!fieldNames.containsAll(tableSchema.getPrimaryKeys())) {
-      throw new InvalidFieldException(tableSchema.getTableId(), fields,
-                                      String.format("Given fields %s do not contain all the " +
-                                                      "primary keys %s", fieldNames, tableSchema.getPrimaryKeys()));
-    }
+    validateContainsPrimaryKeys(fields);
     upsertInternal(fields);
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Write multiple rows {}", tableSchema.getTableId(), multiFields);
+
+    for (Collection<Field<?>> fields : multiFields) {
+      validateContainsPrimaryKeys(fields);
+    }
+
+    // Consecutive rows with the same set of fields are written in one batch. Rows are never reordered, such that
+    // the last write wins if the same key appears more than once.
+    String batchQuery = null;
+    List<Collection<Field<?>>> batch = new ArrayList<>();
+    for (Collection<Field<?>> fields : multiFields) {
+      String query = getWriteSqlQuery(fields, null);
+      if (!query.equals(batchQuery)) {
+        writeBatch(batchQuery, batch);
+        batchQuery = query;
+        batch.clear();
+      }
+      batch.add(fields);
+    }
+    writeBatch(batchQuery, batch);
+  }
+
+  /**
+   * Writes the given rows in one batch with the given write query.
+   */
+  private void writeBatch(@Nullable String query, List<Collection<Field<?>>> batch) throws IOException {
+    if (query == null || batch.isEmpty()) {
+      return;
+    }
+    try (PreparedStatement statement = connection.prepareStatement(query)) {
+      for (Collection<Field<?>> fields : batch) {
+        setFields(statement, fields, 1);
+        statement.addBatch();
+      }
+      LOG.trace("SQL statement: {} with batch size {}", statement, batch.size());
+      statement.executeBatch();
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to write to table %s with multiple rows %s",
+                                          tableSchema.getTableId().getName(), batch), e);
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     return readRow(keys, null);
@@ -123,13 +163,22 @@ public class PostgresSqlStructuredTable implements StructuredTable {
 
     try (PreparedStatement statement = prepareMultiReadQuery(keyFields)) {
       LOG.trace("SQL statement: {}", statement);
-      Collection<StructuredRow> result = new ArrayList<>();
+      // The query matches any combination of the key values, hence rows are picked by their keys in the given order
+      Map<List<Field<?>>, StructuredRow> rows = new HashMap<>();
       try (ResultSet resultSet = statement.executeQuery()) {
         while (resultSet.next()) {
-          result.add(resultSetToRow(resultSet));
+          StructuredRow row = resultSetToRow(resultSet);
+          rows.put(new ArrayList<>(row.getPrimaryKeys()), row);
+        }
+      }
+      Collection<StructuredRow> result = new ArrayList<>();
+      for (Collection<Field<?>> keys : multiKeys) {
+        StructuredRow row = rows.get(new ArrayList<>(keys));
+        if (row != null) {
+          result.add(row);
         }
-        return result;
       }
+      return result;
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to read from table %s with multi keys %s",
                                           tableSchema.getTableId().getName(), multiKeys), e);
@@ -441,6 +490,33 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Delete with multiple keys {}", tableSchema.getTableId(), multiKeys);
+
+    // Group the keys by the delete query, such that keys with the same set of fields are deleted in one batch
+    Map<String, List<Collection<Field<?>>>> batches = new LinkedHashMap<>();
+    for (Collection<Field<?>> keys : multiKeys) {
+      fieldValidator.validatePrimaryKeys(keys, false);
+      batches.computeIfAbsent(getDeleteQuery(keys), k -> new ArrayList<>()).add(keys);
+    }
+
+    for (Map.Entry<String, List<Collection<Field<?>>>> entry : batches.entrySet()) {
+      try (PreparedStatement statement = connection.prepareStatement(entry.getKey())) {
+        for (Collection<Field<?>> keys : entry.getValue()) {
+          setFields(statement, keys, 1);
+          statement.addBatch();
+        }
+        LOG.trace("SQL statement: {} with batch size {}", statement, entry.getValue().size());
+        statement.executeBatch();
+      } catch (SQLException e) {
+        throw new IOException(String.format("Failed to delete the rows from table %s with multiple keys %s",
+                                            tableSchema.getTableId().getName(), entry.getValue()), e);
+      }
+    }
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: DeleteAll with range {}", tableSchema.getTableId(), keyRange);
@@ -489,6 +565,18 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  /**
+   * Validates the given fields contain all the primary keys of the table.
+   */
+  private void validateContainsPrimaryKeys(Collection<Field<?>> fields) throws InvalidFieldException {
+    Set<String> fieldNames = fields.stream().map(Field::getName).collect(Collectors.toSet());
+    if (!fieldNames.containsAll(tableSchema.getPrimaryKeys())) {
+      throw new InvalidFieldException(tableSchema.getTableId(), fields,
+                                      String.format("Given fields %s do not contain all the " +
+                                                      "primary keys %s", fieldNames, tableSchema.getPrimaryKeys()));
+    }
+  }
+
   private void upsertInternal(Collection<Field<?>> fields) throws IOException {
     String sqlQuery = getWriteSqlQuery(fields, null);
     try (PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
@@ -214,6 +214,46 @@ public abstract class AbstractCubeTest {
 
   }
 
+  @Test
+  public void testRollup() throws Exception {
+    Aggregation agg1 = new DefaultAggregation(ImmutableList.of("dim1"));
+
+    Cube cube = getCube("myRollupCube", new int[] {1, 100}, ImmutableMap.of("agg1", agg1));
+
+    writeInc(cube, "metric1", 1, 1, "1");
+    writeInc(cube, "metric1", 150, 2, "1");
+    writeInc(cube, "metric1", 250, 3, "1");
+    writeInc(cube, "metric1", 399, 4, "1");
+    writeInc(cube, "metric1", 401, 5, "1");
+
+    // there is no table of resolution 200, values are rolled up from the resolution 100 table
+    verifyCountQuery(cube, "agg1", 50, 450, 200, "metric1", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(
+                       new TimeSeries("metric1", new HashMap<String, String>(), timeValues(0, 3, 200, 7, 400, 5))));
+
+    // resolution 150 is only divisible by the resolution 1 table
+    verifyCountQuery(cube, "agg1", 0, 450, 150, "metric1", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(
+                       new TimeSeries("metric1", new HashMap<String, String>(), timeValues(0, 1, 150, 5, 300, 9))));
+
+    verifyCountQuery(cube, "agg1", 0, 450, 200, "metric1", AggregationFunction.MAX,
+                     ImmutableMap.of("dim1", "1"), new ArrayList<String>(),
+                     ImmutableList.of(
+                       new TimeSeries("metric1", new HashMap<String, String>(), timeValues(0, 2, 200, 4, 400, 5))));
+
+    // no table can serve a resolution that is not divisible by any table resolution
+    Cube hourCube = getCube("myRollupHourCube", new int[] {3600}, ImmutableMap.of("agg1", agg1));
+    try {
+      verifyCountQuery(hourCube, "agg1", 0, 450, 60, "metric1", AggregationFunction.SUM,
+                       ImmutableMap.of("dim1", "1"), new ArrayList<String>(), ImmutableList.<TimeSeries>of());
+      Assert.fail("Expected query to fail for unsupported resolution");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
   @Test
   public void testGauges() throws Exception {
     Aggregation agg1 = new DefaultAggregation(ImmutableList.of("dim1"));
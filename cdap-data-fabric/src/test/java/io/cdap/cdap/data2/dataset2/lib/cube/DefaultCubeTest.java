@@ -16,23 +16,70 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.Cube;
+import io.cdap.cdap.api.dataset.lib.cube.CubeDeleteQuery;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.EntityTable;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.FactTable;
+import org.junit.Test;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
  */
 public class DefaultCubeTest extends AbstractCubeTest {
 
+  @Test
+  public void testQueryCache() throws Exception {
+    Aggregation agg1 = new DefaultAggregation(ImmutableList.of("dim1"));
+    Map<String, String> dims = ImmutableMap.of("dim1", "1");
+    Cube cube = new DefaultCube(new int[] {1}, createFactTableSupplier("myCachedCube"),
+                                ImmutableMap.of("agg1", agg1), ImmutableMap.of(), TimeUnit.HOURS.toMillis(1));
+    // a cube without cache on the same tables, as the metrics processor writing in another process
+    Cube writerCube = getCube("myCachedCube", new int[] {1}, ImmutableMap.of("agg1", agg1));
+
+    writeInc(cube, "metric1", 1, 1, "1");
+    verifyCountQuery(cube, 0, 15, 1, "metric1", AggregationFunction.SUM, dims, ImmutableList.of(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues(1, 1))));
+
+    // the result of the same query is served from the cache when facts are added through another cube
+    writeInc(writerCube, "metric1", 2, 2, "1");
+    verifyCountQuery(cube, 0, 15, 1, "metric1", AggregationFunction.SUM, dims, ImmutableList.of(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues(1, 1))));
+
+    // a different query is not
+    verifyCountQuery(cube, 0, 20, 1, "metric1", AggregationFunction.SUM, dims, ImmutableList.of(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues(1, 1, 2, 2))));
+
+    // adding facts through the cube invalidates the cache
+    writeInc(cube, "metric1", 3, 3, "1");
+    verifyCountQuery(cube, 0, 15, 1, "metric1", AggregationFunction.SUM, dims, ImmutableList.of(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues(1, 1, 2, 2, 3, 3))));
+
+    // deletion invalidates the cache
+    writeInc(writerCube, "metric1", 4, 4, "1");
+    cube.delete(new CubeDeleteQuery(2, 2, 1, dims, Collections.emptySet(), aggregates -> true));
+    verifyCountQuery(cube, 0, 15, 1, "metric1", AggregationFunction.SUM, dims, ImmutableList.of(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues(1, 1, 3, 3, 4, 4))));
+  }
+
   @Override
   protected Cube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations) {
-    FactTableSupplier supplier = (resolution, rollTime) -> {
+    return new DefaultCube(resolutions, createFactTableSupplier(name), aggregations,
+                           ImmutableMap.<String, AggregationAlias>of());
+  }
+
+  private FactTableSupplier createFactTableSupplier(String name) {
+    return (resolution, rollTime) -> {
       String entityTableName = "EntityTable-" + name;
       InMemoryTableService.create(entityTableName);
       String dataTableName = "DataTable-" + name + "-" + resolution;
@@ -42,7 +89,5 @@ public class DefaultCubeTest extends AbstractCubeTest {
                            resolution, rollTime);
 
     };
-
-    return new DefaultCube(resolutions, supplier, aggregations, ImmutableMap.<String, AggregationAlias>of());
   }
 }
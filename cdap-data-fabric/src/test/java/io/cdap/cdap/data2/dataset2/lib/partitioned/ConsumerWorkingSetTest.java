@@ -17,11 +17,15 @@
 package io.cdap.cdap.data2.dataset2.lib.partitioned;
 
 import io.cdap.cdap.api.dataset.lib.PartitionKey;
+import io.cdap.cdap.api.dataset.lib.partitioned.ConsumablePartition;
 import io.cdap.cdap.api.dataset.lib.partitioned.ConsumerWorkingSet;
 import io.cdap.cdap.api.dataset.lib.partitioned.DefaultConsumablePartition;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 public class ConsumerWorkingSetTest {
@@ -48,6 +52,34 @@ public class ConsumerWorkingSetTest {
     testSerDe(workingSet);
   }
 
+  @Test
+  public void testLookupAndRemoveAll() {
+    ConsumerWorkingSet workingSet = new ConsumerWorkingSet();
+    List<PartitionKey> keys = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      PartitionKey key = generateUniqueKey();
+      keys.add(key);
+      workingSet.addPartition(key);
+    }
+
+    List<ConsumablePartition> partitions = workingSet.lookupAll(Arrays.asList(keys.get(3), keys.get(1)));
+    Assert.assertEquals(keys.get(3), partitions.get(0).getPartitionKey());
+    Assert.assertEquals(keys.get(1), partitions.get(1).getPartitionKey());
+
+    try {
+      workingSet.lookupAll(Arrays.asList(keys.get(0), generateUniqueKey()));
+      Assert.fail("Expected lookup of a key not in the working set to fail");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+
+    workingSet.removeAll(Arrays.asList(keys.get(3), keys.get(1), generateUniqueKey()));
+    Assert.assertEquals(3, workingSet.getPartitions().size());
+    Assert.assertEquals(keys.get(0), workingSet.getPartitions().get(0).getPartitionKey());
+    Assert.assertEquals(keys.get(2), workingSet.getPartitions().get(1).getPartitionKey());
+    Assert.assertEquals(keys.get(4), workingSet.getPartitions().get(2).getPartitionKey());
+  }
+
   private void testSerDe(ConsumerWorkingSet stateToSerialize) {
     byte[] bytes = stateToSerialize.toBytes();
     // Assert that the serialization format version is 0
@@ -321,6 +321,49 @@ public class PartitionConsumerTest {
     });
   }
 
+  @Test
+  public void testShardedConsumers() throws Exception {
+    final PartitionedFileSet dataset = dsFrameworkUtil.getInstance(pfsInstance);
+    final TransactionAware txAwareDataset = (TransactionAware) dataset;
+
+    final Set<PartitionKey> partitionKeys = new HashSet<>();
+    for (int i = 0; i < 20; i++) {
+      partitionKeys.add(generateUniqueKey());
+    }
+    dsFrameworkUtil.newInMemoryTransactionExecutor(txAwareDataset).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        for (PartitionKey partitionKey : partitionKeys) {
+          dataset.getPartitionOutput(partitionKey).addPartition();
+        }
+      }
+    });
+
+    // each shard uses its own state, and together the shards consume every partition exactly once
+    final int numShards = 3;
+    final List<PartitionConsumer> partitionConsumers = new ArrayList<>();
+    for (int shard = 0; shard < numShards; shard++) {
+      partitionConsumers.add(new ConcurrentPartitionConsumer(dataset, new InMemoryStatePersistor(),
+                                                             ConsumerConfiguration.builder()
+                                                               .setShard(shard, numShards).build()));
+    }
+    dsFrameworkUtil.newInMemoryTransactionExecutor(txAwareDataset).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        Set<PartitionKey> consumed = new HashSet<>();
+        for (int shard = 0; shard < numShards; shard++) {
+          List<PartitionDetail> partitions = partitionConsumers.get(shard).consumePartitions().getPartitions();
+          for (PartitionDetail partition : partitions) {
+            Assert.assertEquals(shard, ConsumerConfiguration.getShard(partition.getPartitionKey(), numShards));
+            Assert.assertTrue(consumed.add(partition.getPartitionKey()));
+          }
+          partitionConsumers.get(shard).onFinish(partitions, true);
+        }
+        Assert.assertEquals(partitionKeys, consumed);
+      }
+    });
+  }
+
   @Test
   public void testPartitionConsumingWithFilterAndLimit() throws Exception {
     final PartitionedFileSet dataset = dsFrameworkUtil.getInstance(pfsInstance);
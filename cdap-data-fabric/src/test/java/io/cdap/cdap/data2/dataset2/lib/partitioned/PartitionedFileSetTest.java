@@ -23,6 +23,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.cdap.cdap.api.Predicate;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.DataSetException;
 import io.cdap.cdap.api.dataset.PartitionNotFoundException;
 import io.cdap.cdap.api.dataset.lib.FileSet;
@@ -184,6 +185,94 @@ public class PartitionedFileSetTest {
     PartitionedFileSetDataset.parseRowKey(rowKey, PARTITIONING_2);
   }
 
+  @Test
+  public void testSkipKey() {
+    PartitionKey key = PartitionKey.builder().addStringField("s", "b").addIntField("i", 10)
+      .addLongField("l", 5L).build();
+    byte[] rowKey = PartitionedFileSetDataset.generateRowKey(key, PARTITIONING_1);
+
+    // below the lower bound of a non-leading field: continue from the lower bound, keeping the leading fields
+    PartitionFilter filter = PartitionFilter.builder().addRangeCondition("i", 20, 30).build();
+    byte[] skipKey = PartitionedFileSetDataset.generateSkipKey(rowKey, key, filter, PARTITIONING_1);
+    Assert.assertNotNull(skipKey);
+    Assert.assertTrue(Bytes.compareTo(skipKey, rowKey) > 0);
+    PartitionKey lowest = PartitionKey.builder().addStringField("s", "b").addIntField("i", 20)
+      .addLongField("l", Long.MIN_VALUE).build();
+    Assert.assertTrue(Bytes.compareTo(skipKey, PartitionedFileSetDataset.generateRowKey(lowest, PARTITIONING_1)) <= 0);
+
+    // beyond the upper bound of a non-leading field: continue from the next value of the leading fields
+    filter = PartitionFilter.builder().addValueCondition("i", 5).build();
+    skipKey = PartitionedFileSetDataset.generateSkipKey(rowKey, key, filter, PARTITIONING_1);
+    Assert.assertNotNull(skipKey);
+    PartitionKey highest = PartitionKey.builder().addStringField("s", "b").addIntField("i", Integer.MAX_VALUE)
+      .addLongField("l", Long.MAX_VALUE).build();
+    PartitionKey next = PartitionKey.builder().addStringField("s", "b0").addIntField("i", Integer.MIN_VALUE)
+      .addLongField("l", Long.MIN_VALUE).build();
+    Assert.assertTrue(Bytes.compareTo(skipKey, PartitionedFileSetDataset.generateRowKey(highest, PARTITIONING_1)) > 0);
+    Assert.assertTrue(Bytes.compareTo(skipKey, PartitionedFileSetDataset.generateRowKey(next, PARTITIONING_1)) <= 0);
+
+    // nothing to skip if the first field is beyond its upper bound, or if the filter has no partitioning fields
+    filter = PartitionFilter.builder().addRangeCondition("s", "a", "b").build();
+    Assert.assertNull(PartitionedFileSetDataset.generateSkipKey(rowKey, key, filter, PARTITIONING_1));
+    filter = PartitionFilter.builder().addValueCondition("x", "y").build();
+    Assert.assertNull(PartitionedFileSetDataset.generateSkipKey(rowKey, key, filter, PARTITIONING_1));
+
+    // nothing to skip if a string bound is not ordered the same way as its encoded bytes
+    key = PartitionKey.builder().addStringField("s", "b").addIntField("i", 10).addLongField("l", 5L)
+      .addStringField("x", "\uD83D\uDE00").build();
+    rowKey = PartitionedFileSetDataset.generateRowKey(key, PARTITIONING_2);
+    filter = PartitionFilter.builder().addRangeCondition("x", "\uFFFD", null).build();
+    Assert.assertNull(PartitionedFileSetDataset.generateSkipKey(rowKey, key, filter, PARTITIONING_2));
+  }
+
+  @Test
+  public void testGetPartitionsWithSurrogatePairs() throws Exception {
+    DatasetId id = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("testSurrogatePairs");
+    dsFrameworkUtil.createInstance("partitionedFileSet", id, PartitionedFileSetProperties.builder()
+      .setPartitioning(PARTITIONING_2)
+      .build());
+    final PartitionedFileSet pfs = dsFrameworkUtil.getInstance(id);
+
+    // String.compareTo() orders surrogate pairs before \uFFFD, but their UTF-8 bytes are ordered after it
+    final Set<PartitionKey> keys = new HashSet<>();
+    for (String x : new String[] { "a", "b", "c", "\uFFFD", "\uFFFF",
+                                   "\uD800\uDC00", "\uD83D\uDE00", "\uDBFF\uDFFF" }) {
+      keys.add(PartitionKey.builder().addStringField("s", "s").addIntField("i", 1).addLongField("l", 1L)
+                 .addStringField("x", x).build());
+    }
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) pfs).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        for (PartitionKey key : keys) {
+          pfs.getPartitionOutput(key).addPartition();
+        }
+      }
+    });
+
+    for (final PartitionFilter filter : new PartitionFilter[] {
+      PartitionFilter.builder().addRangeCondition("x", "\uFFFD", null).build(),
+      PartitionFilter.builder().addRangeCondition("x", "\uD800\uDC00", "\uFFFD").build(),
+      PartitionFilter.builder().addRangeCondition("x", null, "\uD83D\uDE00").build() }) {
+      final Set<PartitionKey> expected = new HashSet<>();
+      for (PartitionKey key : keys) {
+        if (filter.match(key)) {
+          expected.add(key);
+        }
+      }
+      dsFrameworkUtil.newTransactionExecutor((TransactionAware) pfs).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          Set<PartitionKey> actual = new HashSet<>();
+          for (PartitionDetail partition : pfs.getPartitions(filter)) {
+            actual.add(partition.getPartitionKey());
+          }
+          Assert.assertEquals(expected, actual);
+        }
+      });
+    }
+    dsFrameworkUtil.deleteInstance(id);
+  }
+
   @Test
   public void testMetadataForNonexistentPartition() throws Exception {
     PartitionedFileSet pfs = dsFrameworkUtil.getInstance(pfsInstance);
@@ -382,6 +382,68 @@ public abstract class BufferingTableTest<T extends BufferingTable> extends Table
     }
   }
 
+  @Test
+  public void testBufferSpill() throws Exception {
+    // persist the buffer on every write
+    DatasetProperties props = TableProperties.builder().setBufferSpillSize(1L).build();
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE, props);
+    admin.create();
+    try (BufferingTable table1 = getTable(CONTEXT1, MY_TABLE, props);
+         BufferingTable table2 = getTable(CONTEXT1, MY_TABLE, props)) {
+      Transaction tx1 = txClient.startShort();
+      table1.startTx(tx1);
+      table1.put(R1, a(C1), a(V1));
+      table1.put(R2, a(C2), a(V2));
+      table1.put(R1, a(C1, C2), a(V3, V4));
+      table1.delete(R2, a(C2));
+
+      // changes persisted before commit are visible inside the tx
+      TableAssert.assertRow(a(C1, V3, C2, V4), table1.get(R1));
+      TableAssert.assertRow(a(), table1.get(R2, a(C2)));
+      // changes persisted before commit are still part of the tx changes
+      Assert.assertEquals(2, table1.getTxChanges().size());
+
+      // changes of an in-progress tx are not visible to other txs
+      Transaction tx2 = txClient.startShort();
+      table2.startTx(tx2);
+      TableAssert.assertRow(a(), table2.get(R1));
+      txClient.abort(tx2);
+
+      // rolling back undoes the changes persisted before commit
+      Assert.assertTrue(table1.rollbackTx());
+      txClient.abort(tx1);
+
+      Transaction tx3 = txClient.startShort();
+      table2.startTx(tx3);
+      TableAssert.assertRow(a(), table2.get(R1));
+      TableAssert.assertRow(a(), table2.get(R2));
+      txClient.abort(tx3);
+
+      // commit a tx that persisted changes before commit
+      Transaction tx4 = txClient.startShort();
+      table1.startTx(tx4);
+      table1.put(R1, a(C1), a(V1));
+      table1.put(R2, a(C2), a(V2));
+      table1.put(R1, a(C1), a(V3));
+      // other kinds of writes also persist the buffer
+      Assert.assertTrue(table1.compareAndSwap(R2, C2, V2, V5));
+      table1.increment(R3, a(C1), new long[] {1L});
+      txClient.canCommitOrThrow(tx4, table1.getTxChanges());
+      Assert.assertTrue(table1.commitTx());
+      txClient.commitOrThrow(tx4);
+      table1.postTxCommit();
+
+      Transaction tx5 = txClient.startShort();
+      table2.startTx(tx5);
+      TableAssert.assertRow(a(C1, V3), table2.get(R1));
+      TableAssert.assertRow(a(C2, V5), table2.get(R2));
+      TableAssert.assertRow(a(C1, L1), table2.get(R3));
+      txClient.abort(tx5);
+    } finally {
+      admin.drop();
+    }
+  }
+
   // This test is in Buffering table because it needs to test the transaction change prefix
   @Test
   public void testTxChangePrefix() throws Exception {
@@ -1218,6 +1218,57 @@ public abstract class TableTest<T extends Table> {
     }
   }
 
+  @Test
+  public void testMultiGetUnsorted() throws Exception {
+    String testMultiGet = "testMultiGetUnsorted";
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, testMultiGet);
+    admin.create();
+    try (Table table = getTable(CONTEXT1, testMultiGet)) {
+      Transaction tx = txClient.startShort();
+      ((TransactionAware) table).startTx(tx);
+      table.put(new Put(R2).add(C1, V1).add(C2, V2));
+      table.put(new Put(R4).add(C1, V3).add(C3, V4));
+      table.put(new Put(R1).add(C2, V5));
+      txClient.canCommitOrThrow(tx, ((TransactionAware) table).getTxChanges());
+      Assert.assertTrue(((TransactionAware) table).commitTx());
+      txClient.commitOrThrow(tx);
+
+      Transaction tx2 = txClient.startShort();
+      ((TransactionAware) table).startTx(tx2);
+      // a row only in the transaction buffer
+      table.put(new Put(R5).add(C1, V1));
+
+      // rows are not sorted, some are requested more than once and some don't exist
+      List<Get> gets = new ArrayList<>();
+      gets.add(new Get(R4));
+      gets.add(new Get(R2, C2));
+      gets.add(new Get(R3));
+      gets.add(new Get(R4, C3));
+      gets.add(new Get(R1));
+      gets.add(new Get(R2));
+      gets.add(new Get(R5));
+      gets.add(new Get(R3, C1));
+      List<Row> results = table.get(gets);
+      txClient.abort(tx2);
+
+      // the results are in the order of the gets, with the requested columns
+      Assert.assertEquals(gets.size(), results.size());
+      for (int i = 0; i < gets.size(); i++) {
+        Assert.assertArrayEquals(gets.get(i).getRow(), results.get(i).getRow());
+      }
+      TableAssert.assertRow(a(C1, V3, C3, V4), results.get(0));
+      TableAssert.assertRow(a(C2, V2), results.get(1));
+      Assert.assertTrue(results.get(2).isEmpty());
+      TableAssert.assertRow(a(C3, V4), results.get(3));
+      TableAssert.assertRow(a(C2, V5), results.get(4));
+      TableAssert.assertRow(a(C1, V1, C2, V2), results.get(5));
+      TableAssert.assertRow(a(C1, V1), results.get(6));
+      Assert.assertTrue(results.get(7).isEmpty());
+    } finally {
+      admin.drop();
+    }
+  }
+
   @Test
   public void testScanAndDelete() throws Exception {
     DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE);
@@ -19,6 +19,7 @@ package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.guice.ConfigModule;
@@ -30,6 +31,7 @@ import io.cdap.cdap.data2.util.TableId;
 import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
 import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
 import io.cdap.cdap.security.authorization.AuthorizationTestModule;
+import org.iq80.leveldb.CompressionType;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.impl.DbImpl;
@@ -41,9 +43,17 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -185,6 +195,123 @@ public class LevelDBTableServiceTest {
     Assert.assertEquals(emptyTableDiskSize, currentTableDiskSize);
   }
 
+  @Test
+  public void testConcurrentReadModifyWrite() throws Exception {
+    String tableName = "cdap_default.concurrent";
+    service.ensureTableExists(tableName);
+
+    int numThreads = 8;
+    int numIterations = 500;
+    byte[][] rows = new byte[16][];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = Bytes.toBytes("row" + i);
+    }
+    byte[] column = Bytes.toBytes("c");
+    byte[] swapRow = Bytes.toBytes("swap");
+
+    // Threads use separate table instances, which must still be atomic with respect to each other
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < numIterations; i++) {
+            byte[] row = rows[i % rows.length];
+            table.increment(row, Collections.singletonMap(column, 1L));
+
+            NavigableMap<byte[], NavigableMap<byte[], Long>> updates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+            for (int r = 0; r < 4; r++) {
+              NavigableMap<byte[], Long> increments = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+              increments.put(column, 1L);
+              updates.put(rows[(i + r * 5) % rows.length], increments);
+            }
+            table.increment(updates);
+
+            // increment a counter with compare and swap
+            while (true) {
+              byte[] value = table.getRow(swapRow, new byte[][] { column }, null, null, -1, null).get(column);
+              byte[] newValue = Bytes.toBytes(value == null ? 1L : Bytes.toLong(value) + 1);
+              if (table.swap(swapRow, column, value, newValue)) {
+                break;
+              }
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(2, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    long total = 0L;
+    for (byte[] row : rows) {
+      total += Bytes.toLong(table.getRow(row, new byte[][] { column }, null, null, -1, null).get(column));
+    }
+    Assert.assertEquals(numThreads * numIterations * 5L, total);
+    Assert.assertEquals((long) numThreads * numIterations,
+                        Bytes.toLong(table.getRow(swapRow, new byte[][] { column }, null, null, -1, null)
+                                       .get(column)));
+  }
+
+  @Test
+  public void testTableOptions() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, tmpFolder.newFolder().getAbsolutePath());
+    cConf.setBoolean(Constants.CFG_DATA_LEVELDB_COMPRESSION_ENABLED, true);
+    cConf.setInt(Constants.CFG_DATA_LEVELDB_BLOCKSIZE, 1024);
+    String tableUncompressed = "cdap_default.tableOverride";
+    String prefix = Constants.CFG_DATA_LEVELDB_TABLE_PREFIX + tableUncompressed + ".";
+    cConf.setBoolean(prefix + Constants.CFG_DATA_LEVELDB_COMPRESSION_ENABLED_SUFFIX, false);
+    cConf.setInt(prefix + Constants.CFG_DATA_LEVELDB_BLOCKSIZE_SUFFIX, 4096);
+    LevelDBTableService tableService = LevelDBTableService.getInstance();
+    tableService.setConfiguration(cConf);
+
+    Assert.assertEquals(CompressionType.NONE, tableService.createOptions(tableUncompressed).compressionType());
+    Assert.assertEquals(4096, tableService.createOptions(tableUncompressed).blockSize());
+    Assert.assertEquals(CompressionType.SNAPPY, tableService.createOptions("cdap_default.other").compressionType());
+    Assert.assertEquals(1024, tableService.createOptions("cdap_default.other").blockSize());
+
+    // The override is applied when the table is created
+    String tableCompressed = "cdap_default.tableDefault";
+    tableService.ensureTableExists(tableUncompressed);
+    tableService.ensureTableExists(tableCompressed);
+    writeSome(tableService, tableUncompressed, 32768, 1024, true);
+    writeSome(tableService, tableCompressed, 32768, 1024, true);
+    Map<TableId, LevelDBTableService.TableStats> stats = tableService.getTableStats();
+    Assert.assertTrue(stats.get(TableId.from("default", "tableOverride")).getDiskSizeBytes()
+                        > stats.get(TableId.from("default", "tableDefault")).getDiskSizeBytes());
+  }
+
+  @Test
+  public void testReadStats() throws Exception {
+    String tableName = "cdap_default.testReadStats";
+    TableId tableId = TableId.from("default", "testReadStats");
+    service.ensureTableExists(tableName);
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    byte[] column = Bytes.toBytes("c");
+    table.put(Bytes.toBytes("r1"), column, Bytes.toBytes("v1"), 0L);
+    Assert.assertEquals(0L, service.getTableStats().get(tableId).getReadCount());
+
+    table.getRow(Bytes.toBytes("r1"), new byte[][] { column }, null, null, -1, null);
+    table.getRows(Arrays.asList(new Get("r1"), new Get("r2")), null);
+    LevelDBTableService.TableStats stats = service.getTableStats().get(tableId);
+    Assert.assertEquals(3L, stats.getReadCount());
+    Assert.assertTrue(stats.getReadTimeNanos() > 0L);
+
+    // Stats are shared by all instances of the same table
+    new LevelDBTableCore(tableName, service).getRow(Bytes.toBytes("r1"), null, null, null, -1, null);
+    Assert.assertEquals(4L, service.getTableStats().get(tableId).getReadCount());
+
+    service.dropTable(tableName);
+    service.ensureTableExists(tableName);
+    Assert.assertEquals(0L, service.getTableStats().get(tableId).getReadCount());
+  }
+
   private void writeSome(LevelDBTableService service, String tableName,
                          long numRows, int valNumBytes, boolean compressible) throws IOException {
     LevelDBTableCore table = new LevelDBTableCore(tableName, service);
@@ -42,6 +42,7 @@ import io.cdap.cdap.logging.appender.LogAppenderInitializer;
 import io.cdap.cdap.logging.guice.KafkaLogAppenderModule;
 import io.cdap.cdap.logging.guice.LogQueryRuntimeModule;
 import io.cdap.cdap.logging.guice.LogReaderRuntimeModules;
+import io.cdap.cdap.logging.read.FileLogReader;
 import io.cdap.cdap.logging.service.LogQueryService;
 import io.cdap.cdap.messaging.guice.MessagingClientModule;
 import io.cdap.cdap.metrics.guice.MetricsClientRuntimeModule;
@@ -96,6 +97,13 @@ public class MetricsTwillRunnable extends AbstractMasterTwillRunnable {
     services.add(injector.getInstance(MetricsQueryService.class));
   }
 
+  @Override
+  public void destroy() {
+    super.destroy();
+    // Release the threads for scanning log files once the log handler is stopped
+    injector.getInstance(FileLogReader.class).close();
+  }
+
   @VisibleForTesting
   static Injector createGuiceInjector(CConfiguration cConf, Configuration hConf, String txClientId) {
     return Guice.createInjector(
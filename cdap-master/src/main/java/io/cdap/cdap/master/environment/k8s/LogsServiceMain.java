@@ -97,8 +97,10 @@ public class LogsServiceMain extends AbstractServiceMain<EnvironmentOptions> {
         protected void configure() {
           // Current impersonation is not supported
           bind(UGIProvider.class).to(CurrentUGIProvider.class).in(Scopes.SINGLETON);
+          bind(FileLogReader.class).in(Scopes.SINGLETON);
           bind(LogReader.class).to(FileLogReader.class);
           expose(LogReader.class);
+          expose(FileLogReader.class);
 
           bind(Integer.class).annotatedWith(Names.named(Constants.LogSaver.LOG_SAVER_INSTANCE_ID))
             .toInstance(0);
@@ -130,6 +132,8 @@ public class LogsServiceMain extends AbstractServiceMain<EnvironmentOptions> {
     services.add(injector.getInstance(LogQueryService.class));
     // log saver status service
     services.add(injector.getInstance(LogSaverStatusService.class));
+    // log reader, which holds the threads for scanning log files
+    closeableResources.add(injector.getInstance(FileLogReader.class));
     // ZK client service
     Binding<ZKClientService> zkBinding = injector.getExistingBinding(Key.get(ZKClientService.class));
     if (zkBinding != null) {
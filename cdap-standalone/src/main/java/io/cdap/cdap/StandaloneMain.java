@@ -77,6 +77,7 @@ import io.cdap.cdap.logging.framework.LogPipelineLoader;
 import io.cdap.cdap.logging.guice.LocalLogAppenderModule;
 import io.cdap.cdap.logging.guice.LogQueryRuntimeModule;
 import io.cdap.cdap.logging.guice.LogReaderRuntimeModules;
+import io.cdap.cdap.logging.read.FileLogReader;
 import io.cdap.cdap.logging.service.LogQueryService;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.guice.MessagingServerRuntimeModule;
@@ -347,6 +348,8 @@ public class StandaloneMain {
       datasetOpExecutorService.stopAndWait();
 
       logQueryService.stopAndWait();
+      // Release the threads for scanning log files once the log handler is stopped
+      injector.getInstance(FileLogReader.class).close();
 
       metricsCollectionService.stopAndWait();
       metricsQueryService.stopAndWait();
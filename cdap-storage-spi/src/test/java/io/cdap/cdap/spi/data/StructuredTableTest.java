@@ -173,6 +173,108 @@ public abstract class StructuredTableTest {
     Assert.assertEquals(new HashSet<>(keys), result);
   }
 
+  @Test
+  public void testMultiReadOrder() throws Exception {
+    int max = 10;
+    List<Collection<Field<?>>> written = writeSimpleStructuredRows(max, "");
+
+    // Unsorted keys with a duplicate and missing rows. The keys (3, 4L) and (4, 3L) don't exist, while rows with
+    // each of their key values do.
+    int[][] keyValues = {{7, 7}, {2, 2}, {12, 12}, {3, 4}, {7, 7}, {0, 0}, {4, 3}, {5, 5}};
+    List<Collection<Field<?>>> keys = new ArrayList<>();
+    List<Collection<Field<?>>> expected = new ArrayList<>();
+    for (int[] keyValue : keyValues) {
+      keys.add(Arrays.asList(Fields.intField(KEY, keyValue[0]), Fields.longField(KEY2, (long) keyValue[1])));
+      if (keyValue[0] == keyValue[1] && keyValue[0] < max) {
+        expected.add(written.get(keyValue[0]));
+      }
+    }
+
+    // Rows are returned in the order of the keys, with all the columns
+    List<Collection<Field<?>>> result = TransactionRunners.run(getTransactionRunner(), context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      return convertRowsToFields(table.multiRead(keys).iterator(),
+                                 Arrays.asList(KEY, KEY2, STRING_COL, DOUBLE_COL, FLOAT_COL, BYTES_COL));
+    });
+    Assert.assertEquals(expected, result);
+  }
+
+  @Test
+  public void testMultiUpsertDelete() throws Exception {
+    int max = 10;
+
+    // Write all rows in one call, with some rows not having all the columns
+    List<Collection<Field<?>>> expected = new ArrayList<>();
+    List<Collection<Field<?>>> rows = new ArrayList<>();
+    for (int i = 0; i < max; i++) {
+      List<Field<?>> fields = Arrays.asList(Fields.intField(KEY, i),
+                                            Fields.longField(KEY2, (long) i),
+                                            Fields.stringField(STRING_COL, VAL + i),
+                                            Fields.doubleField(DOUBLE_COL, (double) i),
+                                            Fields.floatField(FLOAT_COL, (float) i),
+                                            Fields.bytesField(BYTES_COL, Bytes.toBytes("bytes-" + i)));
+      expected.add(fields);
+      rows.add(i % 2 == 0 ? fields : fields.subList(0, 3));
+    }
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiUpsert(rows.subList(0, 5));
+      table.multiUpsert(rows.subList(5, max));
+    });
+    List<Collection<Field<?>>> actual = scanSimpleStructuredRows(Range.all(), max);
+    Assert.assertEquals(max, actual.size());
+    for (int i = 0; i < max; i++) {
+      if (i % 2 == 0) {
+        Assert.assertEquals(expected.get(i), actual.get(i));
+      } else {
+        Assert.assertEquals(expected.get(i).stream().limit(3).collect(Collectors.toList()),
+                            new ArrayList<>(actual.get(i)).subList(0, 3));
+      }
+    }
+
+    // Upsert with a row missing the primary key should fail
+    try {
+      getTransactionRunner().run(context -> {
+        StructuredTable table = context.getTable(SIMPLE_TABLE);
+        table.multiUpsert(Arrays.asList(expected.get(0), Collections.singletonList(Fields.intField(KEY, 100))));
+      });
+      Assert.fail("Expected failure for missing primary key");
+    } catch (Exception e) {
+      // Expected
+    }
+
+    // Delete the odd rows in one call
+    List<Collection<Field<?>>> keys = IntStream.range(0, max)
+      .filter(i -> i % 2 == 1)
+      .mapToObj(i -> Arrays.<Field<?>>asList(Fields.intField(KEY, i), Fields.longField(KEY2, (long) i)))
+      .collect(Collectors.toList());
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiDelete(keys);
+    });
+    actual = scanSimpleStructuredRows(Range.all(), max);
+    Assert.assertEquals(IntStream.range(0, max).filter(i -> i % 2 == 0).mapToObj(expected::get)
+                          .collect(Collectors.toList()), actual);
+
+    // Rows with the same key are written in order, even if they have different columns
+    List<Field<?>> key = Arrays.asList(Fields.intField(KEY, 0), Fields.longField(KEY2, 0L));
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      List<Collection<Field<?>>> updates = new ArrayList<>();
+      updates.add(Arrays.asList(key.get(0), key.get(1), Fields.stringField(STRING_COL, "first")));
+      updates.add(Arrays.asList(key.get(0), key.get(1), Fields.stringField(STRING_COL, "second"),
+                                Fields.doubleField(DOUBLE_COL, 100.0d)));
+      updates.add(Arrays.asList(key.get(0), key.get(1), Fields.stringField(STRING_COL, "third")));
+      table.multiUpsert(updates);
+    });
+    StructuredRow row = TransactionRunners.run(getTransactionRunner(), context -> {
+      return context.getTable(SIMPLE_TABLE).read(key).orElse(null);
+    });
+    Assert.assertNotNull(row);
+    Assert.assertEquals("third", row.getString(STRING_COL));
+    Assert.assertEquals(Double.valueOf(100.0d), row.getDouble(DOUBLE_COL));
+  }
+
   @Test
   public void testSimpleScan() throws Exception {
     int max = 100;
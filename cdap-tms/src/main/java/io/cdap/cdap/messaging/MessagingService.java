@@ -16,15 +16,26 @@
 
 package io.cdap.cdap.messaging;
 
+import com.google.common.base.Throwables;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.messaging.TopicAlreadyExistsException;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.common.ServiceUnavailableException;
+import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.messaging.data.RawMessage;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
+import org.apache.twill.common.Cancellable;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 
 /**
@@ -96,6 +107,64 @@ public interface MessagingService {
    */
   MessageFetcher prepareFetch(TopicId topicId) throws TopicNotFoundException, IOException;
 
+  /**
+   * Fetches messages from multiple topics in one call. Messages are returned grouped by topic, in the same order
+   * as the given requests, with messages of each topic in the publishing order. The default implementation
+   * fetches from each topic with {@link #prepareFetch(TopicId)} one after the other.
+   *
+   * @param requests list of {@link TopicFetchRequest}, one per topic
+   * @return a {@link CloseableIterator} of pairs of the topic and a message fetched from it
+   * @throws IllegalArgumentException if the same topic appears in more than one request
+   * @throws TopicNotFoundException if any of the topics doesn't exist
+   * @throws IOException if failed to fetch messages
+   * @throws ServiceUnavailableException if the messaging service is not available
+   */
+  default CloseableIterator<ImmutablePair<TopicId, RawMessage>> fetch(List<TopicFetchRequest> requests)
+    throws TopicNotFoundException, IOException {
+    Set<TopicId> topics = new HashSet<>();
+    List<ImmutablePair<TopicId, MessageFetcher>> fetchers = new ArrayList<>();
+    for (TopicFetchRequest request : requests) {
+      if (!topics.add(request.getTopicId())) {
+        throw new IllegalArgumentException("Duplicate fetch request for topic " + request.getTopicId());
+      }
+      fetchers.add(ImmutablePair.of(request.getTopicId(), request.configure(prepareFetch(request.getTopicId()))));
+    }
+
+    // Only fetch from one topic at a time
+    Iterator<ImmutablePair<TopicId, MessageFetcher>> fetcherIterator = fetchers.iterator();
+    return new AbstractCloseableIterator<ImmutablePair<TopicId, RawMessage>>() {
+
+      private TopicId topicId;
+      private CloseableIterator<RawMessage> messages;
+
+      @Override
+      protected ImmutablePair<TopicId, RawMessage> computeNext() {
+        while (messages == null || !messages.hasNext()) {
+          close();
+          if (!fetcherIterator.hasNext()) {
+            return endOfData();
+          }
+          ImmutablePair<TopicId, MessageFetcher> next = fetcherIterator.next();
+          topicId = next.getFirst();
+          try {
+            messages = next.getSecond().fetch();
+          } catch (IOException | TopicNotFoundException e) {
+            throw Throwables.propagate(e);
+          }
+        }
+        return ImmutablePair.of(topicId, messages.next());
+      }
+
+      @Override
+      public void close() {
+        if (messages != null) {
+          messages.close();
+          messages = null;
+        }
+      }
+    };
+  }
+
   /**
    * Publishes a list of messages to the messaging system.
    *
@@ -109,6 +178,40 @@ public interface MessagingService {
   @Nullable
   RollbackDetail publish(StoreRequest request) throws TopicNotFoundException, IOException, UnauthorizedException;
 
+  /**
+   * Publishes a list of messages to the messaging system asynchronously. The default implementation
+   * calls {@link #publish(StoreRequest)} on the calling thread.
+   *
+   * @param request the {@link StoreRequest} containing messages to be published
+   * @return a {@link CompletableFuture} that will be completed when the messages are published. If the store
+   *         request is transactional, the future carries a {@link RollbackDetail} containing information for
+   *         rollback; otherwise the future carries {@code null}. The future fails with the same exceptions as
+   *         {@link #publish(StoreRequest)} on failure.
+   */
+  default CompletableFuture<RollbackDetail> publishAsync(StoreRequest request) {
+    CompletableFuture<RollbackDetail> future = new CompletableFuture<>();
+    try {
+      future.complete(publish(request));
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+    }
+    return future;
+  }
+
+  /**
+   * Registers a listener to be notified once when new messages are published to the given topic.
+   * The listener is called at most once, after messages published after this call become available for fetching.
+   * The listener is called from the publishing thread, hence it should be fast and non-blocking.
+   * The default implementation doesn't support notification and never calls the listener.
+   *
+   * @param topicId the topic to listen on
+   * @param listener the {@link Runnable} to call when new messages are published
+   * @return a {@link Cancellable} to unregister the listener
+   */
+  default Cancellable addPublishListener(TopicId topicId, Runnable listener) {
+    return () -> { };
+  }
+
   /**
    * Stores a list of messages to the messaging system. It is for long / distributed transactional publishing use case.
    *
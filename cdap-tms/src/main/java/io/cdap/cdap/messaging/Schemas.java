@@ -58,6 +58,13 @@ public final class Schemas {
       public static final Schema SCHEMA = loadSchema(ConsumeRequest.class);
     }
 
+    /**
+     * Contains schema for batch consume request from multiple topics.
+     */
+    public static final class BatchConsumeRequest {
+      public static final Schema SCHEMA = loadSchema(BatchConsumeRequest.class);
+    }
+
     /**
      * Contains schema for consume response.
      */
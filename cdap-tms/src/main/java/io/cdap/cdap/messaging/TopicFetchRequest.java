@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.proto.id.TopicId;
+
+import java.util.Arrays;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Describes the messages to fetch from one topic as part of a batch fetch through
+ * {@link MessagingService#fetch(java.util.List)}.
+ */
+public final class TopicFetchRequest {
+
+  private final TopicId topicId;
+  private final byte[] startOffset;
+  private final boolean includeStart;
+  private final Long startTime;
+  private final int limit;
+
+  /**
+   * Creates a request to fetch messages starting from the given message id.
+   *
+   * @param topicId the topic to fetch from
+   * @param startOffset the message id to start fetching from
+   * @param inclusive if {@code true}, the message identified by the given message id will be included
+   * @param limit maximum number of messages to fetch from the topic
+   */
+  public static TopicFetchRequest fromMessage(TopicId topicId, byte[] startOffset, boolean inclusive, int limit) {
+    return new TopicFetchRequest(topicId, startOffset, inclusive, null, limit);
+  }
+
+  /**
+   * Creates a request to fetch messages starting from the given publish time.
+   *
+   * @param topicId the topic to fetch from
+   * @param startTime timestamp in milliseconds
+   * @param limit maximum number of messages to fetch from the topic
+   */
+  public static TopicFetchRequest fromTime(TopicId topicId, long startTime, int limit) {
+    if (startTime < 0) {
+      throw new IllegalArgumentException("Invalid message fetching start time. Start time must be >= 0");
+    }
+    return new TopicFetchRequest(topicId, null, true, startTime, limit);
+  }
+
+  private TopicFetchRequest(TopicId topicId, @Nullable byte[] startOffset, boolean includeStart,
+                            @Nullable Long startTime, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Invalid message fetching limit. Limit must be > 0");
+    }
+    this.topicId = topicId;
+    this.startOffset = startOffset;
+    this.includeStart = includeStart;
+    this.startTime = startTime;
+    this.limit = limit;
+  }
+
+  public TopicId getTopicId() {
+    return topicId;
+  }
+
+  @Nullable
+  public byte[] getStartOffset() {
+    return startOffset;
+  }
+
+  public boolean isIncludeStart() {
+    return includeStart;
+  }
+
+  @Nullable
+  public Long getStartTime() {
+    return startTime;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Sets up the given {@link MessageFetcher} to fetch messages as described by this request.
+   *
+   * @return the same {@link MessageFetcher} instance
+   */
+  public MessageFetcher configure(MessageFetcher fetcher) {
+    if (startOffset != null) {
+      fetcher.setStartMessage(startOffset, includeStart);
+    } else if (startTime != null) {
+      fetcher.setStartTime(startTime);
+    }
+    return fetcher.setLimit(limit);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TopicFetchRequest that = (TopicFetchRequest) o;
+    return includeStart == that.includeStart
+      && limit == that.limit
+      && topicId.equals(that.topicId)
+      && Arrays.equals(startOffset, that.startOffset)
+      && Objects.equals(startTime, that.startTime);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(topicId, Arrays.hashCode(startOffset), includeStart, startTime, limit);
+  }
+
+  @Override
+  public String toString() {
+    return "TopicFetchRequest{" +
+      "topicId=" + topicId +
+      ", startOffset=" + (startOffset == null ? null : Bytes.toHexString(startOffset)) +
+      ", includeStart=" + includeStart +
+      ", startTime=" + startTime +
+      ", limit=" + limit +
+      '}';
+  }
+}
@@ -61,6 +61,10 @@ import javax.annotation.Nullable;
  *     it if needed. This essentially is to amortize the cost of the blocking weight reduction operations among all
  *     fetchers (which typically has multiple of them), without blocking the single publish as much as possible.
  *
+ * How entries are kept in the cache is controlled by a {@link Storage}. By default, entries are kept on heap as is.
+ * A {@link Storage} can keep entries in a more compact form (e.g. with data in off-heap memory), and turn them back
+ * to regular entries when they are scanned.
+ *
  * @param <T> type of entry stored in the cache
  */
 public class MessageCache<T> {
@@ -82,9 +86,10 @@ public class MessageCache<T> {
   private final AtomicBoolean adding;
   private final Weigher<T> weigher;
   private final ReadWriteLock cacheLock;
+  private final Storage<T> storage;
 
   /**
-   * Creates a new instance of the cache.
+   * Creates a new instance of the cache that keeps entries on heap.
    *
    * @param comparator a {@link Comparator} for ordering cache entries
    * @param weigher a {@link Weigher} for computing the weight of each cache entry
@@ -92,6 +97,21 @@ public class MessageCache<T> {
    * @param metricsContext a {@link MetricsContext} for emitting metrics about this cache.
    */
   public MessageCache(Comparator<T> comparator, Weigher<T> weigher, Limits limits, MetricsContext metricsContext) {
+    this(comparator, weigher, limits, metricsContext, new HeapStorage<>());
+  }
+
+  /**
+   * Creates a new instance of the cache.
+   *
+   * @param comparator a {@link Comparator} for ordering cache entries
+   * @param weigher a {@link Weigher} for computing the weight of each stored cache entry
+   * @param limits the limits for maintaining cache weight; see class description for more detail
+   * @param metricsContext a {@link MetricsContext} for emitting metrics about this cache.
+   * @param storage the {@link Storage} for keeping entries in the cache
+   */
+  public MessageCache(Comparator<T> comparator, Weigher<T> weigher, Limits limits, MetricsContext metricsContext,
+                      Storage<T> storage) {
+    this.storage = storage;
     this.cache = new ConcurrentSkipListSet<>(new CacheEntryComparator<>(comparator));
     this.comparator = comparator;
     this.limits = new AtomicReference<>(limits);
@@ -132,7 +152,7 @@ public class MessageCache<T> {
 
       int entriesAdded = 0;
       while (entries.hasNext()) {
-        T entry = entries.next();
+        T entry = storage.store(entries.next());
         CacheEntry<T> cacheEntry = new CacheEntry<>(entry, weigher.weight(entry));
         newWeight = currentWeight.addAndGet(cacheEntry.getWeight());
         if (newWeight > limits.get().getHardLimit()) {
@@ -151,6 +171,7 @@ public class MessageCache<T> {
           // Clear the cache to reset state. This is just for precaution, as this shouldn't happen,
           // unless there is bug in the TMS system (from the caller side).
           currentWeight.addAndGet(-1 * cacheEntry.getWeight());
+          storage.release(entry);
           clear();
           throw new IllegalArgumentException("Cache entry must be in strictly increasing order. " +
                                                "Entry " + entry + " is smaller than or equal to " +
@@ -205,7 +226,8 @@ public class MessageCache<T> {
 
         MessageFilter.Result result = filter.apply(cacheEntry.getEntry());
         if (result == MessageFilter.Result.ACCEPT) {
-          entries.add(cacheEntry.getEntry());
+          // Load the entry while holding the read lock, as the stored entry can be released once removed
+          entries.add(storage.load(cacheEntry.getEntry()));
         } else if (result == MessageFilter.Result.HOLD) {
           // Hold means not to scan more, so just break
           break;
@@ -333,6 +355,7 @@ public class MessageCache<T> {
           break;
         }
         iterator.remove();
+        storage.release(cacheEntry.getEntry());
         entriesRemoved++;
         newWeight = currentWeight.addAndGet(-1 * cacheEntry.getWeight());
       }
@@ -383,6 +406,33 @@ public class MessageCache<T> {
     int weight(T entry);
   }
 
+  /**
+   * This interface is for controlling how entries are kept in the cache. Calls to {@link #store(Object)} are
+   * made by the single thread that adds entries to the cache, while {@link #load(Object)} and
+   * {@link #release(Object)} can be called concurrently from different threads.
+   *
+   * @param <T> type of the entry
+   */
+  public interface Storage<T> {
+
+    /**
+     * Returns the entry to be kept in the cache for the given entry. The returned entry must have the same ordering
+     * as the given entry based on the {@link Comparator} of the cache.
+     */
+    T store(T entry);
+
+    /**
+     * Returns an entry from a stored entry that stays valid after the stored entry is released. This method is
+     * always called while the stored entry is in the cache.
+     */
+    T load(T storedEntry);
+
+    /**
+     * Releases resources held by a stored entry when it is removed from the cache.
+     */
+    void release(T storedEntry);
+  }
+
   /**
    * This interface is for accessing cached entries.
    *
@@ -391,7 +441,8 @@ public class MessageCache<T> {
   public interface Scanner<T> extends CloseableIterator<T> {
 
     /**
-     * Returns the first (smallest) entry in the cache when this scanner was created.
+     * Returns the first (smallest) entry in the cache when this scanner was created. The entry is in the form
+     * kept by the {@link Storage} of the cache, hence should only be used for comparison.
      *
      * @return the first entry in the cache or {@code null} if the cache was empty
      */
@@ -460,6 +511,29 @@ public class MessageCache<T> {
     abstract void doClose();
   }
 
+  /**
+   * A {@link Storage} that keeps entries on heap without any transformation.
+   *
+   * @param <T> type of the entry
+   */
+  private static final class HeapStorage<T> implements Storage<T> {
+
+    @Override
+    public T store(T entry) {
+      return entry;
+    }
+
+    @Override
+    public T load(T storedEntry) {
+      return storedEntry;
+    }
+
+    @Override
+    public void release(T storedEntry) {
+      // No-op
+    }
+  }
+
   /**
    * A private class that wraps a user provided entry of type {@code T} with an associated weight.
    *
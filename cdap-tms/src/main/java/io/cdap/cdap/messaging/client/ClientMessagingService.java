@@ -19,6 +19,7 @@ package io.cdap.cdap.messaging.client;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Closeables;
 import com.google.common.net.HttpHeaders;
@@ -36,14 +37,17 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
 import io.cdap.cdap.common.internal.remote.RemoteClient;
 import io.cdap.cdap.common.internal.remote.RemoteClientFactory;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.internal.io.ExposedByteArrayOutputStream;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.TopicFetchRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.messaging.data.RawMessageFrames;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
@@ -65,6 +69,8 @@ import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -76,8 +82,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -196,6 +206,47 @@ public final class ClientMessagingService implements MessagingService {
     return new ClientMessageFetcher(topicId);
   }
 
+  @Override
+  public CloseableIterator<ImmutablePair<TopicId, RawMessage>> fetch(List<TopicFetchRequest> requests)
+    throws TopicNotFoundException, IOException {
+    // Requests are grouped by namespace, with one batch poll call per namespace
+    Set<TopicId> topics = new HashSet<>();
+    Map<NamespaceId, List<TopicFetchRequest>> namespaceRequests = new LinkedHashMap<>();
+    for (TopicFetchRequest request : requests) {
+      TopicId topicId = request.getTopicId();
+      if (!topics.add(topicId)) {
+        throw new IllegalArgumentException("Duplicate fetch request for topic " + topicId);
+      }
+      namespaceRequests.computeIfAbsent(topicId.getNamespaceId(), ns -> new ArrayList<>()).add(request);
+    }
+
+    List<CloseableIterator<ImmutablePair<TopicId, RawMessage>>> iterators = new ArrayList<>();
+    try {
+      for (Map.Entry<NamespaceId, List<TopicFetchRequest>> entry : namespaceRequests.entrySet()) {
+        iterators.add(batchFetch(entry.getKey(), entry.getValue()));
+      }
+    } catch (Throwable t) {
+      iterators.forEach(CloseableIterator::close);
+      throw t;
+    }
+    if (iterators.size() == 1) {
+      return iterators.get(0);
+    }
+
+    Iterator<ImmutablePair<TopicId, RawMessage>> iterator = Iterators.concat(iterators.iterator());
+    return new AbstractCloseableIterator<ImmutablePair<TopicId, RawMessage>>() {
+      @Override
+      protected ImmutablePair<TopicId, RawMessage> computeNext() {
+        return iterator.hasNext() ? iterator.next() : endOfData();
+      }
+
+      @Override
+      public void close() {
+        iterators.forEach(CloseableIterator::close);
+      }
+    };
+  }
+
   @Nullable
   @Override
   public RollbackDetail publish(StoreRequest request)
@@ -290,6 +341,102 @@ public final class ClientMessagingService implements MessagingService {
     return response;
   }
 
+  /**
+   * Fetches messages from multiple topics of the same namespace with a single batch poll call.
+   */
+  private CloseableIterator<ImmutablePair<TopicId, RawMessage>> batchFetch(NamespaceId namespaceId,
+                                                                           List<TopicFetchRequest> requests)
+    throws TopicNotFoundException, IOException {
+    Schema schema = Schemas.V1.BatchConsumeRequest.SCHEMA;
+    GenericData.Array<GenericRecord> records = new GenericData.Array<>(requests.size(), schema);
+    for (TopicFetchRequest request : requests) {
+      GenericRecord record = new GenericData.Record(schema.getElementType());
+      record.put("topic", request.getTopicId().getTopic());
+      if (request.getStartOffset() != null) {
+        record.put("startFrom", ByteBuffer.wrap(request.getStartOffset()));
+      }
+      if (request.getStartTime() != null) {
+        record.put("startFrom", request.getStartTime());
+      }
+      record.put("inclusive", request.isIncludeStart());
+      record.put("limit", request.getLimit());
+      records.add(record);
+    }
+
+    HttpURLConnection urlConn = remoteClient.openConnection(HttpMethod.POST, namespaceId.getNamespace() + "/poll");
+    urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
+    urlConn.setRequestProperty(HttpHeaders.ACCEPT, RawMessageFrames.CONTENT_TYPE);
+    if (compressPayload) {
+      urlConn.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+    }
+
+    // Send the request
+    Encoder encoder = EncoderFactory.get().directBinaryEncoder(urlConn.getOutputStream(), null);
+    new GenericDatumWriter<GenericData.Array<GenericRecord>>(schema).write(records, encoder);
+
+    int responseCode = urlConn.getResponseCode();
+    if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+      urlConn.disconnect();
+      // Find out which topic is missing
+      for (TopicFetchRequest request : requests) {
+        getTopic(request.getTopicId());
+      }
+      throw new IOException("Failed to fetch messages from topics in namespace " + namespaceId
+                              + ". Reason: " + HttpURLConnection.HTTP_NOT_FOUND);
+    }
+
+    handleError(responseCode, () -> {
+      // If there is any error, read the response body from the error stream
+      try (InputStream errorStream = decompressIfNeeded(urlConn, urlConn.getErrorStream())) {
+        return errorStream == null
+          ? ""
+          : urlConn.getResponseMessage() + new String(ByteStreams.toByteArray(errorStream),
+                                                      StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        return "";
+      } finally {
+        urlConn.disconnect();
+      }
+    }, "Failed to fetch messages from topics in namespace " + namespaceId);
+    verifyContentType(urlConn.getHeaderFields(), RawMessageFrames.CONTENT_TYPE);
+
+    // The response contains messages of each topic, terminated by the end of frames marker, in the request order.
+    InputStream inputStream = decompressIfNeeded(urlConn, urlConn.getInputStream());
+    DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+    Iterator<TopicFetchRequest> requestIterator = requests.iterator();
+    return new AbstractCloseableIterator<ImmutablePair<TopicId, RawMessage>>() {
+
+      private TopicId topicId;
+
+      @Override
+      protected ImmutablePair<TopicId, RawMessage> computeNext() {
+        try {
+          while (true) {
+            if (topicId == null) {
+              if (!requestIterator.hasNext()) {
+                return endOfData();
+              }
+              topicId = requestIterator.next().getTopicId();
+            }
+            RawMessage message = RawMessageFrames.read(input);
+            if (message != null) {
+              return ImmutablePair.of(topicId, message);
+            }
+            topicId = null;
+          }
+        } catch (IOException e) {
+          throw Throwables.propagate(e);
+        }
+      }
+
+      @Override
+      public void close() {
+        Closeables.closeQuietly(input);
+        urlConn.disconnect();
+      }
+    };
+  }
+
   /**
    * Wraps the given output stream with {@link GZIPOutputStream} if payload compression is enabled.
    */
@@ -369,22 +516,48 @@ public final class ClientMessagingService implements MessagingService {
     return os.toByteBuffer();
   }
 
+  /**
+   * Based on the given {@link HttpURLConnection} content encoding,
+   * optionally wrap the given {@link InputStream} with either gzip or deflate decompression.
+   */
+  private InputStream decompressIfNeeded(HttpURLConnection urlConn, InputStream is) throws IOException {
+    String contentEncoding = urlConn.getHeaderField(HttpHeaderNames.CONTENT_ENCODING.toString());
+    if (contentEncoding == null) {
+      return is;
+    }
+
+    if ("gzip".equalsIgnoreCase(contentEncoding)) {
+      return new GZIPInputStream(is);
+    }
+    if ("deflate".equalsIgnoreCase(contentEncoding)) {
+      return new DeflaterInputStream(is);
+    }
+
+    throw new IllegalArgumentException("Unsupported content encoding " + contentEncoding);
+  }
+
   /**
    * Verifies the content-type in the header matches with the required type.
    */
   private void verifyContentType(Map<String, ? extends Collection<String>> headers, String requiredContentType) {
+    if (!requiredContentType.equalsIgnoreCase(getContentType(headers))) {
+      throw new IllegalArgumentException("Only " + requiredContentType + " content type is support.");
+    }
+  }
+
+  /**
+   * Returns the content type from the given set of response headers or {@code null} if there is no content type.
+   */
+  @Nullable
+  private String getContentType(Map<String, ? extends Collection<String>> headers) {
     // Netty 4.1 has all headers set with lower case name
     // However, the cdap-http library doesn't handle it well, hence we iterate all headers instead of lookup in here
-    boolean passed = false;
     for (Map.Entry<String, ? extends Collection<String>> entry : headers.entrySet()) {
       if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(entry.getKey())) {
-        passed = requiredContentType.equalsIgnoreCase(Iterables.getFirst(entry.getValue(), null));
-        break;
+        return Iterables.getFirst(entry.getValue(), null);
       }
     }
-    if (!passed) {
-      throw new IllegalArgumentException("Only " + requiredContentType + " content type is support.");
-    }
+    return null;
   }
 
   /**
@@ -423,8 +596,19 @@ public final class ClientMessagingService implements MessagingService {
 
       // The cask common http library doesn't support read streaming, and we don't want to buffer all messages
       // in memory, hence we use the HttpURLConnection directly instead.
-      HttpURLConnection urlConn = remoteClient.openConnection(HttpMethod.POST, createTopicPath(topicId) + "/poll");
+      String path = createTopicPath(topicId) + "/poll";
+      long waitMillis = getWaitMillis();
+      if (waitMillis > 0) {
+        path += "?waitMs=" + waitMillis;
+      }
+      HttpURLConnection urlConn = remoteClient.openConnection(HttpMethod.POST, path);
+      if (waitMillis > 0 && urlConn.getReadTimeout() > 0) {
+        // The server can hold the response for up to the wait time
+        urlConn.setReadTimeout((int) Math.min(Integer.MAX_VALUE, urlConn.getReadTimeout() + waitMillis));
+      }
       urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
+      // Prefer the binary frames. Servers that don't support it will respond with avro.
+      urlConn.setRequestProperty(HttpHeaders.ACCEPT, RawMessageFrames.CONTENT_TYPE + ", avro/binary");
       if (compressPayload) {
         urlConn.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
       }
@@ -452,6 +636,9 @@ public final class ClientMessagingService implements MessagingService {
           urlConn.disconnect();
         }
       }, "Failed to update topic " + topicId);
+      if (RawMessageFrames.CONTENT_TYPE.equalsIgnoreCase(getContentType(urlConn.getHeaderFields()))) {
+        return createFramesIterator(urlConn);
+      }
       verifyContentType(urlConn.getHeaderFields(), "avro/binary");
 
       // Decode the avro array manually instead of using DatumReader in order to support streaming decode.
@@ -500,23 +687,29 @@ public final class ClientMessagingService implements MessagingService {
     }
 
     /**
-     * Based on the given {@link HttpURLConnection} content encoding,
-     * optionally wrap the given {@link InputStream} with either gzip or deflate decompression.
+     * Creates a {@link CloseableIterator} that decodes messages from the response in the binary frames format
+     * as defined in {@link RawMessageFrames}.
      */
-    private InputStream decompressIfNeeded(HttpURLConnection urlConn, InputStream is) throws IOException {
-      String contentEncoding = urlConn.getHeaderField(HttpHeaderNames.CONTENT_ENCODING.toString());
-      if (contentEncoding == null) {
-        return is;
-      }
-
-      if ("gzip".equalsIgnoreCase(contentEncoding)) {
-        return new GZIPInputStream(is);
-      }
-      if ("deflate".equalsIgnoreCase(contentEncoding)) {
-        return new DeflaterInputStream(is);
-      }
+    private CloseableIterator<RawMessage> createFramesIterator(HttpURLConnection urlConn) throws IOException {
+      InputStream inputStream = decompressIfNeeded(urlConn, urlConn.getInputStream());
+      DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+      return new AbstractCloseableIterator<RawMessage>() {
+        @Override
+        protected RawMessage computeNext() {
+          try {
+            RawMessage message = RawMessageFrames.read(input);
+            return message == null ? endOfData() : message;
+          } catch (IOException e) {
+            throw Throwables.propagate(e);
+          }
+        }
 
-      throw new IllegalArgumentException("Unsupported content encoding " + contentEncoding);
+        @Override
+        public void close() {
+          Closeables.closeQuietly(input);
+          urlConn.disconnect();
+        }
+      };
     }
   }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.data;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * Helper class for the binary framing of {@link RawMessage} used by the messaging system fetch response.
+ *
+ * Each message is encoded as a frame of
+ *
+ * <pre>
+ *   [int id length][id bytes][int payload length][payload bytes]
+ * </pre>
+ *
+ * with all integers in big endian. The end of the response is marked by a single {@code int} of value {@code 0}.
+ * Unlike the avro encoding, message payloads are written as is without re-encoding.
+ *
+ * For a batch fetch from multiple topics, the response contains one such sequence of frames per topic,
+ * each terminated by the end marker, in the same order as the topics in the request.
+ */
+public final class RawMessageFrames {
+
+  /**
+   * The content type for the framed binary encoding.
+   */
+  public static final String CONTENT_TYPE = "application/x-tms-raw-messages";
+
+  /**
+   * The id length that marks the end of the response.
+   */
+  public static final int END_OF_FRAMES = 0;
+
+  /**
+   * Reads the next {@link RawMessage} from the given {@link DataInput}.
+   *
+   * @return the {@link RawMessage} read or {@code null} if reached the end of frames marker
+   * @throws EOFException if the input ended before the end of frames marker
+   * @throws IOException if failed to read from the input
+   */
+  @Nullable
+  public static RawMessage read(DataInput input) throws IOException {
+    int idLength = input.readInt();
+    if (idLength == END_OF_FRAMES) {
+      return null;
+    }
+    if (idLength < 0) {
+      throw new IOException("Invalid message id length " + idLength);
+    }
+    byte[] id = new byte[idLength];
+    input.readFully(id);
+
+    int payloadLength = input.readInt();
+    if (payloadLength < 0) {
+      throw new IOException("Invalid message payload length " + payloadLength);
+    }
+    byte[] payload = new byte[payloadLength];
+    input.readFully(payload);
+    return new RawMessage(id, payload);
+  }
+
+  private RawMessageFrames() {
+    // protect the constructor
+  }
+}
@@ -19,16 +19,20 @@ package io.cdap.cdap.messaging.distributed;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.messaging.TopicAlreadyExistsException;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.common.ServiceUnavailableException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.TopicFetchRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.data.RawMessage;
 import io.cdap.cdap.messaging.server.MessagingHttpService;
 import io.cdap.cdap.messaging.service.CoreMessagingService;
 import io.cdap.cdap.messaging.store.ForwardingTableFactory;
@@ -39,6 +43,7 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
 import org.apache.twill.api.ElectionHandler;
+import org.apache.twill.common.Cancellable;
 import org.apache.twill.common.Threads;
 import org.apache.twill.internal.zookeeper.LeaderElection;
 import org.apache.twill.zookeeper.ZKClient;
@@ -47,6 +52,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -162,6 +168,12 @@ public class LeaderElectionMessagingService extends AbstractIdleService implemen
     return getMessagingService().prepareFetch(topicId);
   }
 
+  @Override
+  public CloseableIterator<ImmutablePair<TopicId, RawMessage>> fetch(List<TopicFetchRequest> requests)
+    throws TopicNotFoundException, IOException {
+    return getMessagingService().fetch(requests);
+  }
+
   @Override
   @Nullable
   public RollbackDetail publish(StoreRequest request)
@@ -169,6 +181,16 @@ public class LeaderElectionMessagingService extends AbstractIdleService implemen
     return getMessagingService().publish(request);
   }
 
+  @Override
+  public CompletableFuture<RollbackDetail> publishAsync(StoreRequest request) {
+    return getMessagingService().publishAsync(request);
+  }
+
+  @Override
+  public Cancellable addPublishListener(TopicId topicId, Runnable listener) {
+    return getMessagingService().addPublishListener(topicId, listener);
+  }
+
   @Override
   public void storePayload(StoreRequest request) throws TopicNotFoundException, IOException, UnauthorizedException {
     getMessagingService().storePayload(request);
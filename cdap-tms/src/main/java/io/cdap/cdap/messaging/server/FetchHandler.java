@@ -20,8 +20,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
-import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.common.BadRequestException;
+import io.cdap.cdap.common.HttpExceptionHandler;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.ByteBuffers;
@@ -31,14 +31,18 @@ import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.messaging.data.RawMessageFrames;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.http.AbstractHttpHandler;
 import io.cdap.http.BodyProducer;
+import io.cdap.http.HandlerContext;
 import io.cdap.http.HttpResponder;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
@@ -55,6 +59,8 @@ import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
+import org.apache.twill.common.Cancellable;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,17 +69,28 @@ import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * A netty http handler for handling message fetching REST API for the messaging system.
  */
-@Path("/v1/namespaces/{namespace}/topics/{topic}")
+@Path("/v1/namespaces/{namespace}")
 public final class FetchHandler extends AbstractHttpHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(FetchHandler.class);
@@ -86,19 +103,47 @@ public final class FetchHandler extends AbstractHttpHandler {
   );
 
   private final MessagingService messagingService;
+  private final HttpExceptionHandler exceptionHandler;
+  private final long maxPollWaitMillis;
+  private final int pollThreads;
   private int messageChunkSize;
+  private ScheduledExecutorService pollExecutor;
 
   @Inject
   FetchHandler(CConfiguration cConf, MessagingService messagingService) {
     this.messagingService = messagingService;
+    this.exceptionHandler = new HttpExceptionHandler();
     this.messageChunkSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE);
+    this.maxPollWaitMillis = cConf.getLong(Constants.MessagingSystem.HTTP_SERVER_POLL_MAX_WAIT_MS);
+    this.pollThreads = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_POLL_THREADS);
   }
 
+  @Override
+  public void init(HandlerContext context) {
+    super.init(context);
+    pollExecutor = Executors.newScheduledThreadPool(pollThreads, Threads.createDaemonThreadFactory("tms-poll-%d"));
+  }
+
+  @Override
+  public void destroy(HandlerContext context) {
+    super.destroy(context);
+    if (pollExecutor != null) {
+      pollExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Fetches messages from the given topic. If the {@code waitMs} query parameter is positive and there is no
+   * message available, the response is delayed until new messages are published to the topic or the wait time
+   * passed, whichever comes first. The wait is capped by the
+   * {@link Constants.MessagingSystem#HTTP_SERVER_POLL_MAX_WAIT_MS} configuration.
+   */
   @POST
-  @Path("poll")
+  @Path("/topics/{topic}/poll")
   public void poll(FullHttpRequest request, HttpResponder responder,
                    @PathParam("namespace") String namespace,
-                   @PathParam("topic") String topic) throws Exception {
+                   @PathParam("topic") String topic,
+                   @QueryParam("waitMs") @DefaultValue("0") long waitMillis) throws Exception {
 
     TopicId topicId = new NamespaceId(namespace).topic(topic);
 
@@ -106,16 +151,86 @@ public final class FetchHandler extends AbstractHttpHandler {
     if (!"avro/binary".equals(request.headers().get(HttpHeaderNames.CONTENT_TYPE))) {
       throw new BadRequestException("Only avro/binary content type is supported.");
     }
+    if (waitMillis < 0) {
+      throw new BadRequestException("Wait time must be >= 0.");
+    }
 
     // Decode the poll request
     Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ByteBufInputStream(request.content()), null);
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.ConsumeRequest.SCHEMA);
+    GenericRecord fetchRequest = datumReader.read(null, decoder);
+    MessageFetcher fetcher = configureFetcher(messagingService.prepareFetch(topicId), fetchRequest);
+    ByteBuffer encodedTx = (ByteBuffer) fetchRequest.get("transaction");
+    if (encodedTx != null) {
+      fetcher.setTransaction(TRANSACTION_CODEC.decode(ByteBuffers.getByteArray(encodedTx)));
+    }
+
+    // Respond with the binary frames if the client accepts it. Otherwise, fallback to avro encoding.
+    String accept = request.headers().get(HttpHeaderNames.ACCEPT);
+    boolean rawFrames = accept != null && accept.contains(RawMessageFrames.CONTENT_TYPE);
+
+    long wait = Math.min(waitMillis, maxPollWaitMillis);
+    if (wait <= 0) {
+      sendMessages(fetcher.fetch(), rawFrames, responder);
+      return;
+    }
+
+    // Wait for new messages without blocking the handler thread
+    new LongPoll(topicId, fetcher, rawFrames, request, responder, System.currentTimeMillis() + wait).run();
+  }
+
+  /**
+   * Fetches messages from multiple topics of the given namespace in one request. The response contains messages
+   * of each topic in the same order as the requests, using the binary framing as defined in {@link RawMessageFrames}.
+   */
+  @POST
+  @Path("/poll")
+  public void batchPoll(FullHttpRequest request, HttpResponder responder,
+                        @PathParam("namespace") String namespace) throws Exception {
+    NamespaceId namespaceId = new NamespaceId(namespace);
+
+    // Currently only support avro
+    if (!"avro/binary".equals(request.headers().get(HttpHeaderNames.CONTENT_TYPE))) {
+      throw new BadRequestException("Only avro/binary content type is supported.");
+    }
 
-    // Fetch the messages
-    CloseableIterator<RawMessage> iterator = fetchMessages(datumReader.read(null, decoder), topicId);
+    // Decode the batch poll request
+    Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ByteBufInputStream(request.content()), null);
+    DatumReader<List<GenericRecord>> datumReader = new GenericDatumReader<>(Schemas.V1.BatchConsumeRequest.SCHEMA);
+    List<GenericRecord> fetchRequests = datumReader.read(null, decoder);
+
+    // Prepare all the fetchers first such that any missing topic will be failed before sending the response.
+    // The actual fetch happens one topic at a time while sending the response.
+    Set<TopicId> topics = new HashSet<>();
+    List<Callable<CloseableIterator<RawMessage>>> sections = new ArrayList<>();
+    for (GenericRecord fetchRequest : fetchRequests) {
+      TopicId topicId = namespaceId.topic(fetchRequest.get("topic").toString());
+      if (!topics.add(topicId)) {
+        throw new BadRequestException("Duplicate fetch request for topic " + topicId);
+      }
+      MessageFetcher fetcher = configureFetcher(messagingService.prepareFetch(topicId), fetchRequest);
+      sections.add(fetcher::fetch);
+    }
+
+    responder.sendContent(HttpResponseStatus.OK, new RawMessagesBodyProducer(sections, messageChunkSize),
+                          new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, RawMessageFrames.CONTENT_TYPE));
+  }
+
+  /**
+   * Sends messages from the given iterator to the client. The iterator will be closed when the response is completed.
+   */
+  private void sendMessages(CloseableIterator<RawMessage> iterator, boolean rawFrames, HttpResponder responder) {
     try {
-      responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
-                            new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+      if (rawFrames) {
+        responder.sendContent(HttpResponseStatus.OK,
+                              new RawMessagesBodyProducer(Collections.singletonList(() -> iterator),
+                                                          messageChunkSize),
+                              new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE,
+                                                           RawMessageFrames.CONTENT_TYPE));
+      } else {
+        responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
+                              new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+      }
     } catch (Throwable t) {
       iterator.close();
       throw t;
@@ -123,12 +238,9 @@ public final class FetchHandler extends AbstractHttpHandler {
   }
 
   /**
-   * Creates a {@link CloseableIterator} of {@link RawMessage} based on the given fetch request.
+   * Sets up the given {@link MessageFetcher} based on the given fetch request.
    */
-  private CloseableIterator<RawMessage> fetchMessages(GenericRecord fetchRequest,
-                                                      TopicId topicId) throws IOException, TopicNotFoundException {
-    MessageFetcher fetcher = messagingService.prepareFetch(topicId);
-
+  private MessageFetcher configureFetcher(MessageFetcher fetcher, GenericRecord fetchRequest) {
     Object startFrom = fetchRequest.get("startFrom");
     if (startFrom != null) {
       if (startFrom instanceof ByteBuffer) {
@@ -147,13 +259,200 @@ public final class FetchHandler extends AbstractHttpHandler {
     if (limit != null) {
       fetcher.setLimit(limit);
     }
+    return fetcher;
+  }
 
-    ByteBuffer encodedTx = (ByteBuffer) fetchRequest.get("transaction");
-    if (encodedTx != null) {
-      fetcher.setTransaction(TRANSACTION_CODEC.decode(ByteBuffers.getByteArray(encodedTx)));
+  /**
+   * Handles error raised while sending messages back to client.
+   */
+  private static void handleSendError(@Nullable Throwable cause) {
+    // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
+    if (cause instanceof SocketException
+      || cause instanceof ClosedChannelException
+      || (cause instanceof IOException && KNOWN_IO_EXCEPTION_MESSAGES.contains(cause.getMessage()))) {
+      // This can easily caused by client close connection prematurely. Don't want to flood the log.
+      LOG.trace("Connection closed by client prematurely while sending messages back to client", cause);
+    } else {
+      // Use sampling logger to log to avoid flooding the log if there is any systematic failure
+      SAMPLING_LOG.warn("Exception raised when sending messages back to client", cause);
+      // Also log a trace to provide a way to see every error if needed
+      LOG.trace("Exception raised when sending messages back to client", cause);
     }
+  }
 
-    return fetcher.fetch();
+  /**
+   * Performs a fetch that waits for new messages asynchronously. Each round registers a publish listener on the
+   * topic and then fetches. If nothing is fetched, the next round is triggered by either a publish notification or
+   * the wait timeout, whichever comes first. The last round responds even if nothing is fetched.
+   */
+  private final class LongPoll implements Runnable {
+
+    private final TopicId topicId;
+    private final MessageFetcher fetcher;
+    private final boolean rawFrames;
+    private final FullHttpRequest request;
+    private final HttpResponder responder;
+    private final long deadline;
+
+    private LongPoll(TopicId topicId, MessageFetcher fetcher, boolean rawFrames,
+                     FullHttpRequest request, HttpResponder responder, long deadline) {
+      this.topicId = topicId;
+      this.fetcher = fetcher;
+      this.rawFrames = rawFrames;
+      this.request = request;
+      this.responder = responder;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void run() {
+      AtomicBoolean triggered = new AtomicBoolean();
+      Cancellable[] cancellables = new Cancellable[2];
+      Runnable nextRound = () -> {
+        if (triggered.compareAndSet(false, true)) {
+          for (Cancellable cancellable : cancellables) {
+            if (cancellable != null) {
+              cancellable.cancel();
+            }
+          }
+          pollExecutor.execute(this);
+        }
+      };
+
+      try {
+        // Register the listener before fetching, so that no publish after the fetch can be missed
+        cancellables[0] = messagingService.addPublishListener(topicId, nextRound);
+        CloseableIterator<RawMessage> iterator = fetcher.fetch();
+        boolean hasMessage;
+        try {
+          hasMessage = iterator.hasNext();
+        } catch (Throwable t) {
+          iterator.close();
+          throw t;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if (hasMessage || remaining <= 0) {
+          if (triggered.compareAndSet(false, true)) {
+            cancellables[0].cancel();
+            sendMessages(iterator, rawFrames, responder);
+          } else {
+            // A publish notification already triggered the next round. Let it respond.
+            iterator.close();
+          }
+          return;
+        }
+        iterator.close();
+
+        ScheduledFuture<?> timeout = pollExecutor.schedule(nextRound, remaining, TimeUnit.MILLISECONDS);
+        cancellables[1] = () -> timeout.cancel(false);
+        if (triggered.get()) {
+          // The next round was triggered before the timeout was set
+          timeout.cancel(false);
+        }
+      } catch (Throwable t) {
+        if (triggered.compareAndSet(false, true)) {
+          if (cancellables[0] != null) {
+            cancellables[0].cancel();
+          }
+          exceptionHandler.handle(t, request, responder);
+        }
+      }
+    }
+  }
+
+  /**
+   * A {@link BodyProducer} to send back messages with the binary framing as defined in {@link RawMessageFrames}.
+   * Messages are sent in sections, one per {@link CloseableIterator}, with each section terminated by the end of frames
+   * marker. The iterator of a section is only opened after the previous section is completed.
+   * Message ids and small payloads are copied into pooled buffers, while large payloads are added to the
+   * response chunk as wrapped buffers without copying.
+   */
+  private static class RawMessagesBodyProducer extends BodyProducer {
+
+    // Payloads of at least this size are wrapped instead of copied
+    private static final int WRAP_PAYLOAD_SIZE = 1024;
+
+    private final Iterator<Callable<CloseableIterator<RawMessage>>> sections;
+    private final int messageChunkSize;
+    private CloseableIterator<RawMessage> iterator;
+    private boolean ended;
+
+    RawMessagesBodyProducer(List<Callable<CloseableIterator<RawMessage>>> sections, int messageChunkSize) {
+      this.sections = sections.iterator();
+      this.messageChunkSize = messageChunkSize;
+    }
+
+    @Override
+    public ByteBuf nextChunk() throws Exception {
+      // Already sent all messages, return empty to signal the end of response
+      if (ended) {
+        return Unpooled.EMPTY_BUFFER;
+      }
+
+      ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+      CompositeByteBuf chunk = allocator.compositeBuffer(messageChunkSize / WRAP_PAYLOAD_SIZE * 2 + 2);
+      ByteBuf buffer = allocator.buffer();
+      try {
+        int size = 0;
+        while (size < messageChunkSize) {
+          if (iterator == null) {
+            if (!sections.hasNext()) {
+              ended = true;
+              break;
+            }
+            iterator = sections.next().call();
+          }
+          if (!iterator.hasNext()) {
+            // End of the current section
+            buffer.writeInt(RawMessageFrames.END_OF_FRAMES);
+            iterator.close();
+            iterator = null;
+            continue;
+          }
+
+          RawMessage message = iterator.next();
+          byte[] id = message.getId();
+          byte[] payload = message.getPayload();
+
+          buffer.writeInt(id.length).writeBytes(id).writeInt(payload.length);
+          if (payload.length >= WRAP_PAYLOAD_SIZE) {
+            chunk.addComponent(true, buffer);
+            chunk.addComponent(true, Unpooled.wrappedBuffer(payload));
+            buffer = allocator.buffer();
+          } else {
+            buffer.writeBytes(payload);
+          }
+          size += id.length + payload.length + 8;
+        }
+
+        chunk.addComponent(true, buffer);
+        return chunk;
+      } catch (Throwable t) {
+        chunk.release();
+        if (buffer.refCnt() > 0) {
+          buffer.release();
+        }
+        throw t;
+      }
+    }
+
+    @Override
+    public void finished() {
+      closeIterator();
+    }
+
+    @Override
+    public void handleError(@Nullable Throwable cause) {
+      closeIterator();
+      handleSendError(cause);
+    }
+
+    private void closeIterator() {
+      if (iterator != null) {
+        iterator.close();
+        iterator = null;
+      }
+    }
   }
 
   /**
@@ -250,18 +549,7 @@ public final class FetchHandler extends AbstractHttpHandler {
     @Override
     public void handleError(@Nullable Throwable cause) {
       iterator.close();
-      // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
-      if (cause instanceof SocketException
-        || cause instanceof ClosedChannelException
-        || (cause instanceof IOException && KNOWN_IO_EXCEPTION_MESSAGES.contains(cause.getMessage()))) {
-        // This can easily caused by client close connection prematurely. Don't want to flood the log.
-        LOG.trace("Connection closed by client prematurely while sending messages back to client", cause);
-      } else {
-        // Use sampling logger to log to avoid flooding the log if there is any systematic failure
-        SAMPLING_LOG.warn("Exception raised when sending messages back to client", cause);
-        // Also log a trace to provide a way to see every error if needed
-        LOG.trace("Exception raised when sending messages back to client", cause);
-      }
+      handleSendError(cause);
     }
   }
 }
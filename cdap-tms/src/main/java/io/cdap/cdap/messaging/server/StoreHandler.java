@@ -18,6 +18,7 @@ package io.cdap.cdap.messaging.server;
 
 import com.google.inject.Inject;
 import io.cdap.cdap.common.BadRequestException;
+import io.cdap.cdap.common.HttpExceptionHandler;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.http.SpillableBodyConsumer;
@@ -73,12 +74,14 @@ public final class StoreHandler extends AbstractHttpHandler {
   private final java.nio.file.Path tempDir;
   private final int bufferSize;
   private final MessagingService messagingService;
+  private final HttpExceptionHandler exceptionHandler;
 
   @Inject
   StoreHandler(CConfiguration cConf, MessagingService messagingService) {
     this.tempDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR), cConf.get(Constants.AppFabric.TEMP_DIR)).toPath();
     this.bufferSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_MAX_REQUEST_SIZE_MB) * 1024 * 1024;
     this.messagingService = messagingService;
+    this.exceptionHandler = new HttpExceptionHandler();
 
     DirUtils.mkdirs(tempDir.toFile());
   }
@@ -99,16 +102,27 @@ public final class StoreHandler extends AbstractHttpHandler {
           throw new BadRequestException("Empty payload is only allowed for publishing transactional message. Topic: "
                                           + topicId);
         }
-        // Publish the message and response with the rollback information
-        RollbackDetail rollbackInfo = messagingService.publish(storeRequest);
-        if (rollbackInfo == null) {
-          // Non-tx publish doesn't have rollback info.
-          responder.sendStatus(HttpResponseStatus.OK);
-        } else {
-          ByteBuf response = encodeRollbackDetail(rollbackInfo);
-          responder.sendContent(HttpResponseStatus.OK, response,
-                                new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
-        }
+        // Publish the message and response with the rollback information.
+        // The publish is asynchronous, so that the handler thread is not blocked while waiting for
+        // the write batch that contains this request to complete.
+        messagingService.publishAsync(storeRequest).whenComplete((rollbackInfo, failure) -> {
+          if (failure != null) {
+            exceptionHandler.handle(failure, request, responder);
+            return;
+          }
+          if (rollbackInfo == null) {
+            // Non-tx publish doesn't have rollback info.
+            responder.sendStatus(HttpResponseStatus.OK);
+            return;
+          }
+          try {
+            ByteBuf response = encodeRollbackDetail(rollbackInfo);
+            responder.sendContent(HttpResponseStatus.OK, response,
+                                  new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+          } catch (Exception e) {
+            exceptionHandler.handle(e, request, responder);
+          }
+        });
       }
     };
   }
@@ -17,12 +17,13 @@
 package io.cdap.cdap.messaging.service;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
 import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.api.metrics.NoopMetricsContext;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
+import org.apache.twill.common.Threads;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -30,42 +31,77 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
  * Class to support writing to message/payload tables with high concurrency.
  *
- * It uses a non-blocking algorithm to batch writes from concurrent threads. The algorithm is the same as
- * the one used in ConcurrentStreamWriter.
+ * It uses a non-blocking algorithm to group commit writes from concurrent threads.
  *
  * The algorithm is like this:
  *
- * When a thread that received a request, performs the following:
+ * When a thread that received a request through {@link #persist(StoreRequest, TopicMetadata)}, performs the
+ * following:
  *
  * <pre>
  * 1. Constructs a PendingStoreRequest locally and enqueue it to a ConcurrentLinkedQueue.
- * 2. Use CAS to set an AtomicBoolean flag to true.
- * 3. If successfully set the flag to true, this thread becomes the writer and proceed to run step 4-7.
- * 4. Provides an Iterator of PendingStoreRequest, which consumes from the ConcurrentLinkedQueue mentioned in step 1.
- * 5. The message table store method will consume the Iterator until it is empty
- * 6. Set the state of each PendingStoreRequest that are written to COMPLETED (succeed/failure).
- * 7. Set the AtomicBoolean flag back to false.
- * 8. If the PendingStoreRequest enqueued by this thread is NOT COMPLETED, go back to step 2.
+ * 2. If the queue is empty, go to step 8.
+ * 3. Use CAS to set an AtomicBoolean flag to true. If failed to set the flag, go to step 8.
+ * 4. This thread becomes the writer. It optionally lingers for the batch window if the queue has not
+ *    accumulated enough requests yet.
+ * 5. Dequeues up to the max batch size of PendingStoreRequest and writes them with the message table store method.
+ * 6. Completes the future of each PendingStoreRequest that are written (succeed/failure).
+ * 7. Set the AtomicBoolean flag back to false. If the PendingStoreRequest enqueued by this thread is NOT COMPLETED,
+ *    go back to step 2.
+ * 8. If the queue is not empty, hands off writing the remaining requests to a background flush task, which performs
+ *    step 2 to 7 until the queue is empty.
+ * 9. Waits on the future of the PendingStoreRequest enqueued by this thread.
  * </pre>
  *
- * The spin lock between step 2 to step 8 is necessary as it guarantees events enqueued by all threads would eventually
- * get written and flushed.
+ * A request received through {@link #persistAsync(StoreRequest, TopicMetadata)} is enqueued and then handed off to
+ * the background flush task directly, so that the calling thread never performs the write.
+ *
+ * Checking the queue again after releasing the flag guarantees that requests enqueued by threads that
+ * failed to acquire the flag would eventually get written, hence those threads can park on their
+ * futures instead of spinning. Since a caller stops writing once its own request is completed, the time it spends
+ * on writing requests of other callers is bounded by the requests enqueued before its own.
  */
 @ThreadSafe
 final class ConcurrentMessageWriter implements Closeable {
 
+  /**
+   * The default maximum number of {@link StoreRequest} to be written in one batch.
+   */
+  static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+  // Executor for writing asynchronous requests and requests left in the queue by callers that completed their own
+  // requests. There is at most one task scheduled and one task running for each writer.
+  private static final Executor FLUSH_EXECUTOR =
+    Executors.newCachedThreadPool(Threads.createDaemonThreadFactory("message-writer-flush-%d"));
+
+  // Distributions of the number of requests in a batch and the milliseconds a request waited in the queue
+  private static final DistributionMetric BATCH_SIZE_METRIC =
+    new DistributionMetric("persist.batch.size", 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000);
+  private static final DistributionMetric QUEUE_WAIT_METRIC =
+    new DistributionMetric("persist.queue.wait.ms", 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000);
+
   private final StoreRequestWriter<?> messagesWriter;
   private final MetricsCollector metricsCollector;
   private final PendingStoreQueue pendingStoreQueue;
+  private final long batchLingerNanos;
   private final AtomicBoolean writerFlag;
+  private final AtomicBoolean flushScheduled;
   private final AtomicBoolean closed;
 
   /**
@@ -77,16 +113,38 @@ final class ConcurrentMessageWriter implements Closeable {
   }
 
   /**
-   * Constructor.
+   * Constructor with the default batching settings.
    *
    * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
    * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
    */
   ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+    this(messagesWriter, metricsCollector, DEFAULT_MAX_BATCH_SIZE, 0L);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
+   * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
+   * @param maxBatchSize maximum number of {@link StoreRequest} to be written in one batch
+   * @param batchLingerMillis number of milliseconds for the writer to wait for more requests to join a batch
+   *                          before writing; {@code 0} to write immediately
+   */
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector,
+                          int maxBatchSize, long batchLingerMillis) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+    }
+    if (batchLingerMillis < 0) {
+      throw new IllegalArgumentException("Batch linger time must not be negative: " + batchLingerMillis);
+    }
     this.messagesWriter = messagesWriter;
     this.metricsCollector = metricsCollector;
-    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector);
+    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector, maxBatchSize);
+    this.batchLingerNanos = TimeUnit.MILLISECONDS.toNanos(batchLingerMillis);
     this.writerFlag = new AtomicBoolean();
+    this.flushScheduled = new AtomicBoolean();
     this.closed = new AtomicBoolean();
   }
 
@@ -102,53 +160,120 @@ final class ConcurrentMessageWriter implements Closeable {
    */
   @Nullable
   RollbackDetail persist(StoreRequest storeRequest, TopicMetadata metadata) throws IOException {
+    CompletableFuture<RollbackDetail> result = new CompletableFuture<>();
+    PendingStoreRequest pendingStoreRequest = enqueue(storeRequest, metadata, result);
+    if (pendingStoreRequest != null) {
+      // The calling thread blocks until the request is written, hence it writes by itself if it becomes the writer
+      flush(pendingStoreRequest.getCompletion());
+      if (!pendingStoreQueue.isEmpty()) {
+        scheduleFlush();
+      }
+    }
+    try {
+      return Uninterruptibles.getUninterruptibly(result);
+    } catch (ExecutionException e) {
+      // The future returned by persistAsync always fails with IOException
+      throw (IOException) e.getCause();
+    }
+  }
+
+  /**
+   * Persists the given {@link StoreRequest} to the {@link StoreRequestWriter} in this class asynchronously.
+   * This method returns immediately and the write is performed by a background writer thread, hence it can be
+   * called from threads that must not block, such as Netty I/O threads.
+   * This method is safe to be called concurrently from multiple threads.
+   *
+   * @param storeRequest contains information about payload to be store
+   * @param metadata {@link TopicMetadata} for the topic in the {@link StoreRequest}
+   * @return a {@link CompletableFuture} that will be completed when the request is persisted. If the store request
+   *         is transactional, the future carries a {@link RollbackDetail} containing information for rollback;
+   *         otherwise the future carries {@code null}. On failure, the future fails with an {@link IOException}.
+   */
+  CompletableFuture<RollbackDetail> persistAsync(StoreRequest storeRequest, TopicMetadata metadata) {
+    CompletableFuture<RollbackDetail> result = new CompletableFuture<>();
+    if (enqueue(storeRequest, metadata, result) != null) {
+      scheduleFlush();
+    }
+    return result;
+  }
+
+  /**
+   * Enqueues the given {@link StoreRequest} for writing.
+   *
+   * @param result the {@link CompletableFuture} to complete when the request is written
+   * @return the {@link PendingStoreRequest} enqueued, or {@code null} if this writer is closed, in which case
+   *         the result is already failed
+   */
+  @Nullable
+  private PendingStoreRequest enqueue(StoreRequest storeRequest, TopicMetadata metadata,
+                                      CompletableFuture<RollbackDetail> result) {
     if (closed.get()) {
-      throw new IOException("Message writer is already closed");
+      result.completeExceptionally(new IOException("Message writer is already closed"));
+      return null;
     }
 
     PendingStoreRequest pendingStoreRequest = new PendingStoreRequest(storeRequest, metadata);
-    pendingStoreQueue.enqueue(pendingStoreRequest);
+    pendingStoreRequest.getCompletion().whenComplete((value, failure) -> {
+      if (failure == null) {
+        metricsCollector.increment("persist.success", 1L);
+        result.complete(createRollbackDetail(pendingStoreRequest));
+      } else {
+        metricsCollector.increment("persist.failure", 1L);
+        result.completeExceptionally(failure instanceof IOException
+                                       ? failure
+                                       : new IOException("Unable to write message to " + storeRequest.getTopicId(),
+                                                         failure));
+      }
+    });
 
+    pendingStoreQueue.enqueue(pendingStoreRequest);
     metricsCollector.increment("persist.requested", 1L);
+    return pendingStoreRequest;
+  }
 
-    while (!pendingStoreRequest.isCompleted()) {
-      if (!tryWrite()) {
-        Thread.yield();
-      }
-    }
-
-    if (pendingStoreRequest.isSuccess()) {
-      metricsCollector.increment("persist.success", 1L);
-      if (!pendingStoreRequest.isTransactional()) {
-        return null;
+  /**
+   * Persists pending requests as long as the queue is not empty and this thread can acquire the writer flag.
+   *
+   * @param completion if not {@code null}, stops writing once it is done
+   */
+  private void flush(@Nullable Future<?> completion) {
+    while ((completion == null || !completion.isDone())
+      && !pendingStoreQueue.isEmpty() && writerFlag.compareAndSet(false, true)) {
+      try {
+        if (batchLingerNanos > 0 && !pendingStoreQueue.isBatchFull()) {
+          LockSupport.parkNanos(batchLingerNanos);
+        }
+        pendingStoreQueue.persist(messagesWriter);
+      } finally {
+        writerFlag.set(false);
       }
-      return new SimpleRollbackDetail(pendingStoreRequest.getTransactionWritePointer(),
-                                      pendingStoreRequest.getStartTimestamp(), pendingStoreRequest.getStartSequenceId(),
-                                      pendingStoreRequest.getEndTimestamp(), pendingStoreRequest.getEndSequenceId());
-    } else {
-      metricsCollector.increment("persist.failure", 1L);
-      Throwables.propagateIfInstanceOf(pendingStoreRequest.getFailureCause(), IOException.class);
-      throw new IOException("Unable to write message to " + storeRequest.getTopicId(),
-                            pendingStoreRequest.getFailureCause());
     }
   }
 
   /**
-   * Tries to acquire the writer flag and persist the pending requests.
-   *
-   * @return {@code true} if acquired the writer flag and called {@link PendingStoreQueue#persist(StoreRequestWriter)};
-   *         otherwise {@code false} will be returned.
+   * Schedules a background task to persist the pending requests until the queue is empty, unless one is already
+   * scheduled but not yet started.
    */
-  private boolean tryWrite() {
-    if (!writerFlag.compareAndSet(false, true)) {
-      return false;
+  private void scheduleFlush() {
+    if (!flushScheduled.compareAndSet(false, true)) {
+      return;
     }
-    try {
-      pendingStoreQueue.persist(messagesWriter);
-    } finally {
-      writerFlag.set(false);
+    FLUSH_EXECUTOR.execute(() -> {
+      // Reset the flag first, such that requests enqueued from now on can schedule another run
+      flushScheduled.set(false);
+      flush(null);
+      // The writer holding the flag when this task failed to acquire it checks the queue after releasing it
+    });
+  }
+
+  @Nullable
+  private RollbackDetail createRollbackDetail(PendingStoreRequest request) {
+    if (!request.isTransactional()) {
+      return null;
     }
-    return true;
+    return new SimpleRollbackDetail(request.getTransactionWritePointer(),
+                                    request.getStartTimestamp(), request.getStartSequenceId(),
+                                    request.getEndTimestamp(), request.getEndSequenceId());
   }
 
   @Override
@@ -156,30 +281,44 @@ final class ConcurrentMessageWriter implements Closeable {
     if (!closed.compareAndSet(false, true)) {
       return;
     }
-    // Flush everything in the queue.
-    // When this thread can grab the writer flag, all pending write requests must be completed since the closed
-    // flag was already set to false.
-    while (!tryWrite()) {
-      Thread.yield();
+    // Wait for the current writer to finish and flush everything left in the queue.
+    // When this thread can grab the writer flag, no more request can be enqueued since the closed
+    // flag was already set to true.
+    while (!writerFlag.compareAndSet(false, true)) {
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    try {
+      while (!pendingStoreQueue.isEmpty()) {
+        pendingStoreQueue.persist(messagesWriter);
+      }
+    } finally {
+      writerFlag.set(false);
     }
     messagesWriter.close();
   }
 
   /**
-   * A resettable {@link Iterator} to provide {@link StoreRequest} to {@link StoreRequestWriter}.
-   * Except the {@link #enqueue(PendingStoreRequest)} method, all methods on this class can only be
-   * called while holding the writer flag.
+   * A queue to provide {@link StoreRequest} to {@link StoreRequestWriter}.
+   * Except the {@link #enqueue(PendingStoreRequest)}, {@link #isEmpty()} and {@link #isBatchFull()} methods,
+   * all methods on this class can only be called while holding the writer flag.
    */
   private static final class PendingStoreQueue {
 
     private final MetricsCollector metricsCollector;
+    private final int maxBatchSize;
     private final Queue<PendingStoreRequest> writeQueue;
+    private final AtomicInteger queueSize;
     private final List<PendingStoreRequest> inflightRequests;
+    // Number of requests in each bucket of the queue wait time distribution of a batch
+    private final long[] queueWaitCounts;
 
-    private PendingStoreQueue(MetricsCollector metricsCollector) {
+    private PendingStoreQueue(MetricsCollector metricsCollector, int maxBatchSize) {
       this.metricsCollector = metricsCollector;
+      this.maxBatchSize = maxBatchSize;
       this.writeQueue = new ConcurrentLinkedQueue<>();
-      this.inflightRequests = new ArrayList<>(100);
+      this.queueSize = new AtomicInteger();
+      this.inflightRequests = new ArrayList<>(Math.min(maxBatchSize, 100));
+      this.queueWaitCounts = new long[QUEUE_WAIT_METRIC.getBucketCount()];
     }
 
     /**
@@ -187,26 +326,50 @@ final class ConcurrentMessageWriter implements Closeable {
      */
     void enqueue(PendingStoreRequest storeRequest) {
       writeQueue.add(storeRequest);
+      queueSize.incrementAndGet();
+    }
+
+    /**
+     * Returns {@code true} if there is no {@link PendingStoreRequest} in the queue.
+     */
+    boolean isEmpty() {
+      return writeQueue.isEmpty();
     }
 
     /**
-     * Persists all {@link PendingStoreRequest} currently in the queue with the given writer.
+     * Returns {@code true} if the queue has at least max batch size of {@link PendingStoreRequest}.
+     */
+    boolean isBatchFull() {
+      return queueSize.get() >= maxBatchSize;
+    }
+
+    /**
+     * Persists up to max batch size of {@link PendingStoreRequest} currently in the queue with the given writer.
      */
     void persist(StoreRequestWriter<?> writer) {
-      // Capture all current events.
+      // Capture the current events.
       // The reason for capturing instead of using a live iterator is to avoid the possible case of infinite write
       // time. E.g. while generating the entry to write to the storage table, a new store request get enqueued.
-      // The number of requests in the queue is bounded by the number of threads that call this method.
-      // Since this method is expected to be called (indirectly) from a http handler thread, that is bounded by
-      // the thread pool size used by the http service.
       inflightRequests.clear();
-      PendingStoreRequest request = writeQueue.poll();
-      while (request != null) {
+      long now = System.nanoTime();
+      long queueWaitMillis = 0L;
+      while (inflightRequests.size() < maxBatchSize) {
+        PendingStoreRequest request = writeQueue.poll();
+        if (request == null) {
+          break;
+        }
         inflightRequests.add(request);
-        request = writeQueue.poll();
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(now - request.getEnqueueTimeNanos());
+        queueWaitCounts[QUEUE_WAIT_METRIC.getBucket(waitMillis)]++;
+        queueWaitMillis += waitMillis;
       }
+      int batchSize = inflightRequests.size();
+      int queued = queueSize.getAndAdd(-batchSize);
 
-      metricsCollector.gauge("persist.queue.size", inflightRequests.size());
+      metricsCollector.gauge("persist.queue.size", queued);
+      metricsCollector.increment("persist.batch.count", 1L);
+      BATCH_SIZE_METRIC.emit(metricsCollector, batchSize);
+      QUEUE_WAIT_METRIC.emit(metricsCollector, queueWaitCounts, queueWaitMillis);
 
       try {
         writer.write(inflightRequests.iterator());
@@ -229,6 +392,65 @@ final class ConcurrentMessageWriter implements Closeable {
     }
   }
 
+  /**
+   * Emits the distribution of a value as counters, since there is no histogram metric type. There is one counter
+   * for each bucket, named {@code <name>.le.<bound>}, which counts the values larger than the bound of the previous
+   * bucket and less than or equal to its own bound. Values larger than the last bound are counted by
+   * {@code <name>.le.inf}. The sum of all values is counted by {@code <name>.sum}.
+   */
+  private static final class DistributionMetric {
+
+    private final long[] bounds;
+    private final String[] bucketNames;
+    private final String sumName;
+
+    DistributionMetric(String name, long... bounds) {
+      this.bounds = bounds;
+      this.bucketNames = new String[bounds.length + 1];
+      for (int i = 0; i < bounds.length; i++) {
+        bucketNames[i] = name + ".le." + bounds[i];
+      }
+      bucketNames[bounds.length] = name + ".le.inf";
+      this.sumName = name + ".sum";
+    }
+
+    int getBucketCount() {
+      return bucketNames.length;
+    }
+
+    /**
+     * Returns the index of the bucket that the given value belongs to.
+     */
+    int getBucket(long value) {
+      int i = 0;
+      while (i < bounds.length && value > bounds[i]) {
+        i++;
+      }
+      return i;
+    }
+
+    /**
+     * Emits a single value.
+     */
+    void emit(MetricsCollector metricsCollector, long value) {
+      metricsCollector.increment(bucketNames[getBucket(value)], 1L);
+      metricsCollector.increment(sumName, value);
+    }
+
+    /**
+     * Emits the given number of values in each bucket and their sum. The counts are reset to zero afterward.
+     */
+    void emit(MetricsCollector metricsCollector, long[] counts, long sum) {
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          metricsCollector.increment(bucketNames[i], counts[i]);
+          counts[i] = 0;
+        }
+      }
+      metricsCollector.increment(sumName, sum);
+    }
+  }
+
   /**
    * Straightforward implementation of {@link RollbackDetail}
    */
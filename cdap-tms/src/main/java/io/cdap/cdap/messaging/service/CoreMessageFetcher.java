@@ -25,12 +25,16 @@ import io.cdap.cdap.messaging.data.RawMessage;
 import io.cdap.cdap.messaging.store.MessageTable;
 import io.cdap.cdap.messaging.store.PayloadTable;
 import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Cancellable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import javax.annotation.Nullable;
 
 /**
@@ -44,17 +48,78 @@ final class CoreMessageFetcher extends MessageFetcher {
   private final TopicMetadata topicMetadata;
   private final TableProvider<MessageTable> messageTableProvider;
   private final TableProvider<PayloadTable> payloadTableProvider;
+  private final LongSupplier readBoundaryProvider;
+  private final Function<Runnable, Cancellable> publishListenerRegistrar;
 
   CoreMessageFetcher(TopicMetadata topicMetadata,
                      TableProvider<MessageTable> messageTableProvider,
                      TableProvider<PayloadTable> payloadTableProvider) {
+    this(topicMetadata, messageTableProvider, payloadTableProvider, () -> Long.MAX_VALUE, listener -> () -> { });
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param topicMetadata the metadata of the topic to fetch from
+   * @param messageTableProvider provider for the {@link MessageTable}
+   * @param payloadTableProvider provider for the {@link PayloadTable}
+   * @param readBoundaryProvider provides the exclusive upper bound of message table ids, packed by
+   *                             {@link SharedMessageSequence#pack(long, int)}, that can be returned by a fetch
+   * @param publishListenerRegistrar registers a one-time listener to be called when new messages are published
+   *                                 to the topic, which is used for waiting for new messages
+   */
+  CoreMessageFetcher(TopicMetadata topicMetadata,
+                     TableProvider<MessageTable> messageTableProvider,
+                     TableProvider<PayloadTable> payloadTableProvider,
+                     LongSupplier readBoundaryProvider,
+                     Function<Runnable, Cancellable> publishListenerRegistrar) {
     this.topicMetadata = topicMetadata;
     this.messageTableProvider = messageTableProvider;
     this.payloadTableProvider = payloadTableProvider;
+    this.readBoundaryProvider = readBoundaryProvider;
+    this.publishListenerRegistrar = publishListenerRegistrar;
   }
 
   @Override
   public CloseableIterator<RawMessage> fetch() throws IOException {
+    long waitMillis = getWaitMillis();
+    if (waitMillis <= 0) {
+      return fetchMessages();
+    }
+
+    long deadline = System.currentTimeMillis() + waitMillis;
+    while (true) {
+      // Register the listener before fetching, so that no publish between the fetch and the wait can be missed
+      CountDownLatch publishLatch = new CountDownLatch(1);
+      Cancellable cancellable = publishListenerRegistrar.apply(publishLatch::countDown);
+      try {
+        CloseableIterator<RawMessage> iterator = fetchMessages();
+        boolean hasMessage;
+        try {
+          hasMessage = iterator.hasNext();
+        } catch (Throwable t) {
+          iterator.close();
+          throw t;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if (hasMessage || remaining <= 0) {
+          return iterator;
+        }
+        iterator.close();
+        publishLatch.await(remaining, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return fetchMessages();
+      } finally {
+        cancellable.cancel();
+      }
+    }
+  }
+
+  /**
+   * Returns a {@link CloseableIterator} over messages currently available in the topic.
+   */
+  private CloseableIterator<RawMessage> fetchMessages() throws IOException {
     MessageTable messageTable = messageTableProvider.get();
     try {
       return new MessageCloseableIterator(messageTable);
@@ -127,6 +192,7 @@ final class CoreMessageFetcher extends MessageFetcher {
     private final CloseableIterator<MessageTable.Entry> messageIterator;
     private final TopicId topicId;
     private final MessageTable messageTable;
+    private final long readBoundary;
     private RawMessage nextMessage;
     private MessageTable.Entry messageEntry;
     private CloseableIterator<PayloadTable.Entry> payloadIterator;
@@ -140,6 +206,8 @@ final class CoreMessageFetcher extends MessageFetcher {
       this.messageTable = messageTable;
       this.inclusive = isIncludeStart();
       this.messageLimit = getLimit();
+      // The boundary must be acquired before scanning the table
+      this.readBoundary = readBoundaryProvider.getAsLong();
 
       long ttl = topicMetadata.getTTL();
       startOffset = getStartOffset() == null ? null : new MessageId(getStartOffset());
@@ -187,6 +255,12 @@ final class CoreMessageFetcher extends MessageFetcher {
         // If there is no payload iterator or it has been exhausted, read the next message from the message iterator
         if (messageIterator.hasNext()) {
           messageEntry = messageIterator.next();
+          if (SharedMessageSequence.pack(messageEntry.getPublishTimestamp(),
+                                         messageEntry.getSequenceId()) >= readBoundary) {
+            // Messages beyond the read boundary may not be fully written yet. Stop fetching to avoid skipping them.
+            messageLimit = 0;
+            break;
+          }
           if (messageEntry.isPayloadReference()) {
             // If the message entry is a reference to payload table, create the payload iterator
             try {
@@ -50,11 +50,14 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import org.apache.tephra.TxConstants;
 import org.apache.tephra.util.TxUtils;
+import org.apache.twill.common.Cancellable;
 import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -62,6 +65,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -81,11 +87,13 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   private final CConfiguration cConf;
   private final TableFactory tableFactory;
   private final LoadingCache<TopicId, TopicMetadata> topicCache;
-  private final LoadingCache<TopicId, ConcurrentMessageWriter> messageTableWriterCache;
+  private final LoadingCache<TopicId, ShardedMessageWriter> messageTableWriterCache;
   private final LoadingCache<TopicId, ConcurrentMessageWriter> payloadTableWriterCache;
   private final TimeProvider timeProvider;
   private final MetricsCollectionService metricsCollectionService;
   private final long txMaxLifeTimeInMillis;
+  private final int messageTableWriteShards;
+  private final ConcurrentMap<TopicId, Set<Runnable>> publishListeners;
 
   @Inject
   protected CoreMessagingService(CConfiguration cConf, TableFactory tableFactory,
@@ -99,9 +107,11 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     this.cConf = cConf;
     this.tableFactory = tableFactory;
     this.topicCache = createTopicCache();
-    this.messageTableWriterCache = createTableWriterCache(true, cConf);
-    this.payloadTableWriterCache = createTableWriterCache(false, cConf);
+    this.messageTableWriteShards = Math.max(1, cConf.getInt(Constants.MessagingSystem.MESSAGE_TABLE_WRITE_SHARDS, 1));
+    this.messageTableWriterCache = createTableWriterCache(cConf, this::createMessageTableWriter);
+    this.payloadTableWriterCache = createTableWriterCache(cConf, this::createPayloadTableWriter);
     this.timeProvider = timeProvider;
+    this.publishListeners = new ConcurrentHashMap<>();
 
     // Due to circular dependency in our class hierarchy (which is bad), we cannot use metricsCollectionService
     // to construct metricsContext in here. The circular dependency is
@@ -167,9 +177,22 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   @Override
   public MessageFetcher prepareFetch(final TopicId topicId) throws TopicNotFoundException, IOException {
     final TopicMetadata metadata = getTopic(topicId);
+    // With multiple write shards, messages can become visible out of order,
+    // hence the fetch needs to be bounded by the messages that are fully written.
     return new CoreMessageFetcher(metadata,
                                   () -> createMessageTable(metadata),
-                                  () -> createPayloadTable(metadata));
+                                  () -> createPayloadTable(metadata),
+                                  messageTableWriteShards == 1
+                                    ? () -> Long.MAX_VALUE
+                                    : () -> messageTableWriterCache.getUnchecked(topicId).getReadBoundary(),
+                                  listener -> addPublishListener(topicId, listener));
+  }
+
+  @Override
+  public Cancellable addPublishListener(TopicId topicId, Runnable listener) {
+    Set<Runnable> listeners = publishListeners.computeIfAbsent(topicId, k -> ConcurrentHashMap.newKeySet());
+    listeners.add(listener);
+    return () -> listeners.remove(listener);
   }
 
   @Nullable
@@ -180,7 +203,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       if (request.isTransactional()) {
         ensureValidTxLifetime(request.getTransactionWritePointer());
       }
-      return messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      RollbackDetail rollbackDetail = messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      notifyPublishListeners(request.getTopicId());
+      return rollbackDetail;
     } catch (ExecutionException e) {
       Throwable cause = Objects.firstNonNull(e.getCause(), e);
       Throwables.propagateIfPossible(cause, TopicNotFoundException.class, IOException.class);
@@ -188,6 +213,24 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     }
   }
 
+  @Override
+  public CompletableFuture<RollbackDetail> publishAsync(StoreRequest request) {
+    try {
+      TopicMetadata metadata = topicCache.get(request.getTopicId());
+      if (request.isTransactional()) {
+        ensureValidTxLifetime(request.getTransactionWritePointer());
+      }
+      CompletableFuture<RollbackDetail> future = messageTableWriterCache.get(request.getTopicId())
+        .persistAsync(request, metadata);
+      future.thenRun(() -> notifyPublishListeners(request.getTopicId()));
+      return future;
+    } catch (Exception e) {
+      CompletableFuture<RollbackDetail> future = new CompletableFuture<>();
+      future.completeExceptionally(e instanceof ExecutionException ? Objects.firstNonNull(e.getCause(), e) : e);
+      return future;
+    }
+  }
+
   @Override
   public void storePayload(StoreRequest request) throws TopicNotFoundException, IOException {
     try {
@@ -257,6 +300,27 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     LOG.info("Core Messaging Service stopped");
   }
 
+  /**
+   * Calls and removes all the listeners registered through {@link #addPublishListener(TopicId, Runnable)}
+   * for the given topic.
+   */
+  private void notifyPublishListeners(TopicId topicId) {
+    Set<Runnable> listeners = publishListeners.get(topicId);
+    if (listeners == null || listeners.isEmpty()) {
+      return;
+    }
+    for (Runnable listener : listeners) {
+      // Only call the listener if this thread is the one removing it, so that it is called at most once
+      if (listeners.remove(listener)) {
+        try {
+          listener.run();
+        } catch (Throwable t) {
+          LOG.warn("Exception raised when notifying publish listener for topic {}", topicId, t);
+        }
+      }
+    }
+  }
+
   private void ensureValidTxLifetime(long transactionWritePointer) throws IOException {
     long txTimestamp = TxUtils.getTimestamp(transactionWritePointer);
     boolean validLifetime = (txTimestamp + txMaxLifeTimeInMillis) > System.currentTimeMillis();
@@ -325,24 +389,23 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   }
 
   /**
-   * Creates a {@link LoadingCache} for {@link ConcurrentMessageWriter}
-   * for writing to {@link MessageTable} or {@link PayloadTable}.
+   * Creates a {@link LoadingCache} for writers that write to {@link MessageTable} or {@link PayloadTable}.
    *
-   * @param messageTable {@code true} for building a cache for the {@link MessageTable};
-   *                     {@code false} for the {@link PayloadTable}
    * @param cConf the system configuration
-   * @return a {@link LoadingCache} for
+   * @param writerLoader the function for creating a new writer for a given topic
+   * @param <T> type of the writer
+   * @return a {@link LoadingCache} for the writers
    */
-  private LoadingCache<TopicId, ConcurrentMessageWriter> createTableWriterCache(final boolean messageTable,
-                                                                                final CConfiguration cConf) {
+  private <T extends Closeable> LoadingCache<TopicId, T> createTableWriterCache(CConfiguration cConf,
+                                                                               WriterLoader<T> writerLoader) {
     long expireSecs = cConf.getLong(Constants.MessagingSystem.TABLE_CACHE_EXPIRATION_SECONDS);
 
     return CacheBuilder.newBuilder()
       .expireAfterAccess(expireSecs, TimeUnit.SECONDS)
-      .removalListener(new RemovalListener<TopicId, ConcurrentMessageWriter>() {
+      .removalListener(new RemovalListener<TopicId, T>() {
         @Override
-        public void onRemoval(RemovalNotification<TopicId, ConcurrentMessageWriter> notification) {
-          ConcurrentMessageWriter writer = notification.getValue();
+        public void onRemoval(RemovalNotification<TopicId, T> notification) {
+          T writer = notification.getValue();
           if (writer != null) {
             try {
               writer.close();
@@ -352,26 +415,64 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
           }
         }
       })
-      .build(new CacheLoader<TopicId, ConcurrentMessageWriter>() {
+      .build(new CacheLoader<TopicId, T>() {
         @Override
-        public ConcurrentMessageWriter load(TopicId topicId) throws Exception {
-          TopicMetadata metadata = getTopic(topicId);
-          StoreRequestWriter<?> messagesWriter = messageTable
-            ? new MessageTableStoreRequestWriter(createMessageTable(metadata), timeProvider)
-            : new PayloadTableStoreRequestWriter(createPayloadTable(metadata), timeProvider);
-
-          MetricsContext metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
-            Constants.Metrics.Tag.COMPONENT, Constants.Service.MESSAGING_SERVICE,
-            Constants.Metrics.Tag.INSTANCE_ID, cConf.get(Constants.MessagingSystem.CONTAINER_INSTANCE_ID, "0"),
-            Constants.Metrics.Tag.NAMESPACE, topicId.getNamespace(),
-            Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
-          ));
-
-          return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+        public T load(TopicId topicId) throws Exception {
+          return writerLoader.load(getTopic(topicId));
         }
       });
   }
 
+  /**
+   * Creates a {@link ShardedMessageWriter} for writing to the {@link MessageTable}. The number of shards is
+   * controlled by the {@link Constants.MessagingSystem#MESSAGE_TABLE_WRITE_SHARDS} configuration.
+   */
+  private ShardedMessageWriter createMessageTableWriter(TopicMetadata metadata) throws IOException {
+    MetricsContext metricsContext = createWriterMetricsContext(metadata.getTopicId(), "message");
+    SharedMessageSequence sequence = messageTableWriteShards > 1 ? new SharedMessageSequence(timeProvider) : null;
+
+    List<ConcurrentMessageWriter> writers = new ArrayList<>(messageTableWriteShards);
+    List<StoreRequestWriter<?>> requestWriters = new ArrayList<>(messageTableWriteShards);
+    try {
+      for (int i = 0; i < messageTableWriteShards; i++) {
+        StoreRequestWriter<?> requestWriter = new MessageTableStoreRequestWriter(createMessageTable(metadata),
+                                                                                 timeProvider, sequence);
+        requestWriters.add(requestWriter);
+        writers.add(createConcurrentMessageWriter(requestWriter, metricsContext));
+      }
+    } catch (IOException e) {
+      for (ConcurrentMessageWriter writer : writers) {
+        Closeables.closeQuietly(writer);
+      }
+      throw e;
+    }
+    return new ShardedMessageWriter(writers, requestWriters, sequence);
+  }
+
+  /**
+   * Creates a {@link ConcurrentMessageWriter} for writing to the {@link PayloadTable}.
+   */
+  private ConcurrentMessageWriter createPayloadTableWriter(TopicMetadata metadata) throws IOException {
+    return createConcurrentMessageWriter(new PayloadTableStoreRequestWriter(createPayloadTable(metadata), timeProvider),
+                                         createWriterMetricsContext(metadata.getTopicId(), "payload"));
+  }
+
+  private ConcurrentMessageWriter createConcurrentMessageWriter(StoreRequestWriter<?> requestWriter,
+                                                                MetricsContext metricsContext) {
+    return new ConcurrentMessageWriter(requestWriter, metricsContext,
+                                       cConf.getInt(Constants.MessagingSystem.STORE_BATCH_MAX_REQUESTS),
+                                       cConf.getLong(Constants.MessagingSystem.STORE_BATCH_LINGER_MS));
+  }
+
+  private MetricsContext createWriterMetricsContext(TopicId topicId, String table) {
+    return metricsCollectionService.getContext(ImmutableMap.of(
+      Constants.Metrics.Tag.COMPONENT, Constants.Service.MESSAGING_SERVICE,
+      Constants.Metrics.Tag.INSTANCE_ID, cConf.get(Constants.MessagingSystem.CONTAINER_INSTANCE_ID, "0"),
+      Constants.Metrics.Tag.NAMESPACE, topicId.getNamespace(),
+      Constants.Metrics.Tag.TABLE, table
+    ));
+  }
+
   /**
    * Creates a new instance of {@link MetadataTable}.
    */
@@ -398,4 +499,13 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     properties.put(TopicMetadata.GENERATION_KEY, MessagingUtils.Constants.DEFAULT_GENERATION);
     return properties;
   }
+
+  /**
+   * Functional interface for creating a table writer for a topic.
+   *
+   * @param <T> type of the writer
+   */
+  private interface WriterLoader<T> {
+    T load(TopicMetadata metadata) throws IOException;
+  }
 }
@@ -37,7 +37,12 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
   private final MutableMessageTableEntry entry;
 
   MessageTableStoreRequestWriter(MessageTable messageTable, TimeProvider timeProvider) {
-    super(timeProvider, true);
+    this(messageTable, timeProvider, null);
+  }
+
+  MessageTableStoreRequestWriter(MessageTable messageTable, TimeProvider timeProvider,
+                                 @Nullable SharedMessageSequence sharedSequence) {
+    super(timeProvider, true, sharedSequence);
     this.messageTable = messageTable;
     this.entry = new MutableMessageTableEntry();
   }
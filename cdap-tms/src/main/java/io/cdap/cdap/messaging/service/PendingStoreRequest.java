@@ -20,6 +20,7 @@ import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 
 /**
@@ -29,8 +30,9 @@ final class PendingStoreRequest extends StoreRequest {
 
   private final StoreRequest originalRequest;
   private final TopicMetadata metadata;
+  private final CompletableFuture<Void> completion;
+  private final long enqueueTimeNanos;
 
-  private boolean completed;
   private long startTimestamp;
   private long endTimestamp;
   private int startSequenceId;
@@ -42,6 +44,8 @@ final class PendingStoreRequest extends StoreRequest {
           originalRequest.getTransactionWritePointer());
     this.originalRequest = originalRequest;
     this.metadata = topicMetadata;
+    this.completion = new CompletableFuture<>();
+    this.enqueueTimeNanos = System.nanoTime();
   }
 
   TopicMetadata getTopicMetadata() {
@@ -49,7 +53,22 @@ final class PendingStoreRequest extends StoreRequest {
   }
 
   boolean isCompleted() {
-    return completed;
+    return completion.isDone();
+  }
+
+  /**
+   * Returns a {@link CompletableFuture} that will be completed when this request is persisted, either successfully
+   * or with the failure cause.
+   */
+  CompletableFuture<Void> getCompletion() {
+    return completion;
+  }
+
+  /**
+   * Returns the {@link System#nanoTime()} when this request was created.
+   */
+  long getEnqueueTimeNanos() {
+    return enqueueTimeNanos;
   }
 
   boolean isSuccess() {
@@ -65,8 +84,12 @@ final class PendingStoreRequest extends StoreRequest {
   }
 
   void completed(@Nullable Throwable failureCause) {
-    completed = true;
     this.failureCause = failureCause;
+    if (failureCause == null) {
+      completion.complete(null);
+    } else {
+      completion.completeExceptionally(failureCause);
+    }
   }
 
   void setStartTimestamp(long startTimestamp) {
@@ -114,7 +137,7 @@ final class PendingStoreRequest extends StoreRequest {
   @Override
   public String toString() {
     return "PendingStoreRequest{" +
-      "completed=" + completed +
+      "completed=" + isCompleted() +
       ", startTimestamp=" + startTimestamp +
       ", startSequenceId=" + startSequenceId +
       ", endTimestamp=" + endTimestamp +
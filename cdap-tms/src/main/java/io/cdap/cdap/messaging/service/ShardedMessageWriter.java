@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.service;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.messaging.RollbackDetail;
+import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.TopicMetadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A writer that spreads {@link StoreRequest}s of a topic across multiple {@link ConcurrentMessageWriter}s, each
+ * writing to the message table independently, so that writes to a busy topic are not limited to a single writer.
+ *
+ * All shards allocate message ids from the same {@link SharedMessageSequence}, hence messages from all shards
+ * can still be read with one ordered scan of the table. Since shards persist in parallel, a message with a larger
+ * id can become visible before a message with a smaller id. Readers should only consume messages with ids smaller
+ * than the one returned by {@link #getReadBoundary()} to avoid skipping over messages that are still being written.
+ */
+@ThreadSafe
+final class ShardedMessageWriter implements Closeable {
+
+  private final List<ConcurrentMessageWriter> writers;
+  private final List<StoreRequestWriter<?>> requestWriters;
+  @Nullable
+  private final SharedMessageSequence sequence;
+  private final AtomicInteger nextShard;
+
+  /**
+   * Constructor.
+   *
+   * @param writers the {@link ConcurrentMessageWriter} of each shard
+   * @param requestWriters the {@link StoreRequestWriter} used by each of the {@link ConcurrentMessageWriter}
+   * @param sequence the {@link SharedMessageSequence} used by all the {@link StoreRequestWriter}s, or {@code null}
+   *                 if there is only one shard
+   */
+  ShardedMessageWriter(List<ConcurrentMessageWriter> writers, List<StoreRequestWriter<?>> requestWriters,
+                       @Nullable SharedMessageSequence sequence) {
+    Preconditions.checkArgument(!writers.isEmpty(), "There must be at least one writer");
+    Preconditions.checkArgument(writers.size() == requestWriters.size(),
+                                "Number of writers %s is different from number of request writers %s",
+                                writers.size(), requestWriters.size());
+    Preconditions.checkArgument(writers.size() == 1 || sequence != null,
+                                "A shared sequence is required for more than one writer");
+    this.writers = ImmutableList.copyOf(writers);
+    this.requestWriters = ImmutableList.copyOf(requestWriters);
+    this.sequence = sequence;
+    this.nextShard = new AtomicInteger();
+  }
+
+  /**
+   * Persists the given {@link StoreRequest} through one of the shards.
+   *
+   * @see ConcurrentMessageWriter#persist(StoreRequest, TopicMetadata)
+   */
+  @Nullable
+  RollbackDetail persist(StoreRequest storeRequest, TopicMetadata metadata) throws IOException {
+    return selectWriter().persist(storeRequest, metadata);
+  }
+
+  /**
+   * Persists the given {@link StoreRequest} through one of the shards asynchronously.
+   *
+   * @see ConcurrentMessageWriter#persistAsync(StoreRequest, TopicMetadata)
+   */
+  CompletableFuture<RollbackDetail> persistAsync(StoreRequest storeRequest, TopicMetadata metadata) {
+    return selectWriter().persistAsync(storeRequest, metadata);
+  }
+
+  /**
+   * Returns the exclusive upper bound of message ids, packed by {@link SharedMessageSequence#pack(long, int)},
+   * that are safe to be read. All messages with smaller ids are either persisted or will never be written.
+   * If there is only one shard, {@link Long#MAX_VALUE} is returned since the single writer always writes in order.
+   */
+  long getReadBoundary() {
+    if (sequence == null) {
+      return Long.MAX_VALUE;
+    }
+    // The next id must be acquired before inspecting the inflight ids. A shard starting a write after this
+    // point must allocate ids that are not smaller than this value.
+    long boundary = sequence.peekNext();
+    for (StoreRequestWriter<?> writer : requestWriters) {
+      boundary = Math.min(boundary, writer.getInflightId());
+    }
+    return boundary;
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (ConcurrentMessageWriter writer : writers) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private ConcurrentMessageWriter selectWriter() {
+    if (writers.size() == 1) {
+      return writers.get(0);
+    }
+    return writers.get((nextShard.getAndIncrement() & Integer.MAX_VALUE) % writers.size());
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.service;
+
+import io.cdap.cdap.common.utils.TimeProvider;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A lock-free generator of message (publish timestamp, sequence id) pairs that is shared by all write shards
+ * of the same topic. Each pair is packed into a single {@code long}, with the timestamp in the upper 48 bits and the
+ * unsigned sequence id in the lower 16 bits, so that the numeric order is the same as the order of the message
+ * table row keys.
+ *
+ * Since every shard allocates from the same sequence, ids are unique across shards and a message published after
+ * another message has been persisted always gets a larger id, which preserves the publishing order per publisher.
+ */
+@ThreadSafe
+final class SharedMessageSequence {
+
+  private static final int SEQUENCE_ID_BITS = 16;
+  private static final long SEQUENCE_ID_MASK = StoreRequestWriter.SEQUENCE_ID_LIMIT - 1;
+
+  private final TimeProvider timeProvider;
+  private final AtomicLong lastId;
+
+  SharedMessageSequence(TimeProvider timeProvider) {
+    this.timeProvider = timeProvider;
+    this.lastId = new AtomicLong(-1L);
+  }
+
+  /**
+   * Allocates the next id. The timestamp part of the id is the current time, unless the current time already
+   * used up all sequence ids, in which case the timestamp is advanced.
+   */
+  long next() {
+    while (true) {
+      long last = lastId.get();
+      long next = Math.max(last + 1, pack(timeProvider.currentTimeMillis(), 0));
+      if (lastId.compareAndSet(last, next)) {
+        return next;
+      }
+    }
+  }
+
+  /**
+   * Returns a lower bound of all ids that can be returned by future calls to {@link #next()}.
+   */
+  long peekNext() {
+    return Math.max(lastId.get() + 1, pack(timeProvider.currentTimeMillis(), 0));
+  }
+
+  /**
+   * Packs the given publish timestamp and sequence id into a {@code long}.
+   */
+  static long pack(long timestamp, int sequenceId) {
+    return (timestamp << SEQUENCE_ID_BITS) | (sequenceId & SEQUENCE_ID_MASK);
+  }
+
+  /**
+   * Returns the publish timestamp of the given packed id.
+   */
+  static long getTimestamp(long id) {
+    return id >>> SEQUENCE_ID_BITS;
+  }
+
+  /**
+   * Returns the sequence id of the given packed id.
+   */
+  static int getSequenceId(long id) {
+    return (int) (id & SEQUENCE_ID_MASK);
+  }
+}
@@ -46,6 +46,8 @@ abstract class StoreRequestWriter<T> implements Closeable {
   static final int SEQUENCE_ID_LIMIT = 0x10000;
 
   private final TimeProvider timeProvider;
+  private final SharedMessageSequence sharedSequence;
+  private volatile long inflightId = Long.MAX_VALUE;
   private long writeTimestamp;
   private long lastWriteTimestamp;
   private int seqId;
@@ -60,7 +62,22 @@ abstract class StoreRequestWriter<T> implements Closeable {
    *                                 a {@link PendingStoreRequest} has an empty iterator of payload.
    */
   StoreRequestWriter(TimeProvider timeProvider, boolean generateNullPayloadEntry) {
+    this(timeProvider, generateNullPayloadEntry, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param timeProvider the {@link TimeProvider} for generating timestamp to be used for write timestamp
+   * @param generateNullPayloadEntry {@code true} to generate table entry with {@code null} payload if
+   *                                 a {@link PendingStoreRequest} has an empty iterator of payload.
+   * @param sharedSequence if not {@code null}, the write timestamp and sequence id will be allocated from this
+   *                       {@link SharedMessageSequence} instead of being generated locally
+   */
+  StoreRequestWriter(TimeProvider timeProvider, boolean generateNullPayloadEntry,
+                     @Nullable SharedMessageSequence sharedSequence) {
     this.timeProvider = timeProvider;
+    this.sharedSequence = sharedSequence;
     this.payloadTransformIterator = new PayloadTransformIterator(generateNullPayloadEntry);
   }
 
@@ -68,9 +85,30 @@ abstract class StoreRequestWriter<T> implements Closeable {
    * Writes the given list of {@link PendingStoreRequest} through this writer.
    */
   final void write(final Iterator<? extends PendingStoreRequest> requests) throws IOException {
-    // Make sure we start with the current timestamp
-    updateTimeSequence();
+    if (sharedSequence != null) {
+      // Mark the lowest id that can be written by this writer before any id is allocated
+      inflightId = sharedSequence.peekNext();
+    }
+    try {
+      // Make sure we start with the current timestamp
+      updateTimeSequence();
+      writeRequests(requests);
+    } finally {
+      inflightId = Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Returns a lower bound of the message ids, packed by {@link SharedMessageSequence#pack(long, int)}, that are
+   * being written by this writer and may not be visible yet. If there is no write in progress,
+   * {@link Long#MAX_VALUE} is returned. This method is only meaningful if this writer is created with a
+   * {@link SharedMessageSequence}.
+   */
+  final long getInflightId() {
+    return inflightId;
+  }
 
+  private void writeRequests(final Iterator<? extends PendingStoreRequest> requests) throws IOException {
     // Transform payloads inside each PendingStoreRequest into individual write entry
     doWrite(new AbstractIterator<T>() {
       private PendingStoreRequest currentRequest;
@@ -116,9 +154,13 @@ abstract class StoreRequestWriter<T> implements Closeable {
 
   /**
    * Advances the sequence id. If the sequence id exceeded the max limit, the timestamp will get updated and the
-   * sequence id will get reset to 0.
+   * sequence id will get reset to 0. If there is a {@link SharedMessageSequence}, the next id is allocated from it.
    */
   private void incrementSequenceId() {
+    if (sharedSequence != null) {
+      updateTimeSequence();
+      return;
+    }
     seqId++;
     if (seqId >= SEQUENCE_ID_LIMIT) {
       updateTimeSequence();
@@ -130,6 +172,13 @@ abstract class StoreRequestWriter<T> implements Closeable {
    * used one.
    */
   private void updateTimeSequence() {
+    if (sharedSequence != null) {
+      long id = sharedSequence.next();
+      writeTimestamp = SharedMessageSequence.getTimestamp(id);
+      seqId = SharedMessageSequence.getSequenceId(id);
+      return;
+    }
+
     writeTimestamp = timeProvider.currentTimeMillis();
     if (writeTimestamp == lastWriteTimestamp && seqId >= SEQUENCE_ID_LIMIT) {
       // Force the writeTimestamp to advance if we used up all sequence id.
@@ -111,6 +111,7 @@ public abstract class AbstractMessageTable implements MessageTable {
     byte[] txWritePointer = Bytes.toBytes(-1 * rollbackDetail.getTransactionWritePointer());
     RollbackRequest rollbackRequest = new RollbackRequest(startRow, Bytes.stopKeyForPrefix(stopRow),
                                                           txWritePointer,
+                                                          Bytes.toBytes(rollbackDetail.getTransactionWritePointer()),
                                                           rollbackDetail.getStartTimestamp(),
                                                           rollbackDetail.getEndTimestamp());
     rollback(rollbackRequest);
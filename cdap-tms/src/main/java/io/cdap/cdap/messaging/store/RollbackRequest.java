@@ -24,13 +24,16 @@ public class RollbackRequest {
   private final byte[] startRow;
   private final byte[] stopRow;
   private final byte[] txWritePointer;
+  private final byte[] publishTxWritePointer;
   private final long startTime;
   private final long stopTime;
 
-  public RollbackRequest(byte[] startRow, byte[] stopRow, byte[] txWritePointer, long startTime, long stopTime) {
+  public RollbackRequest(byte[] startRow, byte[] stopRow, byte[] txWritePointer, byte[] publishTxWritePointer,
+                         long startTime, long stopTime) {
     this.startRow = startRow;
     this.stopRow = stopRow;
     this.txWritePointer = txWritePointer;
+    this.publishTxWritePointer = publishTxWritePointer;
     this.startTime = startTime;
     this.stopTime = stopTime;
   }
@@ -47,6 +50,15 @@ public class RollbackRequest {
     return txWritePointer;
   }
 
+  /**
+   * Returns the transaction write pointer that the messages were published with. Only rows with this
+   * write pointer in the key range should be rolled back, since the range can contain messages published by
+   * other writers when the topic has multiple write shards.
+   */
+  public byte[] getPublishTxWritePointer() {
+    return publishTxWritePointer;
+  }
+
   public long getStartTime() {
     return startTime;
   }
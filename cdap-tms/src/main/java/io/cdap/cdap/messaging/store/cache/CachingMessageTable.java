@@ -162,7 +162,11 @@ final class CachingMessageTable implements MessageTable {
                                               + CacheMessageTableEntry.class.getName()
                                               + ", but got type " + entry.getClass().getName() + " instead.");
           }
-          ((CacheMessageTableEntry) entry).rollback();
+          // Only rollback entries published by the transaction,
+          // as the range can contain entries of other writers when there are multiple write shards
+          if (entry.getTransactionWritePointer() == rollbackDetail.getTransactionWritePointer()) {
+            ((CacheMessageTableEntry) entry).rollback();
+          }
         }
       });
     }
@@ -334,7 +338,7 @@ final class CachingMessageTable implements MessageTable {
    * altering the transaction write point for rollback purpose of messages that were published transactionally.
    */
   @VisibleForTesting
-  static final class CacheMessageTableEntry implements Entry {
+  static class CacheMessageTableEntry implements Entry {
 
     private final boolean lookupOnly;
     private final TopicId topicId;
@@ -357,12 +361,19 @@ final class CachingMessageTable implements MessageTable {
     }
 
     CacheMessageTableEntry(Entry other) {
+      this(other, other.getPayload());
+    }
+
+    /**
+     * Creates an entry by copying all fields except the payload from another entry.
+     */
+    CacheMessageTableEntry(Entry other, @Nullable byte[] payload) {
       this.lookupOnly = false;
       this.topicId = other.getTopicId();
       this.generation = other.getGeneration();
       this.transactional = other.isTransactional();
       this.transactionWritePointer = other.getTransactionWritePointer();
-      this.payload = other.getPayload();
+      this.payload = payload;
       this.publishTimestamp = other.getPublishTimestamp();
       this.sequenceId = other.getSequenceId();
     }
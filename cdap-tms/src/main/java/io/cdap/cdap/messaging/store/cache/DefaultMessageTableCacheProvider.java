@@ -60,9 +60,14 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
         if (!initialized) {
           Map<TopicId, MessageCache<MessageTable.Entry>> caches = new HashMap<>();
 
-          long cacheSize = cConf.getInt(Constants.MessagingSystem.CACHE_SIZE_MB) * 1024 * 1024;
+          long cacheSize = cConf.getLong(Constants.MessagingSystem.CACHE_SIZE_MB) * 1024 * 1024;
           Set<TopicId> systemTopics = MessagingServiceUtils.getSystemTopics(cConf, true);
-          if (cacheSize > 0 && !systemTopics.isEmpty()) {
+          // The MessageCache requires entries to be added in order by a single writer,
+          // which is not the case when there are multiple write shards.
+          boolean shardedWrite = cConf.getInt(Constants.MessagingSystem.MESSAGE_TABLE_WRITE_SHARDS, 1) > 1;
+          if (cacheSize > 0 && !systemTopics.isEmpty() && !shardedWrite) {
+            boolean offHeap = cConf.getBoolean(Constants.MessagingSystem.CACHE_OFF_HEAP_ENABLED, false);
+            int slabSize = cConf.getInt(Constants.MessagingSystem.CACHE_OFF_HEAP_SLAB_SIZE_KB, 1024) * 1024;
             MessageTableEntryWeigher weigher = new MessageTableEntryWeigher();
             MessageTableEntryComparator comparator = new MessageTableEntryComparator();
 
@@ -76,8 +81,14 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
               // In future, it can be adjusted dynamically based on metrics
               MessageCache.Limits limits = new MessageCache.Limits(hardLimit / 2, hardLimit * 7 / 10, hardLimit);
               for (TopicId topic : systemTopics) {
-                caches.put(topic, new MessageCache<>(comparator, weigher, limits,
-                                                     createMetricsContext(cConf, topic, metricsCollectionService)));
+                MetricsContext metricsContext = createMetricsContext(cConf, topic, metricsCollectionService);
+                if (offHeap) {
+                  OffHeapMessageTableEntryStorage storage = new OffHeapMessageTableEntryStorage(slabSize);
+                  caches.put(topic, new MessageCache<>(comparator, storage.getWeigher(), limits,
+                                                       metricsContext, storage));
+                } else {
+                  caches.put(topic, new MessageCache<>(comparator, weigher, limits, metricsContext));
+                }
               }
             }
           }
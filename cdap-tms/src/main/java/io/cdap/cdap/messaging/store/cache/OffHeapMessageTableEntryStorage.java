@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.cdap.cdap.messaging.cache.MessageCache;
+import io.cdap.cdap.messaging.store.MessageTable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MessageCache.Storage} that keeps message payloads in off-heap slabs, with only a small entry
+ * carrying the message key and transaction information kept on heap. This allows a large cache without
+ * adding much to the garbage collection cost.
+ *
+ * Slabs are direct {@link ByteBuffer}s of fixed size that are filled sequentially by the single cache writer.
+ * Since the {@link MessageCache} always adds entries in increasing order and evicts entries from the smallest one,
+ * a slab can be reused as soon as all entries stored in it are released.
+ * Payloads larger than the slab size are stored in a dedicated buffer.
+ */
+final class OffHeapMessageTableEntryStorage implements MessageCache.Storage<MessageTable.Entry> {
+
+  // Some fixed overhead for the on-heap entry
+  private static final int ENTRY_OVERHEAD = 48;
+
+  private final int slabSize;
+  private final Deque<Slab> freeSlabs;
+  private Slab currentSlab;
+  private int allocatedSlabs;
+
+  OffHeapMessageTableEntryStorage(int slabSize) {
+    this.slabSize = slabSize;
+    this.freeSlabs = new ArrayDeque<>();
+  }
+
+  @Override
+  public MessageTable.Entry store(MessageTable.Entry entry) {
+    byte[] payload = entry.getPayload();
+    if (payload == null) {
+      return new OffHeapEntry(entry, null, 0, -1);
+    }
+    synchronized (this) {
+      Slab slab = allocate(payload.length);
+      return new OffHeapEntry(entry, slab, slab.append(payload), payload.length);
+    }
+  }
+
+  @Override
+  public MessageTable.Entry load(MessageTable.Entry storedEntry) {
+    CachingMessageTable.CacheMessageTableEntry entry = new CachingMessageTable.CacheMessageTableEntry(storedEntry);
+    if (storedEntry instanceof OffHeapEntry && ((OffHeapEntry) storedEntry).isRollback()) {
+      entry.rollback();
+    }
+    return entry;
+  }
+
+  @Override
+  public void release(MessageTable.Entry storedEntry) {
+    if (!(storedEntry instanceof OffHeapEntry)) {
+      return;
+    }
+    Slab slab = ((OffHeapEntry) storedEntry).slab;
+    if (slab == null) {
+      return;
+    }
+    synchronized (this) {
+      if (slab.release() && slab != currentSlab) {
+        recycle(slab);
+      }
+    }
+  }
+
+  /**
+   * Returns a {@link MessageCache.Weigher} for entries stored by this class. The weight includes the off-heap
+   * payload size, such that the cache limits are a budget of the total bytes used.
+   */
+  MessageCache.Weigher<MessageTable.Entry> getWeigher() {
+    return entry -> {
+      if (entry instanceof OffHeapEntry) {
+        return ENTRY_OVERHEAD + Math.max(0, ((OffHeapEntry) entry).length);
+      }
+      byte[] payload = entry.getPayload();
+      return ENTRY_OVERHEAD + (payload == null ? 0 : payload.length);
+    };
+  }
+
+  /**
+   * Returns the number of slabs allocated and not yet reclaimed.
+   */
+  @VisibleForTesting
+  synchronized int getAllocatedSlabs() {
+    return allocatedSlabs;
+  }
+
+  /**
+   * Returns a {@link Slab} that has enough space for the given number of bytes.
+   */
+  private Slab allocate(int length) {
+    if (length > slabSize) {
+      // Dedicated buffer for large payload. It will be reclaimed by GC once released.
+      allocatedSlabs++;
+      return new Slab(ByteBuffer.allocateDirect(length), false);
+    }
+    if (currentSlab != null && currentSlab.remaining() >= length) {
+      return currentSlab;
+    }
+
+    // Seal the current slab. If all of its entries were already released, it can be reused immediately.
+    if (currentSlab != null && currentSlab.isUnused()) {
+      recycle(currentSlab);
+    }
+    currentSlab = freeSlabs.isEmpty() ? newSlab() : freeSlabs.poll();
+    return currentSlab;
+  }
+
+  private Slab newSlab() {
+    allocatedSlabs++;
+    return new Slab(ByteBuffer.allocateDirect(slabSize), true);
+  }
+
+  private void recycle(Slab slab) {
+    if (slab.reusable) {
+      slab.reset();
+      freeSlabs.add(slab);
+    } else {
+      allocatedSlabs--;
+    }
+  }
+
+  /**
+   * A fixed size off-heap buffer that payloads are appended to.
+   */
+  private static final class Slab {
+
+    private final ByteBuffer buffer;
+    private final boolean reusable;
+    private int writeOffset;
+    private int liveEntries;
+
+    private Slab(ByteBuffer buffer, boolean reusable) {
+      this.buffer = buffer;
+      this.reusable = reusable;
+    }
+
+    int remaining() {
+      return buffer.capacity() - writeOffset;
+    }
+
+    /**
+     * Appends the given payload to this slab and returns the offset of the payload.
+     */
+    int append(byte[] payload) {
+      int offset = writeOffset;
+      ByteBuffer writeBuffer = buffer.duplicate();
+      writeBuffer.position(offset);
+      writeBuffer.put(payload);
+      writeOffset += payload.length;
+      liveEntries++;
+      return offset;
+    }
+
+    byte[] read(int offset, int length) {
+      byte[] bytes = new byte[length];
+      ByteBuffer readBuffer = buffer.duplicate();
+      readBuffer.position(offset);
+      readBuffer.get(bytes);
+      return bytes;
+    }
+
+    /**
+     * Releases one entry stored in this slab.
+     *
+     * @return {@code true} if there is no more live entry in this slab
+     */
+    boolean release() {
+      return --liveEntries == 0;
+    }
+
+    boolean isUnused() {
+      return liveEntries == 0;
+    }
+
+    void reset() {
+      writeOffset = 0;
+      liveEntries = 0;
+    }
+  }
+
+  /**
+   * The on-heap entry kept in the cache, which has the payload stored in a {@link Slab}.
+   */
+  private static final class OffHeapEntry extends CachingMessageTable.CacheMessageTableEntry {
+
+    private final Slab slab;
+    private final int offset;
+    private final int length;
+
+    private OffHeapEntry(MessageTable.Entry other, @Nullable Slab slab, int offset, int length) {
+      super(other, null);
+      this.slab = slab;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public boolean isPayloadReference() {
+      return length < 0;
+    }
+
+    @Nullable
+    @Override
+    public byte[] getPayload() {
+      return slab == null ? null : slab.read(offset, length);
+    }
+  }
+}
@@ -165,6 +165,10 @@ final class HBaseMessageTable extends AbstractMessageTable {
     List<Put> batchPuts = new ArrayList<>();
     try (ResultScanner scanner = DistributedScanner.create(table, scan, rowKeyDistributor, scanExecutor)) {
       for (Result result : scanner) {
+        if (!Arrays.equals(rollbackRequest.getPublishTxWritePointer(), result.getValue(columnFamily, TX_COL))) {
+          // Skip messages that were not published by the transaction
+          continue;
+        }
         // No need to turn the key back to the original row key because we want to put with the actual row key
         PutBuilder putBuilder = tableUtil.buildPut(result.getRow());
         putBuilder.add(columnFamily, TX_COL, rollbackRequest.getTxWritePointer());
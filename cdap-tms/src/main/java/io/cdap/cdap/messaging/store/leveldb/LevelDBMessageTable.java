@@ -152,6 +152,10 @@ final class LevelDBMessageTable extends AbstractMessageTable {
           Map.Entry<byte[], byte[]> rowValue = rowIterator.next();
           byte[] value = rowValue.getValue();
           Map<String, byte[]> columns = decodeValue(value);
+          if (!Arrays.equals(rollbackRequest.getPublishTxWritePointer(), columns.get(TX_COL))) {
+            // Skip messages that were not published by the transaction
+            continue;
+          }
           writeBatch.put(rowValue.getKey(), encodeValue(rollbackRequest.getTxWritePointer(), columns.get(PAYLOAD_COL)));
         }
       }
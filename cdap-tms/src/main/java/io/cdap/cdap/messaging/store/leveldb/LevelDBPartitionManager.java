@@ -62,6 +62,19 @@ public class LevelDBPartitionManager implements Closeable {
    * Prune partitions that have an end timestamp older than or equal to the given threshold timestamp.
    */
   public int prunePartitions(long thresholdTimestamp) throws IOException {
+    return prunePartitions(thresholdTimestamp, new PruneStats());
+  }
+
+  /**
+   * Prune partitions that have an end timestamp older than or equal to the given threshold timestamp.
+   * Each pruned partition is dropped as a whole by deleting its directory, which reclaims the disk space immediately
+   * instead of waiting for LevelDB compaction to remove individual entries.
+   *
+   * @param thresholdTimestamp partitions with an end timestamp older than or equal to this timestamp are pruned
+   * @param stats the {@link PruneStats} to record the pruning statistics to
+   * @return number of partitions pruned
+   */
+  public int prunePartitions(long thresholdTimestamp, PruneStats stats) throws IOException {
     File[] partitionDirs = topicDir.listFiles();
     int numPruned = 0;
     if (partitionDirs == null) {
@@ -78,8 +91,12 @@ public class LevelDBPartitionManager implements Closeable {
         LevelDBPartition partition = partitions.remove(timeInterval.startMillis);
         if (partition != null) {
           partition.close();
-          DirUtils.deleteDirectoryContents(partitionDir);
         }
+        // The directory has to be deleted even if the partition is not loaded in memory. It happens if
+        // the partitions of this topic have not been accessed since the process started.
+        long size = getDirectorySize(partitionDir);
+        DirUtils.deleteDirectoryContents(partitionDir);
+        stats.partitionDropped(size);
         numPruned++;
       }
     }
@@ -274,6 +291,45 @@ public class LevelDBPartitionManager implements Closeable {
     return dir;
   }
 
+  /**
+   * Returns the total size in bytes of all files under the given directory.
+   */
+  private static long getDirectorySize(File dir) {
+    long size = 0L;
+    for (File file : DirUtils.listFiles(dir)) {
+      size += file.isDirectory() ? getDirectorySize(file) : file.length();
+    }
+    return size;
+  }
+
+  /**
+   * Statistics of partition pruning, which can be accumulated across multiple calls to
+   * {@link #prunePartitions(long, PruneStats)}.
+   */
+  public static final class PruneStats {
+    private int partitionsDropped;
+    private long bytesReclaimed;
+
+    void partitionDropped(long bytes) {
+      partitionsDropped++;
+      bytesReclaimed += bytes;
+    }
+
+    /**
+     * Returns the number of partitions dropped.
+     */
+    public int getPartitionsDropped() {
+      return partitionsDropped;
+    }
+
+    /**
+     * Returns the number of bytes reclaimed from the dropped partitions.
+     */
+    public long getBytesReclaimed() {
+      return bytesReclaimed;
+    }
+  }
+
   private static class TimeInterval {
     private final long startMillis;
     private final long endMillis;
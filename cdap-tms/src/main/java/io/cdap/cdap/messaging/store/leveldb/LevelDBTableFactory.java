@@ -17,12 +17,17 @@
 package io.cdap.cdap.messaging.store.leveldb;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Closeables;
 import com.google.gson.Gson;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
 import io.cdap.cdap.common.utils.DirUtils;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.store.MessageTable;
@@ -72,12 +77,20 @@ public final class LevelDBTableFactory implements TableFactory {
   private final ConcurrentMap<File, DB> levelDBs;
   private final ConcurrentMap<File, LevelDBPartitionManager> partitionedLevelDBs;
   private final long partitionSizeMillis;
+  private final CConfiguration cConf;
+  private final MetricsCollectionService metricsCollectionService;
 
   private LevelDBMetadataTable metadataTable;
 
   @VisibleForTesting
-  @Inject
   public LevelDBTableFactory(CConfiguration cConf) {
+    this(cConf, new NoOpMetricsCollectionService());
+  }
+
+  @Inject
+  public LevelDBTableFactory(CConfiguration cConf, MetricsCollectionService metricsCollectionService) {
+    this.cConf = cConf;
+    this.metricsCollectionService = metricsCollectionService;
     this.baseDir = new File(cConf.get(Constants.MessagingSystem.LOCAL_DATA_DIR));
     this.dbOptions = new Options()
       .blockSize(cConf.getInt(Constants.CFG_DATA_LEVELDB_BLOCKSIZE, Constants.DEFAULT_DATA_LEVELDB_BLOCKSIZE))
@@ -271,13 +284,28 @@ public final class LevelDBTableFactory implements TableFactory {
 
   private class DataCleanup implements Runnable {
 
+    private MetricsContext metricsContext;
+
     @Override
     public void run() {
       if (metadataTable == null) {
         return;
       }
 
+      // Due to circular dependency (see CoreMessagingService), the MetricsContext can only be created
+      // after this factory is constructed.
+      if (metricsContext == null) {
+        metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
+          Constants.Metrics.Tag.COMPONENT, Constants.Service.MESSAGING_SERVICE,
+          Constants.Metrics.Tag.INSTANCE_ID, cConf.get(Constants.MessagingSystem.CONTAINER_INSTANCE_ID, "0"),
+          Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+          Constants.Metrics.Tag.TABLE, messageTableName
+        ));
+      }
+
       long now = System.currentTimeMillis();
+      Stopwatch stopwatch = new Stopwatch().start();
+      LevelDBPartitionManager.PruneStats pruneStats = new LevelDBPartitionManager.PruneStats();
 
       // First delete all older generation files
       try (CloseableIterator<TopicMetadata> metadataIterator = metadataTable.scanTopics()) {
@@ -324,7 +352,7 @@ public final class LevelDBTableFactory implements TableFactory {
           // Check partitions and drop them if the end time is older than the TTL
           long thresholdTimestamp = now - TimeUnit.SECONDS.toMillis(metadata.getTTL());
           LevelDBPartitionManager partitionManager = getPartitionedLevelDB(metadata, messageTableName);
-          partitionManager.prunePartitions(thresholdTimestamp);
+          partitionManager.prunePartitions(thresholdTimestamp, pruneStats);
 
           // Payload table
           File dataDBPath = getDataDBPath(payloadTableName, metadata.getTopicId(), metadata.getGeneration());
@@ -335,6 +363,15 @@ public final class LevelDBTableFactory implements TableFactory {
         }
       } catch (IOException ex) {
         LOG.debug("Unable to perform data cleanup in TMS LevelDB tables", ex);
+      } finally {
+        long elapsedMillis = stopwatch.elapsedMillis();
+        metricsContext.increment("leveldb.prune.partitions", pruneStats.getPartitionsDropped());
+        metricsContext.increment("leveldb.prune.bytes", pruneStats.getBytesReclaimed());
+        metricsContext.gauge("leveldb.prune.time.ms", elapsedMillis);
+        if (pruneStats.getPartitionsDropped() > 0) {
+          LOG.debug("Dropped {} message table partitions and reclaimed {} bytes in {} ms",
+                    pruneStats.getPartitionsDropped(), pruneStats.getBytesReclaimed(), elapsedMillis);
+        }
       }
     }
   }
@@ -30,6 +30,7 @@ import io.cdap.cdap.common.logging.Loggers;
 import io.cdap.cdap.common.service.AbstractRetryableScheduledService;
 import io.cdap.cdap.common.service.RetryStrategy;
 import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.messaging.context.LongPollMessageFetcher;
 import io.cdap.cdap.messaging.data.MessageId;
 import io.cdap.cdap.proto.id.TopicId;
 import org.slf4j.Logger;
@@ -164,13 +165,32 @@ public abstract class AbstractMessagingPollingService<T> extends AbstractRetryab
    * Fetching messages from TMS.
    */
   protected List<Message> fetchMessages(@Nullable String messageId) throws TopicNotFoundException, IOException {
-    List<Message> messages = new ArrayList<>();
     LOG.trace("Fetching from topic '{}' with messageId '{}'", topicId, messageId);
     MessageFetcher messageFetcher = getMessagingContext().getMessageFetcher();
-    try (CloseableIterator<Message> iterator = messageFetcher.fetch(getTopicId().getNamespace(),
-                                                                    getTopicId().getTopic(), fetchSize, messageId)) {
-      while (iterator.hasNext() && state() == State.RUNNING) {
-        messages.add(iterator.next());
+    return drain(messageFetcher.fetch(getTopicId().getNamespace(), getTopicId().getTopic(), fetchSize, messageId));
+  }
+
+  /**
+   * Waits on the server side for new messages to be published, for up to the empty fetch delay.
+   *
+   * @return the messages fetched, or {@code null} if the {@link MessageFetcher} doesn't support waiting
+   */
+  @Nullable
+  private List<Message> waitForMessages(@Nullable String messageId) throws TopicNotFoundException, IOException {
+    MessageFetcher messageFetcher = getMessagingContext().getMessageFetcher();
+    if (!(messageFetcher instanceof LongPollMessageFetcher)) {
+      return null;
+    }
+    LOG.trace("Waiting on topic '{}' with messageId '{}'", topicId, messageId);
+    return drain(((LongPollMessageFetcher) messageFetcher).fetch(getTopicId().getNamespace(), getTopicId().getTopic(),
+                                                                 fetchSize, messageId, emptyFetchDelayMillis));
+  }
+
+  private List<Message> drain(CloseableIterator<Message> iterator) {
+    List<Message> messages = new ArrayList<>();
+    try (CloseableIterator<Message> closeableIterator = iterator) {
+      while (closeableIterator.hasNext() && state() == State.RUNNING) {
+        messages.add(closeableIterator.next());
       }
     }
     return messages;
@@ -193,6 +213,18 @@ public abstract class AbstractMessagingPollingService<T> extends AbstractRetryab
     // Collects batch of messages for processing.
     List<Message> messages = fetchMessages(messageId);
     metricsContext.gauge("tms.fetch.time.ms", System.currentTimeMillis() - startTime);
+
+    // If there is no message, wait on the server side for new messages instead of polling again after the
+    // empty fetch delay, so that new messages are processed as soon as they are published.
+    // The wait time is reported separately, so that the fetch time only reflects the cost of fetching.
+    if (messages.isEmpty() && state() == State.RUNNING) {
+      long waitStartTime = System.currentTimeMillis();
+      List<Message> waitedMessages = waitForMessages(messageId);
+      if (waitedMessages != null) {
+        metricsContext.gauge("tms.fetch.wait.ms", System.currentTimeMillis() - waitStartTime);
+        messages = waitedMessages;
+      }
+    }
     metricsContext.increment("tms.fetch.messages", messages.size());
 
     // Return if stopping or request to sleep for configured number of milliseconds if there is no message fetched.
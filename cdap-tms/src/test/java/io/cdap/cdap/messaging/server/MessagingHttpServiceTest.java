@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.messaging.server;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterators;
 import com.google.inject.AbstractModule;
@@ -30,11 +31,16 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.guice.ConfigModule;
 import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
+import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
+import io.cdap.cdap.common.internal.remote.RemoteClient;
 import io.cdap.cdap.common.internal.remote.RemoteClientFactory;
 import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.RollbackDetail;
+import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.TopicFetchRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.client.ClientMessagingService;
 import io.cdap.cdap.messaging.client.StoreRequestBuilder;
@@ -45,6 +51,16 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
+import io.cdap.common.http.HttpMethod;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.Transaction;
 import org.apache.tephra.TxConstants;
 import org.junit.After;
@@ -57,7 +73,10 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -65,6 +84,9 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -88,6 +110,7 @@ public class MessagingHttpServiceTest {
   private CConfiguration cConf;
   private MessagingHttpService httpService;
   private MessagingService client;
+  private RemoteClientFactory remoteClientFactory;
 
   public MessagingHttpServiceTest(boolean compressPayload) {
     this.compressPayload = compressPayload;
@@ -120,7 +143,8 @@ public class MessagingHttpServiceTest {
 
     httpService = injector.getInstance(MessagingHttpService.class);
     httpService.startAndWait();
-    client = new ClientMessagingService(injector.getInstance(RemoteClientFactory.class), compressPayload);
+    remoteClientFactory = injector.getInstance(RemoteClientFactory.class);
+    client = new ClientMessagingService(remoteClientFactory, compressPayload);
   }
 
   @After
@@ -465,6 +489,65 @@ public class MessagingHttpServiceTest {
     client.deleteTopic(topicId);
   }
 
+  @Test
+  public void testAvroConsume() throws Exception {
+    // This test is to verify both the binary frames and the avro response formats give the same messages
+    TopicId topicId = new NamespaceId("ns1").topic("testAvroConsume");
+
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Publish messages with payload size smaller and larger than the chunk size and the size for wrapping payload
+    List<String> payloads = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      String payload = Strings.repeat(Integer.toString(i), i * 300);
+      payloads.add(payload);
+      client.publish(StoreRequestBuilder.of(topicId).addPayload(payload).build());
+    }
+
+    // Fetch with the client, which uses the binary frames
+    List<RawMessage> messages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
+      Iterators.addAll(messages, iterator);
+    }
+
+    // Fetch with an avro only request
+    RemoteClient remoteClient = remoteClientFactory.createRemoteClient(Constants.Service.MESSAGING_SERVICE,
+                                                                       new DefaultHttpRequestConfig(false),
+                                                                       "/v1/namespaces/");
+    HttpURLConnection urlConn = remoteClient.openConnection(HttpMethod.POST,
+                                                            "ns1/topics/testAvroConsume/poll");
+    urlConn.setRequestProperty(HttpHeaderNames.CONTENT_TYPE.toString(), "avro/binary");
+    GenericRecord request = new GenericData.Record(Schemas.V1.ConsumeRequest.SCHEMA);
+    request.put("inclusive", true);
+    Encoder encoder = EncoderFactory.get().directBinaryEncoder(urlConn.getOutputStream(), null);
+    new GenericDatumWriter<GenericRecord>(Schemas.V1.ConsumeRequest.SCHEMA).write(request, encoder);
+
+    Assert.assertEquals(HttpURLConnection.HTTP_OK, urlConn.getResponseCode());
+    Assert.assertEquals("avro/binary", urlConn.getContentType());
+    List<RawMessage> avroMessages = new ArrayList<>();
+    try (InputStream is = urlConn.getInputStream()) {
+      Decoder decoder = DecoderFactory.get().binaryDecoder(is, null);
+      GenericDatumReader<GenericData.Array<GenericRecord>> reader =
+        new GenericDatumReader<>(Schemas.V1.ConsumeResponse.SCHEMA);
+      for (GenericRecord record : reader.read(null, decoder)) {
+        avroMessages.add(new RawMessage(Bytes.toBytes((ByteBuffer) record.get("id")),
+                                        Bytes.toBytes((ByteBuffer) record.get("payload"))));
+      }
+    } finally {
+      urlConn.disconnect();
+    }
+
+    Assert.assertEquals(payloads.size(), messages.size());
+    Assert.assertEquals(payloads.size(), avroMessages.size());
+    for (int i = 0; i < payloads.size(); i++) {
+      Assert.assertEquals(payloads.get(i), Bytes.toString(messages.get(i).getPayload()));
+      Assert.assertArrayEquals(avroMessages.get(i).getId(), messages.get(i).getId());
+      Assert.assertArrayEquals(avroMessages.get(i).getPayload(), messages.get(i).getPayload());
+    }
+
+    client.deleteTopic(topicId);
+  }
+
   @Test
   public void testPayloadTable() throws Exception {
     // This test is to verify storing transaction messages to the payload table
@@ -621,6 +704,123 @@ public class MessagingHttpServiceTest {
                           .map(Bytes::toString).collect(Collectors.toList()));
   }
 
+  @Test
+  public void testLongPollFetch() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testLongPollFetch");
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Fetch with wait on an empty topic should return empty after the wait time
+    Stopwatch stopwatch = new Stopwatch().start();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+                                                        .setWaitTimeout(500, TimeUnit.MILLISECONDS).fetch()) {
+      Assert.assertFalse(iterator.hasNext());
+    }
+    Assert.assertTrue(stopwatch.elapsedMillis() >= 500);
+
+    // Publish a message while a fetch is waiting. The fetch should return with the message before the wait time.
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      executor.schedule(() -> {
+        client.publish(StoreRequestBuilder.of(topicId).addPayload("m1").build());
+        return null;
+      }, 500, TimeUnit.MILLISECONDS);
+
+      stopwatch.reset().start();
+      List<RawMessage> messages = new ArrayList<>();
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+                                                          .setWaitTimeout(20, TimeUnit.SECONDS).fetch()) {
+        Iterators.addAll(messages, iterator);
+      }
+      Assert.assertTrue(stopwatch.elapsedTime(TimeUnit.SECONDS) < 20);
+      Assert.assertEquals(Collections.singletonList("m1"),
+                          messages.stream()
+                            .map(RawMessage::getPayload)
+                            .map(Bytes::toString).collect(Collectors.toList()));
+
+      // Fetch with wait should return immediately if there are messages available
+      stopwatch.reset().start();
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+                                                          .setWaitTimeout(20, TimeUnit.SECONDS).fetch()) {
+        Assert.assertTrue(iterator.hasNext());
+      }
+      Assert.assertTrue(stopwatch.elapsedTime(TimeUnit.SECONDS) < 20);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testBatchFetch() throws Exception {
+    TopicId topic1 = new NamespaceId("ns1").topic("testBatchFetch1");
+    TopicId topic2 = new NamespaceId("ns1").topic("testBatchFetch2");
+    TopicId topic3 = new NamespaceId("ns2").topic("testBatchFetch3");
+    TopicId emptyTopic = new NamespaceId("ns1").topic("testBatchFetchEmpty");
+    for (TopicId topicId : Arrays.asList(topic1, topic2, topic3, emptyTopic)) {
+      client.createTopic(new TopicMetadata(topicId));
+    }
+
+    for (int i = 0; i < 5; i++) {
+      for (TopicId topicId : Arrays.asList(topic1, topic2, topic3)) {
+        client.publish(StoreRequestBuilder.of(topicId).addPayload(topicId.getTopic() + i).build());
+      }
+    }
+
+    // Get the message id of the second message in topic2
+    byte[] startOffset;
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topic2).setLimit(2).fetch()) {
+      startOffset = Iterators.getLast(iterator).getId();
+    }
+
+    // Fetch from all topics in one call, with the empty topic in the middle
+    List<ImmutablePair<TopicId, String>> messages = new ArrayList<>();
+    try (CloseableIterator<ImmutablePair<TopicId, RawMessage>> iterator = client.fetch(Arrays.asList(
+      TopicFetchRequest.fromTime(topic1, 0L, 3),
+      TopicFetchRequest.fromTime(emptyTopic, 0L, 10),
+      TopicFetchRequest.fromMessage(topic2, startOffset, false, 10),
+      TopicFetchRequest.fromTime(topic3, 0L, 10)))) {
+      while (iterator.hasNext()) {
+        ImmutablePair<TopicId, RawMessage> message = iterator.next();
+        messages.add(ImmutablePair.of(message.getFirst(), Bytes.toString(message.getSecond().getPayload())));
+      }
+    }
+
+    List<ImmutablePair<TopicId, String>> expected = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      expected.add(ImmutablePair.of(topic1, topic1.getTopic() + i));
+    }
+    for (int i = 2; i < 5; i++) {
+      expected.add(ImmutablePair.of(topic2, topic2.getTopic() + i));
+    }
+    for (int i = 0; i < 5; i++) {
+      expected.add(ImmutablePair.of(topic3, topic3.getTopic() + i));
+    }
+    Assert.assertEquals(expected, messages);
+
+    // Fetching from a missing topic should fail
+    try {
+      client.fetch(Arrays.asList(TopicFetchRequest.fromTime(topic1, 0L, 10),
+                                 TopicFetchRequest.fromTime(new NamespaceId("ns1").topic("missing"), 0L, 10)));
+      Assert.fail("Expected TopicNotFoundException");
+    } catch (TopicNotFoundException e) {
+      // expected
+    }
+
+    // Duplicate topic is not allowed
+    try {
+      client.fetch(Arrays.asList(TopicFetchRequest.fromTime(topic1, 0L, 10),
+                                 TopicFetchRequest.fromTime(topic1, 0L, 10)));
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    for (TopicId topicId : Arrays.asList(topic1, topic2, topic3, emptyTopic)) {
+      client.deleteTopic(topicId);
+    }
+  }
+
   @Test
   public void testLargePublish()
     throws IOException, TopicAlreadyExistsException, TopicNotFoundException, UnauthorizedException {
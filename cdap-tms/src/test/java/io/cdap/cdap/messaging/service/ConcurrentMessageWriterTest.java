@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.Uninterruptibles;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.common.utils.TimeProvider;
+import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.MessageId;
@@ -37,14 +38,20 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -205,6 +212,82 @@ public class ConcurrentMessageWriterTest {
     }
   }
 
+  @Test
+  public void testAsyncMaxBatchSize() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("t1");
+    TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
+
+    // The "persist.batch.size" metrics are emitted by the writer thread before writing the batch.
+    // Block the first batch there, so that all the other requests will be queued up.
+    CountDownLatch writingLatch = new CountDownLatch(1);
+    CountDownLatch releaseLatch = new CountDownLatch(1);
+    List<Long> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    Map<String, Long> batchSizeBuckets = new ConcurrentHashMap<>();
+    Set<Thread> writerThreads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider());
+    ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter, new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        if ("persist.batch.size.sum".equals(metricName)) {
+          batchSizes.add(value);
+          writerThreads.add(Thread.currentThread());
+          writingLatch.countDown();
+          Uninterruptibles.awaitUninterruptibly(releaseLatch);
+        } else if (metricName.startsWith("persist.batch.size.le.")) {
+          batchSizeBuckets.merge(metricName, value, Long::sum);
+        }
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        // No-op
+      }
+    }, 2, 0L);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<RollbackDetail> firstResult = executor.submit(
+        () -> writer.persist(new TestStoreRequest(topicId, Collections.singletonList("0")), metadata));
+      Assert.assertTrue(writingLatch.await(10, TimeUnit.SECONDS));
+
+      // While the first batch is being written, async persist should return without waiting for the write
+      List<CompletableFuture<RollbackDetail>> futures = new ArrayList<>();
+      for (int i = 1; i <= 4; i++) {
+        futures.add(writer.persistAsync(new TestStoreRequest(topicId, Collections.singletonList(Integer.toString(i))),
+                                        metadata));
+      }
+      for (CompletableFuture<RollbackDetail> future : futures) {
+        Assert.assertFalse(future.isDone());
+      }
+
+      releaseLatch.countDown();
+
+      // Non-transactional publish doesn't have rollback detail
+      Assert.assertNull(firstResult.get(10, TimeUnit.SECONDS));
+      for (CompletableFuture<RollbackDetail> future : futures) {
+        Assert.assertNull(future.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // The queued requests should be written by the background writer in batches of at most 2 requests
+    Assert.assertEquals(Arrays.asList(1L, 2L, 2L), batchSizes);
+    Map<String, Long> expectedBuckets = new HashMap<>();
+    expectedBuckets.put("persist.batch.size.le.1", 1L);
+    expectedBuckets.put("persist.batch.size.le.2", 2L);
+    Assert.assertEquals(expectedBuckets, batchSizeBuckets);
+
+    // Async requests are never written by the calling thread
+    Assert.assertFalse(writerThreads.contains(Thread.currentThread()));
+
+    List<String> payloads = new ArrayList<>();
+    for (RawMessage message : testWriter.getMessages().get(topicId)) {
+      payloads.add(Bytes.toString(message.getPayload()));
+    }
+    Assert.assertEquals(Arrays.asList("0", "1", "2", "3", "4"), payloads);
+  }
+
   @Test
   public void testConcurrentWrites() throws InterruptedException, BrokenBarrierException {
     int payloadsPerRequest = 200;
@@ -268,6 +351,133 @@ public class ConcurrentMessageWriterTest {
     }
   }
 
+  @Test
+  public void testShardedWrites() throws Exception {
+    int shards = 4;
+    int threadCount = 10;
+    int requestPerThread = 50;
+
+    TopicId topicId = NamespaceId.DEFAULT.topic("sharded");
+    TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
+    SharedMessageSequence sequence = new SharedMessageSequence(TimeProvider.SYSTEM_TIME);
+
+    List<TestStoreRequestWriter> testWriters = new ArrayList<>();
+    List<ConcurrentMessageWriter> writers = new ArrayList<>();
+    for (int i = 0; i < shards; i++) {
+      TestStoreRequestWriter testWriter = new TestStoreRequestWriter(TimeProvider.SYSTEM_TIME, sequence, null);
+      testWriters.add(testWriter);
+      writers.add(new ConcurrentMessageWriter(testWriter));
+    }
+    ShardedMessageWriter writer = new ShardedMessageWriter(writers, new ArrayList<>(testWriters), sequence);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      final int threadId = i;
+      futures.add(executor.submit(() -> {
+        for (int j = 0; j < requestPerThread; j++) {
+          writer.persist(new TestStoreRequest(topicId, Arrays.asList(threadId + ":" + j, threadId + ":" + j)),
+                         metadata);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(1, TimeUnit.MINUTES);
+    }
+    executor.shutdownNow();
+
+    // Ids must be sorted within each shard and unique across shards
+    List<byte[]> ids = new ArrayList<>();
+    for (TestStoreRequestWriter testWriter : testWriters) {
+      byte[] lastId = null;
+      for (RawMessage message : testWriter.getMessages().get(topicId)) {
+        if (lastId != null) {
+          Assert.assertTrue(Bytes.compareTo(lastId, message.getId()) < 0);
+        }
+        lastId = message.getId();
+        ids.add(lastId);
+      }
+    }
+    Assert.assertEquals(threadCount * requestPerThread * 2, ids.size());
+    ids.sort(Bytes::compareTo);
+    for (int i = 1; i < ids.size(); i++) {
+      Assert.assertTrue(Bytes.compareTo(ids.get(i - 1), ids.get(i)) < 0);
+    }
+
+    // Messages published by the same thread must be in publishing order across shards
+    List<String> threadPayloads = new ArrayList<>();
+    List<RawMessage> messages = new ArrayList<>();
+    for (TestStoreRequestWriter testWriter : testWriters) {
+      messages.addAll(testWriter.getMessages().get(topicId));
+    }
+    messages.sort((m1, m2) -> Bytes.compareTo(m1.getId(), m2.getId()));
+    for (RawMessage message : messages) {
+      String payload = Bytes.toString(message.getPayload());
+      if (payload.startsWith("0:")) {
+        threadPayloads.add(payload);
+      }
+    }
+    for (int i = 0; i < threadPayloads.size(); i++) {
+      Assert.assertEquals("0:" + (i / 2), threadPayloads.get(i));
+    }
+
+    // Without any pending write, all written messages are readable
+    Assert.assertTrue(writer.getReadBoundary() > toPackedId(ids.get(ids.size() - 1)));
+
+    writer.close();
+  }
+
+  @Test
+  public void testShardedReadBoundary() throws Exception {
+    TopicId topicId = NamespaceId.DEFAULT.topic("boundary");
+    TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
+    SharedMessageSequence sequence = new SharedMessageSequence(TimeProvider.SYSTEM_TIME);
+
+    CountDownLatch writeLatch = new CountDownLatch(1);
+    TestStoreRequestWriter blockedWriter = new TestStoreRequestWriter(TimeProvider.SYSTEM_TIME, sequence, writeLatch);
+    TestStoreRequestWriter otherWriter = new TestStoreRequestWriter(TimeProvider.SYSTEM_TIME, sequence, null);
+    ShardedMessageWriter writer = new ShardedMessageWriter(
+      Arrays.asList(new ConcurrentMessageWriter(blockedWriter), new ConcurrentMessageWriter(otherWriter)),
+      Arrays.asList(blockedWriter, otherWriter), sequence);
+
+    // The first request goes to the first shard, which blocks the persisting thread
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<RollbackDetail> blocked = executor.submit(
+        () -> writer.persist(new TestStoreRequest(topicId, Collections.singletonList("blocked")), metadata));
+
+      Stopwatch stopwatch = new Stopwatch().start();
+      while (blockedWriter.getInflightId() == Long.MAX_VALUE && stopwatch.elapsedMillis() < 10000) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      long boundary = writer.getReadBoundary();
+      Assert.assertEquals(blockedWriter.getInflightId(), boundary);
+
+      // The second request goes to the second shard and completes. It is not readable until the first one completed.
+      writer.persist(new TestStoreRequest(topicId, Collections.singletonList("other")), metadata);
+      long otherId = toPackedId(otherWriter.getMessages().get(topicId).get(0).getId());
+      Assert.assertTrue(otherId >= boundary);
+      Assert.assertEquals(boundary, writer.getReadBoundary());
+
+      writeLatch.countDown();
+      blocked.get(10, TimeUnit.SECONDS);
+
+      long blockedId = toPackedId(blockedWriter.getMessages().get(topicId).get(0).getId());
+      Assert.assertTrue(blockedId >= boundary);
+      Assert.assertTrue(blockedId < otherId);
+      Assert.assertTrue(writer.getReadBoundary() > otherId);
+    } finally {
+      executor.shutdownNow();
+      writer.close();
+    }
+  }
+
+  private long toPackedId(byte[] rawId) {
+    MessageId messageId = new MessageId(rawId);
+    return SharedMessageSequence.pack(messageId.getPublishTimestamp(), messageId.getSequenceId());
+  }
+
   /**
    * A {@link StoreRequestWriter} that turns all payloads to {@link RawMessage} and stores it in a List.
    */
@@ -275,6 +485,7 @@ public class ConcurrentMessageWriterTest {
 
     private final ListMultimap<TopicId, RawMessage> messages = ArrayListMultimap.create();
     private long writeDelayMillis;
+    private CountDownLatch writeLatch;
 
     TestStoreRequestWriter(TimeProvider timeProvider) {
       super(timeProvider, false);
@@ -288,6 +499,16 @@ public class ConcurrentMessageWriterTest {
       this.writeDelayMillis = writeDelayMillis;
     }
 
+    /**
+     * Constructs a writer that allocates ids from the given {@link SharedMessageSequence}. If the write latch
+     * is provided, each write will be blocked until the latch is released.
+     */
+    TestStoreRequestWriter(TimeProvider timeProvider, SharedMessageSequence sequence,
+                           @Nullable CountDownLatch writeLatch) {
+      super(timeProvider, false, sequence);
+      this.writeLatch = writeLatch;
+    }
+
     @Override
     TestEntry getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
                        long writeTimestamp, short sequenceId, @Nullable byte[] payload) {
@@ -309,6 +530,9 @@ public class ConcurrentMessageWriterTest {
       if (writeDelayMillis > 0) {
         Uninterruptibles.sleepUninterruptibly(writeDelayMillis, TimeUnit.MILLISECONDS);
       }
+      if (writeLatch != null) {
+        Uninterruptibles.awaitUninterruptibly(writeLatch);
+      }
     }
 
     ListMultimap<TopicId, RawMessage> getMessages() {
@@ -246,6 +246,40 @@ public abstract class MessageTableTest {
     }
   }
 
+  @Test
+  public void testInterleavedRollback() throws Exception {
+    TopicId topicId = NamespaceId.DEFAULT.topic("testInterleavedRollback");
+    TopicMetadata metadata = new TopicMetadata(topicId, DEFAULT_PROPERTY);
+
+    // Messages from different transactions and non-transactional messages are interleaved in the same key range,
+    // which happens when a topic has multiple write shards. Rollback should only affect one transaction.
+    try (MessageTable table = getMessageTable(metadata);
+         MetadataTable metadataTable = getMetadataTable()) {
+      metadataTable.createTopic(metadata);
+      long timestamp = System.currentTimeMillis();
+      List<MessageTable.Entry> entries = new ArrayList<>();
+      for (int i = 0; i < 30; i++) {
+        Long writePtr = i % 3 == 2 ? null : 300L + i % 3;
+        entries.add(new TestMessageEntry(topicId, GENERATION, timestamp, i, writePtr, Bytes.toBytes(i)));
+      }
+      table.store(entries.iterator());
+
+      table.rollback(metadata, new TestRollbackDetail(300L, timestamp, 0, timestamp, 27));
+
+      Transaction tx = new Transaction(400, 400, new long[0], new long[0], -1);
+      try (CloseableIterator<MessageTable.Entry> iterator = table.fetch(metadata, 0, Integer.MAX_VALUE, tx)) {
+        List<MessageTable.Entry> fetched = Lists.newArrayList(iterator);
+        Assert.assertEquals(20, fetched.size());
+        for (MessageTable.Entry entry : fetched) {
+          Assert.assertNotEquals(0, entry.getSequenceId() % 3);
+          if (entry.isTransactional()) {
+            Assert.assertEquals(301L, entry.getTransactionWritePointer());
+          }
+        }
+      }
+    }
+  }
+
   @Test
   public void testConcurrentWrites() throws Exception {
     // Create two threads, each of them writes to a different topic with two events in one store call.
@@ -45,16 +45,27 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Unit test for {@link CachingMessageTable}.
  */
 public class CachingMessageTableTest extends LevelDBMessageTableTest {
 
-  private static MessageTableCacheProvider cacheProvider;
+  protected static MessageTableCacheProvider cacheProvider;
 
   @BeforeClass
   public static void initCache() {
+    cacheProvider = createCacheProvider(
+      () -> new MessageCache<>(new MessageTableEntryComparator(), new MessageTableEntryWeigher(),
+                               new MessageCache.Limits(500, 700, 1000), new NoopMetricsContext()));
+  }
+
+  /**
+   * Creates a {@link MessageTableCacheProvider} that creates {@link MessageCache} for each topic
+   * using the given {@link Supplier}.
+   */
+  protected static MessageTableCacheProvider createCacheProvider(Supplier<MessageCache<MessageTable.Entry>> supplier) {
     final LoadingCache<TopicId, MessageCache<MessageTable.Entry>> caches = CacheBuilder
       .newBuilder()
       .removalListener(new RemovalListener<TopicId, MessageCache<MessageTable.Entry>>() {
@@ -69,12 +80,11 @@ public class CachingMessageTableTest extends LevelDBMessageTableTest {
       .build(new CacheLoader<TopicId, MessageCache<MessageTable.Entry>>() {
         @Override
         public MessageCache<MessageTable.Entry> load(TopicId key) throws Exception {
-          return new MessageCache<>(new MessageTableEntryComparator(), new MessageTableEntryWeigher(),
-                                    new MessageCache.Limits(500, 700, 1000), new NoopMetricsContext());
+          return supplier.get();
         }
       });
 
-    cacheProvider = new MessageTableCacheProvider() {
+    return new MessageTableCacheProvider() {
       @Override
       public MessageCache<MessageTable.Entry> getMessageCache(TopicId topicId) {
         return caches.getUnchecked(topicId);
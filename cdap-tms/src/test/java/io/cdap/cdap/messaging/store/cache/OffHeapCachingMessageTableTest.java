@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.cache;
+
+import com.google.common.collect.Lists;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.messaging.MessagingUtils;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.cache.MessageCache;
+import io.cdap.cdap.messaging.store.ImmutableMessageTableEntry;
+import io.cdap.cdap.messaging.store.MessageFilter;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for {@link CachingMessageTable} with {@link OffHeapMessageTableEntryStorage}.
+ */
+public class OffHeapCachingMessageTableTest extends CachingMessageTableTest {
+
+  @BeforeClass
+  public static void initOffHeapCache() {
+    cacheProvider = createCacheProvider(() -> {
+      // Use a small slab size to have payloads spanning multiple slabs and stored in dedicated buffers
+      OffHeapMessageTableEntryStorage storage = new OffHeapMessageTableEntryStorage(64);
+      return new MessageCache<>(new MessageTableEntryComparator(), storage.getWeigher(),
+                                new MessageCache.Limits(500, 700, 1000), new NoopMetricsContext(), storage);
+    });
+  }
+
+  @Test
+  public void testSlabReuse() {
+    OffHeapMessageTableEntryStorage storage = new OffHeapMessageTableEntryStorage(64);
+    MessageCache<MessageTable.Entry> cache = new MessageCache<>(new MessageTableEntryComparator(),
+                                                                storage.getWeigher(),
+                                                                new MessageCache.Limits(500, 700, 1000),
+                                                                new NoopMetricsContext(), storage);
+    TopicMetadata metadata = new TopicMetadata(NamespaceId.DEFAULT.topic("slab"),
+                                               TopicMetadata.GENERATION_KEY, 1,
+                                               TopicMetadata.TTL_KEY, 86400);
+
+    // Keep adding entries. The number of slabs should be bounded by the cache limits.
+    for (int i = 0; i < 1000; i++) {
+      List<MessageTable.Entry> entries = new ArrayList<>();
+      for (int j = 0; j < 5; j++) {
+        byte[] key = Bytes.concat(MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getGeneration()),
+                                  Bytes.toBytes((long) i), Bytes.toBytes((short) j));
+        entries.add(new ImmutableMessageTableEntry(key, Bytes.toBytes("Payload " + i + " " + j), null));
+      }
+      cache.addAll(entries.iterator());
+    }
+    Assert.assertTrue(storage.getAllocatedSlabs() <= 1000 / 64 + 2);
+
+    // Payloads read from the cache should be intact
+    byte[] startKey = Bytes.concat(MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getGeneration()),
+                                   Bytes.toBytes(0L), Bytes.toBytes((short) 0));
+    try (MessageCache.Scanner<MessageTable.Entry> scanner =
+           cache.scan(new ImmutableMessageTableEntry(startKey, null, null), true, Integer.MAX_VALUE,
+                      new MessageFilter<MessageTable.Entry>() {
+                        @Override
+                        public Result apply(MessageTable.Entry input) {
+                          return Result.ACCEPT;
+                        }
+                      })) {
+      List<MessageTable.Entry> entries = Lists.newArrayList(scanner);
+      Assert.assertFalse(entries.isEmpty());
+      MessageTable.Entry last = entries.get(entries.size() - 1);
+      Assert.assertEquals(999, last.getPublishTimestamp());
+      for (MessageTable.Entry entry : entries) {
+        Assert.assertEquals("Payload " + entry.getPublishTimestamp() + " " + entry.getSequenceId(),
+                            Bytes.toString(entry.getPayload()));
+      }
+    }
+
+    // A payload larger than the slab size is stored in a dedicated buffer, which is reclaimed once released
+    int slabs = storage.getAllocatedSlabs();
+    byte[] key = Bytes.concat(MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getGeneration()),
+                              Bytes.toBytes(1000L), Bytes.toBytes((short) 0));
+    cache.addAll(Lists.<MessageTable.Entry>newArrayList(
+      new ImmutableMessageTableEntry(key, new byte[100], null)).iterator());
+    Assert.assertEquals(slabs + 1, storage.getAllocatedSlabs());
+    cache.clear();
+    Assert.assertEquals(slabs, storage.getAllocatedSlabs());
+  }
+}
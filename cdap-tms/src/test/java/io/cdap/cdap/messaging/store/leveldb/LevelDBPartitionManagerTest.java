@@ -22,6 +22,7 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
@@ -68,6 +69,34 @@ public class LevelDBPartitionManagerTest {
     Assert.assertEquals(0, partitionManager.getPartitions(0).size());
   }
 
+  @Test
+  public void testPruneUnloadedPartitions() throws IOException {
+    File topicDir = tmpFolder.newFolder();
+    LevelDBPartitionManager partitionManager = new LevelDBPartitionManager(topicDir, DB_OPTIONS, 1000);
+
+    // create partitions [0, 1000), [1000, 2000) and write something to them
+    for (long publishTime : new long[] { 0L, 1000L }) {
+      LevelDBPartition partition = partitionManager.getOrCreatePartition(publishTime);
+      partition.getLevelDB().put(new byte[] { 1 }, new byte[1024]);
+    }
+    partitionManager.close();
+
+    // A new manager that never loaded the partitions should still drop the partition directory
+    partitionManager = new LevelDBPartitionManager(topicDir, DB_OPTIONS, 1000);
+    LevelDBPartitionManager.PruneStats stats = new LevelDBPartitionManager.PruneStats();
+    Assert.assertEquals(1, partitionManager.prunePartitions(1000, stats));
+    Assert.assertEquals(1, stats.getPartitionsDropped());
+    Assert.assertTrue(stats.getBytesReclaimed() > 0);
+    Assert.assertFalse(LevelDBPartitionManager.getPartitionDir(topicDir, 0, 1000).exists());
+    Assert.assertTrue(LevelDBPartitionManager.getPartitionDir(topicDir, 1000, 2000).exists());
+
+    // Stats are accumulated across calls
+    Assert.assertEquals(1, partitionManager.prunePartitions(2000, stats));
+    Assert.assertEquals(2, stats.getPartitionsDropped());
+    Assert.assertTrue(partitionManager.getPartitions(0).isEmpty());
+    partitionManager.close();
+  }
+
   @Test
   public void testCreatePartitions() throws IOException {
     LevelDBPartitionManager partitionManager = new LevelDBPartitionManager(tmpFolder.newFolder(), DB_OPTIONS, 1000);
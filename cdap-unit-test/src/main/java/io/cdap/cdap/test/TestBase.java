@@ -94,6 +94,7 @@ import io.cdap.cdap.internal.profile.ProfileService;
 import io.cdap.cdap.internal.provision.MockProvisionerModule;
 import io.cdap.cdap.logging.guice.LocalLogAppenderModule;
 import io.cdap.cdap.logging.guice.LogReaderRuntimeModules;
+import io.cdap.cdap.logging.read.FileLogReader;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.context.BasicMessagingAdmin;
 import io.cdap.cdap.messaging.context.MultiThreadMessagingContext;
@@ -621,6 +622,7 @@ public class TestBase {
       ((Service) messagingService).stopAndWait();
     }
     appFabricServer.stopAndWait();
+    injector.getInstance(FileLogReader.class).close();
   }
 
   protected MetricsManager getMetricsManager() {
@@ -31,6 +31,8 @@ import io.cdap.cdap.logging.clean.FileMetadataCleaner;
 import io.cdap.cdap.logging.clean.LogCleaner;
 import io.cdap.cdap.logging.meta.FileMetaDataWriter;
 import io.cdap.cdap.proto.id.NamespaceId;
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.file.CodecFactory;
 import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +61,8 @@ public class CDAPLogAppender extends AppenderBase<ILoggingEvent> implements Flus
   private String dirPermissions;
   private String filePermissions;
   private int syncIntervalBytes;
+  private int indexIntervalBytes;
+  private String codec = "null";
   private long maxFileLifetimeMs;
   private long maxFileSizeInBytes;
   private ScheduledExecutorService scheduledExecutorService;
@@ -91,6 +95,21 @@ public class CDAPLogAppender extends AppenderBase<ILoggingEvent> implements Flus
     this.syncIntervalBytes = syncIntervalBytes;
   }
 
+  /**
+   * Sets the approximate number of bytes between log file index entries, with 0 meaning no index is written.
+   * This is called by the logback framework.
+   */
+  public void setIndexIntervalBytes(int indexIntervalBytes) {
+    this.indexIntervalBytes = indexIntervalBytes;
+  }
+
+  /**
+   * Sets the name of the Avro codec for compressing blocks in the log files. This is called by the logback framework.
+   */
+  public void setCodec(String codec) {
+    this.codec = codec;
+  }
+
   /**
    * Sets the maximum lifetime of a file. This is called by the logback framework.
    */
@@ -139,11 +158,17 @@ public class CDAPLogAppender extends AppenderBase<ILoggingEvent> implements Flus
     Preconditions.checkState(fileRetentionDurationDays > 0, "Property fileRetentionDurationDays must be > 0");
     Preconditions.checkState(logCleanupIntervalMins > 0, "Property logCleanupIntervalMins must be > 0");
     Preconditions.checkState(fileCleanupBatchSize > 0, "Property fileCleanupBatchSize must be > 0");
+    CodecFactory codecFactory;
+    try {
+      codecFactory = CodecFactory.fromString(codec);
+    } catch (AvroRuntimeException e) {
+      throw new IllegalStateException("Property codec has unsupported value " + codec, e);
+    }
 
     if (context instanceof AppenderContext) {
       AppenderContext context = (AppenderContext) this.context;
       logFileManager = new LogFileManager(dirPermissions, filePermissions, maxFileLifetimeMs, maxFileSizeInBytes,
-                                          syncIntervalBytes,
+                                          syncIntervalBytes, indexIntervalBytes, codecFactory,
                                           new FileMetaDataWriter(context.getTransactionRunner()),
                                           context.getLocationFactory());
       if (context.getInstanceId() == 0) {
@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.Uninterruptibles;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.io.Syncable;
 import io.cdap.cdap.logging.meta.FileMetaDataWriter;
+import org.apache.avro.file.CodecFactory;
 import org.apache.twill.filesystem.Location;
 import org.apache.twill.filesystem.LocationFactory;
 import org.slf4j.Logger;
@@ -49,6 +50,8 @@ final class LogFileManager implements Flushable, Syncable {
   private final String dirPermissions;
   private final String filePermissions;
   private final int syncIntervalBytes;
+  private final int indexIntervalBytes;
+  private final CodecFactory codec;
   private final long maxLifetimeMillis;
   private final long maxFileSizeInBytes;
   private final Map<LogPathIdentifier, LogFileOutputStream> outputStreamMap;
@@ -58,11 +61,20 @@ final class LogFileManager implements Flushable, Syncable {
   LogFileManager(String dirPermissions, String filePermissions,
                  long maxFileLifetimeMs, long maxFileSizeInBytes, int syncIntervalBytes,
                  FileMetaDataWriter fileMetaDataWriter, LocationFactory locationFactory) {
+    this(dirPermissions, filePermissions, maxFileLifetimeMs, maxFileSizeInBytes, syncIntervalBytes, 0,
+         CodecFactory.nullCodec(), fileMetaDataWriter, locationFactory);
+  }
+
+  LogFileManager(String dirPermissions, String filePermissions,
+                 long maxFileLifetimeMs, long maxFileSizeInBytes, int syncIntervalBytes, int indexIntervalBytes,
+                 CodecFactory codec, FileMetaDataWriter fileMetaDataWriter, LocationFactory locationFactory) {
     this.dirPermissions = dirPermissions;
     this.filePermissions = filePermissions;
     this.maxLifetimeMillis = maxFileLifetimeMs;
     this.maxFileSizeInBytes = maxFileSizeInBytes;
     this.syncIntervalBytes = syncIntervalBytes;
+    this.indexIntervalBytes = indexIntervalBytes;
+    this.codec = codec;
     this.fileMetaDataWriter = fileMetaDataWriter;
     this.logsDirectoryLocation = locationFactory.create("logs");
     this.outputStreamMap = new HashMap<>();
@@ -92,7 +104,8 @@ final class LogFileManager implements Flushable, Syncable {
                                                  long timestamp) throws IOException {
     TimeStampLocation location = createLocation(identifier);
     LogFileOutputStream logFileOutputStream = new LogFileOutputStream(
-      location.getLocation(), filePermissions, syncIntervalBytes, location.getTimeStamp(), new Closeable() {
+      location.getLocation(), filePermissions, syncIntervalBytes, indexIntervalBytes, codec,
+      location.getTimeStamp(), new Closeable() {
       @Override
       public void close() throws IOException {
         outputStreamMap.remove(identifier);
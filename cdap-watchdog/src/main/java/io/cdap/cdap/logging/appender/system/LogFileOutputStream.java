@@ -18,11 +18,14 @@ package io.cdap.cdap.logging.appender.system;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import com.google.common.io.Closeables;
+import com.google.common.io.CountingOutputStream;
 import io.cdap.cdap.common.io.ByteBuffers;
 import io.cdap.cdap.common.io.Syncable;
 import io.cdap.cdap.logging.serialize.LoggingEvent;
 import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import io.cdap.cdap.logging.write.LogFileIndex;
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
@@ -41,33 +44,59 @@ import java.nio.ByteBuffer;
  *
  * Since there is no way to check the state of the underlying file on an exception,
  * all methods of this class assume that the file state is bad on any exception and close the file.
+ *
+ * While writing, a sync marker is placed roughly every index interval bytes and the position of it is recorded
+ * together with the timestamp of the next event. The resulting {@link LogFileIndex} is written when the file is closed.
+ *
+ * Blocks between sync markers can be compressed with any codec supported by Avro. Since the codec is recorded in the
+ * file header, readers handle compressed and uncompressed files transparently.
  */
 
 class LogFileOutputStream implements Closeable, Flushable, Syncable {
   private static final Logger LOG = LoggerFactory.getLogger(LogFileOutputStream.class);
 
   private final Location location;
+  private final String filePermissions;
   private final long createTime;
   private final Closeable closeable;
   private final LoggingEventSerializer serializer;
+  private final int indexIntervalBytes;
+  private final LogFileIndex.Builder indexBuilder;
 
   private OutputStream outputStream;
+  private CountingOutputStream countingOutputStream;
   private DataFileWriter<GenericRecord> dataFileWriter;
   private long fileSize;
+  // the last sync position and whether it is yet to be recorded in the index with the timestamp of the next event
+  private long indexPosition;
+  private boolean indexPending;
+
+  LogFileOutputStream(Location location, String filePermissions, int syncIntervalBytes,
+                      int indexIntervalBytes, long createTime, Closeable closeable) throws IOException {
+    this(location, filePermissions, syncIntervalBytes, indexIntervalBytes, CodecFactory.nullCodec(),
+         createTime, closeable);
+  }
 
-  LogFileOutputStream(Location location, String filePermissions,
-                      int syncIntervalBytes, long createTime, Closeable closeable) throws IOException {
+  LogFileOutputStream(Location location, String filePermissions, int syncIntervalBytes, int indexIntervalBytes,
+                      CodecFactory codec, long createTime, Closeable closeable) throws IOException {
     this.location = location;
+    this.filePermissions = filePermissions;
     this.closeable = closeable;
     this.serializer = new LoggingEventSerializer();
+    this.indexIntervalBytes = indexIntervalBytes;
+    this.indexBuilder = new LogFileIndex.Builder();
 
     Schema schema = serializer.getAvroSchema();
     try {
       this.outputStream =
         filePermissions.isEmpty() ? location.getOutputStream() : location.getOutputStream(filePermissions);
+      this.countingOutputStream = new CountingOutputStream(outputStream);
       this.dataFileWriter = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema));
-      this.dataFileWriter.create(schema, outputStream);
+      this.dataFileWriter.setCodec(codec);
+      this.dataFileWriter.create(schema, countingOutputStream);
       this.dataFileWriter.setSyncInterval(syncIntervalBytes);
+      // Index the position right after the header, so that the index covers the whole file
+      markIndexPosition(dataFileWriter.sync());
       this.createTime = createTime;
       this.fileSize = 0;
     } catch (IOException e) {
@@ -82,6 +111,11 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   }
 
   void append(ILoggingEvent event) throws IOException {
+    if (indexPending) {
+      indexBuilder.add(event.getTimeStamp(), indexPosition);
+      indexPending = false;
+    }
+
     // If the event is already a LoggingEvent, we don't need to re-encode.
     if (event instanceof LoggingEvent) {
       ByteBuffer encoded = ((LoggingEvent) event).getEncoded();
@@ -91,9 +125,15 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
       } else {
         dataFileWriter.append(((LoggingEvent) event).getRecord());
       }
-      return;
+    } else {
+      dataFileWriter.append(serializer.toGenericRecord(event));
+    }
+
+    // The counting stream only sees data written out by the avro writer, hence it is behind the actual position
+    // by at most the avro writer buffer size, which is good enough for deciding when to add an index entry.
+    if (indexIntervalBytes > 0 && countingOutputStream.getCount() - indexPosition >= indexIntervalBytes) {
+      markIndexPosition(dataFileWriter.sync());
     }
-    dataFileWriter.append(serializer.toGenericRecord(event));
   }
 
   /**
@@ -115,6 +155,7 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   @Override
   public void flush() throws IOException {
     fileSize = dataFileWriter.sync();
+    markIndexPosition(fileSize);
   }
 
   @Override
@@ -132,8 +173,28 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
     LOG.trace("Closing file {}", location);
     try {
       dataFileWriter.close();
+      writeIndex();
     } finally {
       closeable.close();
     }
   }
+
+  private void markIndexPosition(long position) {
+    if (indexIntervalBytes > 0) {
+      indexPosition = position;
+      indexPending = true;
+    }
+  }
+
+  private void writeIndex() {
+    if (indexBuilder.isEmpty()) {
+      return;
+    }
+    // The index is optional for reading, hence failure to write it doesn't fail the close
+    try {
+      indexBuilder.write(location, filePermissions);
+    } catch (Exception e) {
+      LOG.warn("Failed to write index for log file {}", location, e);
+    }
+  }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.appender.tms;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import io.cdap.cdap.api.messaging.MessagingContext;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.logging.LogSamplers;
+import io.cdap.cdap.common.logging.Loggers;
+import io.cdap.cdap.common.logging.LoggingContext;
+import io.cdap.cdap.common.service.AbstractRetryableScheduledService;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.logging.appender.LogMessage;
+import io.cdap.cdap.logging.appender.kafka.LogPartitionType;
+import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Publishes log messages to TMS asynchronously. Log messages are serialized by the logging thread into a
+ * bounded {@link OffHeapLogBuffer} of the log partition, hence adding a log message never blocks. Buffered
+ * events are published in batches bounded by size, with each event staying in the buffer for at most the batch delay
+ * unless publishing is failing.
+ *
+ * When the buffer of a partition is under pressure, DEBUG and TRACE events are dropped first. The number of dropped
+ * events and the publish delay of every batch are emitted as metrics. Dropped events are also periodically reported
+ * with a WARN log event, so that they can be noticed from the program logs.
+ */
+final class AsyncTMSLogPublisher extends AbstractRetryableScheduledService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncTMSLogPublisher.class);
+  private static final Logger OUTAGE_LOG = Loggers.sampling(
+    LOG, LogSamplers.all(LogSamplers.skipFirstN(5), LogSamplers.limitRate(TimeUnit.SECONDS.toMillis(30))));
+  private static final long DROP_REPORT_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
+
+  private final String topicPrefix;
+  private final int numPartitions;
+  private final LogPartitionType logPartitionType;
+  private final MessagingContext messagingContext;
+  private final MetricsContext metricsContext;
+  private final int bufferSize;
+  private final double shedRatio;
+  private final int batchSize;
+  private final long batchDelayMs;
+  private final AtomicReferenceArray<OffHeapLogBuffer> buffers;
+  private final ThreadLocal<LoggingEventSerializer> serializer;
+  // Batches drained from the buffers that are yet to be published successfully, keyed by partition
+  private final Map<Integer, List<byte[]>> pendingBatches;
+  private final Map<Integer, MetricsContext> partitionMetricsContexts;
+  private final AtomicLong droppedEvents;
+
+  private volatile LoggingContext droppedContext;
+  private long droppedSinceReport;
+  private long maxPublishDelayMs;
+  private long lastDropReportTime;
+
+  AsyncTMSLogPublisher(CConfiguration cConf, MessagingContext messagingContext, MetricsContext metricsContext) {
+    super(RetryStrategies.fromConfiguration(cConf, "system.log.process."));
+    this.topicPrefix = cConf.get(Constants.Logging.TMS_TOPIC_PREFIX);
+    this.numPartitions = cConf.getInt(Constants.Logging.NUM_PARTITIONS);
+    this.logPartitionType =
+      LogPartitionType.valueOf(cConf.get(Constants.Logging.LOG_PUBLISH_PARTITION_KEY).toUpperCase());
+    this.messagingContext = messagingContext;
+    this.metricsContext = metricsContext;
+    this.bufferSize = cConf.getInt(Constants.Logging.TMS_ASYNC_BUFFER_SIZE);
+    this.shedRatio = cConf.getDouble(Constants.Logging.TMS_ASYNC_SHED_RATIO, 0.75d);
+    this.batchSize = cConf.getInt(Constants.Logging.TMS_ASYNC_BATCH_SIZE);
+    this.batchDelayMs = cConf.getLong(Constants.Logging.TMS_ASYNC_BATCH_DELAY_MS);
+    // Buffers are allocated lazily since a program usually only logs to a few partitions
+    this.buffers = new AtomicReferenceArray<>(numPartitions);
+    this.serializer = ThreadLocal.withInitial(LoggingEventSerializer::new);
+    this.pendingBatches = new HashMap<>();
+    this.partitionMetricsContexts = new HashMap<>();
+    this.droppedEvents = new AtomicLong();
+  }
+
+  /**
+   * Adds a log message for publishing. This method never blocks.
+   *
+   * @param logMessage the log message to add for publishing
+   * @return {@code true} if the message was added, {@code false} if it was dropped
+   */
+  boolean addMessage(LogMessage logMessage) {
+    byte[] payload = serializer.get().toBytes(logMessage);
+    boolean sheddable = !logMessage.getLevel().isGreaterOrEqual(Level.INFO);
+    if (getBuffer(getPartition(logMessage.getLoggingContext())).offer(payload, sheddable)) {
+      return true;
+    }
+    droppedEvents.incrementAndGet();
+    droppedContext = logMessage.getLoggingContext();
+    return false;
+  }
+
+  @Override
+  protected long runTask() throws Exception {
+    reportDroppedEvents();
+
+    boolean hasMore = false;
+    for (int partition = 0; partition < numPartitions; partition++) {
+      OffHeapLogBuffer buffer = buffers.get(partition);
+      if (buffer == null) {
+        continue;
+      }
+      List<byte[]> batch = pendingBatches.get(partition);
+      if (batch == null) {
+        batch = new ArrayList<>();
+        buffer.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+          continue;
+        }
+        pendingBatches.put(partition, batch);
+      }
+      publish(partition, batch);
+      pendingBatches.remove(partition);
+      hasMore = hasMore || buffer.size() >= batchSize;
+    }
+    return hasMore ? 0L : batchDelayMs;
+  }
+
+  @Override
+  protected void logTaskFailure(Throwable t) {
+    OUTAGE_LOG.error("Publish log message failed for {}. Will be retried.", getServiceName(), t);
+  }
+
+  @Override
+  protected long handleRetriesExhausted(Exception e) {
+    // Drop the pending batches to make room for newer events
+    int dropped = pendingBatches.values().stream().mapToInt(List::size).sum();
+    pendingBatches.clear();
+    droppedEvents.addAndGet(dropped);
+    LOG.error("Failed to publish log message by {}. Dropped {} log messages.", getServiceName(), dropped, e);
+    return 0L;
+  }
+
+  @Override
+  protected void doShutdown() throws Exception {
+    // Publish all remaining messages. Ignore those that cannot be published since it is already shutting down.
+    reportDroppedEvents();
+    for (int partition = 0; partition < numPartitions; partition++) {
+      OffHeapLogBuffer buffer = buffers.get(partition);
+      if (buffer == null) {
+        continue;
+      }
+      List<byte[]> batch = pendingBatches.computeIfAbsent(partition, k -> new ArrayList<>());
+      while (!batch.isEmpty() || buffer.drainTo(batch, batchSize) > 0) {
+        try {
+          publish(partition, batch);
+        } catch (Exception e) {
+          LOG.error("Failed to publish log message by {}", getServiceName(), e);
+        }
+        batch.clear();
+      }
+    }
+    pendingBatches.clear();
+  }
+
+  private void publish(int partition, List<byte[]> batch) throws Exception {
+    long delay = System.currentTimeMillis() - serializer.get().decodeEventTimestamp(ByteBuffer.wrap(batch.get(0)));
+    maxPublishDelayMs = Math.max(maxPublishDelayMs, delay);
+    String topic = topicPrefix + partition;
+    MetricsContext partitionMetricsContext = partitionMetricsContexts.computeIfAbsent(
+      partition, p -> metricsContext.childContext(Constants.Metrics.Tag.TOPIC, topic));
+    partitionMetricsContext.gauge(Constants.Metrics.Name.Log.PUBLISH_DELAY_MS, delay);
+    messagingContext.getDirectMessagePublisher().publish(NamespaceId.SYSTEM.getNamespace(), topic, batch.iterator());
+  }
+
+  /**
+   * Emits the number of log messages dropped since the last call as a metric, and adds a WARN log event to the buffer
+   * if there were log messages dropped since the last report.
+   */
+  private void reportDroppedEvents() {
+    long dropped = droppedEvents.getAndSet(0);
+    if (dropped > 0) {
+      metricsContext.increment(Constants.Metrics.Name.Log.PUBLISH_DROPPED, dropped);
+      droppedSinceReport += dropped;
+    }
+
+    long now = System.currentTimeMillis();
+    LoggingContext loggingContext = droppedContext;
+    if (loggingContext == null || droppedSinceReport == 0 || now - lastDropReportTime < DROP_REPORT_INTERVAL_MS) {
+      return;
+    }
+
+    LoggingEvent event = new LoggingEvent();
+    event.setLevel(Level.WARN);
+    event.setLoggerName(AsyncTMSLogPublisher.class.getName());
+    event.setThreadName(Thread.currentThread().getName());
+    event.setTimeStamp(now);
+    event.setMessage(String.format("Dropped %d log messages since the log buffer is full. "
+                                     + "Log messages are published with a delay of up to %d milliseconds.",
+                                   droppedSinceReport, maxPublishDelayMs));
+
+    byte[] payload = serializer.get().toBytes(new LogMessage(event, loggingContext));
+    // If the buffer is full, it is reported later
+    if (getBuffer(getPartition(loggingContext)).offer(payload, false)) {
+      lastDropReportTime = now;
+      droppedSinceReport = 0L;
+      maxPublishDelayMs = 0L;
+    }
+  }
+
+  private int getPartition(LoggingContext loggingContext) {
+    return TMSLogAppender.partition(logPartitionType.getPartitionKey(loggingContext), numPartitions);
+  }
+
+  private OffHeapLogBuffer getBuffer(int partition) {
+    OffHeapLogBuffer buffer = buffers.get(partition);
+    if (buffer != null) {
+      return buffer;
+    }
+    buffers.compareAndSet(partition, null, new OffHeapLogBuffer(bufferSize, shedRatio));
+    return buffers.get(partition);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.appender.tms;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A bounded ring buffer of serialized log events backed by a direct {@link ByteBuffer}, such that staged events
+ * don't add to the heap usage of the program. Each event is stored as a four bytes length followed by the payload.
+ *
+ * Adding never blocks. An event is rejected if there is not enough space for it. Events that are allowed to be
+ * shed are rejected earlier, once the buffer usage goes beyond the shed threshold, to leave space for the others.
+ */
+final class OffHeapLogBuffer {
+
+  private final ByteBuffer buffer;
+  private final int shedThreshold;
+  private final byte[] lengthBytes;
+  // Position of the first event and number of bytes used
+  private int head;
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity size of the buffer in bytes
+   * @param shedRatio fraction of the capacity that can be used by events that are allowed to be shed
+   */
+  OffHeapLogBuffer(int capacity, double shedRatio) {
+    this.buffer = ByteBuffer.allocateDirect(capacity);
+    this.shedThreshold = (int) (capacity * shedRatio);
+    this.lengthBytes = new byte[Integer.BYTES];
+  }
+
+  /**
+   * Adds a serialized event to this buffer.
+   *
+   * @param payload the serialized event
+   * @param sheddable {@code true} if the event can be rejected once the usage is beyond the shed threshold
+   * @return {@code true} if the event was added, {@code false} if it was rejected
+   */
+  synchronized boolean offer(byte[] payload, boolean sheddable) {
+    int required = Integer.BYTES + payload.length;
+    if (size + required > (sheddable ? shedThreshold : buffer.capacity())) {
+      return false;
+    }
+    int tail = (head + size) % buffer.capacity();
+    lengthBytes[0] = (byte) (payload.length >>> 24);
+    lengthBytes[1] = (byte) (payload.length >>> 16);
+    lengthBytes[2] = (byte) (payload.length >>> 8);
+    lengthBytes[3] = (byte) payload.length;
+    tail = write(tail, lengthBytes);
+    write(tail, payload);
+    size += required;
+    return true;
+  }
+
+  /**
+   * Removes events from this buffer and adds them to the given list.
+   *
+   * @param events the list for adding the events
+   * @param maxBytes maximum number of payload bytes to remove. At least one event is removed if this buffer is
+   *                 not empty, even if it is larger than this limit.
+   * @return number of payload bytes removed
+   */
+  synchronized int drainTo(List<byte[]> events, int maxBytes) {
+    int drained = 0;
+    while (size > 0) {
+      int pos = read(head, lengthBytes);
+      int length = ((lengthBytes[0] & 0xff) << 24) | ((lengthBytes[1] & 0xff) << 16)
+        | ((lengthBytes[2] & 0xff) << 8) | (lengthBytes[3] & 0xff);
+      if (drained > 0 && drained + length > maxBytes) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      head = read(pos, payload);
+      size -= Integer.BYTES + length;
+      events.add(payload);
+      drained += length;
+    }
+    if (size == 0) {
+      head = 0;
+    }
+    return drained;
+  }
+
+  /**
+   * Returns the number of bytes used by this buffer.
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Writes the given bytes starting from the given position, wrapping around at the end of the buffer.
+   *
+   * @return the position after the written bytes
+   */
+  private int write(int pos, byte[] bytes) {
+    int firstPart = Math.min(bytes.length, buffer.capacity() - pos);
+    buffer.position(pos);
+    buffer.put(bytes, 0, firstPart);
+    if (firstPart < bytes.length) {
+      buffer.position(0);
+      buffer.put(bytes, firstPart, bytes.length - firstPart);
+    }
+    return (pos + bytes.length) % buffer.capacity();
+  }
+
+  /**
+   * Reads bytes starting from the given position into the given array, wrapping around at the end of the buffer.
+   *
+   * @return the position after the read bytes
+   */
+  private int read(int pos, byte[] bytes) {
+    int firstPart = Math.min(bytes.length, buffer.capacity() - pos);
+    buffer.position(pos);
+    buffer.get(bytes, 0, firstPart);
+    if (firstPart < bytes.length) {
+      buffer.position(0);
+      buffer.get(bytes, firstPart, bytes.length - firstPart);
+    }
+    return (pos + bytes.length) % buffer.capacity();
+  }
+}
@@ -17,11 +17,15 @@
 package io.cdap.cdap.logging.appender.tms;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.messaging.MessagePublisher;
 import io.cdap.cdap.api.messaging.MessagingContext;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
 import io.cdap.cdap.api.security.AccessException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -45,7 +49,8 @@ import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Log appender that publishes log messages to TMS.
+ * Log appender that publishes log messages to TMS. If {@link Constants.Logging#TMS_ASYNC_ENABLED} is set, messages
+ * are published through an {@link AsyncTMSLogPublisher}, which never blocks the logging thread.
  */
 public class TMSLogAppender extends LogAppender {
 
@@ -54,6 +59,8 @@ public class TMSLogAppender extends LogAppender {
   private final CConfiguration cConf;
   private final MessagingService messagingService;
   private final AtomicReference<TMSLogPublisher> tmsLogPublisher;
+  private final AtomicReference<AsyncTMSLogPublisher> asyncLogPublisher;
+  private MetricsContext metricsContext;
 
   @Inject
   TMSLogAppender(CConfiguration cConf, MessagingService messagingService) {
@@ -61,13 +68,28 @@ public class TMSLogAppender extends LogAppender {
     this.cConf = cConf;
     this.messagingService = messagingService;
     this.tmsLogPublisher = new AtomicReference<>();
+    this.asyncLogPublisher = new AtomicReference<>();
+    this.metricsContext = new NoopMetricsContext();
+  }
+
+  @Inject(optional = true)
+  void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    this.metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
+      Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace()));
   }
 
   @Override
   public void start() {
-    TMSLogPublisher publisher = new TMSLogPublisher(cConf, messagingService);
-    Optional.ofNullable(tmsLogPublisher.getAndSet(publisher)).ifPresent(TMSLogPublisher::stopAndWait);
-    publisher.startAndWait();
+    if (cConf.getBoolean(Constants.Logging.TMS_ASYNC_ENABLED)) {
+      AsyncTMSLogPublisher publisher =
+        new AsyncTMSLogPublisher(cConf, new MultiThreadMessagingContext(messagingService), metricsContext);
+      Optional.ofNullable(asyncLogPublisher.getAndSet(publisher)).ifPresent(AsyncTMSLogPublisher::stopAndWait);
+      publisher.startAndWait();
+    } else {
+      TMSLogPublisher publisher = new TMSLogPublisher(cConf, messagingService);
+      Optional.ofNullable(tmsLogPublisher.getAndSet(publisher)).ifPresent(TMSLogPublisher::stopAndWait);
+      publisher.startAndWait();
+    }
     addInfo("Successfully started " + APPENDER_NAME);
     super.start();
   }
@@ -76,11 +98,19 @@ public class TMSLogAppender extends LogAppender {
   public void stop() {
     super.stop();
     Optional.ofNullable(tmsLogPublisher.getAndSet(null)).ifPresent(TMSLogPublisher::stopAndWait);
+    Optional.ofNullable(asyncLogPublisher.getAndSet(null)).ifPresent(AsyncTMSLogPublisher::stopAndWait);
     addInfo("Successfully stopped " + APPENDER_NAME);
   }
 
   @Override
   protected void appendEvent(LogMessage logMessage) {
+    AsyncTMSLogPublisher asyncPublisher = asyncLogPublisher.get();
+    if (asyncPublisher != null) {
+      // The message is serialized immediately, hence no need to prepare for deferred processing
+      asyncPublisher.addMessage(logMessage);
+      return;
+    }
+
     logMessage.prepareForDeferredProcessing();
     logMessage.getCallerData();
 
@@ -19,6 +19,7 @@ package io.cdap.cdap.logging.gateway.handlers.store;
 import com.google.gson.Gson;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.app.store.RunRecordDetail;
+import io.cdap.cdap.internal.app.store.RunRecordDetailCodec;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.ProgramId;
@@ -83,14 +84,13 @@ public class AppMetadataStore {
   }
 
   private static RunRecordDetail deserializeRunRecordMeta(StructuredRow row) {
-    RunRecordDetail existing =
-      GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA), RunRecordDetail.class);
-    RunRecordDetail newMeta =
-      RunRecordDetail.builder(existing)
-        .setProgramRunId(
-          getProgramIdFromRunRecordsPrimaryKeys(new ArrayList(row.getPrimaryKeys())).run(existing.getPid()))
-        .build();
-    return newMeta;
+    String data = row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    ProgramId programId = getProgramIdFromRunRecordsPrimaryKeys(new ArrayList(row.getPrimaryKeys()));
+    if (RunRecordDetailCodec.isEncoded(data)) {
+      return RunRecordDetailCodec.decode(data, programId);
+    }
+    RunRecordDetail existing = GSON.fromJson(data, RunRecordDetail.class);
+    return RunRecordDetail.builder(existing).setProgramRunId(programId.run(existing.getPid())).build();
   }
 
   private static ProgramId getProgramIdFromRunRecordsPrimaryKeys(List<Field<?>> primaryKeys) {
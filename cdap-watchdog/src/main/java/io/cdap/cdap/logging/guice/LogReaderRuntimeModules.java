@@ -36,6 +36,7 @@ public final class LogReaderRuntimeModules extends RuntimeModule {
     return new AbstractModule() {
       @Override
       protected void configure() {
+        bind(FileLogReader.class).in(Scopes.SINGLETON);
         bind(LogReader.class).to(FileLogReader.class);
       }
     };
@@ -46,6 +47,7 @@ public final class LogReaderRuntimeModules extends RuntimeModule {
     return new AbstractModule() {
       @Override
       protected void configure() {
+        bind(FileLogReader.class).in(Scopes.SINGLETON);
         bind(LogReader.class).to(FileLogReader.class);
       }
     };
@@ -56,6 +58,7 @@ public final class LogReaderRuntimeModules extends RuntimeModule {
     return new AbstractModule() {
       @Override
       protected void configure() {
+        bind(FileLogReader.class).in(Scopes.SINGLETON);
         bind(LogReader.class).to(DistributedLogReader.class);
         bind(UGIProvider.class).to(RemoteUGIProvider.class).in(Scopes.SINGLETON);
       }
@@ -100,7 +100,8 @@ public class LogBufferService extends AbstractIdleService {
     // when it is done recovering data. So while recovery service is running, cleanup task will be a no-op
     AtomicBoolean startCleanup = new AtomicBoolean(false);
     // start log recovery service to recover all the pending logs.
-    recoveryService = new LogBufferRecoveryService(cConf, bufferPipelines, checkpointManagers, startCleanup);
+    recoveryService = new LogBufferRecoveryService(cConf, bufferPipelines, checkpointManagers, startCleanup,
+                                                   contextProvider.get().getMetricsContext());
     recoveryService.startAndWait();
 
     // create concurrent writer
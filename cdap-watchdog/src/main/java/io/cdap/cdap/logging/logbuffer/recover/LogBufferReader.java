@@ -16,35 +16,50 @@
 
 package io.cdap.cdap.logging.logbuffer.recover;
 
-import com.google.common.io.Closeables;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.logging.logbuffer.LogBufferEvent;
 import io.cdap.cdap.logging.logbuffer.LogBufferFileOffset;
 import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import org.apache.twill.common.Threads;
 
-import java.io.BufferedInputStream;
 import java.io.Closeable;
-import java.io.DataInputStream;
-import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
 
 /**
  * Reader to read log buffer files.
+ *
+ * Files are memory mapped and decoded by background threads, with up to {@code parallelism} files being read ahead
+ * at the same time. Events are still returned in the order of the files, which is the checkpoint order.
  */
 public class LogBufferReader implements Closeable {
   private static final String FILE_SUFFIX = ".buf";
   private final int batchSize;
   private final String baseDir;
   private final long maxFileId;
+  private final int parallelism;
+  private final ExecutorService executor;
+  // Readers of files being read ahead, ordered by file id, with the first one for the current file
+  private final Deque<LogBufferFileReader> fileReaders;
 
   private long currFileId;
-  private LogBufferEventReader eventReader;
-  private boolean skipFirstEvent;
+  private long nextFileId;
 
   /**
    * Creates log buffer reader responsible for reading log buffer files.
@@ -58,15 +73,37 @@ public class LogBufferReader implements Closeable {
    */
   public LogBufferReader(String baseDir, int batchSize, long maxFileId, long currFileId,
                          long currPos) throws IOException {
+    this(baseDir, batchSize, maxFileId, currFileId, currPos, 1);
+  }
+
+  /**
+   * Creates log buffer reader responsible for reading log buffer files.
+   *
+   * @param baseDir base directory for log buffer
+   * @param batchSize max number of log events to read in one batch
+   * @param maxFileId max file id to which recovery should happen
+   * @param currFileId current log buffer file id
+   * @param currPos position in current log buffer file
+   * @param parallelism number of files to read ahead in parallel
+   * @throws IOException if there is any error while opening file to read
+   */
+  public LogBufferReader(String baseDir, int batchSize, long maxFileId, long currFileId,
+                         long currPos, int parallelism) throws IOException {
     this.baseDir = baseDir;
     this.batchSize = batchSize;
-    // if no checkpoints are written, currFileId and currPos will be -1. In that case the first event should not be
-    // skipped. However, if currFileId and currPos are non negative, that means first event should be skipped as
-    // atleast one log event has been persisted.
-    this.currFileId = currFileId < 0 ? 0 : currFileId;
-    this.skipFirstEvent = currFileId >= 0;
     this.maxFileId = maxFileId;
-    this.eventReader = new LogBufferEventReader(baseDir, this.currFileId, currPos < 0 ? 0 : currPos);
+    this.parallelism = Math.max(1, parallelism);
+    this.executor = Executors.newFixedThreadPool(this.parallelism,
+                                                 Threads.createDaemonThreadFactory("log-buffer-reader-%d"));
+    this.fileReaders = new ArrayDeque<>();
+    this.currFileId = currFileId < 0 ? 0 : currFileId;
+    this.nextFileId = this.currFileId;
+    if (maxFileId >= 0) {
+      // if no checkpoints are written, currFileId and currPos will be -1. In that case the first event should not be
+      // skipped. However, if currFileId and currPos are non negative, that means first event should be skipped as
+      // atleast one log event has been persisted.
+      startFileReader(currPos < 0 ? 0 : currPos, currFileId >= 0);
+    }
   }
 
   /**
@@ -84,27 +121,29 @@ public class LogBufferReader implements Closeable {
 
     // iterate over all the remaining events.
     while (eventList.size() < batchSize && currFileId <= maxFileId) {
-      try {
-        if (eventReader == null) {
-          eventReader = new LogBufferEventReader(baseDir, currFileId);
-        }
+      // keep reading ahead the next files
+      while (fileReaders.size() < parallelism && nextFileId <= maxFileId) {
+        startFileReader(0, false);
+      }
 
-        // skip the first event if skipFirstEvent is true. This is needed because log buffer offset represents offset
-        // till which log events have been processed. Meaning current event is already processed by log buffer pipeline.
-        if (skipFirstEvent) {
-          eventReader.read();
-          skipFirstEvent = false;
-        }
+      LogBufferFileReader fileReader = fileReaders.getFirst();
+      LogBufferEvent event;
+      try {
+        event = fileReader.take();
+      } catch (IOException e) {
+        // restart reading the file from the event after the last one returned
+        fileReaders.removeFirst();
+        fileReaders.addFirst(submit(new LogBufferFileReader(baseDir, currFileId, fileReader.getNextPos(),
+                                                            fileReader.isSkipFirstEvent(), batchSize)));
+        throw e;
+      }
 
-        eventList.add(eventReader.read());
-      } catch (FileNotFoundException e) {
-        // move to next file in case file pointed by currFileId was not found
-        currFileId++;
-      } catch (EOFException e) {
-        // reached eof on this event reader. So close it, move to next file
-        eventReader.close();
-        eventReader = null;
+      if (event == null) {
+        // reached the end of the current file, move to next file
+        fileReaders.removeFirst();
         currFileId++;
+      } else {
+        eventList.add(event);
       }
     }
 
@@ -113,62 +152,192 @@ public class LogBufferReader implements Closeable {
 
   @Override
   public void close() throws IOException {
-    if (eventReader != null) {
-      eventReader.close();
+    for (LogBufferFileReader fileReader : fileReaders) {
+      fileReader.cancel();
     }
+    fileReaders.clear();
+    executor.shutdownNow();
+  }
+
+  private void startFileReader(long pos, boolean skipFirstEvent) {
+    fileReaders.addLast(submit(new LogBufferFileReader(baseDir, nextFileId++, pos, skipFirstEvent, batchSize)));
+  }
+
+  private LogBufferFileReader submit(LogBufferFileReader fileReader) {
+    fileReader.future = executor.submit(fileReader);
+    return fileReader;
   }
 
+  /**
+   * Reads log events from a log buffer file into a bounded queue in a background thread.
+   */
+  private static final class LogBufferFileReader implements Runnable {
+    // Marker put to the queue when the end of the file is reached or there is error reading the file
+    private static final LogBufferEvent END_OF_FILE = new LogBufferEvent(null, 0, null);
+
+    private final String baseDir;
+    private final long fileId;
+    private final long startPos;
+    private final boolean skipFirstEvent;
+    private final BlockingQueue<LogBufferEvent> queue;
+    private volatile IOException failure;
+    private volatile Future<?> future;
+    // position after the last event taken from this reader
+    private long nextPos;
+    private boolean taken;
+
+    LogBufferFileReader(String baseDir, long fileId, long startPos, boolean skipFirstEvent, int queueSize) {
+      this.baseDir = baseDir;
+      this.fileId = fileId;
+      this.startPos = startPos;
+      this.skipFirstEvent = skipFirstEvent;
+      this.queue = new ArrayBlockingQueue<>(queueSize);
+      this.nextPos = startPos;
+    }
+
+    @Override
+    public void run() {
+      try (LogBufferEventReader eventReader = LogBufferEventReader.open(baseDir, fileId, startPos)) {
+        if (eventReader != null) {
+          // skip the first event if skipFirstEvent is true. This is needed because log buffer offset represents
+          // offset till which log events have been processed. Meaning current event is already processed by log
+          // buffer pipeline.
+          if (skipFirstEvent) {
+            eventReader.read();
+          }
+          LogBufferEvent event = eventReader.read();
+          while (event != null) {
+            queue.put(event);
+            event = eventReader.read();
+          }
+        }
+      } catch (InterruptedException e) {
+        // cancelled
+        return;
+      } catch (IOException e) {
+        failure = e;
+      }
+      try {
+        queue.put(END_OF_FILE);
+      } catch (InterruptedException e) {
+        // cancelled
+      }
+    }
+
+    /**
+     * Takes the next event from this reader, blocking until it is available.
+     *
+     * @return the next event or {@code null} if the end of file is reached
+     * @throws IOException if failed to read the file
+     */
+    @Nullable
+    LogBufferEvent take() throws IOException {
+      LogBufferEvent event;
+      try {
+        event = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while reading log buffer file " + fileId);
+      }
+      if (event == END_OF_FILE) {
+        // put it back so that subsequent calls will see the same result
+        queue.offer(END_OF_FILE);
+        if (failure != null) {
+          throw failure;
+        }
+        return null;
+      }
+      taken = true;
+      nextPos = event.getOffset().getFilePos() + Bytes.SIZEOF_INT + event.getEventSize();
+      return event;
+    }
+
+    long getNextPos() {
+      return nextPos;
+    }
+
+    /**
+     * Returns whether the event at {@link #getNextPos()} should be skipped when reading the file again.
+     */
+    boolean isSkipFirstEvent() {
+      return skipFirstEvent && !taken;
+    }
 
+    void cancel() {
+      Future<?> future = this.future;
+      if (future != null) {
+        future.cancel(true);
+      }
+    }
+  }
 
   /**
-   * Log buffer event reader to read log events from a log buffer file.
+   * Log buffer event reader to read log events from a memory mapped log buffer file.
    */
   private static final class LogBufferEventReader implements Closeable {
-    private static final int BUFFER_SIZE = 32 * 1024; // 32k buffer
-    private final DataInputStream inputStream;
+    private final MappedByteBuffer buffer;
     private final LoggingEventSerializer serializer;
-    private long fileId;
-    private long pos;
+    private final long fileId;
+    private final long basePos;
 
-    LogBufferEventReader(String baseDir, long fileId) throws IOException {
-      this(baseDir, fileId, 0);
+    private LogBufferEventReader(MappedByteBuffer buffer, long fileId, long basePos) {
+      this.buffer = buffer;
+      this.serializer = new LoggingEventSerializer();
+      this.fileId = fileId;
+      this.basePos = basePos;
     }
 
-    LogBufferEventReader(String baseDir, long fileId, long pos) throws IOException {
-      this.fileId = fileId;
-      this.pos = pos;
-      FileInputStream fis = new FileInputStream(new File(baseDir, fileId + FILE_SUFFIX));
-      // seek to the position if the position is not zero
-      if (pos != 0) {
-        fis.getChannel().position(pos);
+    /**
+     * Opens a reader for the given log buffer file.
+     *
+     * @return the reader or {@code null} if the file does not exist
+     */
+    @Nullable
+    static LogBufferEventReader open(String baseDir, long fileId, long pos) throws IOException {
+      File file = new File(baseDir, fileId + FILE_SUFFIX);
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        // Log buffer files are limited by the max file size, hence can always be mapped as a single buffer.
+        // Files being recovered are no longer written to, since the writer always starts with a new file.
+        long size = Math.max(0L, channel.size() - pos);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos,
+                                              Math.min(size, Integer.MAX_VALUE));
+        return new LogBufferEventReader(buffer, fileId, pos);
+      } catch (FileNotFoundException | NoSuchFileException e) {
+        return null;
       }
-      this.inputStream = new DataInputStream(new BufferedInputStream(fis, BUFFER_SIZE));
-      this.serializer = new LoggingEventSerializer();
     }
 
     /**
      * Reads next event from log buffer file pointed by this reader.
      *
-     * @return log buffer event
+     * @return log buffer event or {@code null} if reached the end of the file
      * @throws IOException error while reading log buffer file
      */
+    @Nullable
     LogBufferEvent read() throws IOException {
-      int length = inputStream.readInt();
+      // an incomplete event at the end of the file is ignored, which can happen if the process died while writing
+      if (buffer.remaining() < Bytes.SIZEOF_INT) {
+        return null;
+      }
+      long pos = basePos + buffer.position();
+      int length = buffer.getInt();
+      if (length < 0) {
+        throw new IOException("Invalid event length " + length + " at position " + pos
+                                + " of log buffer file " + fileId);
+      }
+      if (buffer.remaining() < length) {
+        return null;
+      }
+      // copy the event out of the mapped buffer, since the decoded event keeps a reference to the encoded bytes
       byte[] eventBytes = new byte[length];
-      inputStream.read(eventBytes);
-      LogBufferEvent event = new LogBufferEvent(serializer.fromBytes(ByteBuffer.wrap(eventBytes)),
-                                                eventBytes.length, new LogBufferFileOffset(fileId, pos));
-      // update curr position to point to next event
-      pos = pos + Bytes.SIZEOF_INT + length;
-      return event;
+      buffer.get(eventBytes);
+      return new LogBufferEvent(serializer.fromBytes(ByteBuffer.wrap(eventBytes)), length,
+                                new LogBufferFileOffset(fileId, pos));
     }
 
-    /**
-     * Closes this reader.
-     */
+    @Override
     public void close() {
-      // close input stream wrapped by this reader
-      Closeables.closeQuietly(inputStream);
+      // the mapping is released when the buffer is garbage collected
     }
   }
 }
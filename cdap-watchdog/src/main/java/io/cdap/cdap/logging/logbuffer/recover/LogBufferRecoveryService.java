@@ -17,7 +17,10 @@
 package io.cdap.cdap.logging.logbuffer.recover;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.logging.LogSamplers;
@@ -31,7 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -42,6 +45,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * further processing. This service first scans all the files to figure out max file id till which it should recover.
  * This is because while recovery service is running, new files can be created. Recovery service should not recover
  * those logs.
+ *
+ * Log buffer files are read ahead in parallel by the {@link LogBufferReader}, while events are still sent to the
+ * pipelines in the order of the files. The number of recovered events and the time taken until recovery is completed
+ * are emitted as metrics.
  */
 public class LogBufferRecoveryService extends AbstractExecutionThreadService {
   private static final Logger LOG = LoggerFactory.getLogger(LogBufferRecoveryService.class);
@@ -55,55 +62,71 @@ public class LogBufferRecoveryService extends AbstractExecutionThreadService {
   private final String baseLogDir;
   private final boolean baseDirExists;
   private final int batchSize;
+  private final int parallelism;
+  private final MetricsContext metricsContext;
   private final CountDownLatch stopLatch;
   private final AtomicBoolean startCleanup;
 
   private LogBufferReader reader;
+  private Stopwatch stopwatch;
   private volatile boolean stopped;
 
   public LogBufferRecoveryService(CConfiguration cConf, List<LogBufferProcessorPipeline> pipelines,
                                   List<CheckpointManager<LogBufferFileOffset>> checkpointManagers,
-                                  AtomicBoolean startCleanup) {
+                                  AtomicBoolean startCleanup, MetricsContext metricsContext) {
     this(pipelines, checkpointManagers, cConf.get(Constants.LogBuffer.LOG_BUFFER_BASE_DIR),
-         cConf.getInt(Constants.LogBuffer.LOG_BUFFER_RECOVERY_BATCH_SIZE), startCleanup);
+         cConf.getInt(Constants.LogBuffer.LOG_BUFFER_RECOVERY_BATCH_SIZE),
+         cConf.getInt(Constants.LogBuffer.LOG_BUFFER_RECOVERY_PARALLELISM), startCleanup, metricsContext);
   }
 
   @VisibleForTesting
   LogBufferRecoveryService(List<LogBufferProcessorPipeline> pipelines,
                            List<CheckpointManager<LogBufferFileOffset>> checkpointManager,
                            String baseLogDir, int batchSize, AtomicBoolean startCleanup) {
+    this(pipelines, checkpointManager, baseLogDir, batchSize, 1, startCleanup, new NoopMetricsContext());
+  }
+
+  @VisibleForTesting
+  LogBufferRecoveryService(List<LogBufferProcessorPipeline> pipelines,
+                           List<CheckpointManager<LogBufferFileOffset>> checkpointManager,
+                           String baseLogDir, int batchSize, int parallelism, AtomicBoolean startCleanup,
+                           MetricsContext metricsContext) {
     this.pipelines = pipelines;
     this.checkpointManagers = checkpointManager;
     this.baseLogDir = baseLogDir;
     this.baseDirExists = dirExists(baseLogDir);
     this.batchSize = batchSize;
+    this.parallelism = parallelism;
+    this.metricsContext = metricsContext;
     this.stopLatch = new CountDownLatch(1);
     this.startCleanup = startCleanup;
   }
 
   @Override
   protected void startUp() throws Exception {
+    stopwatch = new Stopwatch().start();
     if (baseDirExists) {
       // get the smallest offset of all the log pipelines
       LogBufferFileOffset minOffset = getSmallestOffset(checkpointManagers);
       this.reader = new LogBufferReader(baseLogDir, batchSize, getMaxFileId(baseLogDir),
-                                        minOffset.getFileId(), minOffset.getFilePos());
+                                        minOffset.getFileId(), minOffset.getFilePos(), parallelism);
     }
   }
 
   @Override
   protected void run() throws Exception {
+    long recoveredEvents = 0L;
     if (baseDirExists) {
-      List<LogBufferEvent> logBufferEvents = new LinkedList<>();
+      List<LogBufferEvent> logBufferEvents = new ArrayList<>();
       boolean hasReadEvents = true;
       while (!stopped && hasReadEvents) {
         try {
           hasReadEvents = reader.readEvents(logBufferEvents) > 0;
-          recoverLogs(logBufferEvents, pipelines);
+          recoveredEvents += recoverLogs(logBufferEvents, pipelines);
         } catch (Exception e) {
           // even though error occurred while reading, whatever logs were read, those should be processed. This is
           // because recovery service should be finished quickly so that the logs are persisted in almost sorted order.
-          recoverLogs(logBufferEvents, pipelines);
+          recoveredEvents += recoverLogs(logBufferEvents, pipelines);
           OUTAGE_LOG.warn("Failed to recover logs from log buffer. Read will be retried.", e);
           // in case of failure to read, sleep and then retry
           stopLatch.await(500, TimeUnit.MILLISECONDS);
@@ -111,6 +134,12 @@ public class LogBufferRecoveryService extends AbstractExecutionThreadService {
       }
     }
     startCleanup.set(true);
+
+    long elapsedMillis = stopwatch.elapsedMillis();
+    metricsContext.gauge(Constants.Metrics.Name.Log.BUFFER_RECOVERY_TIME_MS, elapsedMillis);
+    metricsContext.gauge(Constants.Metrics.Name.Log.BUFFER_RECOVERY_EVENTS_RATE,
+                         recoveredEvents * 1000L / Math.max(1L, elapsedMillis));
+    LOG.info("Recovered {} log events from log buffer in {} ms", recoveredEvents, elapsedMillis);
   }
 
   @Override
@@ -145,11 +174,27 @@ public class LogBufferRecoveryService extends AbstractExecutionThreadService {
     return minOffset;
   }
 
-  private void recoverLogs(List<LogBufferEvent> logBufferEvents, List<LogBufferProcessorPipeline> pipelines) {
+  /**
+   * Sends the given events to all pipelines and clears the list.
+   *
+   * @return number of events recovered
+   */
+  private int recoverLogs(List<LogBufferEvent> logBufferEvents, List<LogBufferProcessorPipeline> pipelines) {
+    int count = logBufferEvents.size();
+    if (count == 0) {
+      return 0;
+    }
     for (LogBufferProcessorPipeline pipeline : pipelines) {
       pipeline.processLogEvents(logBufferEvents.iterator());
     }
+    long bytes = 0L;
+    for (LogBufferEvent event : logBufferEvents) {
+      bytes += event.getEventSize();
+    }
+    metricsContext.increment(Constants.Metrics.Name.Log.BUFFER_RECOVERY_EVENTS_COUNT, count);
+    metricsContext.increment(Constants.Metrics.Name.Log.BUFFER_RECOVERY_BYTES, bytes);
     logBufferEvents.clear();
+    return count;
   }
 
   private long getMaxFileId(String baseDir) {
@@ -24,32 +24,53 @@ import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.logging.LoggingContext;
 import io.cdap.cdap.logging.context.LoggingContextHelper;
 import io.cdap.cdap.logging.filter.AndFilter;
 import io.cdap.cdap.logging.filter.Filter;
 import io.cdap.cdap.logging.meta.FileMetaDataReader;
 import io.cdap.cdap.logging.write.LogLocation;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Reads log events from a file.
  */
-public class FileLogReader implements LogReader {
+public class FileLogReader implements LogReader, Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(FileLogReader.class);
 
   private final FileMetaDataReader fileMetadataReader;
+  private final int searchParallelism;
+  private final ExecutorService searchExecutor;
 
   @Inject
-  public FileLogReader(FileMetaDataReader fileMetadataReader) {
+  public FileLogReader(FileMetaDataReader fileMetadataReader, CConfiguration cConf) {
     this.fileMetadataReader = fileMetadataReader;
+    this.searchParallelism = Math.max(1, cConf.getInt(Constants.Logging.READER_SEARCH_PARALLELISM));
+    // Threads are only created when searching with parallelism, and are released when idle.
+    // Tasks are rejected instead of queued when all threads are busy, in which case files are read by the caller.
+    this.searchExecutor = new ThreadPoolExecutor(0, searchParallelism, 60L, TimeUnit.SECONDS,
+                                                 new SynchronousQueue<>(),
+                                                 Threads.createDaemonThreadFactory("log-search-%d"));
+  }
+
+  @Override
+  public void close() {
+    searchExecutor.shutdownNow();
   }
 
   @Override
@@ -159,6 +180,11 @@ public class FileLogReader implements LogReader {
         };
       }
 
+      if (searchParallelism > 1 && sortedFilesInRange.size() > 1) {
+        return new ParallelLogEventIterator(sortedFilesInRange, logFilter, fromTimeMs, toTimeMs,
+                                            searchParallelism, searchExecutor);
+      }
+
       final Iterator<LogLocation> filesIter = sortedFilesInRange.iterator();
 
       CloseableIterator<CloseableIterator<LogEvent>> closeableIterator =
@@ -0,0 +1,335 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.read;
+
+import com.google.common.collect.AbstractIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.write.LogLocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link CloseableIterator} of {@link LogEvent} that scans multiple log files in parallel and merges the
+ * matching events by timestamp.
+ *
+ * Up to {@code parallelism} files are scanned at the same time by tasks running in the given executor, each putting
+ * matching events into a bounded queue. Since files are sorted by the start event time, a file is only required to
+ * be opened for merging when its start time is not later than the smallest event available from the files being
+ * scanned. If such a file has to be merged while all the scanning tasks are busy, the file is read directly by the
+ * thread consuming this iterator instead. Once the executor rejects a task, no more tasks are submitted.
+ */
+final class ParallelLogEventIterator extends AbstractIterator<LogEvent> implements CloseableIterator<LogEvent> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelLogEventIterator.class);
+  private static final int QUEUE_SIZE = 1000;
+  // Marker put into the queue by the scanner when the scan is completed
+  private static final LogEvent END_OF_SCAN = new LogEvent(null, null);
+
+  private final Deque<LogLocation> pendingFiles;
+  private final Filter filter;
+  private final long fromTimeMs;
+  private final long toTimeMs;
+  private final ExecutorService executor;
+  // All scanners that are not yet completed
+  private final List<FileScanner> scanners;
+  // Scanners that have the next event available, ordered by the timestamp of the next event
+  private final PriorityQueue<FileScanner> mergeQueue;
+  // Number of scanners in the scanners list that are scanning with a task in the executor
+  private int runningTasks;
+  // Maximum number of running tasks
+  private int maxTasks;
+  private int nextFileIndex;
+  private volatile boolean closed;
+
+  /**
+   * Constructor.
+   *
+   * @param files files to read from, sorted by the start event time
+   * @param filter the {@link Filter} for the events
+   * @param fromTimeMs the start timestamp of events to read, inclusive
+   * @param toTimeMs the end timestamp of events to read, exclusive
+   * @param parallelism the maximum number of files to scan in parallel
+   * @param executor the {@link ExecutorService} for running the scanning tasks
+   */
+  ParallelLogEventIterator(List<LogLocation> files, Filter filter, long fromTimeMs, long toTimeMs,
+                           int parallelism, ExecutorService executor) {
+    this.pendingFiles = new ArrayDeque<>(files);
+    this.filter = filter;
+    this.fromTimeMs = fromTimeMs;
+    this.toTimeMs = toTimeMs;
+    this.maxTasks = parallelism;
+    this.executor = executor;
+    this.scanners = new ArrayList<>();
+    // Order by the next event timestamp, then by the file order to keep the order of events with the same timestamp
+    this.mergeQueue = new PriorityQueue<>(Comparator.<FileScanner>comparingLong(s -> s.peek().getOffset().getTime())
+                                            .thenComparingInt(s -> s.fileIndex));
+  }
+
+  @Override
+  protected LogEvent computeNext() {
+    try {
+      while (true) {
+        while (runningTasks < maxTasks && !pendingFiles.isEmpty()) {
+          startScanner();
+        }
+
+        // Wait for the next event from scanners that are not in the merge queue
+        Iterator<FileScanner> iterator = scanners.iterator();
+        while (iterator.hasNext()) {
+          FileScanner scanner = iterator.next();
+          if (scanner.peek() == null) {
+            if (scanner.awaitNext()) {
+              mergeQueue.add(scanner);
+            } else {
+              iterator.remove();
+              if (scanner.isTask()) {
+                runningTasks--;
+              }
+            }
+          }
+        }
+        if (runningTasks < maxTasks && !pendingFiles.isEmpty()) {
+          continue;
+        }
+
+        // A file that starts before the smallest event available must be merged before emitting.
+        // All the task slots are taken at this point, hence the file is read by this thread.
+        FileScanner head = mergeQueue.peek();
+        if (!pendingFiles.isEmpty()
+          && (head == null || pendingFiles.peek().getEventTimeMs() <= head.peek().getOffset().getTime())) {
+          scanners.add(new DirectFileScanner(pendingFiles.poll(), nextFileIndex++));
+          continue;
+        }
+        if (head == null) {
+          return endOfData();
+        }
+        mergeQueue.poll();
+        return head.take();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      close();
+      throw new RuntimeException("Interrupted while reading log events", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    for (FileScanner scanner : scanners) {
+      scanner.cancel();
+    }
+    scanners.clear();
+    mergeQueue.clear();
+    pendingFiles.clear();
+    runningTasks = 0;
+  }
+
+  /**
+   * Starts scanning the next pending file with a task in the executor. If the executor rejects the task,
+   * the file is left pending and the maximum number of tasks is lowered to the number of running tasks.
+   */
+  private void startScanner() {
+    TaskFileScanner scanner = new TaskFileScanner(pendingFiles.peek(), nextFileIndex);
+    try {
+      scanner.future = executor.submit(scanner);
+    } catch (RejectedExecutionException e) {
+      LOG.trace("No thread available for scanning log file {}, limiting scanning tasks to {}",
+                scanner.file, runningTasks);
+      maxTasks = runningTasks;
+      return;
+    }
+    pendingFiles.poll();
+    nextFileIndex++;
+    runningTasks++;
+    scanners.add(scanner);
+  }
+
+  /**
+   * Base class for reading the events of a single file one at a time.
+   */
+  private abstract static class FileScanner {
+
+    final LogLocation file;
+    final int fileIndex;
+    private LogEvent next;
+
+    FileScanner(LogLocation file, int fileIndex) {
+      this.file = file;
+      this.fileIndex = fileIndex;
+    }
+
+    /**
+     * Returns {@code true} if this scanner scans with a task in the executor.
+     */
+    abstract boolean isTask();
+
+    /**
+     * Reads the next event, blocking if necessary.
+     *
+     * @return the next event or {@code null} if the scan is completed
+     */
+    @Nullable
+    abstract LogEvent readNext() throws InterruptedException;
+
+    /**
+     * Stops the scan.
+     */
+    abstract void cancel();
+
+    /**
+     * Waits until the next event is available or the scan is completed.
+     *
+     * @return {@code true} if there is a next event
+     */
+    boolean awaitNext() throws InterruptedException {
+      if (next == null) {
+        next = readNext();
+      }
+      return next != null;
+    }
+
+    @Nullable
+    LogEvent peek() {
+      return next;
+    }
+
+    LogEvent take() {
+      LogEvent event = next;
+      next = null;
+      return event;
+    }
+  }
+
+  /**
+   * A {@link FileScanner} that scans the file with a task, which puts events into a bounded queue.
+   */
+  private final class TaskFileScanner extends FileScanner implements Runnable {
+
+    private final BlockingQueue<LogEvent> queue;
+    private Future<?> future;
+
+    TaskFileScanner(LogLocation file, int fileIndex) {
+      super(file, fileIndex);
+      this.queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    }
+
+    @Override
+    public void run() {
+      LOG.trace("Scanning file {}", file);
+      try (CloseableIterator<LogEvent> iterator = file.readLog(filter, fromTimeMs, toTimeMs, Integer.MAX_VALUE)) {
+        while (!closed && iterator.hasNext()) {
+          enqueue(iterator.next());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        LOG.warn("Got exception while scanning log file {}", file, e);
+      } finally {
+        // Always mark the end of scan, otherwise the consuming thread would wait forever
+        try {
+          enqueue(END_OF_SCAN);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    private void enqueue(LogEvent event) throws InterruptedException {
+      while (!closed && !queue.offer(event, 100, TimeUnit.MILLISECONDS)) {
+        // Keep trying until there is space in the queue or the iterator is closed
+      }
+    }
+
+    @Override
+    boolean isTask() {
+      return true;
+    }
+
+    @Nullable
+    @Override
+    LogEvent readNext() throws InterruptedException {
+      LogEvent event = queue.take();
+      return event == END_OF_SCAN ? null : event;
+    }
+
+    @Override
+    void cancel() {
+      if (future != null) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * A {@link FileScanner} that reads the file on the thread consuming this iterator.
+   */
+  private final class DirectFileScanner extends FileScanner {
+
+    private CloseableIterator<LogEvent> iterator;
+
+    DirectFileScanner(LogLocation file, int fileIndex) {
+      super(file, fileIndex);
+    }
+
+    @Override
+    boolean isTask() {
+      return false;
+    }
+
+    @Nullable
+    @Override
+    LogEvent readNext() {
+      try {
+        if (iterator == null) {
+          LOG.trace("Reading file {}", file);
+          iterator = file.readLog(filter, fromTimeMs, toTimeMs, Integer.MAX_VALUE);
+        }
+        if (iterator.hasNext()) {
+          return iterator.next();
+        }
+      } catch (Exception e) {
+        LOG.warn("Got exception while reading log file {}", file, e);
+      }
+      cancel();
+      return null;
+    }
+
+    @Override
+    void cancel() {
+      if (iterator != null) {
+        iterator.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.write;
+
+import io.cdap.cdap.common.io.Locations;
+import org.apache.twill.filesystem.Location;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * A sparse time index of an Avro log file, stored in a sidecar file next to the log file. Each entry maps the
+ * timestamp of the first log event of a block to the position of the sync marker before the block, such that
+ * readers can seek to a timestamp with a binary search instead of probing sync markers across the file.
+ *
+ * Entries are sorted by both timestamp and position.
+ */
+public final class LogFileIndex {
+
+  private static final String SUFFIX = ".idx";
+  private static final int VERSION = 1;
+
+  private final long[] timestamps;
+  private final long[] positions;
+  private final int size;
+
+  private LogFileIndex(long[] timestamps, long[] positions, int size) {
+    this.timestamps = timestamps;
+    this.positions = positions;
+    this.size = size;
+  }
+
+  /**
+   * Returns the {@link Location} of the index file for the given log file.
+   */
+  public static Location getIndexLocation(Location logFile) throws IOException {
+    Location parent = Locations.getParent(logFile);
+    if (parent == null) {
+      throw new IllegalArgumentException("Log file location has no parent: " + logFile);
+    }
+    return parent.append(logFile.getName() + SUFFIX);
+  }
+
+  /**
+   * Reads the index of the given log file.
+   *
+   * @param logFile the location of the log file
+   * @return the {@link LogFileIndex} or {@code null} if there is no index for the given log file
+   * @throws IOException if failed to read the index file
+   */
+  @Nullable
+  public static LogFileIndex read(Location logFile) throws IOException {
+    Location indexLocation = getIndexLocation(logFile);
+    if (!indexLocation.exists()) {
+      return null;
+    }
+    try (DataInputStream is = new DataInputStream(new BufferedInputStream(indexLocation.getInputStream()))) {
+      int version = is.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported log file index version " + version + " in " + indexLocation);
+      }
+      int size = is.readInt();
+      long[] timestamps = new long[size];
+      long[] positions = new long[size];
+      for (int i = 0; i < size; i++) {
+        timestamps[i] = is.readLong();
+        positions[i] = is.readLong();
+      }
+      return new LogFileIndex(timestamps, positions, size);
+    }
+  }
+
+  /**
+   * Returns the number of entries in this index.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the sync position of the entry at the given index.
+   */
+  public long getPosition(int idx) {
+    return positions[idx];
+  }
+
+  /**
+   * Returns the index of the last entry with timestamp smaller than the given timestamp, or {@code -1} if there
+   * is no such entry. Reading from the position of the returned entry won't miss any event with timestamp larger
+   * than or equal to the given timestamp.
+   */
+  public int findBefore(long timestamp) {
+    return findFloor(timestamp - 1);
+  }
+
+  /**
+   * Returns the index of the last entry with timestamp smaller than or equal to the given timestamp, or {@code -1}
+   * if there is no such entry. Events after the block of the returned entry all have timestamps larger than
+   * the given timestamp.
+   */
+  public int findFloor(long timestamp) {
+    int idx = Arrays.binarySearch(timestamps, 0, size, timestamp);
+    if (idx < 0) {
+      return -idx - 2;
+    }
+    // There can be multiple entries with the same timestamp, find the last one
+    while (idx + 1 < size && timestamps[idx + 1] == timestamp) {
+      idx++;
+    }
+    return idx;
+  }
+
+  /**
+   * Builder for {@link LogFileIndex}.
+   */
+  public static final class Builder {
+
+    private long[] timestamps = new long[16];
+    private long[] positions = new long[16];
+    private int size;
+
+    /**
+     * Adds an entry to the index. Entries must be added in increasing position order. Timestamps that are smaller
+     * than the one of the previous entry are raised to keep the index sorted.
+     *
+     * @param timestamp timestamp of the first log event after the sync position
+     * @param position the sync position returned by the Avro file writer
+     */
+    public Builder add(long timestamp, long position) {
+      if (size > 0 && positions[size - 1] == position) {
+        return this;
+      }
+      if (size == timestamps.length) {
+        timestamps = Arrays.copyOf(timestamps, size * 2);
+        positions = Arrays.copyOf(positions, size * 2);
+      }
+      timestamps[size] = size > 0 ? Math.max(timestamp, timestamps[size - 1]) : timestamp;
+      positions[size] = position;
+      size++;
+      return this;
+    }
+
+    public boolean isEmpty() {
+      return size == 0;
+    }
+
+    /**
+     * Writes the index for the given log file.
+     *
+     * @param logFile the location of the log file
+     * @param filePermissions permissions of the index file, or an empty string to use the default permissions
+     * @throws IOException if failed to write the index file
+     */
+    public void write(Location logFile, String filePermissions) throws IOException {
+      Location indexLocation = getIndexLocation(logFile);
+      OutputStream os = filePermissions.isEmpty()
+        ? indexLocation.getOutputStream() : indexLocation.getOutputStream(filePermissions);
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(os))) {
+        output.writeInt(VERSION);
+        output.writeInt(size);
+        for (int i = 0; i < size; i++) {
+          output.writeLong(timestamps[i]);
+          output.writeLong(positions[i]);
+        }
+      }
+    }
+  }
+}
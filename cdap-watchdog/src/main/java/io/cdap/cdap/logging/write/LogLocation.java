@@ -50,6 +50,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 
 /**
  * LogLocation representing a log file and methods to read the file's contents.
@@ -159,43 +160,48 @@ public class LogLocation {
           return ImmutableList.of();
         }
 
-        // Calculate skipLen based on fileLength
-        long length = location.length();
-        LOG.trace("File length {} {}", location, length);
-        long skipLen = length / 10;
-        if (skipLen > DEFAULT_SKIP_LEN || skipLen <= 0) {
-          skipLen = DEFAULT_SKIP_LEN;
-        }
-
-        // For open file, endPosition sync marker is unknown so start from file length and read up to the actual EOF
-        dataFileReader.sync(length);
-        long finalSync = dataFileReader.previousSync();
-        List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, -1);
-
-        if (!logSegment.isEmpty()) {
-          logSegments.addFirst(logSegment);
-          count = count + logSegment.size();
-        }
-
-        LOG.trace("Read log events {} from position {}", count, finalSync);
-
-        long startPosition = finalSync;
-        long endPosition = startPosition;
-        long currentSync;
+        LogFileIndex index = readIndex();
+        if (index != null) {
+          count = readLogPrev(dataFileReader, index, logFilter, fromTimeMs, maxEvents, logSegments);
+        } else {
+          // Calculate skipLen based on fileLength
+          long length = location.length();
+          LOG.trace("File length {} {}", location, length);
+          long skipLen = length / 10;
+          if (skipLen > DEFAULT_SKIP_LEN || skipLen <= 0) {
+            skipLen = DEFAULT_SKIP_LEN;
+          }
 
-        while (startPosition > 0 && count < maxEvents) {
-          // Skip to sync position less than current sync position
-          startPosition = skipToPosition(dataFileReader, startPosition, endPosition, skipLen);
-          currentSync = dataFileReader.previousSync();
-          logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, endPosition);
+          // For open file, endPosition sync marker is unknown so start from file length and read up to the actual EOF
+          dataFileReader.sync(length);
+          long finalSync = dataFileReader.previousSync();
+          List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, -1);
 
           if (!logSegment.isEmpty()) {
             logSegments.addFirst(logSegment);
             count = count + logSegment.size();
           }
-          LOG.trace("Read log events {} from position {} to endPosition {}", count, currentSync, endPosition);
 
-          endPosition = currentSync;
+          LOG.trace("Read log events {} from position {}", count, finalSync);
+
+          long startPosition = finalSync;
+          long endPosition = startPosition;
+          long currentSync;
+
+          while (startPosition > 0 && count < maxEvents) {
+            // Skip to sync position less than current sync position
+            startPosition = skipToPosition(dataFileReader, startPosition, endPosition, skipLen);
+            currentSync = dataFileReader.previousSync();
+            logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, endPosition);
+
+            if (!logSegment.isEmpty()) {
+              logSegments.addFirst(logSegment);
+              count = count + logSegment.size();
+            }
+            LOG.trace("Read log events {} from position {} to endPosition {}", count, currentSync, endPosition);
+
+            endPosition = currentSync;
+          }
         }
       }
     } catch (IOException e) {
@@ -206,6 +212,49 @@ public class LogLocation {
     return Lists.newArrayList(Iterables.skip(Iterables.concat(logSegments), skip));
   }
 
+  /**
+   * Reads log events backward using the {@link LogFileIndex}, starting from the last indexed block that can
+   * contain events not later than fromTimeMs.
+   *
+   * @return number of log events read
+   */
+  private int readLogPrev(DataFileReader<GenericRecord> dataFileReader, LogFileIndex index, Filter logFilter,
+                          long fromTimeMs, int maxEvents, Deque<Collection<LogEvent>> logSegments) throws IOException {
+    int count = 0;
+    for (int idx = index.findFloor(fromTimeMs); idx >= 0 && count < maxEvents; idx--) {
+      // The last indexed block ends at the end of the file
+      long endPosition = idx + 1 < index.size() ? index.getPosition(idx + 1) : -1;
+      dataFileReader.seek(index.getPosition(idx));
+      List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, endPosition);
+
+      if (!logSegment.isEmpty()) {
+        logSegments.addFirst(logSegment);
+        count = count + logSegment.size();
+      }
+      LOG.trace("Read log events {} from position {} to endPosition {}", count, index.getPosition(idx), endPosition);
+    }
+    return count;
+  }
+
+  /**
+   * Reads the {@link LogFileIndex} of this log file.
+   *
+   * @return the index or {@code null} if the file has no index or failed to read the index
+   */
+  @Nullable
+  private LogFileIndex readIndex() {
+    // Files of the old version never have index
+    if (VERSION_0.equals(frameworkVersion)) {
+      return null;
+    }
+    try {
+      return LogFileIndex.read(location);
+    } catch (Exception e) {
+      READ_FAILURE_LOG.warn("Failed to read index of log file {}, reading without index", location, e);
+      return null;
+    }
+  }
+
   /**
    *  Read current block in Avro file from current block sync marker to next block sync marker
    */
@@ -217,8 +266,9 @@ public class LogLocation {
     // Read up to the end if endSyncPosition is not known (in case of an open file)
     // or read until endSyncPosition has been reached
     while (dataFileReader.hasNext() && (endSyncPosition == -1 || (currentSyncPosition < endSyncPosition))) {
+      // The LoggingEvent only decodes fields from the record when accessed, hence only fields used by the filter
+      // are decoded for events that don't match
       ILoggingEvent loggingEvent = new LoggingEvent(dataFileReader.next());
-      loggingEvent.prepareForDeferredProcessing();
 
       // Stop when reached fromTimeMs
       if (loggingEvent.getTimeStamp() > fromTimeMs) {
@@ -226,6 +276,7 @@ public class LogLocation {
       }
 
       if (logFilter.match(loggingEvent)) {
+        loggingEvent.prepareForDeferredProcessing();
         logSegment.add(new LogEvent(loggingEvent,
                                     new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, loggingEvent.getTimeStamp())));
       }
@@ -276,7 +327,15 @@ public class LogLocation {
 
       try {
         dataFileReader = createReader();
-        if (dataFileReader.hasNext()) {
+        LogFileIndex index = readIndex();
+        if (index != null) {
+          // Seek to the last indexed block that starts before fromTimeMs
+          int idx = index.findBefore(fromTimeMs);
+          if (idx >= 0) {
+            LOG.trace("Seek to indexed pos {}", index.getPosition(idx));
+            dataFileReader.seek(index.getPosition(idx));
+          }
+        } else if (dataFileReader.hasNext()) {
           datum = dataFileReader.next();
           loggingEvent = new LoggingEvent(datum);
           loggingEvent.prepareForDeferredProcessing();
@@ -316,8 +375,9 @@ public class LogLocation {
       try {
         // read events from file
         while (next == null && dataFileReader.hasNext()) {
+          // Only decode fields used by the filter before matching. The event must be fully decoded before
+          // reading the next one since the datum is reused.
           loggingEvent = new LoggingEvent(dataFileReader.next(datum));
-          loggingEvent.prepareForDeferredProcessing();
 
           if (loggingEvent.getTimeStamp() >= fromTimeMs && logFilter.match(loggingEvent)) {
             ++count;
@@ -325,6 +385,7 @@ public class LogLocation {
               && loggingEvent.getTimeStamp() != prevTimestamp) {
               break;
             }
+            loggingEvent.prepareForDeferredProcessing();
             next = new LogEvent(loggingEvent,
                                 new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, loggingEvent.getTimeStamp()));
           }
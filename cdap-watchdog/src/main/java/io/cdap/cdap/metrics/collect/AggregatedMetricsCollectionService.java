@@ -15,11 +15,10 @@
  */
 package io.cdap.cdap.metrics.collect;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
@@ -33,55 +32,49 @@ import io.cdap.cdap.common.conf.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Base class for {@link MetricsCollectionService} which collect metrics through a set of cached
- * {@link AggregatedMetricsEmitter}.
+ * {@link AggregatedMetricsEmitter}. Each {@link MetricsContext} is interned by its tags and resolves the emitter of
+ * a metric once, so that updating a metric is a single map lookup by name followed by a striped counter update.
  */
 public abstract class AggregatedMetricsCollectionService extends AbstractExecutionThreadService
                                                          implements MetricsCollectionService {
 
   private static final Logger LOG = LoggerFactory.getLogger(AggregatedMetricsCollectionService.class);
-  private static final long CACHE_EXPIRE_MINUTES = 1;
+  private static final long CONTEXT_EXPIRE_MILLIS = TimeUnit.MINUTES.toMillis(1);
 
-  private final LoadingCache<Map<String, String>, MetricsContext> collectors;
-  private final LoadingCache<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>> emitters;
+  // Interned MetricsContext by tags. Each MetricsContextImpl holds the emitters for its own metrics, such that
+  // emitting metrics through a MetricsContext only involves a lookup by metric name.
+  private final ConcurrentMap<Map<String, String>, MetricsContextImpl> contexts;
   // maximum number of milliseconds to sleep between each publish
   private final long publishIntervalInMillis;
+  private final long contextExpireMillis;
   private final CountDownLatch shutdownLatch;
+  // Contexts that were removed from the contexts map in the last publish. Only accessed by the publishing thread.
+  private List<MetricsContextImpl> retiredContexts;
 
   public AggregatedMetricsCollectionService(long publishIntervalInMillis) {
+    this(publishIntervalInMillis, CONTEXT_EXPIRE_MILLIS);
+  }
+
+  @VisibleForTesting
+  AggregatedMetricsCollectionService(long publishIntervalInMillis, long contextExpireMillis) {
     // the longest sleep time will be 1 min
     this.publishIntervalInMillis = Math.min(publishIntervalInMillis, Constants.Metrics.PROCESS_INTERVAL_MILLIS);
+    this.contextExpireMillis = contextExpireMillis;
     this.shutdownLatch = new CountDownLatch(1);
-    this.collectors = CacheBuilder.newBuilder()
-      .expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
-      .build(createCollectorLoader());
-
-    this.emitters = CacheBuilder.newBuilder()
-      // NOTE : we don't need to have removalListener to  emit metrics, as we have expireAfterAccess set for a minute,
-      // emitters.get() is used to increment/gauge and that would reset the access time,
-      // and since runOneIteration() emits all the metrics for the scheduled duration (every 1 second)
-      // there wont be any loss of emitter entries.
-      .expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
-      .build(new CacheLoader<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>>() {
-        @Override
-        public LoadingCache<String, AggregatedMetricsEmitter> load(Map<String, String> tags) throws Exception {
-          return CacheBuilder.newBuilder().expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).
-            build(new CacheLoader<String, AggregatedMetricsEmitter>() {
-              @Override
-              public AggregatedMetricsEmitter load(String metricName) throws Exception {
-                return new AggregatedMetricsEmitter(metricName);
-              }
-            });
-        }
-      });
+    this.contexts = new ConcurrentHashMap<>();
+    this.retiredContexts = new ArrayList<>();
   }
 
   /**
@@ -128,7 +121,7 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
 
     LOG.trace("Start log collection for timestamp {}", timestamp);
 
-    Iterator<MetricValues> metrics = getMetrics(timestamp);
+    Iterator<MetricValues> metrics = getMetrics(currentTimeMillis);
     try {
       publish(metrics);
     } catch (Throwable t) {
@@ -157,7 +150,7 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
 
   @Override
   public final MetricsContext getContext(final Map<String, String> tags) {
-    return collectors.getUnchecked(tags);
+    return getContextImpl(tags);
   }
 
   @Override
@@ -171,21 +164,34 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
     shutdownLatch.countDown();
   }
 
-  private Iterator<MetricValues> getMetrics(final long timestamp) {
-    // NOTE : emitters.asMap does not reset the access time in cache,
-    // so it's the preferred way to access the cache entries. as we access and emit metrics every second.
-    final Iterator<Map.Entry<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>>> iterator =
-      emitters.asMap().entrySet().iterator();
+  private MetricsContextImpl getContextImpl(Map<String, String> tags) {
+    MetricsContextImpl context = contexts.get(tags);
+    if (context != null) {
+      return context;
+    }
+    return contexts.computeIfAbsent(ImmutableMap.copyOf(tags), MetricsContextImpl::new);
+  }
+
+  private Iterator<MetricValues> getMetrics(final long currentTimeMillis) {
+    final long timestamp = TimeUnit.MILLISECONDS.toSeconds(currentTimeMillis);
+
+    // Contexts retired in the last round are emitted one last time to collect values that were updated
+    // before the emitting threads see the retirement.
+    List<MetricsContextImpl> lastRetired = retiredContexts;
+    retiredContexts = new ArrayList<>();
+
+    final Iterator<MetricsContextImpl> iterator = Iterators.concat(lastRetired.iterator(),
+                                                                   contexts.values().iterator());
     return new AbstractIterator<MetricValues>() {
       @Override
       protected MetricValues computeNext() {
         while (iterator.hasNext()) {
-          Map.Entry<Map<String, String>, LoadingCache<String, AggregatedMetricsEmitter>> entry = iterator.next();
-          Map<String, AggregatedMetricsEmitter> metricEmitters = entry.getValue().asMap();
+          MetricsContextImpl context = iterator.next();
+          Map<String, AggregatedMetricsEmitter> metricEmitters = context.emitters;
           // +1 because we add extra metric about how many metric values did we emit in this context (see below)
           List<MetricValue> metricValues = Lists.newArrayListWithCapacity(metricEmitters.size() + 1);
-          for (Map.Entry<String, AggregatedMetricsEmitter> emitterEntry : metricEmitters.entrySet()) {
-            MetricValue metricValue = emitterEntry.getValue().emit();
+          for (AggregatedMetricsEmitter emitter : metricEmitters.values()) {
+            MetricValue metricValue = emitter.emit();
             // skip increment by 0
             if (metricValue.getType() == MetricType.COUNTER && metricValue.getValue() == 0) {
               continue;
@@ -194,53 +200,70 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
           }
 
           if (metricValues.isEmpty()) {
+            // Retire the context if it has been idle for long enough. Emitting through a retired context
+            // goes to a new context interned with the same tags.
+            if (!context.retired && currentTimeMillis - context.lastActiveMillis >= contextExpireMillis) {
+              context.retired = true;
+              contexts.remove(context.tags, context);
+              retiredContexts.add(context);
+            }
             // skip if there are no metric values to send
             continue;
           }
+          context.lastActiveMillis = currentTimeMillis;
 
           // number of emitted metrics
           metricValues.add(new MetricValue("metrics.emitted.count", MetricType.COUNTER, metricValues.size() + 1));
 
           LOG.trace("Emit metric {}", metricValues);
-          return new MetricValues(entry.getKey(), timestamp, metricValues);
+          return new MetricValues(context.tags, timestamp, metricValues);
         }
         return endOfData();
       }
     };
   }
 
-  private CacheLoader<Map<String, String>, MetricsContext> createCollectorLoader() {
-    return new CacheLoader<Map<String, String>, MetricsContext>() {
-      @Override
-      public MetricsContext load(final Map<String, String> collectorKey) throws Exception {
-        return new MetricsContextImpl(collectorKey);
-      }
-    };
-  }
-
+  /**
+   * A {@link MetricsContext} that holds the {@link AggregatedMetricsEmitter} of each metric it emits,
+   * so that no allocation is needed when updating metrics that were emitted before.
+   */
   private final class MetricsContextImpl implements MetricsContext {
 
     private final Map<String, String> tags;
+    private final ConcurrentMap<String, AggregatedMetricsEmitter> emitters;
+    // Only accessed by the publishing thread
+    private long lastActiveMillis;
+    private volatile boolean retired;
 
     private MetricsContextImpl(final Map<String, String> tags) {
       this.tags = ImmutableMap.copyOf(tags);
+      this.emitters = new ConcurrentHashMap<>();
+      this.lastActiveMillis = System.currentTimeMillis();
     }
 
     @Override
     public void increment(String metricName, long value) {
-      emitters.getUnchecked(tags).getUnchecked(metricName).increment(value);
+      if (retired) {
+        getContextImpl(tags).increment(metricName, value);
+        return;
+      }
+      getEmitter(metricName).increment(value);
     }
 
     @Override
     public void gauge(String metricName, long value) {
-      emitters.getUnchecked(tags).getUnchecked(metricName).gauge(value);
+      if (retired) {
+        getContextImpl(tags).gauge(metricName, value);
+        return;
+      }
+      getEmitter(metricName).gauge(value);
     }
 
     @Override
     public MetricsContext childContext(String tagName, String tagValue) {
       ImmutableMap<String, String> allTags = ImmutableMap.<String, String>builder()
         .putAll(tags).put(tagName, tagValue).build();
-      return collectors.getUnchecked(allTags);
+      return getContextImpl(allTags);
     }
 
     @Override
@@ -257,7 +280,15 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
       Map<String, String> allTags = Maps.newHashMap();
       allTags.putAll(this.tags);
       allTags.putAll(tags);
-      return collectors.getUnchecked(allTags);
+      return getContextImpl(allTags);
+    }
+
+    private AggregatedMetricsEmitter getEmitter(String metricName) {
+      AggregatedMetricsEmitter emitter = emitters.get(metricName);
+      if (emitter != null) {
+        return emitter;
+      }
+      return emitters.computeIfAbsent(metricName, AggregatedMetricsEmitter::new);
     }
   }
 }
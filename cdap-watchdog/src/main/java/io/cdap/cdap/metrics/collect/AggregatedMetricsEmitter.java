@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * {@link MetricsEmitter} that aggregates  values for a metric
@@ -31,8 +32,13 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
   private static final Logger LOG = LoggerFactory.getLogger(AggregatedMetricsEmitter.class);
 
   private final String name;
-  // metric value
-  private final AtomicLong value;
+  // Total of all increments. It is never reset, so that an increment racing with emit is not lost, but counted
+  // in the next emit instead. A LongAdder is used since increments can come from many threads on the hot path.
+  private final LongAdder total;
+  // The total emitted so far. Only accessed by the emitting thread
+  private long emittedTotal;
+  // last gauge value
+  private final AtomicLong gaugeValue;
   // specifies if the metric type is gauge or counter
   private final AtomicBoolean gaugeUsed;
 
@@ -42,25 +48,32 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
     }
 
     this.name = name;
-    this.value = new AtomicLong();
+    this.total = new LongAdder();
+    this.gaugeValue = new AtomicLong();
     this.gaugeUsed = new AtomicBoolean(false);
   }
 
   void increment(long value) {
-    this.value.addAndGet(value);
+    total.add(value);
   }
 
-
+  /**
+   * Emits the aggregated value since the last emit. If a gauge was set since then, the last gauge value is emitted
+   * and increments made in the same period are dropped. This method must not be called concurrently.
+   */
   @Override
   public MetricValue emit() {
-    // todo CDAP-2195 - potential race condition , reseting value and type has to be done together
-    long value = this.value.getAndSet(0);
-    MetricType type = gaugeUsed.getAndSet(false) ? MetricType.GAUGE : MetricType.COUNTER;
-    return new MetricValue(name, type, value);
+    long currentTotal = total.sum();
+    long delta = currentTotal - emittedTotal;
+    emittedTotal = currentTotal;
+    if (gaugeUsed.getAndSet(false)) {
+      return new MetricValue(name, MetricType.GAUGE, gaugeValue.get());
+    }
+    return new MetricValue(name, MetricType.COUNTER, delta);
   }
 
   public void gauge(long value) {
-    this.value.set(value);
-    this.gaugeUsed.set(true);
+    gaugeValue.set(value);
+    gaugeUsed.set(true);
   }
 }
@@ -19,6 +19,7 @@ package io.cdap.cdap.metrics.process;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.assistedinject.Assisted;
 import io.cdap.cdap.api.metrics.MetricStore;
 import io.cdap.cdap.api.metrics.MetricsContext;
@@ -49,7 +50,7 @@ public class MessagingMetricsProcessorManagerService extends AbstractIdleService
   private final MessagingService messagingService;
   private final SchemaGenerator schemaGenerator;
   private final DatumReaderFactory readerFactory;
-  private final MetricStore metricStore;
+  private final Provider<MetricStore> metricStoreProvider;
   private final MetricsWriterProvider metricsWriterProvider;
   private final Set<Integer> topicNumbers;
   private final MetricsContext metricsContext;
@@ -62,13 +63,13 @@ public class MessagingMetricsProcessorManagerService extends AbstractIdleService
                                           MessagingService messagingService,
                                           SchemaGenerator schemaGenerator,
                                           DatumReaderFactory readerFactory,
-                                          MetricStore metricStore,
+                                          Provider<MetricStore> metricStoreProvider,
                                           MetricsWriterProvider metricsWriterProvider,
                                           @Assisted Set<Integer> topicNumbers,
                                           @Assisted MetricsContext metricsContext,
                                           @Assisted Integer instanceId) {
     this(cConf, metricDatasetFactory, messagingService,
-         schemaGenerator, readerFactory, metricStore, metricsWriterProvider, topicNumbers, metricsContext,
+         schemaGenerator, readerFactory, metricStoreProvider, metricsWriterProvider, topicNumbers, metricsContext,
          TimeUnit.SECONDS.toMillis(cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS)), instanceId);
   }
 
@@ -84,6 +85,21 @@ public class MessagingMetricsProcessorManagerService extends AbstractIdleService
                                           MetricsContext metricsContext,
                                           long metricsProcessIntervalMillis,
                                           int instanceId) {
+    this(cConf, metricDatasetFactory, messagingService, schemaGenerator, readerFactory, () -> metricStore,
+         metricsWriterProvider, topicNumbers, metricsContext, metricsProcessIntervalMillis, instanceId);
+  }
+
+  private MessagingMetricsProcessorManagerService(CConfiguration cConf,
+                                                  MetricDatasetFactory metricDatasetFactory,
+                                                  MessagingService messagingService,
+                                                  SchemaGenerator schemaGenerator,
+                                                  DatumReaderFactory readerFactory,
+                                                  Provider<MetricStore> metricStoreProvider,
+                                                  MetricsWriterProvider metricsWriterProvider,
+                                                  Set<Integer> topicNumbers,
+                                                  MetricsContext metricsContext,
+                                                  long metricsProcessIntervalMillis,
+                                                  int instanceId) {
     this.metricsWriters = new ArrayList<>();
     this.metricsProcessorServices = new ArrayList<>();
     this.cConf = cConf;
@@ -91,7 +107,7 @@ public class MessagingMetricsProcessorManagerService extends AbstractIdleService
     this.messagingService = messagingService;
     this.schemaGenerator = schemaGenerator;
     this.readerFactory = readerFactory;
-    this.metricStore = metricStore;
+    this.metricStoreProvider = metricStoreProvider;
     this.metricsWriterProvider = metricsWriterProvider;
     this.topicNumbers = topicNumbers;
     this.metricsContext = metricsContext;
@@ -101,21 +117,40 @@ public class MessagingMetricsProcessorManagerService extends AbstractIdleService
 
   @Override
   protected void startUp() throws Exception {
-    MetricStoreMetricsWriter metricsWriter = new MetricStoreMetricsWriter(metricStore);
-    DefaultMetricsWriterContext context = new DefaultMetricsWriterContext(metricsContext,
-      cConf, metricsWriter.getID());
-    metricsWriter.initialize(context);
-    this.metricsWriters.add(metricsWriter);
+    // Each metric store writer has its own MetricStore instance, since MetricStore is not thread safe
+    int writerThreads = Math.max(1, cConf.getInt(Constants.Metrics.PROCESSOR_WRITER_THREADS));
+    List<MetricsWriter> metricStoreWriters = new ArrayList<>();
+    for (int i = 0; i < writerThreads; i++) {
+      MetricStoreMetricsWriter metricsWriter = new MetricStoreMetricsWriter(metricStoreProvider.get());
+      DefaultMetricsWriterContext context = new DefaultMetricsWriterContext(metricsContext,
+        cConf, metricsWriter.getID());
+      metricsWriter.initialize(context);
+      metricStoreWriters.add(metricsWriter);
+    }
+    this.metricsWriters.addAll(metricStoreWriters);
+    metricsProcessorServices.add(new MessagingMetricsProcessorService(
+      cConf,
+      metricDatasetFactory,
+      messagingService,
+      schemaGenerator,
+      readerFactory,
+      metricStoreWriters,
+      topicNumbers,
+      metricsContext,
+      metricsProcessIntervalMillis,
+      instanceId));
 
+    List<MetricsWriter> extensionWriters = new ArrayList<>();
     for (Map.Entry<String, MetricsWriter> metricsWriterEntry : metricsWriterProvider.loadMetricsWriters().entrySet()) {
       MetricsWriter writer = metricsWriterEntry.getValue();
       this.metricsWriters.add(writer);
+      extensionWriters.add(writer);
       DefaultMetricsWriterContext metricsWriterContext = new DefaultMetricsWriterContext(metricsContext,
         cConf, writer.getID());
       writer.initialize(metricsWriterContext);
     }
 
-    for (MetricsWriter metricsExtension : this.metricsWriters) {
+    for (MetricsWriter metricsExtension : extensionWriters) {
       metricsProcessorServices.add(new MessagingMetricsProcessorService(
         cConf,
         metricDatasetFactory,
@@ -38,10 +38,11 @@ import io.cdap.cdap.common.io.BinaryDecoder;
 import io.cdap.cdap.common.io.DatumReader;
 import io.cdap.cdap.common.logging.LogSamplers;
 import io.cdap.cdap.common.logging.Loggers;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.internal.io.DatumReaderFactory;
 import io.cdap.cdap.internal.io.SchemaGenerator;
-import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.TopicFetchRequest;
 import io.cdap.cdap.messaging.data.RawMessage;
 import io.cdap.cdap.metrics.store.MetricDatasetFactory;
 import io.cdap.cdap.proto.id.NamespaceId;
@@ -52,30 +53,45 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 /**
  * Process metrics by consuming metrics being published to TMS.
+ *
+ * The metrics topics are divided across {@link Constants.Metrics#PROCESSOR_FETCH_THREADS} fetch threads. Each thread
+ * fetches all of its topics with one batch fetch call to the messaging service per run.
+ *
+ * If more than one {@link MetricsWriter} is given, metrics are partitioned by their tags across writer workers,
+ * one per {@link MetricsWriter}, and each worker persists its partition in batches. Checkpoints are sent to all
+ * workers after each fetch. The progress of the topics is only saved once all workers have persisted the metrics
+ * before a checkpoint, hence it doesn't depend on how metrics are partitioned across the workers.
  */
 public class MessagingMetricsProcessorService extends AbstractExecutionThreadService {
 
   private static final Logger LOG = LoggerFactory.getLogger(MessagingMetricsProcessorManagerService.class);
   // Log the metrics processing progress no more than once per minute.
   private static final Logger PROGRESS_LOG = Loggers.sampling(LOG, LogSamplers.limitRate(60000));
+  // Marker to stop a writer worker
+  private static final Object STOP_WORKER = new Object();
 
   private final MetricDatasetFactory metricDatasetFactory;
   private final List<TopicId> metricsTopics;
@@ -83,6 +99,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   private final DatumReader<MetricValues> metricReader;
   private final Schema metricSchema;
   private final MetricsWriter metricsWriter;
+  private final List<MetricsWriter> metricsWriters;
   private final Map<String, String> metricsContextMap;
   private final int fetcherLimit;
   private final long maxDelayMillis;
@@ -93,12 +110,22 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   // maximum number of milliseconds to sleep between each run of fetching & processing new metrics, the max sleep time
   // is 1 min
   private final long metricsProcessIntervalMillis;
-  private final List<ProcessMetricsThread> processMetricsThreads;
+  private final int fetchThreads;
+  private final String processThreadName;
   private final String processMetricName;
   private final String metricsPrefixForDelayMetrics;
+  private final Object checkpointDispatchLock;
+  private final Object checkpointCommitLock;
+  private final AtomicInteger metricsSinceCheckpoint;
   private long metricsProcessedCount;
+  // Guarded by checkpointDispatchLock
+  private long checkpointSequence;
+  // Guarded by checkpointCommitLock
+  private long committedCheckpointSequence;
 
   private MetricsConsumerMetaTable metaTable;
+  private volatile List<ProcessMetricsThread> processMetricsThreads;
+  private List<WriterWorker> writerWorkers;
 
   private volatile boolean stopping;
 
@@ -128,6 +155,25 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
                                    MetricsContext metricsContext,
                                    long metricsProcessIntervalMillis,
                                    int instanceId) {
+    this(cConf, metricDatasetFactory, messagingService, schemaGenerator, readerFactory,
+         Collections.singletonList(metricsWriter), topicNumbers, metricsContext, metricsProcessIntervalMillis,
+         instanceId);
+  }
+
+  /**
+   * Constructor with a list of {@link MetricsWriter}. If there are more than one {@link MetricsWriter}, metrics
+   * will be partitioned across the given writers, which have to persist to the same storage.
+   */
+  MessagingMetricsProcessorService(CConfiguration cConf,
+                                   MetricDatasetFactory metricDatasetFactory,
+                                   MessagingService messagingService,
+                                   SchemaGenerator schemaGenerator,
+                                   DatumReaderFactory readerFactory,
+                                   List<MetricsWriter> metricsWriters,
+                                   Set<Integer> topicNumbers,
+                                   MetricsContext metricsContext,
+                                   long metricsProcessIntervalMillis,
+                                   int instanceId) {
     this.metricDatasetFactory = metricDatasetFactory;
     this.metricsPrefixForDelayMetrics = String.format("metrics.processor.%s", instanceId);
 
@@ -143,12 +189,20 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       // This should never happen
       throw Throwables.propagate(e);
     }
-    this.metricsWriter = metricsWriter;
+    this.metricsWriter = metricsWriters.get(0);
+    this.metricsWriters = new ArrayList<>(metricsWriters);
+    this.writerWorkers = Collections.emptyList();
+    this.checkpointDispatchLock = new Object();
+    this.checkpointCommitLock = new Object();
+    this.metricsSinceCheckpoint = new AtomicInteger();
     this.maxDelayMillis = cConf.getLong(Constants.Metrics.PROCESSOR_MAX_DELAY_MS);
     this.queueSize = cConf.getInt(Constants.Metrics.QUEUE_SIZE);
     this.fetcherLimit = Math.max(1, queueSize / topicNumbers.size()); // fetcherLimit is at least one
+    this.fetchThreads = Math.max(1, Math.min(cConf.getInt(Constants.Metrics.PROCESSOR_FETCH_THREADS),
+                                             topicNumbers.size()));
     this.metricsContextMap = metricsContext.getTags();
-    this.processMetricsThreads = new ArrayList<>();
+    this.processThreadName = String.format("ProcessMetricsThread-%d", instanceId);
+    this.processMetricsThreads = Collections.emptyList();
     this.metricsFromAllTopics = new LinkedBlockingDeque<>(queueSize);
     this.topicProcessMetaMap = new ConcurrentHashMap<>();
     this.persistingFlag = new AtomicBoolean();
@@ -188,6 +242,12 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       return;
     }
 
+    // Topics are assigned to the fetch threads in round robin, each thread fetches all of its topics in one call
+    List<Map<TopicIdMetaKey, TopicProcessMeta>> threadTopicProcessMetas = new ArrayList<>();
+    for (int i = 0; i < fetchThreads; i++) {
+      threadTopicProcessMetas.add(new LinkedHashMap<>());
+    }
+    int topicIdx = 0;
     for (TopicId topic : metricsTopics) {
       TopicProcessMeta topicProcessMeta = null;
       TopicIdMetaKey topicRowKey = new TopicIdMetaKey(topic);
@@ -196,18 +256,27 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       } catch (Exception e) {
         LOG.warn("Cannot retrieve last processed MessageId for topic: {}", topic, e);
       }
-      processMetricsThreads.add(new ProcessMetricsThread(topicRowKey, topicProcessMeta));
+      threadTopicProcessMetas.get(topicIdx++ % fetchThreads).put(topicRowKey, topicProcessMeta);
+    }
+    List<ProcessMetricsThread> threads = new ArrayList<>();
+    for (int i = 0; i < fetchThreads; i++) {
+      threads.add(new ProcessMetricsThread(i, threadTopicProcessMetas.get(i)));
     }
+    processMetricsThreads = threads;
 
     if (!isRunning()) {
       return;
     }
 
-    for (ProcessMetricsThread thread : processMetricsThreads) {
+    if (metricsWriters.size() > 1) {
+      writerWorkers = startWriterWorkers();
+    }
+
+    for (ProcessMetricsThread thread : threads) {
       thread.start();
     }
 
-    for (ProcessMetricsThread thread : processMetricsThreads) {
+    for (ProcessMetricsThread thread : threads) {
       try {
         thread.join();
       } catch (InterruptedException e) {
@@ -216,11 +285,48 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       }
     }
 
+    if (!writerWorkers.isEmpty()) {
+      // Checkpoint whatever was dispatched to the workers and wait for them to complete
+      stopWriterWorkers();
+      return;
+    }
+
     // Persist metricsFromAllTopics and messageId's after all ProcessMetricsThread's complete.
     // No need to make a copy of metricsFromAllTopics and topicProcessMetaMap because no thread is writing to them
     persistMetricsAndTopicProcessMeta(metricsFromAllTopics, topicProcessMetaMap);
   }
 
+  /**
+   * Creates and starts one {@link WriterWorker} per {@link MetricsWriter}.
+   */
+  private List<WriterWorker> startWriterWorkers() {
+    int workerQueueSize = Math.max(1, queueSize / metricsWriters.size());
+    List<WriterWorker> workers = new ArrayList<>();
+    for (int i = 0; i < metricsWriters.size(); i++) {
+      workers.add(new WriterWorker(i, metricsWriters.get(i), workerQueueSize));
+    }
+    workers.forEach(Thread::start);
+    return workers;
+  }
+
+  /**
+   * Sends a final checkpoint to all the {@link WriterWorker}s and waits for them to complete.
+   */
+  private void stopWriterWorkers() {
+    try {
+      dispatchCheckpoint();
+      for (WriterWorker worker : writerWorkers) {
+        worker.queue.put(STOP_WORKER);
+      }
+      for (WriterWorker worker : writerWorkers) {
+        worker.join();
+      }
+    } catch (InterruptedException e) {
+      LOG.info("Interrupted while waiting for metrics writer workers to finish.");
+      Thread.currentThread().interrupt();
+    }
+  }
+
   @Override
   protected void triggerShutdown() {
     LOG.info("Stopping Metrics Processing Service.");
@@ -270,8 +376,20 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
    */
   private void persistMetrics(Deque<MetricValues> metricValues,
                               Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap) {
-    long now = System.currentTimeMillis();
     long lastMetricTime = metricValues.peekLast().getTimestamp();
+    metricValues.add(createProcessorMetrics(topicProcessMetaMap, metricValues.size()));
+    metricsWriter.write(metricValues);
+    metricsProcessedCount += metricValues.size();
+    PROGRESS_LOG.debug("{} metrics persisted. Last metric's timestamp: {}",
+                       metricsProcessedCount, lastMetricTime);
+  }
+
+  /**
+   * Creates the {@link MetricValues} about the processing delay of each topic and the number of metrics processed.
+   */
+  private MetricValues createProcessorMetrics(Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap,
+                                              long metricsProcessed) {
+    long now = System.currentTimeMillis();
     List<MetricValue> topicLevelDelays = new ArrayList<>();
 
     //write topic level delay metrics
@@ -285,43 +403,92 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
                                            MetricType.GAUGE, delay));
     }
     List<MetricValue> processorMetrics = new ArrayList<>(topicLevelDelays);
-    processorMetrics.add(new MetricValue(processMetricName, MetricType.COUNTER, metricValues.size()));
+    processorMetrics.add(new MetricValue(processMetricName, MetricType.COUNTER, metricsProcessed));
+    return new MetricValues(metricsContextMap, TimeUnit.MILLISECONDS.toSeconds(now), processorMetrics);
+  }
 
-    metricValues.add(new MetricValues(metricsContextMap, TimeUnit.MILLISECONDS.toSeconds(now), processorMetrics));
-    metricsWriter.write(metricValues);
-    metricsProcessedCount += metricValues.size();
-    PROGRESS_LOG.debug("{} metrics persisted. Last metric's timestamp: {}",
-                       metricsProcessedCount, lastMetricTime);
+  /**
+   * Sends a {@link Checkpoint} of the current progress of all topics to all the {@link WriterWorker}s. Checkpoints
+   * are sent under a lock, such that all workers receive them in the same order. A topic's progress is only updated
+   * after its metrics are sent to the workers, hence the metrics before a checkpoint are always queued before it.
+   */
+  private void dispatchCheckpoint() throws InterruptedException {
+    synchronized (checkpointDispatchLock) {
+      Checkpoint checkpoint = new Checkpoint(++checkpointSequence, new HashMap<>(topicProcessMetaMap),
+                                             metricsSinceCheckpoint.getAndSet(0), writerWorkers.size());
+      for (WriterWorker worker : writerWorkers) {
+        worker.queue.put(checkpoint);
+      }
+    }
+  }
+
+  /**
+   * Commits the given {@link Checkpoint} after all the {@link WriterWorker}s persisted the metrics before it.
+   * Checkpoints can be committed by different workers, hence a checkpoint older than the last committed one is
+   * ignored.
+   */
+  private void commitCheckpoint(Checkpoint checkpoint, MetricsWriter writer) {
+    synchronized (checkpointCommitLock) {
+      if (checkpoint.sequence <= committedCheckpointSequence) {
+        return;
+      }
+      committedCheckpointSequence = checkpoint.sequence;
+      if (checkpoint.metricsCount > 0) {
+        try {
+          writer.write(Collections.singletonList(createProcessorMetrics(checkpoint.topicProcessMetas,
+                                                                        checkpoint.metricsCount)));
+        } catch (Exception e) {
+          LOG.warn("Failed to persist metrics processor metrics.", e);
+        }
+        metricsProcessedCount += checkpoint.metricsCount;
+        PROGRESS_LOG.debug("{} metrics persisted.", metricsProcessedCount);
+      }
+      persistTopicProcessMeta(checkpoint.topicProcessMetas);
+    }
   }
 
+  /**
+   * Thread for fetching and processing metrics from a subset of the metrics topics of this processor. Each run
+   * fetches from all the topics of the thread with one batch fetch call to the messaging service.
+   */
   private class ProcessMetricsThread extends Thread {
 
-    private final TopicIdMetaKey topicIdMetaKey;
+    private final List<TopicIdMetaKey> topicIdMetaKeys;
+    private final Map<TopicIdMetaKey, String> oldestTsMetricNames;
+    private final Map<TopicIdMetaKey, String> latestTsMetricNames;
     private final PayloadInputStream payloadInput;
     private final BinaryDecoder decoder;
-    private final String oldestTsMetricName;
-    private final String latestTsMetricName;
-    private long lastMetricTimeSecs;
 
-    ProcessMetricsThread(TopicIdMetaKey topicIdMetaKey, @Nullable TopicProcessMeta topicProcessMeta) {
-      super(String.format("ProcessMetricsThread-%s", topicIdMetaKey.getTopicId()));
+    ProcessMetricsThread(int threadId, Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetas) {
+      super(String.format("%s-%d", processThreadName, threadId));
       setDaemon(true);
-      oldestTsMetricName = String.format("%s.topic.%s.oldest.delay.ms",
-                                         metricsPrefixForDelayMetrics, topicIdMetaKey.getTopicId().getTopic());
-      latestTsMetricName = String.format("%s.topic.%s.latest.delay.ms",
-                                         metricsPrefixForDelayMetrics, topicIdMetaKey.getTopicId().getTopic());
-      if (topicProcessMeta != null && topicProcessMeta.getMessageId() != null) {
-        // message-id already for this topic in metaTable, we create a new TopicProcessMeta with existing values,
-        // write metric names and put it in map
-        byte[] persistedMessageId = topicProcessMeta.getMessageId();
-        topicProcessMetaMap.put(topicIdMetaKey,
-                                new TopicProcessMeta(persistedMessageId, topicProcessMeta.getOldestMetricsTimestamp(),
-                                                     topicProcessMeta.getLatestMetricsTimestamp(),
-                                                     topicProcessMeta.getMessagesProcessed(),
-                                                     topicProcessMeta.getLastProcessedTimestamp(),
-                                                     oldestTsMetricName, latestTsMetricName));
+      this.topicIdMetaKeys = new ArrayList<>(topicProcessMetas.keySet());
+      this.oldestTsMetricNames = new HashMap<>();
+      this.latestTsMetricNames = new HashMap<>();
+
+      for (Map.Entry<TopicIdMetaKey, TopicProcessMeta> entry : topicProcessMetas.entrySet()) {
+        TopicIdMetaKey topicIdMetaKey = entry.getKey();
+        TopicProcessMeta topicProcessMeta = entry.getValue();
+        String oldestTsMetricName = String.format("%s.topic.%s.oldest.delay.ms", metricsPrefixForDelayMetrics,
+                                                  topicIdMetaKey.getTopicId().getTopic());
+        String latestTsMetricName = String.format("%s.topic.%s.latest.delay.ms", metricsPrefixForDelayMetrics,
+                                                  topicIdMetaKey.getTopicId().getTopic());
+        oldestTsMetricNames.put(topicIdMetaKey, oldestTsMetricName);
+        latestTsMetricNames.put(topicIdMetaKey, latestTsMetricName);
+
+        if (topicProcessMeta != null && topicProcessMeta.getMessageId() != null) {
+          // message-id already for this topic in metaTable, we create a new TopicProcessMeta with existing values,
+          // write metric names and put it in map
+          byte[] persistedMessageId = topicProcessMeta.getMessageId();
+          topicProcessMetaMap.put(topicIdMetaKey,
+                                  new TopicProcessMeta(persistedMessageId,
+                                                       topicProcessMeta.getOldestMetricsTimestamp(),
+                                                       topicProcessMeta.getLatestMetricsTimestamp(),
+                                                       topicProcessMeta.getMessagesProcessed(),
+                                                       topicProcessMeta.getLastProcessedTimestamp(),
+                                                       oldestTsMetricName, latestTsMetricName));
+        }
       }
-      this.topicIdMetaKey = topicIdMetaKey;
       this.payloadInput = new PayloadInputStream();
       this.decoder = new BinaryDecoder(payloadInput);
     }
@@ -343,8 +510,8 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     }
 
     /**
-     * Fetch at most {@code fetcherLimit} metrics to process, and calculate the estimated sleep time before the next run
-     * with the best effort to avoid accumulating unprocessed metrics
+     * Fetch at most {@code fetcherLimit} metrics from each topic to process, and calculate the estimated sleep time
+     * before the next run with the best effort to avoid accumulating unprocessed metrics
      *
      * @return the estimated sleep time before the next run with the best effort to avoid accumulating unprocessed
      * metrics, or {@code 0} if no sleep to catch-up with new metrics at best effort
@@ -352,61 +519,90 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     private long processMetrics() {
       long startTime = System.currentTimeMillis();
       try {
-        MessageFetcher fetcher = messagingService.prepareFetch(topicIdMetaKey.getTopicId());
-        fetcher.setLimit(fetcherLimit);
-        TopicProcessMeta persistMetaInfo = topicProcessMetaMap.get(topicIdMetaKey);
-        byte[] lastMessageId = null;
-
-        if (persistMetaInfo != null) {
-          lastMessageId = persistMetaInfo.getMessageId();
+        List<TopicFetchRequest> fetchRequests = new ArrayList<>();
+        Map<TopicId, TopicIdMetaKey> topicKeys = new HashMap<>();
+        for (TopicIdMetaKey topicIdMetaKey : topicIdMetaKeys) {
+          TopicId topicId = topicIdMetaKey.getTopicId();
+          TopicProcessMeta persistMetaInfo = topicProcessMetaMap.get(topicIdMetaKey);
+          byte[] lastMessageId = persistMetaInfo == null ? null : persistMetaInfo.getMessageId();
+          fetchRequests.add(lastMessageId == null
+                              ? TopicFetchRequest.fromTime(topicId, 0L, fetcherLimit)
+                              : TopicFetchRequest.fromMessage(topicId, lastMessageId, false, fetcherLimit));
+          topicKeys.put(topicId, topicIdMetaKey);
         }
 
-        if (lastMessageId != null) {
-          fetcher.setStartMessage(lastMessageId, false);
-        } else {
-          fetcher.setStartTime(0L);
-        }
-
-        byte[] currentMessageId = null;
-        TopicProcessMeta localTopicProcessMeta =
-          new TopicProcessMeta(lastMessageId, Long.MAX_VALUE, Long.MIN_VALUE, 0,
-                               TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()),
-                               oldestTsMetricName, latestTsMetricName);
-        try (CloseableIterator<RawMessage> iterator = fetcher.fetch()) {
+        // The processing stats of topics that have new metrics fetched in this run
+        Map<TopicIdMetaKey, TopicProcessMeta> localTopicProcessMetas = new HashMap<>();
+        long lastMetricTimeSecs = Long.MAX_VALUE;
+        try (CloseableIterator<ImmutablePair<TopicId, RawMessage>> iterator =
+               messagingService.fetch(fetchRequests)) {
           while (iterator.hasNext() && isRunning()) {
-            RawMessage input = iterator.next();
+            ImmutablePair<TopicId, RawMessage> next = iterator.next();
+            TopicIdMetaKey topicIdMetaKey = topicKeys.get(next.getFirst());
+            RawMessage input = next.getSecond();
             try {
               payloadInput.reset(input.getPayload());
               MetricValues metricValues = metricReader.read(decoder, metricSchema);
-              if (!metricsFromAllTopics.offer(metricValues)) {
-                break;
+              byte[] currentMessageId = input.getId();
+              if (writerWorkers.isEmpty()) {
+                if (!metricsFromAllTopics.offer(metricValues)) {
+                  break;
+                }
+              } else {
+                WriterWorker worker = writerWorkers.get(Math.floorMod(metricValues.getTags().hashCode(),
+                                                                      writerWorkers.size()));
+                worker.queue.put(metricValues);
+                metricsSinceCheckpoint.incrementAndGet();
               }
-              lastMetricTimeSecs = metricValues.getTimestamp();
-              currentMessageId = input.getId();
               if (LOG.isTraceEnabled()) {
                 LOG.trace("Received message {} with metrics: {}", Bytes.toStringBinary(currentMessageId), metricValues);
               }
-              localTopicProcessMeta.updateTopicProcessingStats(currentMessageId, lastMetricTimeSecs);
+              TopicProcessMeta localTopicProcessMeta = localTopicProcessMetas.computeIfAbsent(
+                topicIdMetaKey, key -> {
+                  TopicProcessMeta persistMetaInfo = topicProcessMetaMap.get(key);
+                  return new TopicProcessMeta(persistMetaInfo == null ? null : persistMetaInfo.getMessageId(),
+                                              Long.MAX_VALUE, Long.MIN_VALUE, 0,
+                                              TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()),
+                                              oldestTsMetricNames.get(key), latestTsMetricNames.get(key));
+                });
+              localTopicProcessMeta.updateTopicProcessingStats(currentMessageId, metricValues.getTimestamp());
             } catch (IOException e) {
               LOG.warn("Failed to decode message to MetricValue. Skipped. {}", e.getMessage());
+            } catch (InterruptedException e) {
+              // It's triggered by stop. The metrics dispatched so far are checkpointed when the workers are stopped.
+              Thread.currentThread().interrupt();
+              break;
             }
           }
         }
 
-        if (currentMessageId != null) {
+        for (Map.Entry<TopicIdMetaKey, TopicProcessMeta> entry : localTopicProcessMetas.entrySet()) {
           // update the last processed timestamp in local topic meta and update the topicProcessMetaMap with this
           // local topic meta for the topic
+          TopicProcessMeta localTopicProcessMeta = entry.getValue();
           localTopicProcessMeta.updateLastProcessedTimestamp();
-          topicProcessMetaMap.put(topicIdMetaKey, localTopicProcessMeta);
+          topicProcessMetaMap.put(entry.getKey(), localTopicProcessMeta);
+          lastMetricTimeSecs = Math.min(lastMetricTimeSecs, localTopicProcessMeta.getLatestMetricsTimestamp());
+        }
+        if (writerWorkers.isEmpty()) {
+          // Try to persist metrics and messageId's of the last metrics to be persisted if no other thread is
+          // persisting
+          tryPersist();
+        } else if (!localTopicProcessMetas.isEmpty() && !Thread.currentThread().isInterrupted()) {
+          try {
+            dispatchCheckpoint();
+          } catch (InterruptedException e) {
+            // It's triggered by stop. A final checkpoint is sent when the workers are stopped.
+            Thread.currentThread().interrupt();
+          }
         }
-        // Try to persist metrics and messageId's of the last metrics to be persisted if no other thread is persisting
-        tryPersist();
 
         long endTime = System.currentTimeMillis();
-        // use currentMessageId != null to ensure that the current fetching is not empty and
+        // use non-empty localTopicProcessMetas to ensure that the current fetching is not empty and
         // lastMetricTimeSecs is updated
-        if (currentMessageId != null && endTime - TimeUnit.SECONDS.toMillis(lastMetricTimeSecs) > maxDelayMillis) {
-          // Don't sleep if falling behind
+        if (!localTopicProcessMetas.isEmpty()
+          && endTime - TimeUnit.SECONDS.toMillis(lastMetricTimeSecs) > maxDelayMillis) {
+          // Don't sleep if falling behind on any of the topics
           return 0L;
         } else {
           long timeSpent = endTime - startTime;
@@ -461,6 +657,121 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     }
   }
 
+  /**
+   * Thread for persisting the metrics of one partition through its own {@link MetricsWriter}.
+   */
+  private final class WriterWorker extends Thread {
+
+    private final MetricsWriter writer;
+    private final int batchSize;
+    private final BlockingQueue<Object> queue;
+    private final List<MetricValues> batch;
+    // Set if metrics could not be persisted, such that no checkpoint can be committed anymore
+    private boolean failed;
+
+    WriterWorker(int workerId, MetricsWriter writer, int batchSize) {
+      super(String.format("%s-writer-%d", processThreadName, workerId));
+      setDaemon(true);
+      this.writer = writer;
+      this.batchSize = batchSize;
+      this.queue = new LinkedBlockingQueue<>(batchSize);
+      this.batch = new ArrayList<>();
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Object item;
+        try {
+          item = queue.take();
+        } catch (InterruptedException e) {
+          LOG.info("Metrics writer worker {} is interrupted.", getName());
+          return;
+        }
+        if (item == STOP_WORKER) {
+          writeBatch();
+          return;
+        }
+        if (item instanceof Checkpoint) {
+          writeBatch();
+          checkpoint((Checkpoint) item);
+          continue;
+        }
+
+        batch.add((MetricValues) item);
+        if (batch.size() >= batchSize) {
+          writeBatch();
+        }
+      }
+    }
+
+    /**
+     * Persists the current batch, retrying until it succeeds. The checkpoints after the batch are only committed once
+     * it is persisted. If the processor is stopping, the batch is dropped without retry and no checkpoint is committed
+     * anymore, such that the metrics are fetched again after restart.
+     */
+    private void writeBatch() {
+      if (batch.isEmpty()) {
+        return;
+      }
+      while (!failed) {
+        try {
+          writer.write(batch);
+          break;
+        } catch (Exception e) {
+          if (stopping) {
+            LOG.warn("Failed to persist metrics in {} while stopping. They will be processed again after restart.",
+                     getName(), e);
+            failed = true;
+            break;
+          }
+          LOG.warn("Failed to persist metrics in {}, will retry in 1 sec.", getName(), e);
+          try {
+            TimeUnit.SECONDS.sleep(1);
+          } catch (InterruptedException ie) {
+            LOG.info("Metrics writer worker {} is interrupted.", getName());
+            failed = true;
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+      batch.clear();
+    }
+
+    /**
+     * Acknowledges the given {@link Checkpoint}. The last worker to acknowledge commits it, unless a worker failed
+     * to persist the metrics before it.
+     */
+    private void checkpoint(Checkpoint checkpoint) {
+      if (failed) {
+        checkpoint.failed = true;
+      }
+      if (checkpoint.pendingWorkers.decrementAndGet() == 0 && !checkpoint.failed) {
+        commitCheckpoint(checkpoint, writer);
+      }
+    }
+  }
+
+  /**
+   * The processing progress of all topics at the time it is sent to the {@link WriterWorker}s.
+   */
+  private static final class Checkpoint {
+    private final long sequence;
+    private final Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetas;
+    private final int metricsCount;
+    private final AtomicInteger pendingWorkers;
+    // Set by a worker that failed to persist the metrics before this checkpoint
+    private volatile boolean failed;
+
+    Checkpoint(long sequence, Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetas,
+               int metricsCount, int workers) {
+      this.sequence = sequence;
+      this.topicProcessMetas = topicProcessMetas;
+      this.metricsCount = metricsCount;
+      this.pendingWorkers = new AtomicInteger(workers);
+    }
+  }
+
   private class PayloadInputStream extends ByteArrayInputStream {
 
     PayloadInputStream() {
@@ -325,11 +325,12 @@ public class MetricsQueryHelper {
     } else {
       // if not auto, check if the given resolution matches available resolutions that we support.
       int resolutionInterval = TimeMathParser.resolutionInSeconds(resolution);
-      if (!((resolutionInterval == Integer.MAX_VALUE) || (resolutionInterval == 3600) ||
-        (resolutionInterval == 60) || (resolutionInterval == minResolution))) {
+      // the day resolution is rolled up from the hour resolution by the metric store
+      if (!((resolutionInterval == Integer.MAX_VALUE) || (resolutionInterval == 86400) ||
+        (resolutionInterval == 3600) || (resolutionInterval == 60) || (resolutionInterval == minResolution))) {
         throw new IllegalArgumentException(String.format("Resolution interval not supported, only %d second, " +
-                                                           "1 minute and 1 hour resolutions are supported currently",
-                                                         minResolution));
+                                                           "1 minute, 1 hour and 1 day resolutions are supported " +
+                                                           "currently", minResolution));
       }
       return resolutionInterval;
     }
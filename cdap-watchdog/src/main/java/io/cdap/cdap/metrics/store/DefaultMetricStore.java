@@ -218,10 +218,13 @@ public class DefaultMetricStore implements MetricStore {
       // TODO: remove roll time from the supplier api, https://issues.cask.co/browse/CDAP-14730
       return dsFactory.getOrCreateFactTable(resolution);
     };
+    long queryCacheExpireMillis = TimeUnit.SECONDS.toMillis(
+      cConf.getLong(Constants.Metrics.QUERY_CACHE_EXPIRE_SECONDS, 5L));
     this.cube = Suppliers.memoize(new Supplier<Cube>() {
       @Override
       public Cube get() {
-        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
+        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS,
+                                           queryCacheExpireMillis);
         cube.setMetricsCollector(metricsContext);
         return cube;
       }
@@ -309,11 +312,12 @@ public class DefaultMetricStore implements MetricStore {
 
   @Override
   public void deleteAll() {
-    // this will delete all aggregates metrics data
-    delete(new MetricDeleteQuery(0, System.currentTimeMillis() / 1000, Collections.emptySet(),
-                                 Collections.emptyMap(), Collections.emptyList()));
     // this will delete all timeseries data
     deleteBefore(System.currentTimeMillis() / 1000);
+    // this will delete all aggregates metrics data. It goes through the cube last, such that query results cached
+    // before the deletion are invalidated.
+    delete(new MetricDeleteQuery(0, System.currentTimeMillis() / 1000, Collections.emptySet(),
+                                 Collections.emptyMap(), Collections.emptyList()));
   }
 
   private CubeDeleteQuery buildCubeDeleteQuery(MetricDeleteQuery query) {
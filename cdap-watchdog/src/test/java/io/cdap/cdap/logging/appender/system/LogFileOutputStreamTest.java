@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.appender.system;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.read.LogEvent;
+import io.cdap.cdap.logging.write.LogFileIndex;
+import io.cdap.cdap.logging.write.LogLocation;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.apache.avro.file.CodecFactory;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for {@link LogFileOutputStream} and reading the log file written by it through {@link LogLocation}.
+ */
+public class LogFileOutputStreamTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testIndexedRead() throws Exception {
+    Location location = new LocalLocationFactory(TMP_FOLDER.newFolder()).create("test.avro");
+    Logger logger = new LoggerContext().getLogger(Logger.ROOT_LOGGER_NAME);
+
+    // Use small sync and index intervals to have many blocks
+    try (LogFileOutputStream os = new LogFileOutputStream(location, "", 256, 512, 0L, () -> { })) {
+      os.flush();
+      for (int i = 0; i < 1000; i++) {
+        LoggingEvent event = new LoggingEvent("io.cdap.Test", logger, Level.INFO, "Message " + i, null, null);
+        // Have two events for each timestamp
+        event.setTimeStamp(1000L + i / 2);
+        os.append(event);
+      }
+    }
+
+    LogFileIndex index = LogFileIndex.read(location);
+    Assert.assertNotNull(index);
+    Assert.assertTrue(index.size() > 10);
+
+    LogLocation logLocation = new LogLocation(LogLocation.VERSION_1, 1000L, 0L, location,
+                                              NamespaceId.DEFAULT.getNamespace(), null);
+    long[] fromTimes = {0L, 1000L, 1001L, 1123L, 1250L, 1499L, 1500L, 2000L};
+    List<List<String>> indexedNext = new ArrayList<>();
+    List<List<String>> indexedPrev = new ArrayList<>();
+    for (long fromTime : fromTimes) {
+      indexedNext.add(readNext(logLocation, fromTime));
+      indexedPrev.add(readPrev(logLocation, fromTime));
+    }
+
+    // Reading with index should have the same result as reading without
+    Assert.assertTrue(LogFileIndex.getIndexLocation(location).delete());
+    Assert.assertNull(LogFileIndex.read(location));
+    for (int i = 0; i < fromTimes.length; i++) {
+      Assert.assertEquals(readNext(logLocation, fromTimes[i]), indexedNext.get(i));
+      Assert.assertEquals(readPrev(logLocation, fromTimes[i]), indexedPrev.get(i));
+    }
+
+    Assert.assertEquals(1000, indexedNext.get(0).size());
+    Assert.assertEquals("Message 500", indexedNext.get(4).get(0));
+    Assert.assertTrue(indexedNext.get(7).isEmpty());
+    Assert.assertTrue(indexedPrev.get(0).isEmpty());
+    Assert.assertEquals(100, indexedPrev.get(3).size());
+    Assert.assertEquals("Message 247", indexedPrev.get(3).get(99));
+  }
+
+  @Test
+  public void testCompressed() throws Exception {
+    Logger logger = new LoggerContext().getLogger(Logger.ROOT_LOGGER_NAME);
+    Location plainLocation = new LocalLocationFactory(TMP_FOLDER.newFolder()).create("plain.avro");
+    Location compressedLocation = new LocalLocationFactory(TMP_FOLDER.newFolder()).create("compressed.avro");
+
+    try (
+      LogFileOutputStream plain = new LogFileOutputStream(plainLocation, "", 4096, 8192, 0L, () -> { });
+      LogFileOutputStream compressed = new LogFileOutputStream(compressedLocation, "", 4096, 8192,
+                                                               CodecFactory.snappyCodec(), 0L, () -> { })
+    ) {
+      for (int i = 0; i < 1000; i++) {
+        LoggingEvent event = new LoggingEvent("io.cdap.Test", logger, Level.INFO, "Message " + i, null, null);
+        event.setTimeStamp(1000L + i);
+        plain.append(event);
+        compressed.append(event);
+      }
+    }
+
+    // Logger and thread names are repeated in every event, which should compress well
+    Assert.assertTrue(compressedLocation.length() < plainLocation.length() / 2);
+
+    // Reading the compressed file should give the same result
+    LogLocation plainLogLocation = new LogLocation(LogLocation.VERSION_1, 1000L, 0L, plainLocation,
+                                                   NamespaceId.DEFAULT.getNamespace(), null);
+    LogLocation compressedLogLocation = new LogLocation(LogLocation.VERSION_1, 1000L, 0L, compressedLocation,
+                                                        NamespaceId.DEFAULT.getNamespace(), null);
+    for (long fromTime : new long[] {0L, 1500L, 2000L}) {
+      Assert.assertEquals(readNext(plainLogLocation, fromTime), readNext(compressedLogLocation, fromTime));
+      Assert.assertEquals(readPrev(plainLogLocation, fromTime), readPrev(compressedLogLocation, fromTime));
+    }
+    Assert.assertEquals(500, readNext(compressedLogLocation, 1500L).size());
+  }
+
+  private List<String> readNext(LogLocation logLocation, long fromTime) {
+    List<String> messages = new ArrayList<>();
+    try (CloseableIterator<LogEvent> iterator = logLocation.readLog(Filter.EMPTY_FILTER, fromTime,
+                                                                    Long.MAX_VALUE, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        messages.add(iterator.next().getLoggingEvent().getFormattedMessage());
+      }
+    }
+    return messages;
+  }
+
+  private List<String> readPrev(LogLocation logLocation, long fromTime) throws Exception {
+    List<String> messages = new ArrayList<>();
+    for (LogEvent event : logLocation.readLogPrev(Filter.EMPTY_FILTER, fromTime, 100)) {
+      messages.add(event.getLoggingEvent().getFormattedMessage());
+    }
+    return messages;
+  }
+}
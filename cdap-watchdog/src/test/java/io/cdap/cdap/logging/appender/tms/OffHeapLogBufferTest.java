@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.appender.tms;
+
+import io.cdap.cdap.api.common.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for {@link OffHeapLogBuffer}.
+ */
+public class OffHeapLogBufferTest {
+
+  @Test
+  public void testWrapAround() {
+    // Each event takes 4 bytes for the length plus 6 bytes payload
+    OffHeapLogBuffer buffer = new OffHeapLogBuffer(64, 1.0d);
+    int next = 0;
+    int expected = 0;
+    for (int round = 0; round < 20; round++) {
+      while (buffer.offer(Bytes.toBytes(String.format("msg%03d", next % 1000).substring(0, 6)), false)) {
+        next++;
+      }
+      Assert.assertTrue(buffer.size() > 64 - 10);
+
+      // Drain a few events every round, such that events wrap around the end of the buffer
+      List<byte[]> events = new ArrayList<>();
+      Assert.assertEquals(18, buffer.drainTo(events, 20));
+      Assert.assertEquals(3, events.size());
+      for (byte[] event : events) {
+        Assert.assertEquals(String.format("msg%03d", expected++ % 1000).substring(0, 6), Bytes.toString(event));
+      }
+    }
+
+    List<byte[]> events = new ArrayList<>();
+    buffer.drainTo(events, Integer.MAX_VALUE);
+    for (byte[] event : events) {
+      Assert.assertEquals(String.format("msg%03d", expected++ % 1000).substring(0, 6), Bytes.toString(event));
+    }
+    Assert.assertEquals(next, expected);
+    Assert.assertEquals(0, buffer.size());
+  }
+
+  @Test
+  public void testShedding() {
+    OffHeapLogBuffer buffer = new OffHeapLogBuffer(100, 0.5d);
+
+    // Sheddable events can only use half of the buffer
+    int sheddable = 0;
+    while (buffer.offer(new byte[6], true)) {
+      sheddable++;
+    }
+    Assert.assertEquals(5, sheddable);
+
+    // Other events can use the rest
+    int others = 0;
+    while (buffer.offer(new byte[6], false)) {
+      others++;
+    }
+    Assert.assertEquals(5, others);
+    Assert.assertFalse(buffer.offer(new byte[6], true));
+
+    // At least one event is drained even if it is larger than the limit
+    List<byte[]> events = new ArrayList<>();
+    Assert.assertEquals(6, buffer.drainTo(events, 1));
+    Assert.assertEquals(1, events.size());
+
+    // An event larger than the buffer is never accepted
+    Assert.assertFalse(new OffHeapLogBuffer(100, 1.0d).offer(new byte[100], false));
+  }
+}
@@ -122,6 +122,60 @@ public class TestTMSLogging {
     }
   }
 
+  @Test
+  public void testAsyncTmsLogAppender() throws Exception {
+    CConfiguration asyncConf = CConfiguration.copy(cConf);
+    asyncConf.setBoolean(Constants.Logging.TMS_ASYNC_ENABLED, true);
+    asyncConf.set(Constants.Logging.TMS_TOPIC_PREFIX, "asynclogs");
+    // Use a small batch size to have multiple batches
+    asyncConf.setInt(Constants.Logging.TMS_ASYNC_BATCH_SIZE, 1024);
+
+    int numPartitions = asyncConf.getInt(Constants.Logging.NUM_PARTITIONS);
+    List<TopicId> asyncTopicIds = new ArrayList<>();
+    for (int i = 0; i < numPartitions; i++) {
+      TopicId topicId = NamespaceId.SYSTEM.topic("asynclogs" + i);
+      client.createTopic(new TopicMetadata(topicId));
+      asyncTopicIds.add(topicId);
+    }
+
+    try {
+      LogAppenderInitializer logAppenderInitializer =
+        new LogAppenderInitializer(new TMSLogAppender(asyncConf, client));
+      logAppenderInitializer.initialize("TestAsyncTMSLogging");
+
+      Logger logger = LoggerFactory.getLogger("TestAsyncTMSLogging");
+      LoggingContext loggingContext = new MapReduceLoggingContext("TKL_NS_1", "APP_1", "MR_1", "RUN1");
+      new LoggingTester().generateLogs(logger, loggingContext);
+
+      // Closing the appender publishes all buffered logs
+      logAppenderInitializer.close();
+
+      LoggingEventSerializer loggingEventSerializer = new LoggingEventSerializer();
+      List<ILoggingEvent> fetchedLogs = new ArrayList<>();
+      for (TopicId topicId : asyncTopicIds) {
+        try (CloseableIterator<RawMessage> messages = client.prepareFetch(topicId).fetch()) {
+          while (messages.hasNext()) {
+            fetchedLogs.add(loggingEventSerializer.fromBytes(ByteBuffer.wrap(messages.next().getPayload())));
+          }
+        }
+      }
+
+      // LoggingTester emits 240 logs in total, with 60 logs with the given LoggingContext
+      Assert.assertEquals(240, fetchedLogs.size());
+      Filter logFilter = LoggingContextHelper.createFilter(loggingContext);
+      List<ILoggingEvent> filteredLogs = fetchedLogs.stream().filter(logFilter::match).collect(Collectors.toList());
+      Assert.assertEquals(60, filteredLogs.size());
+      for (int i = 0; i < filteredLogs.size(); i++) {
+        Assert.assertEquals(String.format("Test log message %s arg1 arg2", i),
+                            filteredLogs.get(i).getFormattedMessage());
+      }
+    } finally {
+      for (TopicId topicId : asyncTopicIds) {
+        client.deleteTopic(topicId);
+      }
+    }
+  }
+
   @Test
   public void testTmsLogAppender() throws Exception {
     // setup TMSLogAppender and log messages to it
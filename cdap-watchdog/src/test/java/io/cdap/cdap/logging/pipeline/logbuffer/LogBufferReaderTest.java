@@ -20,6 +20,8 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.common.logging.LoggingContext;
 import io.cdap.cdap.logging.appender.LogMessage;
 import io.cdap.cdap.logging.context.WorkerLoggingContext;
@@ -32,7 +34,10 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -72,6 +77,46 @@ public class LogBufferReaderTest {
     reader.close();
   }
 
+  @Test
+  public void testParallelRead() throws Exception {
+    String absolutePath = TMP_FOLDER.newFolder().getAbsolutePath();
+
+    // Use a small file size to have many files
+    LogBufferWriter writer = new LogBufferWriter(absolutePath, 400, () -> { });
+    WorkerLoggingContext loggingContext =
+      new WorkerLoggingContext("default", "app1", "worker1", "run1", "instance1");
+    List<byte[]> events = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      events.add(serializer.toBytes(createLoggingEvent("test.logger", Level.INFO, String.valueOf(i),
+                                                       System.currentTimeMillis(), loggingContext)));
+    }
+    List<LogBufferEvent> writtenEvents = Lists.newArrayList(writer.write(events.iterator()));
+    writer.close();
+    long maxFileId = writtenEvents.get(writtenEvents.size() - 1).getOffset().getFileId();
+    Assert.assertTrue(maxFileId > 10);
+
+    // An incomplete event at the end of the last file should be ignored
+    try (FileOutputStream os = new FileOutputStream(new File(absolutePath, maxFileId + ".buf"), true)) {
+      os.write(Bytes.toBytes(100));
+      os.write(new byte[10]);
+    }
+
+    List<LogBufferEvent> logBufferEvents = new LinkedList<>();
+    for (int parallelism : new int[] { 1, 3, 20 }) {
+      try (LogBufferReader reader = new LogBufferReader(absolutePath, 7, maxFileId, -1, -1, parallelism)) {
+        verifyEvents(logBufferEvents, reader, writtenEvents.iterator());
+      }
+
+      // Start from a checkpoint in the middle of a file
+      LogBufferEvent checkpoint = writtenEvents.get(42);
+      try (LogBufferReader reader = new LogBufferReader(absolutePath, 7, maxFileId,
+                                                        checkpoint.getOffset().getFileId(),
+                                                        checkpoint.getOffset().getFilePos(), parallelism)) {
+        verifyEvents(logBufferEvents, reader, writtenEvents.subList(43, writtenEvents.size()).iterator());
+      }
+    }
+  }
+
   private void verifyEvents(List<LogBufferEvent> logBufferEvents, LogBufferReader reader,
                             Iterator<LogBufferEvent> iterator) throws IOException {
     while (reader.readEvents(logBufferEvents) > 0) {
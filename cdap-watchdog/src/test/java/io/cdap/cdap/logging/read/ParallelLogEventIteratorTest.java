@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.read;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import io.cdap.cdap.logging.write.LogLocation;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit test for {@link ParallelLogEventIterator}.
+ */
+public class ParallelLogEventIteratorTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final int FILES = 10;
+  private static final int EVENTS_PER_FILE = 200;
+
+  private static ExecutorService executor;
+  private static List<LogLocation> files;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    executor = Executors.newCachedThreadPool();
+    LocalLocationFactory locationFactory = new LocalLocationFactory(TMP_FOLDER.newFolder());
+    Logger logger = new LoggerContext().getLogger(Logger.ROOT_LOGGER_NAME);
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+
+    // Files with overlapping time ranges, each starting 50ms after the previous one
+    files = new ArrayList<>();
+    for (int i = 0; i < FILES; i++) {
+      long startTime = 1000L + i * 50;
+      Location location = locationFactory.create("file" + i + ".avro");
+      try (OutputStream os = location.getOutputStream();
+           DataFileWriter<GenericRecord> writer =
+             new DataFileWriter<GenericRecord>(new GenericDatumWriter<>(serializer.getAvroSchema()))
+               .create(serializer.getAvroSchema(), os)) {
+        for (int j = 0; j < EVENTS_PER_FILE; j++) {
+          Level level = j % 3 == 0 ? Level.ERROR : Level.INFO;
+          LoggingEvent event = new LoggingEvent("io.cdap.Test", logger, level, "Message " + i + " " + j, null, null);
+          event.setTimeStamp(startTime + j);
+          writer.append(serializer.toGenericRecord(event));
+        }
+      }
+      files.add(new LogLocation(LogLocation.VERSION_1, startTime, 0L, location,
+                                NamespaceId.DEFAULT.getNamespace(), null));
+    }
+  }
+
+  @AfterClass
+  public static void finish() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testMerge() {
+    Filter errorFilter = event -> event.getLevel() == Level.ERROR;
+    long[][] ranges = {{0L, Long.MAX_VALUE}, {1100L, 1300L}, {1420L, 1421L}, {5000L, 6000L}};
+
+    for (Filter filter : new Filter[] { Filter.EMPTY_FILTER, errorFilter }) {
+      for (long[] range : ranges) {
+        List<ILoggingEvent> expected = new ArrayList<>();
+        for (LogLocation file : files) {
+          try (CloseableIterator<LogEvent> iterator = file.readLog(filter, range[0], range[1], Integer.MAX_VALUE)) {
+            iterator.forEachRemaining(e -> expected.add(e.getLoggingEvent()));
+          }
+        }
+        // Stable sort by timestamp, which keeps events of the same timestamp in file order
+        expected.sort((e1, e2) -> Long.compare(e1.getTimeStamp(), e2.getTimeStamp()));
+
+        for (int parallelism : new int[] { 1, 3, FILES * 2 }) {
+          List<ILoggingEvent> actual = new ArrayList<>();
+          try (CloseableIterator<LogEvent> iterator = new ParallelLogEventIterator(files, filter, range[0], range[1],
+                                                                                   parallelism, executor)) {
+            iterator.forEachRemaining(e -> actual.add(e.getLoggingEvent()));
+          }
+          Assert.assertEquals(expected.size(), actual.size());
+          for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getFormattedMessage(), actual.get(i).getFormattedMessage());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBoundedExecutor() throws InterruptedException {
+    List<ILoggingEvent> expected = new ArrayList<>();
+    for (LogLocation file : files) {
+      try (CloseableIterator<LogEvent> iterator = file.readLog(Filter.EMPTY_FILTER, 0L, Long.MAX_VALUE,
+                                                               Integer.MAX_VALUE)) {
+        iterator.forEachRemaining(e -> expected.add(e.getLoggingEvent()));
+      }
+    }
+    expected.sort((e1, e2) -> Long.compare(e1.getTimeStamp(), e2.getTimeStamp()));
+
+    // An executor that tracks the maximum number of concurrent tasks and rejects tasks beyond two threads.
+    // Since all files overlap, scanning with parallelism 3 has to read some of the files directly.
+    AtomicInteger activeTasks = new AtomicInteger();
+    AtomicInteger maxActiveTasks = new AtomicInteger();
+    ThreadPoolExecutor boundedExecutor = new ThreadPoolExecutor(0, 2, 1L, TimeUnit.SECONDS,
+                                                                new SynchronousQueue<>()) {
+      @Override
+      protected void beforeExecute(Thread t, Runnable r) {
+        maxActiveTasks.accumulateAndGet(activeTasks.incrementAndGet(), Math::max);
+      }
+
+      @Override
+      protected void afterExecute(Runnable r, Throwable t) {
+        activeTasks.decrementAndGet();
+      }
+    };
+
+    try {
+      for (int parallelism : new int[] { 1, 3 }) {
+        // Wait for tasks of the previous iteration to finish
+        while (activeTasks.get() > 0) {
+          TimeUnit.MILLISECONDS.sleep(10);
+        }
+        maxActiveTasks.set(0);
+
+        List<ILoggingEvent> actual = new ArrayList<>();
+        try (CloseableIterator<LogEvent> iterator = new ParallelLogEventIterator(files, Filter.EMPTY_FILTER, 0L,
+                                                                                 Long.MAX_VALUE, parallelism,
+                                                                                 boundedExecutor)) {
+          iterator.forEachRemaining(e -> actual.add(e.getLoggingEvent()));
+        }
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+          Assert.assertEquals(expected.get(i).getFormattedMessage(), actual.get(i).getFormattedMessage());
+        }
+        Assert.assertTrue(maxActiveTasks.get() <= Math.min(parallelism, 2));
+      }
+    } finally {
+      boundedExecutor.shutdownNow();
+      Assert.assertTrue(boundedExecutor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testClose() {
+    List<String> messages = new ArrayList<>();
+    try (CloseableIterator<LogEvent> iterator = new ParallelLogEventIterator(files, Filter.EMPTY_FILTER, 0L,
+                                                                             Long.MAX_VALUE, 4, executor)) {
+      for (int i = 0; i < 10 && iterator.hasNext(); i++) {
+        messages.add(iterator.next().getLoggingEvent().getFormattedMessage());
+      }
+    }
+    Assert.assertEquals(10, messages.size());
+    Assert.assertEquals("Message 0 0", messages.get(0));
+  }
+}
@@ -17,6 +17,7 @@ package io.cdap.cdap.metrics.collect;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Uninterruptibles;
 import io.cdap.cdap.api.metrics.MetricValue;
 import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.api.metrics.MetricsContext;
@@ -31,6 +32,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -139,6 +143,73 @@ public class AggregatedMetricsCollectionServiceTest {
     }
   }
 
+  @Test
+  public void testConcurrentIncrement() throws InterruptedException {
+    BlockingQueue<MetricValues> published = new LinkedBlockingQueue<>();
+    AggregatedMetricsCollectionService service = new AggregatedMetricsCollectionService(100L) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        Iterators.addAll(published, metrics);
+      }
+    };
+    service.startAndWait();
+
+    int threads = 8;
+    int increments = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      MetricsContext context = service.getContext(ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, NAMESPACE));
+      CountDownLatch startLatch = new CountDownLatch(1);
+      for (int i = 0; i < threads; i++) {
+        executor.execute(() -> {
+          Uninterruptibles.awaitUninterruptibly(startLatch);
+          for (int j = 0; j < increments; j++) {
+            // Contexts are interned, hence should always have the metric aggregated into the same emitter
+            if (j % 2 == 0) {
+              context.increment(METRIC, 1);
+            } else {
+              service.getContext(context.getTags()).increment(METRIC, 1);
+            }
+          }
+        });
+      }
+      startLatch.countDown();
+      executor.shutdown();
+      Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+      verifyCounterMetricsValue(published, ImmutableMap.of(1, ImmutableMap.of(METRIC, (long) threads * increments)));
+    } finally {
+      executor.shutdownNow();
+      service.stopAndWait();
+    }
+  }
+
+  @Test
+  public void testExpiredContext() throws InterruptedException {
+    BlockingQueue<MetricValues> published = new LinkedBlockingQueue<>();
+    AggregatedMetricsCollectionService service = new AggregatedMetricsCollectionService(100L, 200L) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        Iterators.addAll(published, metrics);
+      }
+    };
+    service.startAndWait();
+
+    try {
+      MetricsContext context = service.getContext(ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, NAMESPACE));
+      context.increment(METRIC, 1);
+      verifyCounterMetricsValue(published, ImmutableMap.of(1, ImmutableMap.of(METRIC, 1L)));
+
+      // Wait for the context to expire. Emitting through the expired context should still be published.
+      TimeUnit.SECONDS.sleep(1);
+      context.increment(METRIC, 2);
+      context.gauge(GAUGE_METRIC, 5);
+      verifyCounterMetricsValue(published, ImmutableMap.of(1, ImmutableMap.of(METRIC, 2L, GAUGE_METRIC, 5L)));
+    } finally {
+      service.stopAndWait();
+    }
+  }
+
   private void verifyCounterMetricsValue(BlockingQueue<MetricValues> published,
                                          Map<Integer, Map<String, Long>> expected) throws InterruptedException {
     Map<Integer, Map<String, Long>> received = new HashMap<>();
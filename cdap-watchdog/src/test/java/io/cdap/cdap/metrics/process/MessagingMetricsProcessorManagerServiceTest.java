@@ -26,6 +26,8 @@ import io.cdap.cdap.api.metrics.MetricValue;
 import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.api.metrics.MetricsProcessorStatus;
+import io.cdap.cdap.api.metrics.MetricsWriter;
+import io.cdap.cdap.api.metrics.MetricsWriterContext;
 import io.cdap.cdap.api.metrics.NoopMetricsContext;
 import io.cdap.cdap.api.metrics.TagValue;
 import io.cdap.cdap.common.conf.Constants;
@@ -43,9 +45,11 @@ import org.apache.tephra.TransactionManager;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -130,6 +134,67 @@ public class MessagingMetricsProcessorManagerServiceTest extends MetricsProcesso
     }
   }
 
+  @Test
+  public void testParallelWriters() throws Exception {
+    injector.getInstance(TransactionManager.class).startAndWait();
+    StructuredTableRegistry structuredTableRegistry = injector.getInstance(StructuredTableRegistry.class);
+    structuredTableRegistry.initialize();
+    StoreDefinition.createAllTables(injector.getInstance(StructuredTableAdmin.class), structuredTableRegistry);
+    injector.getInstance(DatasetOpExecutorService.class).startAndWait();
+    injector.getInstance(DatasetService.class).startAndWait();
+
+    Set<Integer> partitions = IntStream.range(0, cConf.getInt(Constants.Metrics.MESSAGING_TOPIC_NUM))
+      .boxed().collect(Collectors.toSet());
+    long startTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+
+    for (int i = 0; i < 50; i++) {
+      publishMessagingMetrics(i, startTime, METRICS_CONTEXT, expected, "", MetricType.COUNTER);
+    }
+    for (int i = 50; i < 100; i++) {
+      // Use different contexts for the gauges so that they are partitioned to different writers
+      publishMessagingMetrics(i, startTime, Collections.singletonMap(Constants.Metrics.Tag.NAMESPACE, "ns" + i),
+                              expected, "", MetricType.GAUGE);
+    }
+
+    MockMetricStore metricStore = new MockMetricStore();
+    MessagingMetricsProcessorService processorService = createParallelProcessorService(metricStore, partitions, 3);
+    processorService.startAndWait();
+    try {
+      // Wait for the 1 aggregated counter metric (with value 50) and 50 gauge metrics to be stored in the metricStore
+      Tasks.waitFor(51, () -> metricStore.getAllMetrics().size(), 15, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+      assertMetricsResult(expected, metricStore.getAllMetrics());
+      Tasks.waitFor(100L, metricStore::getMetricsProcessedByMetricsProcessor,
+                    15, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+      Tasks.waitFor(true, metricStore::isMetricsProcessorDelayEmitted, 15, TimeUnit.SECONDS);
+    } finally {
+      processorService.stopAndWait();
+    }
+
+    // Restart the processor. Metrics already persisted by the writers should not be persisted again.
+    publishMessagingMetrics(100, startTime, METRICS_CONTEXT, expected, "", MetricType.COUNTER);
+    processorService = createParallelProcessorService(metricStore, partitions, 3);
+    processorService.startAndWait();
+    try {
+      Tasks.waitFor(101L, metricStore::getMetricsProcessedByMetricsProcessor,
+                    15, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+      assertMetricsResult(expected, metricStore.getAllMetrics());
+    } finally {
+      processorService.stopAndWait();
+    }
+  }
+
+  private MessagingMetricsProcessorService createParallelProcessorService(MetricStore metricStore,
+                                                                          Set<Integer> partitions, int writers) {
+    List<MetricsWriter> metricsWriters = new ArrayList<>();
+    for (int i = 0; i < writers; i++) {
+      metricsWriters.add(new SynchronizedMetricStoreWriter(metricStore));
+    }
+    return new MessagingMetricsProcessorService(cConf, injector.getInstance(MetricDatasetFactory.class),
+                                                messagingService, injector.getInstance(SchemaGenerator.class),
+                                                injector.getInstance(DatumReaderFactory.class), metricsWriters,
+                                                partitions, new NoopMetricsContext(), 50, 0);
+  }
+
   private void assertMetricsResult(Map<String, Long> expected, Map<String, Long> actual) {
     for (Map.Entry<String, Long> metric : expected.entrySet()) {
       Long actualValue = actual.get(metric.getKey());
@@ -140,6 +205,40 @@ public class MessagingMetricsProcessorManagerServiceTest extends MetricsProcesso
     }
   }
 
+  /**
+   * A {@link MetricsWriter} that writes to a shared {@link MetricStore}, with writes serialized on the store.
+   */
+  private static final class SynchronizedMetricStoreWriter implements MetricsWriter {
+
+    private final MetricStore metricStore;
+
+    SynchronizedMetricStoreWriter(MetricStore metricStore) {
+      this.metricStore = metricStore;
+    }
+
+    @Override
+    public void write(Collection<MetricValues> metricValues) {
+      synchronized (metricStore) {
+        metricStore.add(metricValues);
+      }
+    }
+
+    @Override
+    public void initialize(MetricsWriterContext metricsWriterContext) {
+      // no-op
+    }
+
+    @Override
+    public String getID() {
+      return "SYNCHRONIZED_METRICS_STORE";
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+  }
+
   private static class MockMetricStore implements MetricStore {
 
     private final Map<String, Long> userMetricsMap = new HashMap<>();
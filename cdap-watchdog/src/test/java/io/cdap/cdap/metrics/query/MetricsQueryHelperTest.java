@@ -62,6 +62,7 @@ public class MetricsQueryHelperTest {
     Assert.assertEquals(60, helper.getResolution("1m", 1000L, 100000L).intValue());
     Assert.assertEquals(3600, helper.getResolution("1h", 100L, 10000L).intValue());
     Assert.assertEquals(60, helper.getResolution("60s", 100L, 10000L).intValue());
+    Assert.assertEquals(86400, helper.getResolution("1d", 100L, 10000L).intValue());
 
     // test resolution is auto
     // if 0 < ts diff <= 600, second resolution will be used